@@ -0,0 +1,111 @@
+/* Function ending with an infinite loop but with a break statement nested in deeply
+ * nested infinite loops inside. */
+
+package main
+
+func foo(x, y int) int {
+    x++
+    if x > y {
+        return x
+    }
+    for {
+        x++
+        if x > y {
+            return x
+        }
+        for {
+            x++
+            if x > y {
+                return x
+            }
+            for {
+                x++
+                if x > y {
+                    return x
+                }
+                for {
+                    x++
+                    if x > y {
+                        return x
+                    }
+                    for {
+                        x++
+                        if x > y {
+                            return x
+                        }
+                        for {
+                            x++
+                            if x > y {
+                                return x
+                            }
+                            for {
+                                x++
+                                if x > y {
+                                    return x
+                                }
+                                for {
+                                    x++
+                                    if x > y {
+                                        return x
+                                    }
+                                    for {
+                                        x++
+                                        if x > y {
+                                            return x
+                                        }
+                                        for {
+                                            x++
+                                            if x > y {
+                                                return x
+                                            }
+                                            for {
+                                                x++
+                                                if x > y {
+                                                    return x
+                                                }
+                                                for {
+                                                    x++
+                                                    if x > y {
+                                                        return x
+                                                    }
+                                                    for {
+                                                        x++
+                                                        if x > y {
+                                                            return x
+                                                        }
+                                                        for {
+                                                            x++
+                                                            if x > y {
+                                                                return x
+                                                            }
+                                                            for {
+                                                                x++
+                                                                if x > y {
+                                                                    return x
+                                                                }
+                                                                for {
+                                                                    y--
+                                                                    if (x < y) {
+                                                                        break
+                                                                    }
+                                                                }
+                                                            }
+                                                        }
+                                                    }
+                                                }
+                                            }
+                                        }
+                                    }
+                                }
+                            }
+                        }
+                    }
+                }
+            }
+        }
+    }
+}
+
+func main() {
+    // Do nothing.
+}
@@ -1,68 +1,44 @@
 #!/bin/bash
 
-valid_progs=$(find valid -regex ".*/[^/]*.go")
-invalid_progs=$(find invalid -regex ".*/[^/]*.go")
-total=$(find . -regex ".*/[^/]*.go")
 valid_prog_cnt=$(find valid -regex ".*/[^/]*.go" | wc -l | tr -d '[[:space:]]')
 invalid_prog_cnt=$(find invalid -regex ".*/[^/]*.go" | wc -l | tr -d '[[:space:]]')
 total_cnt=$((valid_prog_cnt + invalid_prog_cnt))
-valid="VALID"
-invalid="INVALID"
-valid_ok=0
-valid_bad=0
-invalid_ok=0
-invalid_bad=0
-total_ok=0
-total_bad=0
 
-export CLASSPATH=$CLASSPATH:../src/
+export CLASSPATH=$CLASSPATH:../src/:../src/jars/commons-cli-1.3.1.jar
 
+manifests=$(mktemp -d)
+trap 'rm -rf $manifests' EXIT
+
+# Checks every program of a folder in as few JVMs as possible, one "path: VALID|INVALID (...)"
+# line per program: those under a parse/ or weeding/ folder up to parsing (which weeds), and the
+# others up to type checking.
 calljava()
-{	if [[ $f1 =~ "/parse/" ]]; then
-		output=$(java golite/Main -parse $f1)
-	elif [[ $f1 =~ "/weeding/" ]]; then
-		output=$(java golite/Main -weed $f1)
-	elif [[ $f1 =~ "/type/" ]]; then
-		output=$(java golite/Main -type $f1)
-	elif [[ $f1 =~ "/actual/" ]]; then
-		output=$(java golite/Main -type $f1)
-	elif [[ $f1 =~ "/general/" ]]; then
-		output=$(java golite/Main -type $f1)
-	else
-		output=$(java golite/Main -type $f1)
-	fi
-	echo $output
+{
+	find $PWD/$1 -regex ".*/\(parse\|weeding\)/[^/]*.go" > $manifests/$1.parse
+	find $PWD/$1 -regex ".*/[^/]*.go" ! -regex ".*/\(parse\|weeding\)/[^/]*.go" > $manifests/$1.type
+
+	for phase in parse type
+	do
+		if [[ -s $manifests/$1.$phase ]]
+		then
+			java golite.Main -batch -$phase $manifests/$1.$phase | grep -E ": (VALID|INVALID)"
+		fi
+	done
 }
 
-for f1 in $valid_progs
-do
-	output=$(calljava)
-	if [[ $output = "VALID" ]]
-	then
-		((valid_ok++))
-		((total_ok++))
-	else
-		echo $f1
-		echo $output
-		((valid_bad++))
-		((total_bad++))
-	fi
-done
+valid_report=$(calljava valid)
+invalid_report=$(calljava invalid)
+
+# Programs with the wrong outcome.
+echo "$valid_report" | grep ": INVALID"
+echo "$invalid_report" | grep ": VALID$"
 
-for f2 in $invalid_progs
-do
-	output=$(calljava)
-	if [[ $output = "INVALID" ]]
-	then
-		((invalid_ok++))
-		((total_ok++))
-	else
-		echo $f2
-		echo $output
-		((invalid_bad++))
-		((total_bad++))
-	fi
-done
+valid_ok=$(echo "$valid_report" | grep -c ": VALID$")
+valid_bad=$((valid_prog_cnt - valid_ok))
+invalid_ok=$(echo "$invalid_report" | grep -c ": INVALID")
+invalid_bad=$((invalid_prog_cnt - invalid_ok))
+total_ok=$((valid_ok + invalid_ok))
+total_bad=$((valid_bad + invalid_bad))
 
 echo "Valid OK: $valid_ok/$valid_prog_cnt"
 echo "Valid BAD: $valid_bad/$valid_prog_cnt"
@@ -71,3 +47,5 @@ echo "Invalid BAD: $invalid_bad/$invalid_prog_cnt"
 echo "Total OK: $total_ok/$total_cnt"
 echo "Total BAD: $total_bad/$total_cnt"
 
+# Fail if any program had the wrong outcome.
+[[ $total_bad -eq 0 ]]
@@ -0,0 +1,65 @@
+/* Lookups of fields by name in a wide struct. */
+
+package main
+
+type wide struct {
+	f00 int
+	f01 int
+	f02 int
+	f03 int
+	f04 int
+	f05 int
+	f06 int
+	f07 int
+	f08 int
+	f09 int
+	f10 int
+	f11 int
+	f12 int
+	f13 int
+	f14 int
+	f15 int
+	f16 int
+	f17 int
+	f18 int
+	f19 int
+	name string
+	f20 int
+	f21 int
+	f22 int
+	f23 int
+	f24 int
+	f25 int
+	f26 int
+	f27 int
+	f28 int
+	f29 int
+	f30 int
+	f31 int
+	f32 int
+	f33 int
+	f34 int
+	f35 int
+	f36 int
+	f37 int
+	f38 int
+	f39 int
+}
+
+func main() {
+	var w wide
+	println(w.f00, w.f20, w.f39, w.name)
+
+	for i := 0; i < 3; i++ {
+		w.f00 += i
+		w.f20 = w.f00 * 2
+		w.f39 = w.f20 + w.f00
+	}
+	w.name = "wide"
+	println(w.f00, w.f20, w.f39, w.name)
+
+	var v wide
+	println(v == w)
+	v = w
+	println(v == w)
+}
@@ -0,0 +1,107 @@
+/* Function ending with deeply nested infinite loops, none of which break. */
+
+package main
+
+func foo(x, y int) int {
+	x++
+	if x > y {
+		return x
+	}
+	for {
+		x++
+		if x > y {
+			return x
+		}
+		for {
+			x++
+			if x > y {
+				return x
+			}
+			for {
+				x++
+				if x > y {
+					return x
+				}
+				for {
+					x++
+					if x > y {
+						return x
+					}
+					for {
+						x++
+						if x > y {
+							return x
+						}
+						for {
+							x++
+							if x > y {
+								return x
+							}
+							for {
+								x++
+								if x > y {
+									return x
+								}
+								for {
+									x++
+									if x > y {
+										return x
+									}
+									for {
+										x++
+										if x > y {
+											return x
+										}
+										for {
+											x++
+											if x > y {
+												return x
+											}
+											for {
+												x++
+												if x > y {
+													return x
+												}
+												for {
+													x++
+													if x > y {
+														return x
+													}
+													for {
+														x++
+														if x > y {
+															return x
+														}
+														for {
+															x++
+															if x > y {
+																return x
+															}
+															for {
+																x++
+																if x > y {
+																	return x
+																}
+																for {
+																	y--
+																}
+															}
+														}
+													}
+												}
+											}
+										}
+									}
+								}
+							}
+						}
+					}
+				}
+			}
+		}
+	}
+}
+
+func main() {
+	// Do nothing.
+}
@@ -0,0 +1,137 @@
+package test;
+
+import golite.ASTEncoder;
+import golite.CompactAST;
+import golite.CompilationUnit;
+import golite.lexer.LexerException;
+import golite.node.*;
+import golite.parser.ParserException;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertSame;
+import org.junit.Test;
+
+
+/**
+ * Checks the layout of the compact form of a small AST: the kind, children, text, line and
+ * position of every node, in pre-order.
+ */
+public class GoLiteCompactASTTest {
+
+    /** Program with a list of two elements, empty lists, an absent child and a repeated name. */
+    private static final String PROGRAM = String.join("\n",
+        "package main",
+        "",
+        "var x, y int",
+        "",
+        "func f() {",
+        "\tx = y",
+        "}",
+        "");
+
+    /**
+     * Lowers the AST of a program into its compact form.
+     *
+     * @param program - GoLite program
+     * @return Compact AST
+     * @throws IOException
+     * @throws Compiler-specific exceptions if a failure is encountered during parsing
+     */
+    private static CompactAST lower(String program)
+        throws IOException, LexerException, ParserException {
+
+        return CompactAST.of(CompilationUnit.ofString(program, false).getAST());
+    }
+
+    /**
+     * Describes every node of a compact AST, one line each, as "ID kind [children] text
+     * line:pos".
+     *
+     * @param ast - Compact AST
+     * @return Description
+     */
+    private static List<String> layout(CompactAST ast) {
+        List<String> nodes = new ArrayList<String>();
+        for (int node = 0; node < ast.size(); node++) {
+            StringBuilder sb = new StringBuilder();
+            sb.append(node + " " + CompactAST.kindName(ast.kind(node)) + " [");
+            for (int slot = 0; slot < ast.arity(node); slot++)
+                sb.append((slot == 0) ? "" : " ").append(ast.child(node, slot));
+            sb.append("] " + ast.text(node) + " " + ast.line(node) + ":" + ast.pos(node));
+
+            nodes.add(sb.toString());
+        }
+
+        return nodes;
+    }
+
+    @Test
+    public void layoutTest() throws IOException, LexerException, ParserException {
+        // Nodes without a token of their own are located at the next token, and the empty
+        // formals of f and its absent result type are an empty list and a -1.
+        assertEquals(Arrays.asList(
+            "0 Start [1 26] null 1:9",
+            "1 AProgProg [2 3] null 1:9",
+            "2 TId [] main 1:9",
+            "3 List [4 15] null 3:5",
+            "4 AVarsTopDec [5] null 3:5",
+            "5 List [6] null 3:5",
+            "6 ASpecVarSpec [7 12 14] null 3:5",
+            "7 List [8 10] null 3:5",
+            "8 AIdOptId [9] null 3:5",
+            "9 TId [] x 3:5",
+            "10 AIdOptId [11] null 3:8",
+            "11 TId [] y 3:8",
+            "12 AIntTypeExpr [13] null 3:10",
+            "13 TInt [] int 3:10",
+            "14 List [] null 5:6",
+            "15 AFuncTopDec [16 17 -1 18] null 5:6",
+            "16 TId [] f 5:6",
+            "17 List [] null 6:2",
+            "18 List [19] null 6:2",
+            "19 AAssignStmt [20 23] null 6:2",
+            "20 List [21] null 6:2",
+            "21 AVariableExpr [22] null 6:2",
+            "22 TId [] x 6:2",
+            "23 List [24] null 6:6",
+            "24 AVariableExpr [25] null 6:6",
+            "25 TId [] y 6:6",
+            "26 EOF []  8:1"),
+            layout(lower(PROGRAM)));
+    }
+
+    @Test
+    public void kindsTest() throws IOException, LexerException, ParserException {
+        CompactAST ast = lower(PROGRAM);
+
+        assertEquals(CompactAST.LIST, ast.kind(3));
+        assertEquals(CompactAST.kindOf(AFuncTopDec.class), ast.kind(15));
+        assertEquals("AFuncTopDec", CompactAST.kindName(CompactAST.kindOf(AFuncTopDec.class)));
+    }
+
+    @Test
+    public void textInternedTest() throws IOException, LexerException, ParserException {
+        CompactAST ast = lower(PROGRAM);
+
+        assertSame(ast.text(9), ast.text(22));
+        assertSame(ast.text(11), ast.text(25));
+    }
+
+    @Test
+    public void encodingTest() throws IOException, LexerException, ParserException {
+        Start start = CompilationUnit.ofString(PROGRAM, false).getAST();
+        ASTEncoder encoder = new ASTEncoder();
+        start.apply(encoder);
+
+        assertEquals("(Start (AProgProg (AVarsTopDec (ASpecVarSpec (AIdOptId x) (AIdOptId y) " +
+            "(AIntTypeExpr))) (AFuncTopDec (AAssignStmt (AVariableExpr x) " +
+            "(AVariableExpr y)))))", CompactAST.of(start).encode());
+        assertEquals(encoder.getEncoding(), CompactAST.of(start).encode());
+    }
+
+}
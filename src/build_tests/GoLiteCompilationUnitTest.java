@@ -0,0 +1,199 @@
+package test;
+
+import golite.CompilationUnit;
+import golite.GoLiteLexer;
+import golite.Weeder;
+import golite.exception.TypeCheckException;
+import golite.generator.CodeGenerator;
+import golite.symbol.SymbolTableLogger;
+import golite.type.GoLiteType;
+import golite.type.TypeChecker;
+import golite.lexer.*;
+import golite.node.*;
+import golite.parser.*;
+
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.PushbackReader;
+import java.io.StringReader;
+import java.io.StringWriter;
+import java.nio.charset.StandardCharsets;
+import java.util.Map;
+import java.util.concurrent.Callable;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+import org.junit.Test;
+
+
+/**
+ * Checks a compilation unit runs each front-end phase at most once, hands out the same results
+ * (or the same error) every time they're asked for, and gives the same results as running the
+ * phases by hand.
+ */
+public class GoLiteCompilationUnitTest {
+
+    /** Program that type checks. */
+    private static final String PROGRAM = String.join("\n",
+        "package main",
+        "",
+        "type celsius float64",
+        "",
+        "var low, high celsius",
+        "",
+        "func warmer(t, by float64) float64 {",
+        "\treturn t + by",
+        "}",
+        "",
+        "func main() {",
+        "\tvar w float64 = warmer(1.0, 1.5)",
+        "\thigh = celsius(w)",
+        "\tlow = high",
+        "\tprintln(w)",
+        "}",
+        "");
+
+    /** Program that parses and weeds, but doesn't type check. */
+    private static final String TYPE_ERROR_PROGRAM = String.join("\n",
+        "package main",
+        "",
+        "var x int = \"one\"",
+        "");
+
+    /** Program that doesn't parse. */
+    private static final String SYNTAX_ERROR_PROGRAM = String.join("\n",
+        "package main",
+        "",
+        "var x int =",
+        "");
+
+    /**
+     * Writes a program to a temporary file.
+     *
+     * @param program - GoLite program
+     * @return Program file
+     * @throws IOException
+     */
+    private static File write(String program) throws IOException {
+        File file = File.createTempFile("golite", ".go");
+        file.deleteOnExit();
+        try (FileOutputStream out = new FileOutputStream(file)) {
+            out.write(program.getBytes(StandardCharsets.UTF_8));
+        }
+
+        return file;
+    }
+
+    /**
+     * Generates the code of a type checked AST.
+     *
+     * @param ast - Weeded AST
+     * @param typeTable - Its type table
+     * @return Generated Python code
+     */
+    private static String generateCode(Start ast, Map<Node, GoLiteType> typeTable) {
+        CodeGenerator codeGenerator = new CodeGenerator(typeTable, true);
+        ast.apply(codeGenerator);
+
+        return codeGenerator.getGeneratedCode();
+    }
+
+    /**
+     * Asks for the result of a phase that fails.
+     *
+     * @param phase - Phase
+     * @return Error thrown
+     */
+    private static Exception error(Callable<?> phase) {
+        try {
+            phase.call();
+        } catch (Exception e) {
+            return e;
+        }
+
+        throw new AssertionError("No error thrown");
+    }
+
+    @Test
+    public void phasesRunOnceTest() throws IOException, LexerException, ParserException {
+        File file = write(PROGRAM);
+        CompilationUnit unit = CompilationUnit.ofFile(file.getPath(), false);
+
+        Start ast = unit.getAST();
+        Map<Node, GoLiteType> typeTable = unit.getTypeTable();
+
+        // The program isn't read again, nor the AST rebuilt or type checked again.
+        file.delete();
+        assertSame(ast, unit.getAST());
+        assertSame(ast, unit.getWeededAST());
+        assertSame(typeTable, unit.getTypeTable());
+        assertSame(unit.getSymbolTable(), unit.getSymbolTable());
+    }
+
+    @Test
+    public void symbolTableLoggedOnceTest() throws IOException, LexerException, ParserException {
+        StringWriter log = new StringWriter();
+        CompilationUnit unit = CompilationUnit.ofString(PROGRAM, false);
+        try (SymbolTableLogger logger = new SymbolTableLogger(log)) {
+            unit.setSymbolTableListener(logger);
+            unit.getSymbolTable();
+            unit.getTypeTable();
+            unit.getSymbolTable();
+        }
+
+        StringWriter expected = new StringWriter();
+        TypeChecker typeChecker = new TypeChecker();
+        try (SymbolTableLogger logger = new SymbolTableLogger(expected)) {
+            typeChecker.setSymbolTableListener(logger);
+            CompilationUnit.ofString(PROGRAM, false).getWeededAST().apply(typeChecker);
+        }
+
+        assertEquals(expected.toString(), log.toString());
+    }
+
+    @Test
+    public void samePhaseResultsTest() throws IOException, LexerException, ParserException {
+        Lexer lexer = new GoLiteLexer(new PushbackReader(new StringReader(PROGRAM), 1024));
+        Start ast = new Parser(lexer).parse();
+        ast.apply(new Weeder());
+        TypeChecker typeChecker = new TypeChecker();
+        ast.apply(typeChecker);
+
+        CompilationUnit unit = CompilationUnit.ofFile(write(PROGRAM).getPath(), false);
+
+        assertEquals(generateCode(ast, typeChecker.getTypeTable()),
+            generateCode(unit.getWeededAST(), unit.getTypeTable()));
+    }
+
+    @Test
+    public void typeErrorCachedTest() throws IOException, LexerException, ParserException {
+        CompilationUnit unit = CompilationUnit.ofString(TYPE_ERROR_PROGRAM, false);
+
+        Exception error = error(unit::getTypeTable);
+        assertTrue(error instanceof TypeCheckException);
+        assertEquals("[3,13] Cannot use value of type string for int", error.getMessage());
+
+        // The same error is thrown again, while the phases before still have their results.
+        assertSame(error, error(unit::getSymbolTable));
+        assertSame(error, error(unit::getTypeTable));
+        assertSame(unit.getAST(), unit.getWeededAST());
+    }
+
+    @Test
+    public void syntaxErrorCachedTest() throws IOException {
+        File file = write(SYNTAX_ERROR_PROGRAM);
+        CompilationUnit unit = CompilationUnit.ofFile(file.getPath(), false);
+
+        Exception error = error(unit::getAST);
+        assertTrue(error instanceof ParserException);
+
+        // Every later phase fails with the parser's error, without reading the program again.
+        file.delete();
+        assertSame(error, error(unit::getAST));
+        assertSame(error, error(unit::getWeededAST));
+        assertSame(error, error(unit::getTypeTable));
+    }
+
+}
@@ -0,0 +1,190 @@
+package test;
+
+import golite.CompilationUnit;
+import golite.Diagnostics;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+import org.junit.Test;
+
+
+/**
+ * Checks carrying on after errors (-allerrors) on programs with several errors: the errors
+ * reported, in order, and where the phases pick up after each of them.
+ */
+public class GoLiteDiagnosticsTest {
+
+    /** Program with two syntax errors in statements of a block, each ended by a semi-colon. */
+    private static final String SEMI_COLON_ERRORS = String.join("\n",
+        "package main",
+        "",
+        "func main() {",
+        "\tvar a int = 1",
+        "\ta = (2 ]",
+        "\ta = 3",
+        "\ta = 4 4",
+        "\tprintln(a)",
+        "}",
+        "");
+
+    /** Program with syntax errors in statements ended by the closing brace of their block. */
+    private static final String CLOSING_BRACE_ERRORS = String.join("\n",
+        "package main",
+        "",
+        "func f() {",
+        "\tif true { f( }",
+        "\tfor { break ] }",
+        "}",
+        "",
+        "func g() int {",
+        "\treturn 1 +",
+        "}",
+        "");
+
+    /** Program with several weeding errors, across functions. */
+    private static final String WEEDING_ERRORS = String.join("\n",
+        "package main",
+        "",
+        "func main() {",
+        "\tbreak",
+        "\tvar x int",
+        "\tx + 1",
+        "\tcontinue",
+        "}",
+        "",
+        "func f() int {",
+        "\tfor {",
+        "\t\tbreak",
+        "\t}",
+        "}",
+        "");
+
+    /**
+     * Program with three type errors, each in the declaration of a variable that's then used
+     * (which mustn't be reported again).
+     */
+    private static final String TYPE_ERRORS = String.join("\n",
+        "package main",
+        "",
+        "func main() {",
+        "\tvar x = y",
+        "\tx = x + 1",
+        "\tprintln(x, x * 2)",
+        "\tvar s string = 1",
+        "\tvar b bool = s",
+        "\tprintln(b)",
+        "\tvar n int = \"n\"",
+        "\tn++",
+        "}",
+        "");
+
+    /** Program with a syntax error and a type error. */
+    private static final String SYNTAX_AND_TYPE_ERRORS = String.join("\n",
+        "package main",
+        "",
+        "func main() {",
+        "\tvar s string = 1",
+        "\ts = (2 ]",
+        "}",
+        "");
+
+    /**
+     * Diagnoses a program, carrying on after errors.
+     *
+     * @param program - GoLite program
+     * @param limit - Maximum number of errors
+     * @param truncated - Whether errors are expected to be dropped past the limit
+     * @return Errors reported, in order
+     * @throws IOException
+     */
+    private static List<String> diagnose(String program, int limit, boolean truncated)
+        throws IOException {
+
+        Diagnostics diagnostics = new Diagnostics(limit);
+        CompilationUnit.ofString(program, false).diagnose(diagnostics, true);
+
+        assertEquals("truncated", truncated, diagnostics.isTruncated());
+
+        List<String> errors = new ArrayList<String>();
+        for (Exception e : diagnostics.getErrors())
+            errors.add(e.toString());
+
+        return errors;
+    }
+
+    @Test
+    public void resyncsAtSemiColonTest() throws IOException {
+        assertEquals(Arrays.asList(
+            "golite.parser.ParserException: [5,9] expecting: ')'",
+            "golite.parser.ParserException: [7,8] expecting: ';'"),
+            diagnose(SEMI_COLON_ERRORS, 10, false));
+    }
+
+    @Test
+    public void resyncsAtClosingBraceTest() throws IOException {
+        assertEquals(Arrays.asList(
+            "golite.parser.ParserException: [4,15] expecting: ')'",
+            "golite.parser.ParserException: [5,14] expecting: ';'",
+            "golite.parser.ParserException: [10,1] expecting: expression"),
+            diagnose(CLOSING_BRACE_ERRORS, 10, false));
+    }
+
+    @Test
+    public void weederCarriesOnTest() throws IOException {
+        // Statements without a token of their own are located at the next token.
+        assertEquals(Arrays.asList(
+            "golite.exception.WeederException: [5,6] break outside loop",
+            "golite.exception.WeederException: [6,2] Evaluated but not used",
+            "golite.exception.WeederException: [10,6] continue outside loop",
+            "golite.exception.WeederException: [15,1] Missing return"),
+            diagnose(WEEDING_ERRORS, 10, false));
+    }
+
+    @Test
+    public void errorTypeSuppressesCascadesTest() throws IOException {
+        assertEquals(Arrays.asList(
+            "golite.exception.TypeCheckException: [4,10] Undefined: y",
+            "golite.exception.TypeCheckException: [7,17] Cannot use type int as type string " +
+                "in assignment",
+            "golite.exception.TypeCheckException: [10,14] Cannot use type string as type int " +
+                "in assignment"),
+            diagnose(TYPE_ERRORS, 10, false));
+    }
+
+    @Test
+    public void maxErrorsCapsTest() throws IOException {
+        assertEquals(Arrays.asList(
+            "golite.exception.TypeCheckException: [4,10] Undefined: y",
+            "golite.exception.TypeCheckException: [7,17] Cannot use type int as type string " +
+                "in assignment"),
+            diagnose(TYPE_ERRORS, 2, true));
+        assertEquals(3, diagnose(TYPE_ERRORS, 3, false).size());
+        assertEquals(Arrays.asList(
+            "golite.parser.ParserException: [4,15] expecting: ')'"),
+            diagnose(CLOSING_BRACE_ERRORS, 1, true));
+    }
+
+    @Test
+    public void laterPhasesSkippedAfterErrorsTest() throws IOException {
+        assertEquals(Arrays.asList(
+            "golite.parser.ParserException: [5,9] expecting: ')'"),
+            diagnose(SYNTAX_AND_TYPE_ERRORS, 10, false));
+    }
+
+    @Test
+    public void noErrorsTest() throws IOException {
+        Diagnostics diagnostics = new Diagnostics(1);
+        CompilationUnit.ofString("package main\n\nfunc main() {\n\tprintln(1)\n}\n", false)
+            .diagnose(diagnostics, true);
+
+        assertFalse(diagnostics.hasErrors());
+        assertTrue(diagnostics.getErrors().isEmpty());
+    }
+
+}
@@ -0,0 +1,570 @@
+package test;
+
+import golite.ASTEncoder;
+import golite.CompactAST;
+import golite.CompilationUnit;
+import golite.Diagnostics;
+import golite.GoLiteLexer;
+import golite.GoLiteScanner;
+import golite.MappedSourceReader;
+import golite.StreamingCompiler;
+import golite.TokenKind;
+import golite.TypedASTFile;
+import golite.TypedPrettyPrinter;
+import golite.exception.SymbolTableException;
+import golite.exception.TypeCheckException;
+import golite.exception.WeederException;
+import golite.generator.CodeGenerator;
+import golite.generator.CodeWriter;
+import golite.symbol.SymbolTableLogger;
+import golite.type.AliasType;
+import golite.type.ArrayType;
+import golite.type.GoLiteType;
+import golite.type.SliceType;
+import golite.type.StructType;
+import golite.util.LineAndPosTracker;
+import golite.analysis.*;
+import golite.lexer.*;
+import golite.parser.*;
+import golite.node.*;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.StringWriter;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.EnumSet;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import static org.junit.Assert.assertEquals;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.junit.runners.Parameterized;
+import org.junit.runners.Parameterized.Parameters;
+
+
+/**
+ * Differential test: compiles every program in two modes (sets of command-line flags), and checks
+ * the outputs of the phases both modes are meant to agree on are exactly the same, be it the
+ * tokens, the AST and the position of its nodes, the outcome of type checking (the first error, or
+ * VALID), the symbol table activity, the type of every node, the typed pretty print, or the code
+ * generated with and without wrap-arounds.
+ *
+ * Each variant of the compiler is a parameter of the test: a mode, the mode it's checked against,
+ * and the outputs compared (See {@link #variants()}).
+ */
+@RunWith(Parameterized.class)
+public class <<<INSERT NAME HERE>>> {
+
+    /** Outputs of compiling a program. */
+    private enum Output {
+        /** Tokens, with and without trivia. */
+        TOKENS,
+        /** AST (treebank encoding, then the class, line, position and text of each node). */
+        AST,
+        /** Outcome of type checking: VALID, or the first error. */
+        OUTCOME,
+        /** Symbol table activity, on programs that type check. */
+        SYMBOLS,
+        /** Type of each node, on programs that type check. */
+        TYPES,
+        /** Typed pretty print, on programs that type check. */
+        PRETTY,
+        /** Generated code, with and without wrap-arounds (or the outcome if it isn't VALID). */
+        CODE
+    }
+
+    /** Filepaths to GoLite programs. */
+    private static final String[] PROGRAMS = {
+<<<INSERT PROGRAMS HERE>>>
+    };
+
+    /**
+     * A way of compiling a program: the command-line flags picking the implementation of each
+     * phase, along with "compact" for the AST lowered into a {@link CompactAST}, and -load for the
+     * program saved to a typed AST file and loaded back (if it type checks).
+     */
+    private static class Mode {
+
+        /** Flags, as given on the command line. */
+        private final String flags;
+
+        /**
+         * Constructor.
+         *
+         * @param flags - Flags, separated by spaces
+         */
+        Mode(String flags) {
+            this.flags = flags;
+        }
+
+        /**
+         * @param flag - Flag
+         * @return True if the mode has the flag, false otherwise
+         */
+        boolean has(String flag) {
+            return Arrays.asList(this.flags.split(" ")).contains(flag);
+        }
+
+        /**
+         * Compiles a GoLite program.
+         *
+         * @param inPath - Filepath to GoLite program
+         * @param outputs - Outputs to give
+         * @param exactSyntaxErrors - Flag indicating whether to give syntax errors as they are,
+         *  rather than only their class (The parsers word them differently)
+         * @return The outputs, each after its name
+         * @throws IOException if something goes wrong with the reading of the program
+         */
+        String compile(String inPath, Set<Output> outputs, boolean exactSyntaxErrors)
+            throws IOException {
+
+            StringBuilder out = new StringBuilder();
+
+            if (outputs.contains(Output.TOKENS)) {
+                out.append("tokens:\n").append(this.tokens(inPath, false))
+                    .append("effective tokens:\n").append(this.tokens(inPath, true));
+            }
+
+            StringWriter symbols = new StringWriter();
+            CompilationUnit unit = CompilationUnit.ofFile(inPath, this.has("-ut"),
+                this.has("-fastscan"), this.has("-rdparse"), this.has("-fuse"));
+            if (outputs.contains(Output.SYMBOLS))
+                unit.setSymbolTableListener(new SymbolTableLogger(symbols));
+            unit.setParallelTypeCheck(this.has("-partype"));
+
+            String outcome = outcome(unit);
+            boolean valid = outcome.equals("VALID");
+
+            if (this.has("-load") && valid)
+                unit = reload(unit, this.has("-ut"));
+
+            if (outputs.contains(Output.AST))
+                out.append("ast:\n").append(this.ast(unit));
+
+            if (this.has("-allerrors"))
+                outcome = firstDiagnostic(inPath, this.has("-ut"));
+            if (outputs.contains(Output.OUTCOME))
+                out.append("outcome: ").append(outcome).append('\n');
+
+            if (valid && outputs.contains(Output.SYMBOLS))
+                out.append("symbols:\n").append(symbols);
+            if (valid && outputs.contains(Output.TYPES))
+                out.append("types:\n").append(String.join("\n", typesInPreOrder(unit)));
+            if (valid && outputs.contains(Output.PRETTY))
+                out.append("pretty:\n").append(typedPrettyPrint(unit));
+
+            if (outputs.contains(Output.CODE)) {
+                for (boolean wrap : new boolean[] {false, true}) {
+                    out.append(wrap ? "code (safe):\n" : "code:\n");
+
+                    if (this.has("-stream"))
+                        out.append(streamedCode(inPath, wrap));
+                    else if (valid)
+                        out.append(generatedCode(unit, wrap, this.has("-pargen")));
+                    else
+                        out.append(outcome);
+                }
+            }
+
+            // Keep only the class of syntax errors.
+            return exactSyntaxErrors ? out.toString() : out.toString().replaceAll(
+                "golite\\.(lexer|parser)\\.(LexerException|ParserException): .*", "$2");
+        }
+
+        /**
+         * Scans a GoLite program to the end, with the generated lexer, or the hand-written scanner
+         * if the mode has -fastscan.
+         *
+         * @param inPath - Filepath to GoLite program
+         * @param effectiveOnly - Flag indicating whether to leave out blanks, comments and EOL's
+         *  (which the hand-written scanner then skips in place)
+         * @return The tokens, one per line, followed by the error if scanning failed
+         * @throws IOException if something goes wrong with the reading of the program
+         */
+        private String tokens(String inPath, boolean effectiveOnly) throws IOException {
+            Lexer lexer = !this.has("-fastscan") ? new GoLiteLexer(MappedSourceReader.open(inPath))
+                : new GoLiteScanner(MappedSourceReader.open(inPath), effectiveOnly);
+
+            StringBuilder tokens = new StringBuilder();
+            try {
+                Token token;
+                do {
+                    token = lexer.next();
+                    if (effectiveOnly && TokenKind.isTrivia(token))
+                        continue;
+
+                    tokens.append(token.getClass().getSimpleName()).append(" (")
+                        .append(token.getText()).append(") ").append(token.getLine()).append(':')
+                        .append(token.getPos()).append('\n');
+                } while (!(token instanceof EOF));
+            } catch (LexerException e) {
+                tokens.append("ERROR: ").append(e).append('\n');
+            }
+
+            return tokens.toString();
+        }
+
+        /**
+         * Gives the AST of a GoLite program: its treebank encoding, then the class, line and
+         * position of each node in pre-order, along with the text of tokens. The AST is lowered
+         * into a {@link CompactAST} first if the mode has "compact".
+         *
+         * @param unit - GoLite program
+         * @return AST, or the error if the program doesn't scan or parse
+         * @throws IOException if something goes wrong with the reading of the program
+         */
+        private String ast(CompilationUnit unit) throws IOException {
+            Start tree;
+            try {
+                tree = unit.getAST();
+            } catch (LexerException|ParserException e) {
+                return "ERROR: " + e + "\n";
+            }
+
+            StringBuilder sb = new StringBuilder();
+            if (this.has("compact")) {
+                CompactAST compact = CompactAST.of(tree);
+
+                sb.append(compact.encode()).append('\n');
+                for (int id = compact.root(); id < compact.size(); id++) {
+                    if (compact.kind(id) == CompactAST.LIST)
+                        continue;
+
+                    sb.append(CompactAST.kindName(compact.kind(id))).append(' ')
+                        .append(compact.line(id)).append(':').append(compact.pos(id));
+                    if (compact.text(id) != null)
+                        sb.append(" (").append(compact.text(id)).append(')');
+                    sb.append('\n');
+                }
+            } else {
+                ASTEncoder encoder = new ASTEncoder();
+                tree.apply(encoder);
+
+                sb.append(encoder.getEncoding()).append('\n');
+                tree.apply(new DepthFirstAdapter() {
+                    @Override
+                    public void defaultIn(Node node) {
+                        this.append(node);
+                    }
+
+                    @Override
+                    public void defaultCase(Node node) {
+                        this.append(node);
+                    }
+
+                    private void append(Node node) {
+                        sb.append(node.getClass().getSimpleName()).append(' ')
+                            .append(LineAndPosTracker.getLine(node)).append(':')
+                            .append(LineAndPosTracker.getPos(node));
+                        if (node instanceof Token)
+                            sb.append(" (").append(((Token) node).getText()).append(')');
+                        sb.append('\n');
+                    }
+                });
+            }
+
+            return sb.toString();
+        }
+
+        @Override
+        public String toString() {
+            return this.flags.isEmpty() ? "(no flags)" : this.flags;
+        }
+
+    }
+
+    /**
+     * @return Variants, each a name, the mode of the variant, the mode it's checked against, the
+     *  outputs compared, and whether syntax errors are compared as they are
+     */
+    @Parameters(name = "{0}")
+    public static Collection<Object[]> variants() {
+        List<Object[]> variants = new ArrayList<Object[]>();
+
+        // The hand-written scanner produces the same tokens as the generated lexer.
+        variants.add(variant("-fastscan", "", EnumSet.of(Output.TOKENS, Output.AST,
+            Output.OUTCOME, Output.CODE), true));
+        // The hand-written parser builds the same AST as the generated parser, or rejects the
+        // program as well.
+        variants.add(variant("-rdparse", "", EnumSet.of(Output.AST, Output.OUTCOME, Output.CODE),
+            false));
+
+        for (String ut : new String[] {"", " -ut"}) {
+            // Weeding in the type checker's traversal has the same outcome as weeding first.
+            variants.add(variant("-fuse" + ut, ut.trim(),
+                EnumSet.of(Output.OUTCOME, Output.TYPES, Output.CODE), true));
+            // Carrying on after errors reports the error stopping at the first one does first
+            // (parsing with the hand-written parser, as it always does then).
+            variants.add(variant("-rdparse -allerrors" + ut, "-rdparse" + ut,
+                EnumSet.of(Output.OUTCOME), true));
+            // Generating the function bodies in parallel generates the same code.
+            variants.add(variant("-pargen" + ut, ut.trim(), EnumSet.of(Output.CODE), true));
+        }
+
+        // Type checking the function bodies in parallel (which needs -ut) has the same outcome,
+        // symbol table activity and types as checking them in order.
+        variants.add(variant("-ut -partype", "-ut", EnumSet.of(Output.OUTCOME, Output.SYMBOLS,
+            Output.TYPES, Output.CODE), true));
+        // Compiling one top-level declaration at a time (which parses with the hand-written
+        // parser) generates the same code, or reports the same error.
+        variants.add(variant("-rdparse -stream", "-rdparse", EnumSet.of(Output.CODE), true));
+        // The compact form of the AST encodes and locates the same as the AST.
+        variants.add(variant("compact", "", EnumSet.of(Output.AST), true));
+        // A program loaded from a typed AST file is the same as the program itself.
+        variants.add(variant("-load", "", EnumSet.of(Output.AST, Output.TYPES, Output.PRETTY,
+            Output.CODE), true));
+
+        return variants;
+    }
+
+    /**
+     * @param flags - Flags of the variant's mode
+     * @param expectedFlags - Flags of the mode it's checked against
+     * @param outputs - Outputs compared
+     * @param exactSyntaxErrors - Whether syntax errors are compared as they are
+     * @return Test parameters
+     */
+    private static Object[] variant(String flags, String expectedFlags, Set<Output> outputs,
+        boolean exactSyntaxErrors) {
+
+        Mode expected = new Mode(expectedFlags);
+        Mode actual = new Mode(flags);
+
+        return new Object[] {actual + " vs " + expected, actual, expected, outputs,
+            exactSyntaxErrors};
+    }
+
+    /** Mode of the variant. */
+    private final Mode actual;
+    /** Mode it's checked against. */
+    private final Mode expected;
+    /** Outputs compared. */
+    private final Set<Output> outputs;
+    /** Flag indicating whether syntax errors are compared as they are. */
+    private final boolean exactSyntaxErrors;
+
+    /**
+     * Constructor.
+     */
+    public <<<INSERT NAME HERE>>>(String name, Mode actual, Mode expected, Set<Output> outputs,
+        boolean exactSyntaxErrors) {
+
+        this.actual = actual;
+        this.expected = expected;
+        this.outputs = outputs;
+        this.exactSyntaxErrors = exactSyntaxErrors;
+    }
+
+    @Test
+    public void agreementTest() throws IOException {
+        for (String inPath : PROGRAMS) {
+            assertEquals(inPath,
+                this.expected.compile(inPath, this.outputs, this.exactSyntaxErrors),
+                this.actual.compile(inPath, this.outputs, this.exactSyntaxErrors));
+        }
+    }
+
+    /**
+     * Type checks a GoLite program.
+     *
+     * @param unit - GoLite program
+     * @return VALID, or the error if the program doesn't make it through type checking
+     * @throws IOException if something goes wrong with the reading of the program
+     */
+    private static String outcome(CompilationUnit unit) throws IOException {
+        try {
+            unit.getTypeTable();
+            return "VALID";
+        } catch (LexerException|ParserException|WeederException|SymbolTableException|
+            TypeCheckException e) {
+            return e.toString();
+        }
+    }
+
+    /**
+     * Diagnoses a GoLite program, carrying on after errors.
+     *
+     * @param inPath - Filepath to GoLite program
+     * @param ut - Flag indicating whether top-declarations are allowed to be unordered
+     * @return VALID, or the first error reported
+     * @throws IOException if something goes wrong with the reading of the program
+     */
+    private static String firstDiagnostic(String inPath, boolean ut) throws IOException {
+        Diagnostics diagnostics = new Diagnostics(10);
+        CompilationUnit.ofFile(inPath, ut, false, true, false).diagnose(diagnostics, true);
+
+        return diagnostics.hasErrors() ? diagnostics.getErrors().get(0).toString() : "VALID";
+    }
+
+    /**
+     * Saves a type checked GoLite program to a typed AST file, and loads it back.
+     *
+     * @param unit - GoLite program (type checked)
+     * @param ut - Flag indicating whether top-declarations are allowed to be unordered
+     * @return Program loaded
+     * @throws IOException if something goes wrong with the writing or reading of the file
+     */
+    private static CompilationUnit reload(CompilationUnit unit, boolean ut) throws IOException {
+        File file = File.createTempFile("golite", ".tast");
+        try {
+            TypedASTFile.write(unit.getWeededAST(), unit.getTypeTable(), file.getPath());
+
+            return CompilationUnit.ofTypedAST(file.getPath(), ut);
+        } catch (LexerException|ParserException e) {
+            throw new AssertionError(e);
+        } finally {
+            file.delete();
+        }
+    }
+
+    /**
+     * Lists the types a type checked GoLite program's type table has for its nodes, in pre-order,
+     * so that the tables of two compilations of the program can be compared entry by entry.
+     *
+     * @param unit - GoLite program
+     * @return Type of each node that has one, after its index in pre-order and its class
+     * @throws IOException if something goes wrong with the reading of the program
+     */
+    private static List<String> typesInPreOrder(CompilationUnit unit) throws IOException {
+        try {
+            Map<Node, GoLiteType> typeTable = unit.getTypeTable();
+
+            List<String> types = new ArrayList<String>();
+            unit.getWeededAST().apply(new DepthFirstAdapter() {
+                /** Index of the next node in pre-order. */
+                private int index = 0;
+
+                @Override
+                public void defaultIn(Node node) {
+                    this.record(node);
+                }
+
+                @Override
+                public void defaultCase(Node node) {
+                    this.record(node);
+                }
+
+                private void record(Node node) {
+                    GoLiteType type = typeTable.get(node);
+                    if (type != null) {
+                        types.add(this.index + " " + node.getClass().getSimpleName() + ": " +
+                            describe(type));
+                    }
+
+                    this.index++;
+                }
+            });
+
+            // No types for nodes outside of the AST.
+            assertEquals(types.size(), typeTable.size());
+
+            return types;
+        } catch (LexerException|ParserException e) {
+            throw new AssertionError(e);
+        }
+    }
+
+    /**
+     * Describes a type down to its components (aliases with the types they alias, struct fields
+     * with their types), as equal types may print the same but be built differently.
+     *
+     * @param type - Type
+     * @return Description
+     */
+    private static String describe(GoLiteType type) {
+        if (type instanceof AliasType) {
+            return ((AliasType) type).getAlias() + "=" +
+                describe(((AliasType) type).getType());
+        } else if (type instanceof ArrayType) {
+            return "[" + ((ArrayType) type).getBound() + "]" +
+                describe(((ArrayType) type).getType());
+        } else if (type instanceof SliceType)
+            return "[]" + describe(((SliceType) type).getType());
+        else if (type instanceof StructType) {
+            StringBuilder sb = new StringBuilder("struct {");
+            for (Iterator<StructType.Field> it = ((StructType) type).getFieldIterator();
+                it.hasNext();) {
+                StructType.Field field = it.next();
+                sb.append(' ').append(field.getId()).append(' ').append(describe(field.getType()))
+                    .append(';');
+            }
+
+            return sb.append(" }").toString();
+        } else
+            return type.toString();
+    }
+
+    /**
+     * Typed pretty prints a type checked GoLite program.
+     *
+     * @param unit - GoLite program
+     * @return Typed pretty print
+     * @throws IOException if something goes wrong with the reading of the program
+     */
+    private static String typedPrettyPrint(CompilationUnit unit) throws IOException {
+        try {
+            TypedPrettyPrinter printer = new TypedPrettyPrinter(unit.getTypeTable());
+            unit.getWeededAST().apply(printer);
+
+            return printer.getPrettyPrint();
+        } catch (LexerException|ParserException e) {
+            throw new AssertionError(e);
+        }
+    }
+
+    /**
+     * Generates the code of a GoLite program that type checks.
+     *
+     * @param unit - GoLite program
+     * @param wrap - Flag indicating whether to enforce wrap-arounds for integers
+     * @param parallel - Flag indicating whether to generate the function bodies in parallel
+     * @return Generated code, or the error the generation stopped on, followed by the code
+     *  generated up to it
+     * @throws IOException if something goes wrong with the reading of the program
+     */
+    private static String generatedCode(CompilationUnit unit, boolean wrap, boolean parallel)
+        throws IOException {
+
+        CodeGenerator generator = null;
+        try {
+            generator = new CodeGenerator(unit.getTypeTable(), wrap);
+            generator.setParallel(parallel);
+            unit.getWeededAST().apply(generator);
+
+            return generator.getGeneratedCode();
+        } catch (LexerException|ParserException e) {
+            throw new AssertionError(e);
+        } catch (RuntimeException e) {
+            return e + "\n" + generator.getGeneratedCode();
+        }
+    }
+
+    /**
+     * Compiles a GoLite program one top-level declaration at a time.
+     *
+     * @param inPath - Filepath to GoLite program
+     * @param wrap - Flag indicating whether to enforce wrap-arounds for integers
+     * @return Generated code, the error if the program doesn't make it through type checking, or
+     *  the error the generation stopped on, followed by the code generated up to it
+     * @throws IOException if something goes wrong with the reading of the program
+     */
+    private static String streamedCode(String inPath, boolean wrap) throws IOException {
+        CodeWriter out = new CodeWriter();
+        try (MappedSourceReader in = MappedSourceReader.open(inPath)) {
+            new StreamingCompiler(false, wrap).compile(in, out);
+
+            return out.toString();
+        } catch (LexerException|ParserException|WeederException|SymbolTableException|
+            TypeCheckException e) {
+            return e.toString();
+        } catch (RuntimeException e) {
+            return e + "\n" + out.toString();
+        }
+    }
+
+}
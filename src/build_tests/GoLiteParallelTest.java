@@ -0,0 +1,148 @@
+package test;
+
+import golite.CompilationUnit;
+import golite.TypedPrettyPrinter;
+import golite.generator.CodeGenerator;
+import golite.lexer.LexerException;
+import golite.parser.ParserException;
+
+import java.io.IOException;
+import java.util.Arrays;
+import java.util.List;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+import org.junit.Test;
+
+
+/**
+ * Checks type checking (-partype) and generating (-pargen) the function bodies in parallel on
+ * programs of many functions, so that they're split in many runs: the first error in program
+ * order is the one reported, and the types and code are those of a serial pass.
+ */
+public class GoLiteParallelTest {
+
+    /** Number of functions of the synthetic programs (many runs per thread). */
+    private static final int FUNCTIONS = 512;
+
+    /**
+     * Writes a synthetic GoLite program of functions calling the next one, with a global variable
+     * declared every so many functions (which ends the run of functions before it).
+     *
+     * @param brokenFunctions - Functions whose body has a type error
+     * @param brokenGlobals - Functions followed by a global variable with a type error
+     * @return GoLite program
+     */
+    private static String program(List<Integer> brokenFunctions, List<Integer> brokenGlobals) {
+        StringBuilder program = new StringBuilder("package main\n\n");
+        program.append("func main() {\n\tprintln(f0(1))\n}\n\n");
+
+        for (int f = 0; f < FUNCTIONS; f++) {
+            String next = (f == FUNCTIONS - 1) ? "a" : "f" + (f + 1) + "(a - 1)";
+
+            if (f % 64 == 0)
+                program.append("var g" + (f / 64) + " int = " + f + "\n\n");
+
+            program.append("func f" + f + "(a int) int {\n");
+            program.append("\tif a <= 0 {\n\t\treturn g" + (f / 64) + "\n\t}\n");
+            if (brokenFunctions.contains(f))
+                program.append("\tvar s string = a\n");
+            program.append("\tvar b []float64\n\tb = append(b, 1.5)\n");
+            program.append("\treturn " + next + " + 1\n}\n\n");
+
+            if (brokenGlobals.contains(f))
+                program.append("var h" + f + " int = \"h\"\n\n");
+        }
+
+        return program.toString();
+    }
+
+    /**
+     * Type checks a program, with -ut.
+     *
+     * @param program - GoLite program
+     * @param parallel - Flag to type check the function bodies in parallel
+     * @return Typed pretty print of the program, or its error
+     * @throws IOException
+     */
+    private static String typeCheck(String program, boolean parallel) throws IOException {
+        CompilationUnit unit = CompilationUnit.ofString(program, true);
+        unit.setParallelTypeCheck(parallel);
+
+        try {
+            TypedPrettyPrinter pp = new TypedPrettyPrinter(unit.getTypeTable());
+            unit.getWeededAST().apply(pp);
+
+            return pp.getPrettyPrint();
+        } catch (LexerException|ParserException|RuntimeException e) {
+            return "ERROR: " + e;
+        }
+    }
+
+    /**
+     * Type checks a program with the function bodies checked in parallel, and checks the outcome
+     * is that of checking them in order.
+     *
+     * @param program - GoLite program
+     * @return Error reported
+     * @throws IOException
+     */
+    private static String firstError(String program) throws IOException {
+        String error = typeCheck(program, true);
+
+        assertEquals(typeCheck(program, false), error);
+        assertTrue(error, error.startsWith("ERROR: "));
+
+        return error;
+    }
+
+    @Test
+    public void typesTest() throws IOException {
+        String program = program(Arrays.<Integer>asList(), Arrays.<Integer>asList());
+
+        String types = typeCheck(program, true);
+        assertEquals(typeCheck(program, false), types);
+        assertTrue(types.contains("return g7 /* int */"));
+    }
+
+    @Test
+    public void earliestFunctionErrorTest() throws IOException {
+        // f5 starts on line 54 (8 lines before f0, and 9 per function).
+        assertEquals("ERROR: golite.exception.TypeCheckException: [58,17] Cannot use type " +
+            "int as type string in assignment",
+            firstError(program(Arrays.asList(400, 5, 130), Arrays.<Integer>asList())));
+    }
+
+    @Test
+    public void functionErrorBeforeGlobalErrorTest() throws IOException {
+        assertEquals("ERROR: golite.exception.TypeCheckException: [58,17] Cannot use type " +
+            "int as type string in assignment",
+            firstError(program(Arrays.asList(5), Arrays.asList(6, 300))));
+    }
+
+    @Test
+    public void globalErrorBeforeFunctionErrorTest() throws IOException {
+        // h5 follows f5, which ends on line 61.
+        assertEquals("ERROR: golite.exception.TypeCheckException: [63,14] Cannot use value of " +
+            "type string for int",
+            firstError(program(Arrays.asList(6, 300), Arrays.asList(5))));
+    }
+
+    @Test
+    public void generatedCodeTest() throws IOException, LexerException, ParserException {
+        CompilationUnit unit = CompilationUnit.ofString(
+            program(Arrays.<Integer>asList(), Arrays.<Integer>asList()), true);
+
+        for (boolean norm : new boolean[] { false, true }) {
+            CodeGenerator serial = new CodeGenerator(unit.getTypeTable(), norm);
+            unit.getWeededAST().apply(serial);
+
+            CodeGenerator parallel = new CodeGenerator(unit.getTypeTable(), norm);
+            parallel.setParallel(true);
+            unit.getWeededAST().apply(parallel);
+
+            assertEquals(serial.getGeneratedCode(), parallel.getGeneratedCode());
+        }
+    }
+
+}
@@ -0,0 +1,139 @@
+package test;
+
+import golite.GoLiteLexer;
+import golite.GoLiteScanner;
+import golite.TokenKind;
+import golite.lexer.Lexer;
+import golite.lexer.LexerException;
+import golite.node.EOF;
+import golite.node.Token;
+
+import java.io.IOException;
+import java.io.PushbackReader;
+import java.io.StringReader;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import static org.junit.Assert.assertEquals;
+import org.junit.Test;
+
+
+/**
+ * Checks the hand-written scanner (-fastscan) gives the same tokens as the generated lexer, with
+ * and without trivia, on the corners of the token syntax and of the semi-colon rule.
+ */
+public class GoLiteScannerTest {
+
+    /**
+     * Scans a program.
+     *
+     * @param lexer - Lexer on the program
+     * @param skipTrivia - Flag to leave out blanks, comments and EOL's
+     * @return Class, text, line and position of every token, followed by the lexer error if any
+     * @throws IOException
+     */
+    private static List<String> tokens(Lexer lexer, boolean skipTrivia) throws IOException {
+        List<String> tokens = new ArrayList<String>();
+
+        try {
+            Token token;
+            do {
+                token = lexer.next();
+                if (!skipTrivia || !TokenKind.isTrivia(token)) {
+                    tokens.add(token.getClass().getSimpleName() + " '" + token.getText() + "' " +
+                        token.getLine() + ":" + token.getPos());
+                }
+            } while (!(token instanceof EOF));
+        } catch (LexerException e) {
+            tokens.add("ERROR: " + e.getMessage());
+        }
+
+        return tokens;
+    }
+
+    /**
+     * Checks both scanners give the same tokens on a program.
+     *
+     * @param program - GoLite program
+     * @return Tokens, trivia included
+     * @throws IOException
+     */
+    private static List<String> checkScan(String program) throws IOException {
+        for (boolean skipTrivia : new boolean[] { true, false }) {
+            List<String> expected = tokens(
+                new GoLiteLexer(new PushbackReader(new StringReader(program), 1024)), skipTrivia);
+
+            assertEquals(program, expected,
+                tokens(new GoLiteScanner(program, skipTrivia), skipTrivia));
+        }
+
+        return tokens(new GoLiteScanner(program, false), false);
+    }
+
+    @Test
+    public void commentsTest() throws IOException {
+        // A comment spanning lines ends the line it starts on, like a newline.
+        assertEquals(Arrays.asList(
+            "TId 'x' 1:1",
+            "TBlank ' ' 1:2",
+            "TAssign '=' 1:3",
+            "TBlank ' ' 1:4",
+            "TIntLit '1' 1:5",
+            "TBlank ' ' 1:6",
+            "TComment '// c' 1:7",
+            "TSemi ';' 0:0",
+            "TComment '/* a\nb */' 2:1",
+            "TBlank ' ' 3:5",
+            "TId 'y' 3:6",
+            "TPlusPlus '++' 3:7",
+            "TSemi ';' 0:0",
+            "TReturn 'return' 4:1",
+            "TSemi ';' 0:0",
+            "EOF '' 4:7"),
+            checkScan("x = 1 // c\n/* a\nb */ y++\nreturn"));
+    }
+
+    @Test
+    public void rawStringTest() throws IOException {
+        assertEquals(Arrays.asList(
+            "TId 'x' 1:1",
+            "TBlank ' ' 1:2",
+            "TShortAssign ':=' 1:3",
+            "TBlank ' ' 1:5",
+            "TRawStringLit '`r\nq`' 1:6",
+            "TSemi ';' 0:0",
+            "TId 'y' 3:1",
+            "TSemi ';' 0:0",
+            "EOF '' 3:2"),
+            checkScan("x := `r\nq`\ny"));
+    }
+
+    @Test
+    public void literalsTest() throws IOException {
+        checkScan("a := 0x1F + 017 + 0 + 1.5 + .5 + 1.\n");
+        checkScan("r := '\\n' + 'a' + '\\''\n");
+        checkScan("s := \"a\\\"b\\t\" + \"\"\n");
+    }
+
+    @Test
+    public void operatorsTest() throws IOException {
+        checkScan("a &^= b << 2 >> 1 &^ c\nd <<= e >>= f\ng && !h || i != j <= k >= l\n");
+        checkScan("x-- ; y++ ; z... ; w <- v\n");
+    }
+
+    @Test
+    public void keywordsTest() throws IOException {
+        checkScan("break continue fallthrough return\nfor if else switch case default\n");
+        checkScan("breaks returning _ iff\n");
+    }
+
+    @Test
+    public void errorsTest() throws IOException {
+        checkScan("x := 'ab'\n");
+        checkScan("x := \"abc\ny\n");
+        checkScan("x := 1 /* never closed\n");
+        checkScan("x := #\n");
+    }
+
+}
@@ -1,12 +1,15 @@
 package test;
 
 import golite.GoLiteLexer;
+import golite.MappedSourceReader;
 import golite.PrettyPrinter;
+import golite.StreamingCompiler;
 import golite.Weeder;
 import golite.exception.SymbolTableException;
 import golite.exception.TypeCheckException;
 import golite.exception.WeederException;
 import golite.generator.CodeGenerator;
+import golite.generator.CodeWriter;
 import golite.symbol.SymbolTable;
 import golite.symbol.SymbolTableBuilder;
 import golite.type.TypeChecker;
@@ -15,6 +18,7 @@ import golite.parser.*;
 import golite.node.*;
 
 import java.io.BufferedReader;
+import java.io.BufferedWriter;
 import java.io.File;
 import java.io.FileReader;
 import java.io.FileWriter;
@@ -23,6 +27,16 @@ import java.io.IOException;
 import java.io.PrintWriter;
 import java.io.PushbackReader;
 import java.io.StringReader;
+import java.io.Writer;
+import java.lang.management.ManagementFactory;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicBoolean;
 
 import static org.junit.Assert.assertEquals;
 import static org.junit.Assert.assertFalse;
@@ -35,6 +49,17 @@ import static org.assertj.core.api.Assertions.assertThatThrownBy;
 
 public class <<<INSERT NAME HERE>>> {
 
+    /** Number of times every program is compiled in concurrent code generation tests. */
+    private static final int CONCURRENT_GEN_ROUNDS = 4;
+    /** Minimum number of threads compiling in concurrent code generation tests. */
+    private static final int CONCURRENT_GEN_THREADS = 4;
+    /** Size of the synthetic program compiled in streaming heap tests, in MB. */
+    private static final int STREAMING_PROGRAM_SIZE = 256;
+    /** Number of times smaller the program the heap is compared against is. */
+    private static final int STREAMING_SIZE_RATIO = 16;
+    /** Heap growth allowed over compiling the smaller program, in MB. */
+    private static final int STREAMING_HEAP_SLACK = 16;
+
 	/**
      * Parses a GoLite program.
      *
@@ -120,14 +145,15 @@ public class <<<INSERT NAME HERE>>> {
     }
 
     /**
-     * Compile a GoLite program and generate the corresponding Python code to file.
+     * Compile a GoLite program and generate the corresponding Python code.
      *
      * @param inPath - Filepath to GoLite program
-     * @param outPath - Filepath to output Python program
+     * @param norm - Flag to apply normalization to integers and runes
+     * @return Generated Python code
      * @throws IOException
      * @throws Compiler-specific exceptions if a failure is encountered during compilation
      */
-    private static void generateCode(String inPath, String outPath)
+    private static String generateCode(String inPath, boolean norm)
         throws IOException, LexerException, ParserException {
 
         Lexer lexer = new GoLiteLexer(new PushbackReader(new FileReader(inPath), 1024));
@@ -140,13 +166,197 @@ public class <<<INSERT NAME HERE>>> {
         TypeChecker typeChecker = new TypeChecker();
         ast.apply(typeChecker);
 
-        // Enforce normalization of integers and runes for the purposes of testing.
-        CodeGenerator codeGenerator = new CodeGenerator(typeChecker.getTypeTable(), true);
+        CodeGenerator codeGenerator = new CodeGenerator(typeChecker.getTypeTable(), norm);
         ast.apply(codeGenerator);
 
+        return codeGenerator.getGeneratedCode();
+    }
+
+    /**
+     * Compile a GoLite program and generate the corresponding Python code to file.
+     *
+     * @param inPath - Filepath to GoLite program
+     * @param outPath - Filepath to output Python program
+     * @throws IOException
+     * @throws Compiler-specific exceptions if a failure is encountered during compilation
+     */
+    private static void generateCode(String inPath, String outPath)
+        throws IOException, LexerException, ParserException {
+
+        // Enforce normalization of integers and runes for the purposes of testing.
+        String code = generateCode(inPath, true);
+
         try (PrintWriter out = new PrintWriter(new FileWriter(outPath))) {
-            out.print(codeGenerator.getGeneratedCode());
+            out.print(code);
+        }
+    }
+
+    /**
+     * Compile GoLite programs one after the other, then all over again several times on a thread
+     * pool, with and without normalization interleaved, and check that every concurrent
+     * compilation generates exactly the same code (or fails in exactly the same way) as its serial
+     * counterpart.
+     *
+     * @param inPaths - Filepaths to GoLite programs
+     * @throws InterruptedException if the thread pool is interrupted
+     * @throws ExecutionException if a compilation crashes outside of the compiler
+     */
+    private static void checkConcurrentCodeGeneration(String[] inPaths)
+        throws InterruptedException, ExecutionException {
+
+        // One task per program and normalization flag.
+        List<String> names = new ArrayList<String>();
+        List<Callable<String>> tasks = new ArrayList<Callable<String>>();
+        for (String inPath : inPaths) {
+            for (boolean norm : new boolean[] { false, true }) {
+                names.add(inPath + (norm ? " (normalized)" : ""));
+                tasks.add(() -> {
+                    try {
+                        return generateCode(inPath, norm);
+                    } catch (Exception e) {
+                        return "ERROR: " + e;
+                    }
+                });
+            }
         }
+
+        List<String> expected = new ArrayList<String>();
+        for (Callable<String> task : tasks) {
+            try {
+                expected.add(task.call());
+            } catch (Exception e) {
+                throw new ExecutionException(e);
+            }
+        }
+
+        List<Callable<String>> rounds = new ArrayList<Callable<String>>();
+        for (int i = 0; i < CONCURRENT_GEN_ROUNDS; i++)
+            rounds.addAll(tasks);
+
+        ExecutorService executor = Executors.newFixedThreadPool(
+            Math.max(CONCURRENT_GEN_THREADS, Runtime.getRuntime().availableProcessors()));
+        try {
+            List<Future<String>> futures = executor.invokeAll(rounds);
+            for (int i = 0; i < futures.size(); i++) {
+                assertEquals(names.get(i % tasks.size()), expected.get(i % tasks.size()),
+                    futures.get(i).get());
+            }
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+
+    /**
+     * Checks the heap compiling a synthetic program one top-level declaration at a time takes
+     * doesn't grow with the size of the program: that it's about the same for a program of
+     * hundreds of MB as for one many times smaller, with declarations of the same size.
+     *
+     * @throws IOException if something goes wrong with the writing or reading of the programs
+     * @throws InterruptedException if interrupted while waiting on the heap sampling
+     */
+    private static void checkStreamingHeap() throws IOException, InterruptedException {
+        long small = streamingHeapGrowth(STREAMING_PROGRAM_SIZE / STREAMING_SIZE_RATIO);
+        long large = streamingHeapGrowth(STREAMING_PROGRAM_SIZE);
+
+        assertTrue("Heap growth of " + (large >> 20) + " MB compiling " + STREAMING_PROGRAM_SIZE +
+            " MB, against " + (small >> 20) + " MB compiling " +
+            (STREAMING_PROGRAM_SIZE / STREAMING_SIZE_RATIO) + " MB",
+            large <= small + ((long) STREAMING_HEAP_SLACK << 20));
+    }
+
+    /**
+     * Compiles a synthetic GoLite program one top-level declaration at a time, discarding the
+     * generated code, and measures the most heap in use after a garbage collection on the way.
+     *
+     * @param size - Size of the program, in MB
+     * @return Heap growth over the heap in use before, in bytes
+     * @throws IOException if something goes wrong with the writing or reading of the program
+     * @throws InterruptedException if interrupted while waiting on the heap sampling
+     */
+    private static long streamingHeapGrowth(int size) throws IOException, InterruptedException {
+        File file = File.createTempFile("streaming", ".go");
+        try {
+            writeSyntheticProgram(file, (long) size << 20);
+
+            long before = heapInUse();
+            long[] peak = {before};
+            AtomicBoolean done = new AtomicBoolean();
+
+            // Sample the heap in use as the program is compiled.
+            Thread sampler = new Thread(() -> {
+                while (!done.get()) {
+                    peak[0] = Math.max(peak[0], heapInUse());
+
+                    try {
+                        Thread.sleep(100);
+                    } catch (InterruptedException e) {
+                        return;
+                    }
+                }
+            });
+            sampler.setDaemon(true);
+            sampler.start();
+
+            CodeWriter out = new CodeWriter(new Writer() {
+                @Override
+                public void write(char[] buffer, int offset, int length) {}
+
+                @Override
+                public void flush() {}
+
+                @Override
+                public void close() {}
+            });
+
+            try (MappedSourceReader in = MappedSourceReader.open(file.getPath())) {
+                new StreamingCompiler(true, false).compile(in, out);
+            } catch (LexerException|ParserException e) {
+                throw new AssertionError(e);
+            } finally {
+                done.set(true);
+                sampler.join();
+            }
+
+            return peak[0] - before;
+        } finally {
+            file.delete();
+        }
+    }
+
+    /**
+     * Writes a synthetic GoLite program, of functions of about 64 KB each.
+     *
+     * @param file - Output file
+     * @param size - Size of the program, in bytes
+     * @throws IOException if something goes wrong with the writing of the program
+     */
+    private static void writeSyntheticProgram(File file, long size) throws IOException {
+        try (Writer out = new BufferedWriter(new FileWriter(file))) {
+            out.write("package main\n\ntype point struct {\n\tx, y int\n}\n\nvar total int\n\n");
+
+            long written = 0;
+            for (int f = 0; written < size; f++) {
+                StringBuilder function = new StringBuilder();
+                function.append("func f" + f + "(a int, p point) int {\n");
+                function.append("\tvar s int = a + p.x\n");
+                for (int i = 0; i < 1000; i++) {
+                    function.append("\tif s > " + i + " {\n\t\ts = s - " + i + " * 2\n");
+                    function.append("\t} else {\n\t\ts += p.y % 7\n\t}\n");
+                }
+                function.append("\ttotal += s\n\treturn s\n}\n\n");
+
+                out.write(function.toString());
+                written += function.length();
+            }
+        }
+    }
+
+    /**
+     * @return Heap in use after a garbage collection, in bytes
+     */
+    private static long heapInUse() {
+        System.gc();
+        return ManagementFactory.getMemoryMXBean().getHeapMemoryUsage().getUsed();
     }
 
     /**
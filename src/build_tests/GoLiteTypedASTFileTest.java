@@ -0,0 +1,180 @@
+package test;
+
+import golite.CompilationUnit;
+import golite.TypedASTFile;
+import golite.TypedPrettyPrinter;
+import golite.lexer.LexerException;
+import golite.node.Node;
+import golite.parser.ParserException;
+import golite.type.AliasType;
+import golite.type.GoLiteType;
+
+import java.io.File;
+import java.io.FileNotFoundException;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.charset.StandardCharsets;
+import java.util.Collections;
+import java.util.IdentityHashMap;
+import java.util.Map;
+import java.util.Set;
+
+import static org.junit.Assert.assertEquals;
+import org.junit.Test;
+
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+
+/**
+ * Checks saving type checked programs to typed AST files (-save) and loading them back (-load):
+ * the types loaded, and the errors reported on files that aren't typed AST files of this version.
+ */
+public class GoLiteTypedASTFileTest {
+
+    /** Program using an alias, a struct, an array and a slice type. */
+    private static final String PROGRAM = String.join("\n",
+        "package main",
+        "",
+        "type celsius float64",
+        "",
+        "type point struct {",
+        "\tx, y int",
+        "\tt float64",
+        "}",
+        "",
+        "var grid [3][]point",
+        "var low, high celsius",
+        "",
+        "func warmest(ps []point) float64 {",
+        "\tvar best float64 = ps[0].t",
+        "\tfor i := 1; i < 3; i++ {",
+        "\t\tif ps[i].t > best {",
+        "\t\t\tbest = ps[i].t",
+        "\t\t}",
+        "\t}",
+        "\thigh = low",
+        "\treturn best",
+        "}",
+        "");
+
+    /**
+     * Type checks a program and saves it to a temporary file.
+     *
+     * @param program - GoLite program
+     * @return Typed AST file
+     * @throws IOException
+     * @throws Compiler-specific exceptions if a failure is encountered during compilation
+     */
+    private static File save(String program)
+        throws IOException, LexerException, ParserException {
+
+        CompilationUnit unit = CompilationUnit.ofString(program, false);
+        File file = File.createTempFile("golite", ".tast");
+        file.deleteOnExit();
+        TypedASTFile.write(unit.getWeededAST(), unit.getTypeTable(), file.getPath());
+
+        return file;
+    }
+
+    /**
+     * @param typeTable - Type table
+     * @param ast - AST it's the type table of
+     * @return Typed pretty print of the AST
+     */
+    private static String typedPrettyPrint(Map<Node, GoLiteType> typeTable, Node ast) {
+        TypedPrettyPrinter pp = new TypedPrettyPrinter(typeTable);
+        ast.apply(pp);
+
+        return pp.getPrettyPrint();
+    }
+
+    @Test
+    public void roundTripTest() throws IOException, LexerException, ParserException {
+        CompilationUnit unit = CompilationUnit.ofString(PROGRAM, false);
+        TypedASTFile loaded = TypedASTFile.read(save(PROGRAM).getPath());
+
+        assertEquals(typedPrettyPrint(unit.getTypeTable(), unit.getWeededAST()),
+            typedPrettyPrint(loaded.getTypeTable(), loaded.getAST()));
+    }
+
+    @Test
+    public void typesSharedTest() throws IOException, LexerException, ParserException {
+        TypedASTFile loaded = TypedASTFile.read(save(PROGRAM).getPath());
+
+        // Every node of type celsius has the same type object, as in the type checker.
+        Set<GoLiteType> aliases =
+            Collections.newSetFromMap(new IdentityHashMap<GoLiteType, Boolean>());
+        for (GoLiteType type : loaded.getTypeTable().values()) {
+            if (type instanceof AliasType && type.toString().contains("celsius"))
+                aliases.add(type);
+        }
+
+        assertEquals(1, aliases.size());
+    }
+
+    @Test
+    public void missingFileTest() {
+        assertThatThrownBy(() -> TypedASTFile.read("missing.tast"))
+            .isInstanceOf(FileNotFoundException.class)
+            .hasMessage("missing.tast (No such file or directory)");
+    }
+
+    @Test
+    public void notATypedASTFileTest() throws IOException {
+        File file = File.createTempFile("golite", ".go");
+        file.deleteOnExit();
+        try (FileOutputStream out = new FileOutputStream(file)) {
+            out.write(PROGRAM.getBytes(StandardCharsets.UTF_8));
+        }
+
+        assertThatThrownBy(() -> TypedASTFile.read(file.getPath()))
+            .isInstanceOf(IOException.class)
+            .hasMessage(file.getPath() + " is not a typed AST file");
+    }
+
+    @Test
+    public void otherVersionTest() throws IOException, LexerException, ParserException {
+        File file = save(PROGRAM);
+        try (RandomAccessFile out = new RandomAccessFile(file, "rw")) {
+            // The version is the second integer, little-endian.
+            out.seek(4);
+            out.write(new byte[] { 99, 0, 0, 0 });
+        }
+
+        assertThatThrownBy(() -> TypedASTFile.read(file.getPath()))
+            .isInstanceOf(IOException.class)
+            .hasMessage(file.getPath() + " is a typed AST file of version 99 (expected 1)");
+    }
+
+    @Test
+    public void corruptHeaderTest() throws IOException, LexerException, ParserException {
+        // The counts are the integers after the magic number and the version.
+        for (int count = 2; count < 11; count++) {
+            for (int value : new int[] { -1, Integer.MAX_VALUE }) {
+                File file = save(PROGRAM);
+                try (RandomAccessFile out = new RandomAccessFile(file, "rw")) {
+                    out.seek(4 * count);
+                    out.writeInt(Integer.reverseBytes(value));
+                }
+
+                assertThatThrownBy(() -> TypedASTFile.read(file.getPath()))
+                    .isInstanceOf(IOException.class)
+                    .hasMessage("Malformed typed AST file " + file.getPath());
+            }
+        }
+    }
+
+    @Test
+    public void truncatedFileTest() throws IOException, LexerException, ParserException {
+        File file = save(PROGRAM);
+        try (RandomAccessFile out = new RandomAccessFile(file, "rw")) {
+            out.setLength(out.length() / 2);
+        }
+
+        assertThatThrownBy(() -> TypedASTFile.read(file.getPath()))
+            .isInstanceOf(IOException.class)
+            .hasMessage("Malformed typed AST file " + file.getPath());
+    }
+
+}
@@ -6,6 +6,7 @@ import argparse
 import logging
 import os
 import re
+import shutil
 import sys
 
 
@@ -34,6 +35,9 @@ INVALID_PROGS_DIRPATH = os.path.join(PROGS_DIRPATH, "invalid")
 INVALID_SYNTAX_PROGS_DIRPATH = os.path.join(INVALID_PROGS_DIRPATH, "syntax")
 INVALID_TYPE_PROGS_DIRPATH = os.path.join(INVALID_PROGS_DIRPATH, "type")
 
+# Path to grading programs directory.
+GRADING_PROGS_DIRPATH = os.path.join("..", "grading")
+
 # Directory name for tests from other groups.
 OTHER_GROUPS_PROGS_DIRNAME = "other_groups"
 # Directory name for tests from Vince.
@@ -44,10 +48,19 @@ VINCE_PROGS_DIRNAME = "vince"
 TEST_CLASS_TEMPALTE_FPATH = os.path.join("build_tests",
 	"GoLiteTestTemplate.java")
 
+# Filepath to differential test class template.
+DIFFERENTIAL_TEMPLATE_FPATH = os.path.join("build_tests",
+	"GoLiteDifferentialTestTemplate.java")
+
 # Filepath to test suite class template.
 SUITE_TEMPALTE_FPATH = os.path.join("build_tests",
 	"GoLiteTestSuiteTemplate.java")
 
+# Names of the hand-written test classes, each checking a feature on programs of
+# its own, which are copied as they are.
+FEATURE_TEST_NAMES = ["GoLiteDiagnosticsTest", "GoLiteParallelTest", "GoLiteCompactASTTest",
+	"GoLiteTypedASTFileTest", "GoLiteScannerTest", "GoLiteCompilationUnitTest"]
+
 
 # Test directory path.
 OUT_TEST_DIRPATH = "test"
@@ -66,6 +79,17 @@ OUT_VALID_TYPE_TNAME = "GoLiteValidTypingTest"
 OUT_INVALID_TYPE_TNAME = "GoLiteInvalidTypingTest"
 # Output name for test checking code generation.
 OUT_GEN_TNAME = "GoLiteCodeGenerationTest"
+# Output name for test checking concurrent code generation.
+OUT_CONCURRENT_GEN_TNAME = "GoLiteConcurrentCodeGenerationTest"
+# Output name for test checking variants of the compiler (the hand-written
+# scanner and parser, weeding in the type checker's traversal, carrying on after
+# errors, type checking and generating in parallel, compiling one top-level
+# declaration at a time, the compact AST, and typed AST files) against the
+# plain compiler, on all the programs (See GoLiteDifferentialTestTemplate.java).
+OUT_DIFFERENTIAL_TNAME = "GoLiteDifferentialTest"
+# Output name for test checking the heap taken by compiling one top-level
+# declaration at a time doesn't grow with the size of the program.
+OUT_STREAMING_HEAP_TNAME = "GoLiteStreamingHeapTest"
 
 
 def capitalize(in_str):
@@ -341,6 +365,46 @@ def create_test_method_str(prog_fname, prog_fpath, tpe, ref):
 	return test_method_str
 
 
+def create_concurrent_gen_test_method_str(prog_fpaths):
+	"""
+	Creates the source string for a test method compiling all the given test
+	programs concurrently, and checking the generated code is the same as when
+	they're compiled serially.
+
+	@param prog_fpaths - Filepaths to programs
+	@return Corresponding test method source
+	"""
+
+	test_method_str = "\t@Test\n"
+	test_method_str += "\tpublic void concurrentCodeGenerationTest() "
+	test_method_str += "throws InterruptedException, ExecutionException {\n"
+	test_method_str += "\t\tcheckConcurrentCodeGeneration(new String[] {\n"
+	test_method_str += ",\n".join("\t\t\t\"%s\"" % prog_fpath
+		for prog_fpath in prog_fpaths) + "\n"
+	test_method_str += "\t\t});\n"
+	test_method_str += "\t}"
+
+	return test_method_str
+
+
+def create_streaming_heap_test_method_str():
+	"""
+	Creates the source string for a test method checking the heap taken by
+	compiling one top-level declaration at a time doesn't grow with the size of
+	the program, on synthetic programs.
+
+	@return Corresponding test method source
+	"""
+
+	test_method_str = "\t@Test\n"
+	test_method_str += "\tpublic void streamingHeapTest() "
+	test_method_str += "throws IOException, InterruptedException {\n"
+	test_method_str += "\t\tcheckStreamingHeap();\n"
+	test_method_str += "\t}"
+
+	return test_method_str
+
+
 def to_template_marker(in_str):
 	"""
 	Returns the given string as a template insertion point.
@@ -363,8 +427,12 @@ def create_test(test_name, progs_dirpaths, tpe, ref, test_ignore_path,
 		'invalid_parse' for testing no parse is produced for the program,
 		'pretty' for testing the pretty printer on the program, 'valid_type'
 		for testing the correct type check of the program, 'invalid_type' for
-		testing type check flags the program, or 'gen' for testing the correct
-		output of generated Python code after compilation
+		testing type check flags the program, 'gen' for testing the correct
+		output of generated Python code after compilation, or
+		'concurrent_gen' for testing the generated code of all the programs
+		compiled concurrently is the same as when compiled serially, or
+		'streaming_heap' for testing the heap taken by compiling synthetic
+		programs one top-level declaration at a time (no programs)
 	@param ref - If True, then the test is built for the reference compiler,
 		otherwise it's build for the GoLite compiler
 	@param test_ignore_path - Filepath to test ignore file, listing filepaths to
@@ -387,6 +455,8 @@ def create_test(test_name, progs_dirpaths, tpe, ref, test_ignore_path,
 
 	# List of test method strings.
 	test_method_strs = []
+	# Filepaths to programs that aren't ignored.
+	test_prog_paths = []
 
 	# Create a test method for each program.
 	for progs_dirpath in progs_dirpaths:
@@ -397,10 +467,22 @@ def create_test(test_name, progs_dirpaths, tpe, ref, test_ignore_path,
 
 				test_prog_path = os.path.join(parent, fname)
 
-				if not test_prog_path in tests_to_ignore:
+				if test_prog_path in tests_to_ignore:
+					continue
+
+				if tpe == 'concurrent_gen':
+					test_prog_paths.append(test_prog_path)
+				else:
 					test_method_strs.append(create_test_method_str(fname,
 						test_prog_path, tpe, ref))
 
+	# Create a single test method for all the programs.
+	if tpe == 'concurrent_gen':
+		test_method_strs.append(
+			create_concurrent_gen_test_method_str(test_prog_paths))
+	elif tpe == 'streaming_heap':
+		test_method_strs.append(create_streaming_heap_test_method_str())
+
 	# Read the test template source.
 	with open(TEST_CLASS_TEMPALTE_FPATH) as fin:
 		test_str = fin.read()
@@ -421,6 +503,45 @@ def create_test(test_name, progs_dirpaths, tpe, ref, test_ignore_path,
 		fout.write(test_str)
 
 
+def create_differential_test(test_name, progs_dirpaths, out_path):
+	"""
+	Creates the source string for the differential test, running all the
+	programs through variants of the compiler, and saves it to file.
+
+	@param test_name - Test name (Becomes the class name of the test)
+	@param progs_dirpaths - Directory paths to input test programs folders
+	@param out_path - Output file to test source file
+	"""
+
+	# Filepaths to programs.
+	test_prog_paths = []
+	for progs_dirpath in progs_dirpaths:
+		for parent, subdirs, fnames in os.walk(progs_dirpath):
+			for fname in fnames:
+				if fname.endswith('.go'):
+					test_prog_paths.append(os.path.join(parent, fname))
+
+	# Read the test template source.
+	with open(DIFFERENTIAL_TEMPLATE_FPATH) as fin:
+		test_str = fin.read()
+
+	# Insert the test name.
+	test_str = test_str.replace(to_template_marker("INSERT NAME HERE"),
+		test_name)
+	# Insert the programs.
+	test_str = test_str.replace(to_template_marker("INSERT PROGRAMS HERE"),
+		",\n".join("\t\t\"%s\"" % prog_fpath
+			for prog_fpath in test_prog_paths))
+
+	# Create output test directory if it doesn't already exist.
+	if not os.path.exists(OUT_TEST_DIRPATH):
+		os.makedirs(OUT_TEST_DIRPATH)
+
+	# Output test source.
+	with open(out_path, 'w') as fout:
+		fout.write(test_str)
+
+
 def main():
 	parser_description = ("Generates test automatically for the GoLite "
 		"compiler or Vince's reference compiler.")
@@ -432,6 +553,10 @@ def main():
 	parser.add_argument('-r', '--ref', dest='ref', action='store_true',
 		help="Generate tests for Vince's reference compiler")
 
+	parser.add_argument('-H', '--heap', dest='heap', action='store_true',
+		help="Also check the heap taken by streaming compilation on synthetic "
+		"programs of hundreds of MB (slow)")
+
 	args = parser.parse_args()
 
 	# Check that tests are being built on one of the McGill teaching servers,
@@ -491,6 +616,35 @@ def main():
 			args.ignore_path, os.path.join(OUT_TEST_DIRPATH,
 				'%s.java' % OUT_GEN_TNAME))
 
+	# Create the concurrent code generator test (but not for the reference
+	# compiler).
+	if not args.ref:
+		logging.info("Creating concurrent code generator test...")
+		create_test(OUT_CONCURRENT_GEN_TNAME, [VALID_PROGS_DIRPATH],
+			'concurrent_gen', False, args.ignore_path,
+			os.path.join(OUT_TEST_DIRPATH,
+				'%s.java' % OUT_CONCURRENT_GEN_TNAME))
+
+	# Create the differential test (but not for the reference compiler).
+	if not args.ref:
+		logging.info("Creating differential test...")
+		create_differential_test(OUT_DIFFERENTIAL_TNAME,
+			[PROGS_DIRPATH, GRADING_PROGS_DIRPATH], os.path.join(OUT_TEST_DIRPATH,
+				'%s.java' % OUT_DIFFERENTIAL_TNAME))
+
+	# Create the streaming heap test, if asked for (but not for the reference
+	# compiler).
+	if not args.ref and args.heap:
+		logging.info("Creating streaming heap test...")
+		create_test(OUT_STREAMING_HEAP_TNAME, [], 'streaming_heap', False, None,
+			os.path.join(OUT_TEST_DIRPATH, '%s.java' % OUT_STREAMING_HEAP_TNAME))
+
+	# Copy the hand-written test classes (but not for the reference compiler).
+	if not args.ref:
+		for tname in FEATURE_TEST_NAMES:
+			shutil.copy(os.path.join("build_tests", "%s.java" % tname),
+				OUT_TEST_DIRPATH)
+
 	# Read in the test suite template.
 	with open(SUITE_TEMPALTE_FPATH) as fin:
 		suite_str = fin.read()
@@ -505,10 +659,13 @@ def main():
 	else:
 		suite_str = suite_str.replace(
 			to_template_marker("INSERT TEST CLASSES HERE"),
-			"%s.class,\n\t%s.class,\n\t%s.class,\n\t%s.class,\n\t%s.class,\n\t%s.class" %
+			",\n\t".join("%s.class" % tname for tname in
 				(OUT_VALID_PARSE_TNAME, OUT_INVALID_PARSE_TNAME,
 					OUT_PRETTY_TNAME, OUT_VALID_TYPE_TNAME,
-					OUT_INVALID_TYPE_TNAME, OUT_GEN_TNAME))
+					OUT_INVALID_TYPE_TNAME, OUT_GEN_TNAME,
+					OUT_CONCURRENT_GEN_TNAME, OUT_DIFFERENTIAL_TNAME) +
+				((OUT_STREAMING_HEAP_TNAME,) if args.heap else ()) +
+				tuple(FEATURE_TEST_NAMES)))
 
 	# Save the test suite source to file.
 	with open(OUT_SUITE_FPATH, 'w') as fout:
@@ -0,0 +1,293 @@
+package golite;
+
+import golite.exception.SymbolTableException;
+import golite.exception.TypeCheckException;
+import golite.exception.WeederException;
+import golite.generator.CodeGenerator;
+import golite.generator.CodeWriter;
+import golite.type.GoLiteType;
+import golite.lexer.*;
+import golite.node.*;
+import golite.parser.*;
+
+import java.io.BufferedReader;
+import java.io.File;
+import java.io.FileReader;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.FileSystems;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.PathMatcher;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+
+/**
+ * Batch Compiler.
+ *
+ * Runs an independent compiler pipeline on each of many GoLite programs across a fixed-size thread
+ * pool, and reports VALID/INVALID per program once all of them are done.
+ */
+class BatchCompiler {
+
+    /** Last phase of the pipeline to run on each program. */
+    enum Phase { SCAN, PARSE, TYPE, GEN }
+
+    /** Outcome of compiling a single program. */
+    private static class Result {
+        /** Program file. */
+        private final File file;
+        /** Error message, or null if the program passed. */
+        private final String error;
+
+        private Result(File file, String error) {
+            this.file = file;
+            this.error = error;
+        }
+    }
+
+    /** Last phase to run. */
+    private final Phase phase;
+    /** Flag indicating whether top-declarations are allowed to be unordered. */
+    private final boolean ut;
+    /** Flag indicating whether to enforce wrap-arounds for integers in generated code. */
+    private final boolean wrap;
+    /** Flag indicating whether to scan with the hand-written scanner. */
+    private final boolean fastScan;
+    /** Flag indicating whether to parse with the hand-written parser. */
+    private final boolean rdParse;
+    /** Flag indicating whether to weed in the type checker's traversal. */
+    private final boolean fuse;
+    /** Number of worker threads. */
+    private final int threads;
+    /** Cache of code generation outcomes (null for none). */
+    private final GenCache cache;
+
+    /**
+     * Constructor.
+     *
+     * @param phase - Last phase to run on each program
+     * @param ut - Flag indicating whether top-declarations are allowed to be unordered
+     * @param wrap - Flag indicating whether to enforce wrap-arounds for integers in generated code
+     * @param fastScan - Flag indicating whether to scan with the hand-written scanner
+     * @param rdParse - Flag indicating whether to parse with the hand-written parser
+     * @param fuse - Flag indicating whether to weed in the type checker's traversal
+     * @param threads - Number of worker threads
+     * @param cache - Cache of code generation outcomes, shared by the worker threads (null for
+     *  none)
+     */
+    BatchCompiler(Phase phase, boolean ut, boolean wrap, boolean fastScan, boolean rdParse,
+        boolean fuse, int threads, GenCache cache) {
+
+        this.phase = phase;
+        this.ut = ut;
+        this.wrap = wrap;
+        this.fastScan = fastScan;
+        this.rdParse = rdParse;
+        this.fuse = fuse;
+        this.threads = threads;
+        this.cache = cache;
+    }
+
+    /**
+     * Compiles all the programs designated by the target and prints the report to stdout.
+     *
+     * @param target - Directory (searched recursively for .go files), glob (e.g. 'valid/**.go'), or
+     *  manifest file (one program path per line, relative to the manifest's folder)
+     * @param workDir - Directory that relative paths are resolved against
+     * @return Number of programs that didn't pass
+     * @throws IOException if the target can't be read
+     */
+    int run(String target, File workDir) throws IOException {
+        List<File> files = collect(target, workDir);
+
+        ExecutorService executor = Executors.newFixedThreadPool(this.threads);
+        List<Result> results = new ArrayList<Result>();
+        try {
+            List<Future<Result>> futures = new ArrayList<Future<Result>>();
+            for (File file : files)
+                futures.add(executor.submit(() -> compile(file)));
+
+            for (Future<Result> future : futures)
+                results.add(future.get());
+        } catch (InterruptedException|ExecutionException e) {
+            throw new IOException("Batch compilation interrupted", e);
+        } finally {
+            executor.shutdownNow();
+        }
+
+        Path base = workDir.getAbsoluteFile().toPath().normalize();
+        int invalid = 0;
+        for (Result result : results) {
+            Path path = result.file.getAbsoluteFile().toPath().normalize();
+            String name = (path.startsWith(base) ? base.relativize(path) : path).toString();
+
+            if (result.error == null)
+                System.out.println(name + ": " + Main.VALID_MESSAGE);
+            else {
+                System.out.println(name + ": " + Main.INVALID_MESSAGE + " (" + result.error + ")");
+                invalid++;
+            }
+        }
+
+        System.out.println();
+        System.out.println(Main.VALID_MESSAGE + ": " + (results.size() - invalid) + ", "
+            + Main.INVALID_MESSAGE + ": " + invalid + ", total: " + results.size());
+
+        return invalid;
+    }
+
+    /**
+     * Runs the pipeline on a single program. Code generation writes 'foo.golite.py' next to
+     * 'foo.go'.
+     *
+     * @param file - Program file
+     * @return Outcome
+     */
+    private Result compile(File file) {
+        String filename = file.getName();
+        File outFile = new File(file.getParentFile(),
+            filename.substring(0, filename.indexOf('.')) + ".golite.py");
+        // Cache key of the program (null if the outcome isn't cached).
+        String key = null;
+
+        try {
+            if (this.phase == Phase.SCAN) {
+                try (MappedSourceReader in = MappedSourceReader.open(file.getPath())) {
+                    Lexer lexer = CompilationUnit.newLexer(in, this.fastScan, true);
+                    while (!(lexer.next() instanceof EOF)) {}
+                }
+                return new Result(file, null);
+            }
+
+            // Skip the whole pipeline if the outcome for this very program and flags is cached.
+            if (this.phase == Phase.GEN && this.cache != null) {
+                key = this.cache.key(file.getPath());
+
+                GenCache.Hit hit = this.cache.lookup(key, outFile);
+                if (hit != null)
+                    return new Result(file, hit.error);
+            }
+
+            CompilationUnit unit = CompilationUnit.ofFile(file.getPath(), this.ut, this.fastScan,
+                this.rdParse, this.fuse);
+
+            if (this.phase == Phase.PARSE) {
+                unit.getWeededAST();
+                return new Result(file, null);
+            }
+
+            // Type checking weeds the AST first (or along the way).
+            Map<Node, GoLiteType> typeTable = unit.getTypeTable();
+            Start ast = unit.getWeededAST();
+
+            if (this.phase == Phase.TYPE)
+                return new Result(file, null);
+
+            try (CodeWriter out = CodeWriter.open(outFile)) {
+                ast.apply(new CodeGenerator(typeTable, this.wrap, out));
+            } catch (UncheckedIOException e) {
+                outFile.delete();
+                throw e.getCause();
+            } catch (RuntimeException e) {
+                // Don't leave a truncated program behind.
+                outFile.delete();
+                throw e;
+            }
+
+            if (key != null)
+                this.cache.putCode(key, outFile);
+        } catch (LexerException|ParserException|WeederException|SymbolTableException|TypeCheckException e) {
+            if (key != null)
+                this.cache.putError(key, e.toString());
+
+            return new Result(file, e.toString());
+        } catch (IOException e) {
+            return new Result(file, "IO ERROR: " + e.getMessage());
+        } catch (RuntimeException e) {
+            // Keep going with the other programs if the compiler crashes on one of them.
+            return new Result(file, "INTERNAL ERROR: " + e);
+        }
+
+        return new Result(file, null);
+    }
+
+    /**
+     * Lists the programs designated by a target.
+     *
+     * @param target - Directory, glob or manifest file
+     * @param workDir - Directory that relative paths are resolved against
+     * @return Program files, in a deterministic order
+     * @throws IOException if the target can't be read
+     */
+    private static List<File> collect(String target, File workDir) throws IOException {
+        // Glob.
+        if (target.matches(".*[*?\\[{].*")) {
+            String pattern = Main.resolve(workDir, target).getPath();
+
+            // Walk from the deepest folder that doesn't contain a glob metacharacter.
+            File root = new File(pattern.substring(0, pattern.replaceAll("[*?\\[{].*", "")
+                .lastIndexOf(File.separatorChar) + 1));
+            PathMatcher matcher = FileSystems.getDefault().getPathMatcher("glob:" + pattern);
+
+            return walk(root, matcher);
+        }
+
+        File file = Main.resolve(workDir, target);
+        if (!file.exists())
+            throw new IOException(target + " does not exist");
+
+        // Directory.
+        if (file.isDirectory())
+            return walk(file, FileSystems.getDefault().getPathMatcher("glob:**.go"));
+
+        // Single program.
+        List<File> files = new ArrayList<File>();
+        if (file.getName().endsWith(".go")) {
+            files.add(file);
+            return files;
+        }
+
+        // Manifest.
+        try (BufferedReader in = new BufferedReader(new FileReader(file))) {
+            String line;
+            while ((line = in.readLine()) != null) {
+                line = line.trim();
+                if (!line.isEmpty() && !line.startsWith("#"))
+                    files.add(Main.resolve(file.getAbsoluteFile().getParentFile(), line));
+            }
+        }
+
+        return files;
+    }
+
+    /**
+     * Recursively lists the regular files under a folder that match a pattern.
+     *
+     * @param root - Root folder
+     * @param matcher - Pattern
+     * @return Matching files, sorted by path
+     * @throws IOException
+     */
+    private static List<File> walk(File root, PathMatcher matcher) throws IOException {
+        if (!root.isDirectory())
+            throw new IOException(root + " is not a directory");
+
+        try (Stream<Path> paths = Files.walk(root.toPath())) {
+            return paths
+                .filter(p -> Files.isRegularFile(p) && matcher.matches(p))
+                .sorted()
+                .map(Path::toFile)
+                .collect(Collectors.toList());
+        }
+    }
+
+}
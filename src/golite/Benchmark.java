@@ -0,0 +1,885 @@
+package golite;
+
+import golite.generator.CodeGenerator;
+import golite.symbol.FunctionSymbol;
+import golite.symbol.SymbolTable;
+import golite.symbol.SymbolTableBuilder;
+import golite.symbol.VariableSymbol;
+import golite.type.GoLiteType;
+import golite.type.TypeChecker;
+import golite.analysis.*;
+import golite.lexer.*;
+import golite.node.*;
+import golite.parser.*;
+
+import java.io.File;
+import java.io.FileReader;
+import java.io.IOException;
+import java.io.PushbackReader;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ForkJoinPool;
+
+
+/**
+ * Benchmarks.
+ *
+ * Micro-benchmarks of the compiler phases on a single program, run from the command line with
+ * -bench. Every measurement is preceded by warm-up rounds, so that what's measured is the code the
+ * JIT compiled rather than the interpreter.
+ */
+class Benchmark {
+
+    /** Number of unmeasured rounds before a measurement. */
+    private static final int WARMUP_ROUNDS = 5;
+    /** Number of measured rounds. */
+    private static final int ROUNDS = 20;
+    /** Number of times the tokens are filtered per round (Filtering alone takes little time). */
+    private static final int FILTER_ROUNDS = 10;
+    /** Semi-colon inserted by the filter. */
+    private static final Token SEMI = new TSemi();
+
+    /** Implementations of the semi-colon rule. */
+    private enum Filter { NONE, INSTANCEOF, TOKEN_KIND }
+
+    /** Opens a lexer on a program. */
+    private interface Source {
+        Lexer open(String inPath) throws IOException;
+    }
+
+    /** Parses a program out of a lexer. */
+    private interface Parse {
+        Start parse(Lexer lexer) throws IOException, LexerException, ParserException;
+    }
+
+    /** Runs a phase on a program. */
+    private interface Run {
+        void run() throws IOException, LexerException, ParserException;
+    }
+
+    /**
+     * Measures the scanning throughput of a program scanned by the SableCC generated lexer, read
+     * through a PushbackReader over a FileReader and through a MappedSourceReader, and by the
+     * hand-written scanner, with and without skipping trivia, and prints it to stdout. Then does the
+     * same for the time per token the semi-colon rule takes on its own, with token kinds and with
+     * the instanceof chains it used to be made of.
+     *
+     * @param inPath - Filepath to GoLite program
+     * @throws IOException
+     * @throws LexerException if the program doesn't scan
+     */
+    static void tokens(String inPath) throws IOException, LexerException {
+        long size = new File(inPath).length();
+
+        String[] names = {
+            "GoLiteLexer/FileReader", "GoLiteLexer/MappedSource", "GoLiteScanner/MappedSource",
+            "GoLiteScanner/SkipTrivia"
+        };
+        Source[] sources = {
+            path -> new GoLiteLexer(new PushbackReader(new FileReader(path), 1024)),
+            path -> new GoLiteLexer(MappedSourceReader.open(path)),
+            path -> new GoLiteScanner(MappedSourceReader.open(path)),
+            path -> new GoLiteScanner(MappedSourceReader.open(path), true)
+        };
+
+        // Warm all the sources up first, so that the code they share (the tokens, the source
+        // readers) is compiled before any of them is measured.
+        for (int i = 0; i < WARMUP_ROUNDS; i++) {
+            for (Source source : sources)
+                countTokens(source.open(inPath));
+        }
+
+        System.out.println(String.format("%-28s %10s %10s", "Scanner/Reader", "Tokens", "MB/s"));
+        for (int i = 0; i < sources.length; i++)
+            measureTokens(names[i], inPath, size, sources[i]);
+
+        // Cost of the semi-colon rule alone, replayed over the unfiltered tokens of the program.
+        List<Token> raw = new ArrayList<Token>();
+        Lexer lexer = new Lexer(MappedSourceReader.open(inPath));
+        for (Token t = lexer.next(); !(t instanceof EOF); t = lexer.next())
+            raw.add(t);
+        Token[] tokens = raw.toArray(new Token[raw.size()]);
+
+        for (int i = 0; i < WARMUP_ROUNDS * FILTER_ROUNDS; i++) {
+            for (Filter filter : Filter.values())
+                filter(tokens, filter);
+        }
+
+        System.out.println();
+        System.out.println(String.format("%-28s %10s %10s", "Filter", "Semis", "ns/token"));
+        measureFilter("None (token reads only)", tokens, Filter.NONE);
+        measureFilter("instanceof chains", tokens, Filter.INSTANCEOF);
+        measureFilter("TokenKind", tokens, Filter.TOKEN_KIND);
+    }
+
+    /**
+     * Measures and prints the scanning throughput of a program scanned from a given source (once
+     * warmed up).
+     *
+     * @param name - Name of the scanner and reader
+     * @param inPath - Filepath to GoLite program
+     * @param size - Size of the program in bytes
+     * @param source - Source of the program
+     * @throws IOException
+     * @throws LexerException if the program doesn't scan
+     */
+    private static void measureTokens(String name, String inPath, long size, Source source)
+        throws IOException, LexerException {
+
+        int tokens = 0;
+        long start = System.nanoTime();
+        for (int i = 0; i < ROUNDS; i++)
+            tokens = countTokens(source.open(inPath));
+        long elapsed = System.nanoTime() - start;
+
+        System.out.println(String.format("%-28s %10d %10.2f", name, tokens,
+            throughput(size * ROUNDS, elapsed)));
+    }
+
+    /**
+     * Measures and prints the time per token the semi-colon rule takes (once warmed up).
+     *
+     * @param name - Name of the filter
+     * @param tokens - Unfiltered tokens of a program
+     * @param filter - Filter
+     */
+    private static void measureFilter(String name, Token[] tokens, Filter filter) {
+        int semis = 0;
+        long start = System.nanoTime();
+        for (int i = 0; i < ROUNDS * FILTER_ROUNDS; i++)
+            semis = filter(tokens, filter);
+        long elapsed = System.nanoTime() - start;
+
+        System.out.println(String.format("%-28s %10d %10.2f", name, semis,
+            (double) elapsed / ROUNDS / FILTER_ROUNDS / tokens.length));
+    }
+
+    /**
+     * Applies the semi-colon rule to tokens.
+     *
+     * @param tokens - Unfiltered tokens
+     * @param filter - Filter
+     * @return Number of semi-colons inserted
+     */
+    private static int filter(Token[] tokens, Filter filter) {
+        switch (filter) {
+            case NONE:
+                return readTokens(tokens);
+            case INSTANCEOF:
+                return filterByInstanceof(tokens);
+            default:
+                return filterByKind(tokens);
+        }
+    }
+
+    /**
+     * Reads the class of every token, i.e. the least any filter has to do.
+     *
+     * @param tokens - Unfiltered tokens
+     * @return 0 (No semi-colons are inserted)
+     */
+    private static int readTokens(Token[] tokens) {
+        int eols = 0;
+        for (Token t : tokens) {
+            if (t instanceof TEol)
+                eols++;
+        }
+
+        return eols - eols;
+    }
+
+    /**
+     * Applies the semi-colon rule to tokens as the lexers do.
+     *
+     * @param tokens - Unfiltered tokens
+     * @return Number of semi-colons inserted
+     */
+    private static int filterByKind(Token[] tokens) {
+        int semis = 0;
+        Token lastEffectiveToken = null;
+        for (Token t : tokens) {
+            if (TokenKind.isInlineTrivia(t))
+                continue;
+
+            if (GoLiteLexer.requiresSemi(t, lastEffectiveToken)) {
+                semis++;
+                lastEffectiveToken = SEMI;
+            } else if (TokenKind.isEffective(t))
+                lastEffectiveToken = t;
+        }
+
+        return semis;
+    }
+
+    /**
+     * Applies the semi-colon rule to tokens with instanceof chains, as the lexer used to.
+     *
+     * @param tokens - Unfiltered tokens
+     * @return Number of semi-colons inserted
+     */
+    private static int filterByInstanceof(Token[] tokens) {
+        int semis = 0;
+        Token lastEffectiveToken = null;
+        for (Token t : tokens) {
+            if ((t instanceof TEol || t instanceof EOF) && (lastEffectiveToken instanceof TId
+                || lastEffectiveToken instanceof TBreak || lastEffectiveToken instanceof TContinue
+                || lastEffectiveToken instanceof TFallthrough
+                || lastEffectiveToken instanceof TReturn || lastEffectiveToken instanceof TInt
+                || lastEffectiveToken instanceof TFloat64 || lastEffectiveToken instanceof TBool
+                || lastEffectiveToken instanceof TRune || lastEffectiveToken instanceof TString
+                || lastEffectiveToken instanceof TPlusPlus
+                || lastEffectiveToken instanceof TMinusMinus
+                || lastEffectiveToken instanceof TRparen || lastEffectiveToken instanceof TRsquare
+                || lastEffectiveToken instanceof TRbrace || lastEffectiveToken instanceof TIntLit
+                || lastEffectiveToken instanceof TOctLit || lastEffectiveToken instanceof THexLit
+                || lastEffectiveToken instanceof TFloatLit
+                || lastEffectiveToken instanceof TRuneLit
+                || lastEffectiveToken instanceof TInterpretedStringLit
+                || lastEffectiveToken instanceof TRawStringLit)) {
+                semis++;
+                lastEffectiveToken = SEMI;
+            } else if (!(t instanceof TBlank || t instanceof TComment || t instanceof TEol))
+                lastEffectiveToken = t;
+        }
+
+        return semis;
+    }
+
+    /**
+     * Scans a program to the end.
+     *
+     * @param lexer - Lexer on the program
+     * @return Number of tokens, EOF excluded
+     * @throws IOException
+     * @throws LexerException if the program doesn't scan
+     */
+    private static int countTokens(Lexer lexer) throws IOException, LexerException {
+        int tokens = 0;
+        while (!(lexer.next() instanceof EOF))
+            tokens++;
+
+        return tokens;
+    }
+
+    /**
+     * Measures the parsing throughput of a program parsed by the SableCC generated parser and by
+     * the hand-written parser, and prints it to stdout, along with the throughput of scanning
+     * alone.
+     * Both parsers read the tokens of the hand-written scanner (skipping trivia), so that they're
+     * measured on the same footing.
+     *
+     * @param inPath - Filepath to GoLite program
+     * @throws IOException
+     * @throws LexerException if the program doesn't scan
+     * @throws ParserException if the program doesn't parse
+     */
+    static void parse(String inPath) throws IOException, LexerException, ParserException {
+        long size = new File(inPath).length();
+
+        String[] names = { "Scan only", "SableCC Parser", "GoLiteParser" };
+        Parse[] parsers = {
+            lexer -> { countTokens(lexer); return null; },
+            lexer -> new Parser(lexer).parse(),
+            lexer -> new GoLiteParser(lexer).parse()
+        };
+
+        // Warm all the parsers up first, so that the scanner they share is compiled before any of
+        // them is measured.
+        for (int i = 0; i < WARMUP_ROUNDS; i++) {
+            for (Parse parser : parsers)
+                parser.parse(new GoLiteScanner(MappedSourceReader.open(inPath), true));
+        }
+
+        System.out.println(String.format("%-28s %10s %10s", "Parser", "Size (B)", "MB/s"));
+        for (int i = 0; i < parsers.length; i++)
+            measureParse(names[i], inPath, size, parsers[i]);
+    }
+
+    /**
+     * Measures and prints the parsing throughput of a program (once warmed up).
+     *
+     * @param name - Name of the parser
+     * @param inPath - Filepath to GoLite program
+     * @param size - Size of the program in bytes
+     * @param parser - Parser
+     * @throws IOException
+     * @throws LexerException if the program doesn't scan
+     * @throws ParserException if the program doesn't parse
+     */
+    private static void measureParse(String name, String inPath, long size, Parse parser)
+        throws IOException, LexerException, ParserException {
+
+        long start = System.nanoTime();
+        for (int i = 0; i < ROUNDS; i++)
+            parser.parse(new GoLiteScanner(MappedSourceReader.open(inPath), true));
+        long elapsed = System.nanoTime() - start;
+
+        System.out.println(String.format("%-28s %10d %10.2f", name, size,
+            throughput(size * ROUNDS, elapsed)));
+    }
+
+    /**
+     * Measures the heap the AST of a program takes, as SableCC nodes and as a {@link CompactAST},
+     * and prints it to stdout, along with the number of nodes of each (the compact AST has a node
+     * per list on top). Then measures the time lowering the AST into its compact form takes, and
+     * the time encoding it as a treebank takes in both forms.
+     *
+     * @param inPath - Filepath to GoLite program
+     * @throws IOException
+     * @throws LexerException if the program doesn't scan
+     * @throws ParserException if the program doesn't parse
+     */
+    static void ast(String inPath) throws IOException, LexerException, ParserException {
+        long base = usedHeap();
+        Start ast = new GoLiteParser(new GoLiteScanner(MappedSourceReader.open(inPath), true))
+            .parse();
+        long astHeap = usedHeap() - base;
+
+        CompactAST compact = CompactAST.of(ast);
+        long compactHeap = usedHeap() - base - astHeap;
+
+        int[] nodes = new int[1];
+        ast.apply(new DepthFirstAdapter() {
+            @Override
+            public void defaultIn(Node node) {
+                nodes[0]++;
+            }
+
+            @Override
+            public void defaultCase(Node node) {
+                nodes[0]++;
+            }
+        });
+
+        System.out.println(String.format("%-28s %10s %10s %10s", "AST", "Nodes", "Heap (KB)",
+            "B/node"));
+        System.out.println(String.format("%-28s %10d %10d %10.1f", "SableCC nodes", nodes[0],
+            astHeap / 1024, (double) astHeap / nodes[0]));
+        System.out.println(String.format("%-28s %10d %10d %10.1f", "CompactAST", compact.size(),
+            compactHeap / 1024, (double) compactHeap / compact.size()));
+        System.out.println(String.format("%-28s %10d %10d %10.1f", "CompactAST (estimate)",
+            compact.size(), compact.footprint() / 1024,
+            (double) compact.footprint() / compact.size()));
+
+        for (int i = 0; i < WARMUP_ROUNDS; i++) {
+            CompactAST.of(ast);
+            encode(ast);
+            compact.encode();
+        }
+
+        System.out.println();
+        System.out.println(String.format("%-28s %10s", "Pass", "ms/run"));
+
+        long start = System.nanoTime();
+        for (int i = 0; i < ROUNDS; i++)
+            CompactAST.of(ast);
+        System.out.println(String.format("%-28s %10.2f", "Lowering",
+            (System.nanoTime() - start) / 1e6 / ROUNDS));
+
+        start = System.nanoTime();
+        for (int i = 0; i < ROUNDS; i++)
+            encode(ast);
+        System.out.println(String.format("%-28s %10.2f", "ASTEncoder (SableCC nodes)",
+            (System.nanoTime() - start) / 1e6 / ROUNDS));
+
+        start = System.nanoTime();
+        for (int i = 0; i < ROUNDS; i++)
+            compact.encode();
+        System.out.println(String.format("%-28s %10.2f", "CompactAST.encode",
+            (System.nanoTime() - start) / 1e6 / ROUNDS));
+    }
+
+    /**
+     * Encodes an AST as a treebank.
+     *
+     * @param ast - AST
+     * @return Encoding
+     */
+    private static String encode(Start ast) {
+        ASTEncoder encoder = new ASTEncoder();
+        ast.apply(encoder);
+
+        return encoder.getEncoding();
+    }
+
+    /**
+     * Returns the heap taken by the objects still reachable, once garbage collected.
+     *
+     * @return Number of bytes used
+     */
+    private static long usedHeap() {
+        Runtime runtime = Runtime.getRuntime();
+
+        // A single collection can leave some garbage behind.
+        for (int i = 0; i < 4; i++)
+            System.gc();
+
+        return runtime.totalMemory() - runtime.freeMemory();
+    }
+
+    /**
+     * Measures the time the front end (scanning, parsing, weeding and type checking) takes on a
+     * program, with the generated scanner and parser and with the hand-written ones, against the
+     * time saving its typed AST to file and loading it back take, and prints it to stdout, along
+     * with the sizes of the program and of the file.
+     *
+     * @param inPath - Filepath to GoLite program
+     * @throws IOException
+     * @throws LexerException if the program doesn't scan
+     * @throws ParserException if the program doesn't parse
+     */
+    static void typedAST(String inPath) throws IOException, LexerException, ParserException {
+        long size = new File(inPath).length();
+
+        CompilationUnit unit = CompilationUnit.ofFile(inPath, false);
+        Start ast = unit.getWeededAST();
+        Map<Node, GoLiteType> typeTable = unit.getTypeTable();
+
+        File file = File.createTempFile("golite", ".tast");
+        file.deleteOnExit();
+        String path = file.getPath();
+
+        String[] names = {
+            "Front end", "Front end (fast scan, RD)", "Save typed AST", "Load typed AST"
+        };
+        Run[] runs = {
+            () -> CompilationUnit.ofFile(inPath, false).getTypeTable(),
+            () -> CompilationUnit.ofFile(inPath, false, true, true, false).getTypeTable(),
+            () -> TypedASTFile.write(ast, typeTable, path),
+            () -> TypedASTFile.read(path)
+        };
+
+        long fileSize = TypedASTFile.write(ast, typeTable, path);
+        long[] sizes = { size, size, fileSize, fileSize };
+
+        for (int i = 0; i < WARMUP_ROUNDS; i++) {
+            for (Run run : runs)
+                run.run();
+        }
+
+        System.out.println(String.format("%-28s %10s %10s", "Phase", "Size (B)", "ms/run"));
+        for (int i = 0; i < runs.length; i++) {
+            long start = System.nanoTime();
+            for (int j = 0; j < ROUNDS; j++)
+                runs[i].run();
+            long elapsed = System.nanoTime() - start;
+
+            System.out.println(String.format("%-28s %10d %10.2f", names[i], sizes[i],
+                elapsed / 1e6 / ROUNDS));
+        }
+
+        file.delete();
+    }
+
+    /**
+     * Measures the time weeding and type checking a program take, with the weeder in a traversal
+     * of its own and in the type checker's traversal, and prints it to stdout, along with the
+     * number of nodes the weeder visits on its own and as the type checker visits them. Then
+     * measures the time type checking the program with unordered top-declarations takes, with the
+     * function bodies checked in order and in parallel.
+     *
+     * @param inPath - Filepath to GoLite program
+     * @throws IOException
+     * @throws LexerException if the program doesn't scan
+     * @throws ParserException if the program doesn't parse
+     */
+    static void typeCheck(String inPath) throws IOException, LexerException, ParserException {
+        Start ast = CompilationUnit.ofFile(inPath, false).getAST();
+
+        // Warm both up first, so that the type checker they share is compiled before either is
+        // measured.
+        for (int i = 0; i < WARMUP_ROUNDS; i++) {
+            weedAndTypeCheck(ast, false);
+            weedAndTypeCheck(ast, true);
+        }
+
+        System.out.println(String.format("%-28s %10s %10s %10s", "Weeding", "Traversed", "Hooked",
+            "ms/run"));
+        measureTypeCheck("Own traversal", ast, false);
+        measureTypeCheck("Type checker's traversal", ast, true);
+
+        for (int i = 0; i < WARMUP_ROUNDS; i++) {
+            typeCheckUnordered(ast, false);
+            typeCheckUnordered(ast, true);
+        }
+
+        int functions = 0;
+        for (PTopDec d : ((AProgProg) ast.getPProg()).getTopDec()) {
+            if (d instanceof AFuncTopDec)
+                functions++;
+        }
+
+        System.out.println();
+        System.out.println(String.format("%-28s %10s %10s %10s", "Function bodies (-ut)",
+            "Functions", "Threads", "ms/run"));
+        measureUnorderedTypeCheck("In order", ast, functions, 1, false);
+        measureUnorderedTypeCheck("In parallel", ast, functions,
+            ForkJoinPool.getCommonPoolParallelism(), true);
+    }
+
+    /**
+     * Measures and prints the time type checking a program with unordered top-declarations takes
+     * (once warmed up).
+     *
+     * @param name - Name of the mode
+     * @param ast - AST of the program
+     * @param functions - Number of functions in the program
+     * @param threads - Number of threads checking the function bodies
+     * @param parallel - Flag indicating whether to check the function bodies in parallel
+     */
+    private static void measureUnorderedTypeCheck(String name, Start ast, int functions,
+        int threads, boolean parallel) {
+
+        long start = System.nanoTime();
+        for (int i = 0; i < ROUNDS; i++)
+            typeCheckUnordered(ast, parallel);
+        long elapsed = System.nanoTime() - start;
+
+        System.out.println(String.format("%-28s %10d %10d %10.2f", name, functions, threads,
+            elapsed / 1e6 / ROUNDS));
+    }
+
+    /**
+     * Type checks a program with unordered top-declarations.
+     *
+     * @param ast - AST of the program
+     * @param parallel - Flag indicating whether to check the function bodies in parallel
+     */
+    private static void typeCheckUnordered(Start ast, boolean parallel) {
+        SymbolTableBuilder symbolTableBuilder = new SymbolTableBuilder();
+        ast.apply(symbolTableBuilder);
+
+        TypeChecker typeChecker = new TypeChecker(symbolTableBuilder.getTable());
+        typeChecker.setParallel(parallel);
+        ast.apply(typeChecker);
+    }
+
+    /**
+     * Measures and prints the time weeding and type checking a program take (once warmed up).
+     *
+     * @param name - Name of the weeding mode
+     * @param ast - AST of the program
+     * @param fuse - Flag indicating whether to weed in the type checker's traversal
+     */
+    private static void measureTypeCheck(String name, Start ast, boolean fuse) {
+        CountingWeeder weeder = null;
+        long start = System.nanoTime();
+        for (int i = 0; i < ROUNDS; i++)
+            weeder = weedAndTypeCheck(ast, fuse);
+        long elapsed = System.nanoTime() - start;
+
+        System.out.println(String.format("%-28s %10d %10d %10.2f", name, weeder.traversed,
+            weeder.hooked, elapsed / 1e6 / ROUNDS));
+    }
+
+    /**
+     * Weeds and type checks a program.
+     *
+     * @param ast - AST of the program
+     * @param fuse - Flag indicating whether to weed in the type checker's traversal
+     * @return Weeder
+     */
+    private static CountingWeeder weedAndTypeCheck(Start ast, boolean fuse) {
+        CountingWeeder weeder = new CountingWeeder();
+        TypeChecker typeChecker = new TypeChecker();
+
+        if (fuse)
+            typeChecker.setWeeder(weeder);
+        else
+            ast.apply(weeder);
+
+        ast.apply(typeChecker);
+
+        return weeder;
+    }
+
+    /**
+     * Weeder counting the nodes it visits in its own traversals, and those it's called on in
+     * another's.
+     */
+    private static class CountingWeeder extends Weeder {
+
+        /** Number of (non-token) nodes visited in the weeder's own traversals. */
+        private int traversed = 0;
+        /** Number of nodes weeded as another traversal visits them. */
+        private int hooked = 0;
+        /** Flag for whether a node is being exited in another traversal. */
+        private boolean exiting = false;
+
+        @Override
+        public void enter(Node node) {
+            this.hooked++;
+            super.enter(node);
+        }
+
+        @Override
+        public void exit(Node node) {
+            this.exiting = true;
+            super.exit(node);
+            this.exiting = false;
+        }
+
+        @Override
+        public void defaultOut(Node node) {
+            this.traversed++;
+        }
+
+        @Override
+        public void outALoopStmt(ALoopStmt node) {
+            if (!this.exiting)
+                this.traversed++;
+
+            super.outALoopStmt(node);
+        }
+
+    }
+
+    /**
+     * Measures the time the symbol table operations of a program take with nested scopes and with
+     * flat scopes, and prints it to stdout. The operations are those the code generator makes:
+     * entering and exiting a scope for every function and block, declaring every Id, and looking
+     * up the symbol and scope depth of every variable.
+     *
+     * @param inPath - Filepath to GoLite program
+     * @throws IOException
+     * @throws LexerException if the program doesn't scan
+     * @throws ParserException if the program doesn't parse
+     */
+    static void symbolTable(String inPath) throws IOException, LexerException, ParserException {
+        Start ast = CompilationUnit.ofFile(inPath, false).getWeededAST();
+
+        // Warm both layouts up first, so that the traversal of the AST they share is compiled
+        // before either is measured.
+        for (int i = 0; i < WARMUP_ROUNDS; i++) {
+            ast.apply(new SymbolTableReplay(false));
+            ast.apply(new SymbolTableReplay(true));
+        }
+
+        System.out.println(String.format("%-28s %10s %10s", "Symbol table", "Lookups", "us/run"));
+        measureSymbolTable("Nested scopes", ast, false);
+        measureSymbolTable("Flat scopes", ast, true);
+    }
+
+    /**
+     * Measures and prints the time the symbol table operations of a program take (once warmed up).
+     *
+     * @param name - Name of the symbol table
+     * @param ast - AST of the program
+     * @param flat - Flag indicating whether the symbol table has flat scopes
+     */
+    private static void measureSymbolTable(String name, Start ast, boolean flat) {
+        int lookups = 0;
+        long start = System.nanoTime();
+        for (int i = 0; i < ROUNDS; i++) {
+            SymbolTableReplay replay = new SymbolTableReplay(flat);
+            ast.apply(replay);
+            lookups = replay.lookups;
+        }
+        long elapsed = System.nanoTime() - start;
+
+        System.out.println(String.format("%-28s %10d %10.1f", name, lookups,
+            elapsed / 1e3 / ROUNDS));
+    }
+
+    /**
+     * Makes the symbol table operations of the code generator on a program.
+     */
+    private static class SymbolTableReplay extends DepthFirstAdapter {
+
+        /** Symbol table. */
+        private final SymbolTable table;
+        /** Number of variables looked up. */
+        private int lookups = 0;
+
+        /**
+         * @param flat - Flag indicating whether the symbol table has flat scopes
+         */
+        SymbolTableReplay(boolean flat) {
+            this.table = new SymbolTable(flat);
+        }
+
+        @Override
+        public void inStart(Start node) {
+            this.table.scope();
+            this.table.putSymbol(new VariableSymbol("true", node));
+            this.table.putSymbol(new VariableSymbol("false", node));
+        }
+
+        @Override
+        public void inAProgProg(AProgProg node) {
+            this.table.scope();
+        }
+
+        @Override
+        public void inAFuncTopDec(AFuncTopDec node) {
+            this.table.putSymbol(new FunctionSymbol(node.getId().getText(), node));
+            this.table.scope();
+
+            for (PArgGroup pArgGroup : node.getArgGroup()) {
+                for (TId id : ((AArgArgGroup) pArgGroup).getId())
+                    declare(id.getText(), id);
+            }
+        }
+
+        @Override
+        public void outAFuncTopDec(AFuncTopDec node) {
+            this.table.unscope();
+        }
+
+        @Override
+        public void inABlockStmt(ABlockStmt node) {
+            this.table.scope();
+        }
+
+        @Override
+        public void outABlockStmt(ABlockStmt node) {
+            this.table.unscope();
+        }
+
+        @Override
+        public void inAIfElseStmt(AIfElseStmt node) {
+            this.table.scope();
+        }
+
+        @Override
+        public void outAIfElseStmt(AIfElseStmt node) {
+            this.table.unscope();
+        }
+
+        @Override
+        public void inALoopStmt(ALoopStmt node) {
+            this.table.scope();
+        }
+
+        @Override
+        public void outALoopStmt(ALoopStmt node) {
+            this.table.unscope();
+        }
+
+        @Override
+        public void inABlockCaseBlock(ABlockCaseBlock node) {
+            this.table.scope();
+        }
+
+        @Override
+        public void outABlockCaseBlock(ABlockCaseBlock node) {
+            this.table.unscope();
+        }
+
+        @Override
+        public void inAIdOptId(AIdOptId node) {
+            declare(node.getId().getText(), node);
+        }
+
+        @Override
+        public void inAVariableExpr(AVariableExpr node) {
+            String name = node.getId().getText();
+
+            // As when the code generator renames a variable.
+            if (this.table.getSymbol(name) != null) {
+                this.table.getScopeDepth(name);
+                this.lookups++;
+            }
+        }
+
+        /**
+         * Declares a variable in the current scope, unless it already is.
+         *
+         * @param name - Variable name
+         * @param node - Declaring node
+         */
+        private void declare(String name, Node node) {
+            if (!this.table.defSymbolInCurrentScope(name))
+                this.table.putSymbol(new VariableSymbol(name, node));
+        }
+
+    }
+
+    /**
+     * Measures the time generating the code of a program takes (in memory), with the function
+     * bodies generated in order and in parallel, and prints it to stdout.
+     *
+     * @param inPath - Filepath to GoLite program
+     * @param wrap - Flag indicating whether to enforce wrap-arounds for integers
+     * @throws IOException
+     * @throws LexerException if the program doesn't scan
+     * @throws ParserException if the program doesn't parse
+     */
+    static void generate(String inPath, boolean wrap)
+        throws IOException, LexerException, ParserException {
+
+        CompilationUnit unit = CompilationUnit.ofFile(inPath, false);
+        Map<Node, GoLiteType> typeTable = unit.getTypeTable();
+        Start ast = unit.getWeededAST();
+
+        for (int i = 0; i < WARMUP_ROUNDS; i++) {
+            generate(ast, typeTable, wrap, false);
+            generate(ast, typeTable, wrap, true);
+        }
+
+        int functions = 0;
+        for (PTopDec d : ((AProgProg) ast.getPProg()).getTopDec()) {
+            if (d instanceof AFuncTopDec)
+                functions++;
+        }
+
+        System.out.println(String.format("%-28s %10s %10s %10s", "Function bodies", "Functions",
+            "Threads", "ms/run"));
+        measureGenerate("In order", ast, typeTable, wrap, functions, 1, false);
+        measureGenerate("In parallel", ast, typeTable, wrap, functions,
+            ForkJoinPool.getCommonPoolParallelism(), true);
+    }
+
+    /**
+     * Measures and prints the time generating the code of a program takes (once warmed up).
+     *
+     * @param name - Name of the mode
+     * @param ast - AST of the program
+     * @param typeTable - Types of the expressions
+     * @param wrap - Flag indicating whether to enforce wrap-arounds for integers
+     * @param functions - Number of functions in the program
+     * @param threads - Number of threads generating the function bodies
+     * @param parallel - Flag indicating whether to generate the function bodies in parallel
+     */
+    private static void measureGenerate(String name, Start ast, Map<Node, GoLiteType> typeTable,
+        boolean wrap, int functions, int threads, boolean parallel) {
+
+        long start = System.nanoTime();
+        for (int i = 0; i < ROUNDS; i++)
+            generate(ast, typeTable, wrap, parallel);
+        long elapsed = System.nanoTime() - start;
+
+        System.out.println(String.format("%-28s %10d %10d %10.2f", name, functions, threads,
+            elapsed / 1e6 / ROUNDS));
+    }
+
+    /**
+     * Generates the code of a program, in memory.
+     *
+     * @param ast - AST of the program
+     * @param typeTable - Types of the expressions
+     * @param wrap - Flag indicating whether to enforce wrap-arounds for integers
+     * @param parallel - Flag indicating whether to generate the function bodies in parallel
+     * @return Generated code
+     */
+    private static String generate(Start ast, Map<Node, GoLiteType> typeTable, boolean wrap,
+        boolean parallel) {
+
+        CodeGenerator generator = new CodeGenerator(typeTable, wrap);
+        generator.setParallel(parallel);
+        ast.apply(generator);
+
+        return generator.getGeneratedCode();
+    }
+
+    /**
+     * @param bytes - Number of bytes processed
+     * @param nanos - Time taken in nanoseconds
+     * @return Throughput in MB/s
+     */
+    private static double throughput(long bytes, long nanos) {
+        return (bytes / (1024.0 * 1024.0)) / (nanos / 1e9);
+    }
+
+}
@@ -0,0 +1,746 @@
+package golite;
+
+import golite.analysis.*;
+import golite.node.*;
+
+import java.nio.IntBuffer;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.function.ObjIntConsumer;
+
+
+/**
+ * Compact AST.
+ *
+ * The AST of a program lowered into a handful of flat arrays, once parsed: the kind of every node
+ * in an int array, the children of every node as a range of a shared int array, and the text of
+ * every token as an index into a pool of interned strings. Nodes are numbered in pre-order (0 for
+ * the root), so a node and its subtree form a range of IDs, and there are no parent pointers or
+ * child lists to keep alive.
+ *
+ * Every node of a given kind has the same number of children (slots), one per element of its
+ * alternative in the grammar's AST section, in order: an absent optional element is left as -1,
+ * and the elements of a list are gathered under a pseudo-node of kind {@link #LIST}. Tokens have
+ * no children, but a text, line and position.
+ *
+ * No compiler pass runs on it: it's the layout of the AST in typed AST files (See
+ * {@link TypedASTFile}), and its treebank encoding is that of the AST. The type checker and the
+ * code generator still run on the AST, which is built first and kept alongside.
+ *
+ * Immutable once built, so it can be shared between threads.
+ */
+public final class CompactAST {
+
+    /** Kind of the pseudo-nodes holding the elements of a list. */
+    public static final int LIST = 0;
+
+    /** Names of the kinds, by kind. */
+    private static final List<String> KIND_NAMES = new ArrayList<String>();
+    /** Kinds, by node class, numbered as they're first asked for. */
+    private static final ClassValue<Integer> KINDS = new ClassValue<Integer>() {
+        @Override
+        protected Integer computeValue(Class<?> c) {
+            synchronized (KIND_NAMES) {
+                KIND_NAMES.add(c.getSimpleName());
+                return KIND_NAMES.size() - 1;
+            }
+        }
+    };
+
+    static {
+        KIND_NAMES.add("List");
+    }
+
+    /** Kind of every node. */
+    private final int[] kinds;
+    /** Index of the first child of every node in the children array. */
+    private final int[] first;
+    /** Number of children of every node. */
+    private final int[] arity;
+    /** IDs of the children of all the nodes (-1 for an absent optional child). */
+    private final int[] children;
+    /** Text of every token, as an index into the string pool (-1 for the other nodes). */
+    private final int[] text;
+    /** Line of every token (0 for the other nodes). */
+    private final int[] lines;
+    /** Position of every token (0 for the other nodes). */
+    private final int[] positions;
+    /** Distinct texts of the tokens. */
+    private final String[] strings;
+
+    /**
+     * Constructor.
+     */
+    private CompactAST(int[] kinds, int[] first, int[] arity, int[] children, int[] text,
+        int[] lines, int[] positions, String[] strings) {
+
+        this.kinds = kinds;
+        this.first = first;
+        this.arity = arity;
+        this.children = children;
+        this.text = text;
+        this.lines = lines;
+        this.positions = positions;
+        this.strings = strings;
+    }
+
+    /**
+     * Lowers an AST into its compact form.
+     *
+     * @param ast - AST
+     * @return Compact AST
+     */
+    public static CompactAST of(Node ast) {
+        return of(ast, null);
+    }
+
+    /**
+     * Lowers an AST into its compact form, telling the ID of each node as it's lowered.
+     *
+     * @param ast - AST
+     * @param lowered - Called with every node (but the list pseudo-nodes) and its ID (null for
+     *  none)
+     * @return Compact AST
+     */
+    static CompactAST of(Node ast, ObjIntConsumer<Node> lowered) {
+        Lowering lowering = new Lowering(lowered);
+        ast.apply(lowering);
+
+        return lowering.build();
+    }
+
+    /**
+     * Returns the kind of the nodes of a class.
+     *
+     * @param c - Node class
+     * @return Kind
+     */
+    public static int kindOf(Class<? extends Node> c) {
+        return KINDS.get(c);
+    }
+
+    /**
+     * @return Number of kinds known so far (the kinds of all the compact AST's built so far are
+     *  under it)
+     */
+    static int kinds() {
+        synchronized (KIND_NAMES) {
+            return KIND_NAMES.size();
+        }
+    }
+
+    /**
+     * Returns the name of a kind.
+     *
+     * @param kind - Kind
+     * @return Simple name of the node class of the kind ("List" for {@link #LIST})
+     */
+    public static String kindName(int kind) {
+        synchronized (KIND_NAMES) {
+            return KIND_NAMES.get(kind);
+        }
+    }
+
+    /**
+     * @return Number of nodes
+     */
+    public int size() {
+        return this.kinds.length;
+    }
+
+    /**
+     * @return ID of the root
+     */
+    public int root() {
+        return 0;
+    }
+
+    /**
+     * @param node - Node ID
+     * @return Kind of the node
+     */
+    public int kind(int node) {
+        return this.kinds[node];
+    }
+
+    /**
+     * @param node - Node ID
+     * @return Number of children of the node
+     */
+    public int arity(int node) {
+        return this.arity[node];
+    }
+
+    /**
+     * Returns a child of a node.
+     *
+     * @param node - Node ID
+     * @param slot - Index of the child (under 0 its arity)
+     * @return ID of the child, or -1 if it's an absent optional child
+     */
+    public int child(int node, int slot) {
+        return this.children[this.first[node] + slot];
+    }
+
+    /**
+     * @param node - Node ID
+     * @return Text of the node if it's a token, null otherwise
+     */
+    public String text(int node) {
+        return (this.text[node] == -1) ? null : this.strings[this.text[node]];
+    }
+
+    /**
+     * Returns the line of a node: that of its first token, or if it has none, of the first token
+     * following it (as {@link golite.util.LineAndPosTracker} does for the AST).
+     *
+     * @param node - Node ID
+     * @return Line (0 if neither the node nor anything after it has a token)
+     */
+    public int line(int node) {
+        int token = this.locate(node);
+        return (token != -1) ? this.lines[token] : 0;
+    }
+
+    /**
+     * Returns the position of a node (See {@link #line(int)}).
+     *
+     * @param node - Node ID
+     * @return Position (0 if neither the node nor anything after it has a token)
+     */
+    public int pos(int node) {
+        int token = this.locate(node);
+        return (token != -1) ? this.positions[token] : 0;
+    }
+
+    /**
+     * @param node - Node ID
+     * @return ID of the first token in pre-order from the node on (-1 if none)
+     */
+    private int locate(int node) {
+        for (int id = node; id < this.kinds.length; id++) {
+            if (this.text[id] != -1)
+                return id;
+        }
+
+        return -1;
+    }
+
+    /**
+     * @return Number of child slots of all the nodes
+     */
+    int slots() {
+        return this.children.length;
+    }
+
+    /**
+     * @param node - Node ID
+     * @return Index of the text of the node in the string pool (-1 if it isn't a token)
+     */
+    int textId(int node) {
+        return this.text[node];
+    }
+
+    /**
+     * @return Number of strings in the pool
+     */
+    int strings() {
+        return this.strings.length;
+    }
+
+    /**
+     * @param id - Index in the string pool
+     * @return String
+     */
+    String string(int id) {
+        return this.strings[id];
+    }
+
+    /**
+     * @return Number of tokens
+     */
+    int tokens() {
+        int tokens = 0;
+        for (int t : this.text) {
+            if (t != -1)
+                tokens++;
+        }
+
+        return tokens;
+    }
+
+    /**
+     * Writes the arrays of the compact AST to a buffer: the kinds, the indices of the first
+     * children and the arities, of {@link #size()} integers each, followed by the
+     * {@link #slots()} child slots, and by the text, line and position of each of the
+     * {@link #tokens()} tokens in turn.
+     *
+     * @param out - Buffer
+     */
+    void write(IntBuffer out) {
+        out.put(this.kinds).put(this.first).put(this.arity).put(this.children);
+
+        for (int id = 0; id < this.text.length; id++) {
+            if (this.text[id] != -1)
+                out.put(this.text[id]).put(this.lines[id]).put(this.positions[id]);
+        }
+    }
+
+    /**
+     * Returns an estimate of the heap the compact AST takes.
+     *
+     * @return Number of bytes of its arrays and strings (on a 64-bit JVM with compressed
+     *  pointers)
+     */
+    public long footprint() {
+        long bytes = 0;
+        for (int[] array : new int[][] {
+            this.kinds, this.first, this.arity, this.children, this.text, this.lines,
+            this.positions}) {
+            bytes += 16 + 4L * array.length;
+        }
+
+        bytes += 16 + 4L * this.strings.length;
+        for (String s : this.strings)
+            bytes += 24 + 16 + 2L * s.length();
+
+        return bytes;
+    }
+
+    /**
+     * Encodes the AST as a string, in the treebank format of {@link ASTEncoder} (which this
+     * gives the same encoding as, for the AST it was lowered from).
+     *
+     * @return Encoding
+     */
+    public String encode() {
+        StringBuilder sb = new StringBuilder();
+        this.encode(this.root(), sb);
+
+        return sb.toString();
+    }
+
+    /**
+     * Encodes a subtree.
+     *
+     * @param node - Node ID (-1 for an absent child)
+     * @param sb - Encoding so far
+     */
+    private void encode(int node, StringBuilder sb) {
+        if (node == -1 || this.text[node] != -1)
+            return;
+
+        int kind = this.kinds[node];
+        if (kind != LIST) {
+            // Separate out nodes at the same level with a space.
+            if (sb.length() > 0 && sb.charAt(sb.length() - 1) == ')')
+                sb.append(' ');
+
+            sb.append('(').append(kindName(kind)).append(' ');
+
+            // Encode the specific Id of Id's and variables.
+            if (kind == ID_OPT_ID || kind == VARIABLE_EXPR)
+                sb.append(this.text(this.child(node, 0)));
+        }
+
+        for (int slot = 0; slot < this.arity[node]; slot++)
+            this.encode(this.child(node, slot), sb);
+
+        if (kind != LIST) {
+            // For nodes with no children, delete the space for separating the node from its
+            // children.
+            if (sb.charAt(sb.length() - 1) == ' ')
+                sb.setLength(sb.length() - 1);
+
+            sb.append(')');
+        }
+    }
+
+    /** Kinds the encoding gives the text of. */
+    private static final int ID_OPT_ID = kindOf(AIdOptId.class);
+    private static final int VARIABLE_EXPR = kindOf(AVariableExpr.class);
+
+    /**
+     * Lowers an AST, in pre-order. Nodes with list or optional elements have case-methods of their
+     * own, giving them their fixed slots, while the others have their children visited as usual.
+     */
+    private static class Lowering extends DepthFirstAdapter {
+
+        /** Called with every node and its ID (null for none). */
+        private final ObjIntConsumer<Node> lowered;
+
+        /** Kind of every node. */
+        private int[] kinds = new int[1024];
+        /** Index of the first child of every node. */
+        private int[] first = new int[1024];
+        /** Number of children of every node. */
+        private int[] arity = new int[1024];
+        /** Text of every node (-1 if none). */
+        private int[] text = new int[1024];
+        /** Line of every node. */
+        private int[] lines = new int[1024];
+        /** Position of every node. */
+        private int[] positions = new int[1024];
+        /** Number of nodes. */
+        private int size = 0;
+
+        /** Children of all the nodes exited so far. */
+        private int[] children = new int[1024];
+        /** Number of children. */
+        private int childCount = 0;
+
+        /** Children of the nodes being visited, innermost last. */
+        private int[] stack = new int[64];
+        /** Number of children on the stack. */
+        private int stackSize = 0;
+        /** Stack sizes on entering the nodes being visited, innermost last. */
+        private int[] marks = new int[64];
+        /** Number of nodes being visited. */
+        private int depth = 0;
+
+        /** Indices of the distinct texts in the pool. */
+        private final HashMap<String, Integer> pool = new HashMap<String, Integer>();
+        /** Distinct texts, by index. */
+        private final ArrayList<String> strings = new ArrayList<String>();
+
+        /**
+         * @param lowered - Called with every node (but the list pseudo-nodes) and its ID (null
+         *  for none)
+         */
+        Lowering(ObjIntConsumer<Node> lowered) {
+            this.lowered = lowered;
+        }
+
+        /**
+         * Adds a node, as a child of the node being visited.
+         *
+         * @param kind - Kind
+         * @return Node ID
+         */
+        private int add(int kind) {
+            int id = this.size++;
+            if (id == this.kinds.length) {
+                int length = 2 * id;
+                this.kinds = Arrays.copyOf(this.kinds, length);
+                this.first = Arrays.copyOf(this.first, length);
+                this.arity = Arrays.copyOf(this.arity, length);
+                this.text = Arrays.copyOf(this.text, length);
+                this.lines = Arrays.copyOf(this.lines, length);
+                this.positions = Arrays.copyOf(this.positions, length);
+            }
+
+            this.kinds[id] = kind;
+            this.text[id] = -1;
+            this.push(id);
+
+            return id;
+        }
+
+        /**
+         * Pushes a child of the node being visited.
+         *
+         * @param id - Child ID (-1 for an absent child)
+         */
+        private void push(int id) {
+            if (this.stackSize == this.stack.length)
+                this.stack = Arrays.copyOf(this.stack, 2 * this.stackSize);
+
+            this.stack[this.stackSize++] = id;
+        }
+
+        /**
+         * Enters a node.
+         *
+         * @param kind - Kind
+         * @return Node ID
+         */
+        private int enter(int kind) {
+            int id = this.add(kind);
+
+            if (this.depth == this.marks.length)
+                this.marks = Arrays.copyOf(this.marks, 2 * this.depth);
+            this.marks[this.depth++] = this.stackSize;
+
+            return id;
+        }
+
+        /**
+         * Exits the node being visited, moving its children off the stack.
+         */
+        private void exit() {
+            int mark = this.marks[--this.depth];
+            int id = this.stack[mark - 1];
+            int n = this.stackSize - mark;
+
+            if (this.childCount + n > this.children.length)
+                this.children = Arrays.copyOf(this.children,
+                    Math.max(2 * this.children.length, this.childCount + n));
+            System.arraycopy(this.stack, mark, this.children, this.childCount, n);
+
+            this.first[id] = this.childCount;
+            this.arity[id] = n;
+            this.childCount += n;
+            this.stackSize = mark;
+        }
+
+        /**
+         * Visits an optional child.
+         *
+         * @param node - Child (null if absent)
+         */
+        private void optional(Node node) {
+            if (node == null)
+                this.push(-1);
+            else
+                node.apply(this);
+        }
+
+        /**
+         * Visits a list of children, under a list pseudo-node.
+         *
+         * @param nodes - Children
+         */
+        private void list(List<? extends Node> nodes) {
+            this.enter(LIST);
+            for (Node node : nodes)
+                node.apply(this);
+            this.exit();
+        }
+
+        /**
+         * @return Compact AST of the nodes visited
+         */
+        CompactAST build() {
+            int n = this.size;
+
+            return new CompactAST(Arrays.copyOf(this.kinds, n), Arrays.copyOf(this.first, n),
+                Arrays.copyOf(this.arity, n), Arrays.copyOf(this.children, this.childCount),
+                Arrays.copyOf(this.text, n), Arrays.copyOf(this.lines, n),
+                Arrays.copyOf(this.positions, n),
+                this.strings.toArray(new String[this.strings.size()]));
+        }
+
+        @Override
+        public void defaultIn(Node node) {
+            int id = this.enter(kindOf(node.getClass()));
+            if (this.lowered != null)
+                this.lowered.accept(node, id);
+        }
+
+        @Override
+        public void defaultOut(Node node) {
+            this.exit();
+        }
+
+        // Tokens.
+        @Override
+        public void defaultCase(Node node) {
+            Token token = (Token) node;
+            int id = this.add(kindOf(token.getClass()));
+
+            String text = token.getText();
+            Integer index = this.pool.get(text);
+            if (index == null) {
+                index = this.strings.size();
+                this.pool.put(text, index);
+                this.strings.add(text);
+            }
+
+            this.text[id] = index;
+            this.lines[id] = token.getLine();
+            this.positions[id] = token.getPos();
+            this.first[id] = this.childCount;
+            this.arity[id] = 0;
+
+            if (this.lowered != null)
+                this.lowered.accept(node, id);
+        }
+
+        /* Nodes with list or optional elements. */
+
+        @Override
+        public void caseAProgProg(AProgProg node) {
+            this.defaultIn(node);
+            node.getId().apply(this);
+            this.list(node.getTopDec());
+            this.defaultOut(node);
+        }
+
+        @Override
+        public void caseAVarsTopDec(AVarsTopDec node) {
+            this.defaultIn(node);
+            this.list(node.getVarSpec());
+            this.defaultOut(node);
+        }
+
+        @Override
+        public void caseATypesTopDec(ATypesTopDec node) {
+            this.defaultIn(node);
+            this.list(node.getTypeSpec());
+            this.defaultOut(node);
+        }
+
+        @Override
+        public void caseAFuncTopDec(AFuncTopDec node) {
+            this.defaultIn(node);
+            node.getId().apply(this);
+            this.list(node.getArgGroup());
+            this.optional(node.getTypeExpr());
+            this.list(node.getStmt());
+            this.defaultOut(node);
+        }
+
+        @Override
+        public void caseASpecVarSpec(ASpecVarSpec node) {
+            this.defaultIn(node);
+            this.list(node.getOptId());
+            this.optional(node.getTypeExpr());
+            this.list(node.getExpr());
+            this.defaultOut(node);
+        }
+
+        @Override
+        public void caseAArgArgGroup(AArgArgGroup node) {
+            this.defaultIn(node);
+            this.list(node.getId());
+            node.getTypeExpr().apply(this);
+            this.defaultOut(node);
+        }
+
+        @Override
+        public void caseAVarDecStmt(AVarDecStmt node) {
+            this.defaultIn(node);
+            this.list(node.getVarSpec());
+            this.defaultOut(node);
+        }
+
+        @Override
+        public void caseAShortAssignStmt(AShortAssignStmt node) {
+            this.defaultIn(node);
+            this.list(node.getOptId());
+            this.list(node.getExpr());
+            this.defaultOut(node);
+        }
+
+        @Override
+        public void caseATypeDecStmt(ATypeDecStmt node) {
+            this.defaultIn(node);
+            this.list(node.getTypeSpec());
+            this.defaultOut(node);
+        }
+
+        @Override
+        public void caseAAssignStmt(AAssignStmt node) {
+            this.defaultIn(node);
+            this.list(node.getLhs());
+            this.list(node.getRhs());
+            this.defaultOut(node);
+        }
+
+        @Override
+        public void caseAPrintStmt(APrintStmt node) {
+            this.defaultIn(node);
+            this.list(node.getExpr());
+            this.defaultOut(node);
+        }
+
+        @Override
+        public void caseAPrintlnStmt(APrintlnStmt node) {
+            this.defaultIn(node);
+            this.list(node.getExpr());
+            this.defaultOut(node);
+        }
+
+        @Override
+        public void caseAReturnStmt(AReturnStmt node) {
+            this.defaultIn(node);
+            this.optional(node.getExpr());
+            this.defaultOut(node);
+        }
+
+        @Override
+        public void caseAIfElseStmt(AIfElseStmt node) {
+            this.defaultIn(node);
+            node.getCondition().apply(this);
+            this.list(node.getIfBlock());
+            this.list(node.getElseBlock());
+            this.defaultOut(node);
+        }
+
+        @Override
+        public void caseASwitchStmt(ASwitchStmt node) {
+            this.defaultIn(node);
+            this.optional(node.getStmt());
+            this.optional(node.getExpr());
+            this.list(node.getCaseBlock());
+            this.defaultOut(node);
+        }
+
+        @Override
+        public void caseALoopStmt(ALoopStmt node) {
+            this.defaultIn(node);
+            this.optional(node.getInit());
+            this.optional(node.getExpr());
+            this.optional(node.getEnd());
+            this.list(node.getBlock());
+            this.defaultOut(node);
+        }
+
+        @Override
+        public void caseABlockStmt(ABlockStmt node) {
+            this.defaultIn(node);
+            this.list(node.getStmt());
+            this.defaultOut(node);
+        }
+
+        @Override
+        public void caseAConditionCondition(AConditionCondition node) {
+            this.defaultIn(node);
+            this.optional(node.getStmt());
+            node.getExpr().apply(this);
+            this.defaultOut(node);
+        }
+
+        @Override
+        public void caseABlockCaseBlock(ABlockCaseBlock node) {
+            this.defaultIn(node);
+            node.getCaseCondition().apply(this);
+            this.list(node.getStmt());
+            this.defaultOut(node);
+        }
+
+        @Override
+        public void caseAExprsCaseCondition(AExprsCaseCondition node) {
+            this.defaultIn(node);
+            this.list(node.getExpr());
+            this.defaultOut(node);
+        }
+
+        @Override
+        public void caseAStructTypeExpr(AStructTypeExpr node) {
+            this.defaultIn(node);
+            this.list(node.getFieldSpec());
+            this.defaultOut(node);
+        }
+
+        @Override
+        public void caseASpecFieldSpec(ASpecFieldSpec node) {
+            this.defaultIn(node);
+            this.list(node.getOptId());
+            node.getTypeExpr().apply(this);
+            this.defaultOut(node);
+        }
+
+        @Override
+        public void caseAFuncCallExpr(AFuncCallExpr node) {
+            this.defaultIn(node);
+            node.getId().apply(this);
+            this.list(node.getExpr());
+            this.defaultOut(node);
+        }
+
+    }
+
+}
@@ -0,0 +1,408 @@
+package golite;
+
+import golite.exception.SymbolTableException;
+import golite.exception.WeederException;
+import golite.symbol.SymbolTable;
+import golite.symbol.SymbolTableBuilder;
+import golite.symbol.SymbolTableListener;
+import golite.type.GoLiteType;
+import golite.type.TypeChecker;
+import golite.lexer.*;
+import golite.node.*;
+import golite.parser.*;
+
+import java.io.IOException;
+import java.io.PushbackReader;
+import java.io.StringReader;
+import java.util.Map;
+
+
+/**
+ * Compilation Unit.
+ *
+ * A GoLite program along with the results of the front-end phases run on it so far. Each phase
+ * (parsing, weeding, type checking) runs lazily, the first time one of its results is asked for,
+ * and at most once. Later requests get the cached AST, symbol table and type table, or the same
+ * error again if the phase failed, so any number of outputs can be produced from one front-end
+ * run.
+ *
+ * Not thread-safe.
+ */
+public class CompilationUnit {
+
+    /** Opens a reader on the program. */
+    private interface Source {
+        PushbackReader open() throws IOException;
+    }
+
+    /** Program source. */
+    private final Source source;
+    /** Flag indicating whether top-declarations are allowed to be unordered. */
+    private final boolean ut;
+    /** Flag indicating whether the program is scanned with the hand-written scanner. */
+    private final boolean fastScan;
+    /** Flag indicating whether the program is parsed with the hand-written parser. */
+    private final boolean rdParse;
+    /** Flag indicating whether the program is weeded in the type checker's traversal. */
+    private final boolean fuse;
+    /** Listener to the activity of the symbol table as the program is type checked. */
+    private SymbolTableListener symbolTableListener = SymbolTableListener.NONE;
+    /** Flag indicating whether the function bodies are type checked in parallel (with ut). */
+    private boolean parallelTypeCheck;
+
+    /** AST (null until parsed). */
+    private Start ast;
+    /** Flag indicating whether the AST was weeded. */
+    private boolean weeded;
+    /** Type checker that ran on the AST (null until type checked). */
+    private TypeChecker typeChecker;
+    /** Type table loaded along with the AST (null if the program wasn't loaded type checked). */
+    private Map<Node, GoLiteType> typeTable;
+    /** Error of the phase that failed (null if none did). */
+    private Exception error;
+
+    /**
+     * @param source - Program source
+     * @param ut - Flag indicating whether top-declarations are allowed to be unordered
+     * @param fastScan - Flag indicating whether to scan with the hand-written scanner
+     * @param rdParse - Flag indicating whether to parse with the hand-written parser
+     * @param fuse - Flag indicating whether to weed in the type checker's traversal
+     */
+    private CompilationUnit(Source source, boolean ut, boolean fastScan, boolean rdParse,
+        boolean fuse) {
+
+        this.source = source;
+        this.ut = ut;
+        this.fastScan = fastScan;
+        this.rdParse = rdParse;
+        this.fuse = fuse;
+    }
+
+    /**
+     * Creates a compilation unit for a program file.
+     *
+     * @param inPath - Filepath to GoLite program
+     * @param ut - Flag indicating whether top-declarations are allowed to be unordered
+     * @return Compilation unit
+     */
+    public static CompilationUnit ofFile(String inPath, boolean ut) {
+        return ofFile(inPath, ut, false, false, false);
+    }
+
+    /**
+     * Creates a compilation unit for a program file.
+     *
+     * @param inPath - Filepath to GoLite program
+     * @param ut - Flag indicating whether top-declarations are allowed to be unordered
+     * @param fastScan - Flag indicating whether to scan with the hand-written scanner
+     * @param rdParse - Flag indicating whether to parse with the hand-written parser
+     * @param fuse - Flag indicating whether to weed in the type checker's traversal (if the
+     *  program is type checked before its weeded AST is asked for)
+     * @return Compilation unit
+     */
+    public static CompilationUnit ofFile(String inPath, boolean ut, boolean fastScan,
+        boolean rdParse, boolean fuse) {
+
+        return new CompilationUnit(() -> MappedSourceReader.open(inPath), ut, fastScan, rdParse,
+            fuse);
+    }
+
+    /**
+     * Creates a compilation unit for a type checked program saved to file (See
+     * {@link TypedASTFile}), whose weeded AST and type table are those loaded. Asking for its
+     * symbol table type checks the AST again.
+     *
+     * @param path - Filepath to typed AST file
+     * @param ut - Flag indicating whether top-declarations are allowed to be unordered
+     * @return Compilation unit
+     * @throws IOException if something goes wrong with the reading of the file
+     */
+    public static CompilationUnit ofTypedAST(String path, boolean ut) throws IOException {
+        TypedASTFile file = TypedASTFile.read(path);
+
+        // There's no program source to go back to.
+        CompilationUnit unit = new CompilationUnit(() -> {
+            throw new IOException(path + " is a typed AST file, not a GoLite program");
+        }, ut, false, false, false);
+        unit.ast = file.getAST();
+        unit.weeded = true;
+        unit.typeTable = file.getTypeTable();
+
+        return unit;
+    }
+
+    /**
+     * Creates a compilation unit for a program held in memory.
+     *
+     * @param program - GoLite program
+     * @param ut - Flag indicating whether top-declarations are allowed to be unordered
+     * @return Compilation unit
+     */
+    public static CompilationUnit ofString(String program, boolean ut) {
+        return new CompilationUnit(
+            () -> new PushbackReader(new StringReader(program), 1024), ut, false, false, false);
+    }
+
+    /**
+     * Creates a lexer on a program.
+     *
+     * @param in - GoLite program reader
+     * @param fastScan - Flag indicating whether to scan with the hand-written scanner
+     * @param skipTrivia - Flag indicating whether the hand-written scanner skips blanks, comments
+     *  and EOL's rather than return their tokens (i.e. whether the caller only parses the tokens)
+     * @return {@link GoLiteScanner} if fastScan is set, {@link GoLiteLexer} otherwise
+     * @throws IOException if something goes wrong with the reading of the program
+     */
+    static Lexer newLexer(PushbackReader in, boolean fastScan, boolean skipTrivia)
+        throws IOException {
+
+        return fastScan ? GoLiteScanner.of(in, skipTrivia) : new GoLiteLexer(in);
+    }
+
+    /**
+     * Setter.
+     *
+     * @param listener - Listener to the activity of the symbol table as the program is type
+     *  checked (Has no effect once it's type checked)
+     */
+    public void setSymbolTableListener(SymbolTableListener listener) {
+        this.symbolTableListener = listener;
+    }
+
+    /**
+     * Setter.
+     *
+     * @param parallelTypeCheck - Flag indicating whether to type check the function bodies in
+     *  parallel, once the global scope is built (Only with unordered top-declarations, and not
+     *  when weeding in the type checker's traversal; has no effect once it's type checked)
+     */
+    public void setParallelTypeCheck(boolean parallelTypeCheck) {
+        this.parallelTypeCheck = parallelTypeCheck;
+    }
+
+    /**
+     * Returns the AST of the program, as parsed (It's only weeded if {@link #getWeededAST()} was
+     * called).
+     *
+     * @return AST
+     * @throws IOException if something goes wrong with the reading of the program
+     * @throws LexerException if the program doesn't scan
+     * @throws ParserException if the program doesn't parse
+     */
+    public Start getAST() throws IOException, LexerException, ParserException {
+        if (this.ast == null) {
+            rethrowError();
+
+            try (PushbackReader in = this.source.open()) {
+                // The parser ignores trivia anyway.
+                Lexer lexer = newLexer(in, this.fastScan, true);
+                if (this.rdParse)
+                    this.ast = new GoLiteParser(lexer).parse();
+                else
+                    this.ast = new Parser(lexer).parse();
+            } catch (IOException|LexerException|ParserException|RuntimeException e) {
+                this.error = e;
+                throw e;
+            }
+        }
+
+        return this.ast;
+    }
+
+    /**
+     * Returns the AST of the program, once weeded.
+     *
+     * @return AST
+     * @throws IOException if something goes wrong with the reading of the program
+     * @throws LexerException if the program doesn't scan
+     * @throws ParserException if the program doesn't parse
+     * @throws golite.exception.WeederException if the program doesn't weed
+     */
+    public Start getWeededAST() throws IOException, LexerException, ParserException {
+        Start ast = getAST();
+
+        if (!this.weeded) {
+            rethrowError();
+
+            try {
+                ast.apply(new Weeder());
+            } catch (RuntimeException e) {
+                this.error = e;
+                throw e;
+            }
+
+            this.weeded = true;
+        }
+
+        return ast;
+    }
+
+    /**
+     * Returns the symbol table of the program, once type checked.
+     *
+     * @return Symbol table
+     * @throws IOException if something goes wrong with the reading of the program
+     * @throws LexerException if the program doesn't scan
+     * @throws ParserException if the program doesn't parse
+     * @throws golite.exception.WeederException if the program doesn't weed
+     * @throws golite.exception.SymbolTableException if a symbol is misused
+     * @throws golite.exception.TypeCheckException if the program doesn't type check
+     */
+    public SymbolTable getSymbolTable() throws IOException, LexerException, ParserException {
+        return typeCheck().getSymbolTable();
+    }
+
+    /**
+     * Returns the types of the expressions in the program, once type checked.
+     *
+     * @return Type table (A map view of the types, which are kept by node ID)
+     * @throws IOException if something goes wrong with the reading of the program
+     * @throws LexerException if the program doesn't scan
+     * @throws ParserException if the program doesn't parse
+     * @throws golite.exception.WeederException if the program doesn't weed
+     * @throws golite.exception.SymbolTableException if a symbol is misused
+     * @throws golite.exception.TypeCheckException if the program doesn't type check
+     */
+    public Map<Node, GoLiteType> getTypeTable()
+        throws IOException, LexerException, ParserException {
+
+        if (this.typeTable != null)
+            return this.typeTable;
+
+        return typeCheck().getTypeTable();
+    }
+
+    /**
+     * Type checks the program, if it hasn't been yet.
+     *
+     * @return Type checker that ran on the AST
+     * @throws IOException if something goes wrong with the reading of the program
+     * @throws Compiler-specific exceptions if a failure is encountered during compilation
+     */
+    private TypeChecker typeCheck() throws IOException, LexerException, ParserException {
+        // Weed in the type checker's traversal rather than in a traversal of its own, unless the
+        // AST was weeded already.
+        boolean fuse = this.fuse && !this.weeded;
+        Start ast = fuse ? getAST() : getWeededAST();
+
+        if (this.typeChecker == null) {
+            rethrowError();
+
+            try {
+                TypeChecker typeChecker = null;
+                if (this.ut) {
+                    SymbolTableBuilder symbolTableBuilder = new SymbolTableBuilder();
+                    symbolTableBuilder.setSymbolTableListener(this.symbolTableListener);
+                    ast.apply(symbolTableBuilder);
+
+                    typeChecker = new TypeChecker(symbolTableBuilder.getTable());
+                    typeChecker.setParallel(this.parallelTypeCheck);
+                } else {
+                    typeChecker = new TypeChecker();
+                    typeChecker.setSymbolTableListener(this.symbolTableListener);
+                }
+
+                if (fuse)
+                    typeChecker.setWeeder(new Weeder());
+
+                ast.apply(typeChecker);
+
+                this.typeChecker = typeChecker;
+                this.weeded = true;
+            } catch (RuntimeException e) {
+                RuntimeException error = e;
+
+                // Weeder errors are reported before type errors, wherever they are in the
+                // program, so weed all of it on its own to find any.
+                if (fuse && !(e instanceof WeederException)) {
+                    try {
+                        ast.apply(new Weeder());
+                        this.weeded = true;
+                    } catch (WeederException we) {
+                        error = we;
+                    }
+                }
+
+                this.error = error;
+                throw error;
+            }
+        }
+
+        return this.typeChecker;
+    }
+
+    /**
+     * Compiles the program afresh, carrying on after each error, to report all of them (up to the
+     * limit of the diagnostics) rather than only the first. A phase only runs if the earlier ones
+     * found no errors, as it would mostly find errors following from theirs.
+     *
+     * The program is parsed with the hand-written parser whatever the flags, as the generated one
+     * can't carry on after a syntax error, and weeded on its own.
+     *
+     * @param diagnostics - Diagnostics to report the errors to
+     * @param typeCheck - Flag indicating whether to type check the program, or stop after weeding
+     * @throws IOException if something goes wrong with the reading of the program
+     */
+    public void diagnose(Diagnostics diagnostics, boolean typeCheck) throws IOException {
+        try {
+            Start ast;
+            try (PushbackReader in = this.source.open()) {
+                Lexer lexer = newLexer(in, this.fastScan, true);
+                ast = new GoLiteParser(lexer, diagnostics).parse();
+            } catch (LexerException|ParserException e) {
+                // Scanning can't carry on after an error.
+                diagnostics.report(e);
+                return;
+            }
+
+            if (diagnostics.hasErrors())
+                return;
+
+            Weeder weeder = new Weeder();
+            weeder.setDiagnostics(diagnostics);
+            ast.apply(weeder);
+
+            if (diagnostics.hasErrors() || !typeCheck)
+                return;
+
+            TypeChecker typeChecker = null;
+            if (this.ut) {
+                SymbolTableBuilder symbolTableBuilder = new SymbolTableBuilder();
+                try {
+                    ast.apply(symbolTableBuilder);
+                } catch (SymbolTableException e) {
+                    // Neither can building the table of the top-level declarations.
+                    diagnostics.report(e);
+                    return;
+                }
+
+                typeChecker = new TypeChecker(symbolTableBuilder.getTable());
+            } else
+                typeChecker = new TypeChecker();
+
+            typeChecker.setDiagnostics(diagnostics);
+            ast.apply(typeChecker);
+        } catch (Diagnostics.LimitReachedException e) {
+            // No more errors are reported.
+        }
+    }
+
+    /**
+     * Throws the error of the phase that failed again, if any.
+     *
+     * @throws IOException
+     * @throws LexerException
+     * @throws ParserException
+     */
+    private void rethrowError() throws IOException, LexerException, ParserException {
+        if (this.error instanceof IOException)
+            throw (IOException) this.error;
+        else if (this.error instanceof LexerException)
+            throw (LexerException) this.error;
+        else if (this.error instanceof ParserException)
+            throw (ParserException) this.error;
+        else if (this.error instanceof RuntimeException)
+            throw (RuntimeException) this.error;
+    }
+
+}
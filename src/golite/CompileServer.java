@@ -0,0 +1,312 @@
+package golite;
+
+import golite.generator.CodeGenerator;
+import golite.lexer.*;
+import golite.parser.*;
+
+import java.io.BufferedReader;
+import java.io.BufferedWriter;
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.io.PrintStream;
+import java.io.Writer;
+import java.net.InetAddress;
+import java.net.ServerSocket;
+import java.net.Socket;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.attribute.PosixFilePermissions;
+import java.security.MessageDigest;
+import java.security.SecureRandom;
+import java.util.ArrayList;
+import java.util.List;
+
+
+/**
+ * Compile Server.
+ *
+ * Keeps one JVM alive across compiler invocations, so that requests don't pay for JVM start-up,
+ * class loading of the generated lexer/parser/node packages, and JIT warm-up. Requests are served
+ * one at a time on a loopback port with the following line-based protocol:
+ *
+ *   request:  secret, working directory, number of arguments, then one argument per line
+ *   response: "1 <line>" per line of stdout and "2 <line>" per line of stderr, in the order they
+ *             were printed, then "exit <status>"
+ *
+ * The runner script (golitec.sh) is the client, and falls back to starting its own JVM when no
+ * server is listening.
+ *
+ * Trust model: a request runs the compiler as the user who started the server, in the working
+ * directory it names, so it may read and write whatever that user can. Since any local process can
+ * connect to a loopback port, the server only serves requests starting with a random secret, which
+ * it writes on start-up to a file only that user can read (See {@link #secretFile(int)}) and
+ * deletes on exit. Anyone who can read that file can compile as that user.
+ */
+class CompileServer {
+
+    /** Default port to listen on. */
+    final static int DEFAULT_PORT = 5205;
+    /** Maximum number of arguments of a request. */
+    private final static int MAX_ARGS = 1024;
+
+    /** Port to listen on. */
+    private final int port;
+
+    /**
+     * Constructor.
+     *
+     * @param port - Port to listen on
+     */
+    CompileServer(int port) {
+        this.port = port;
+    }
+
+    /**
+     * Serves compile requests until the process is killed.
+     *
+     * @throws IOException if the server socket can't be opened
+     */
+    void serve() throws IOException {
+        warmUp();
+
+        try (ServerSocket server = new ServerSocket(this.port, 50, InetAddress.getLoopbackAddress())) {
+            byte[] secret = writeSecret(secretFile(server.getLocalPort()));
+
+            System.err.println("Compile server listening on " + server.getInetAddress().getHostAddress()
+                + ":" + server.getLocalPort());
+
+            while (true) {
+                try (Socket client = server.accept()) {
+                    handle(client, secret);
+                } catch (IOException e) {
+                    System.err.println("IO ERROR: " + e.getMessage());
+                } catch (RuntimeException e) {
+                    // A malformed request must not take the server down with it.
+                    System.err.println("ERROR: " + e);
+                }
+            }
+        }
+    }
+
+    /**
+     * Returns the file the secret of a server is written to: ~/.golitec-&lt;port&gt;.
+     *
+     * @param port - Port of the server
+     * @return Secret file
+     */
+    static Path secretFile(int port) {
+        return Paths.get(System.getProperty("user.home"), ".golitec-" + port);
+    }
+
+    /**
+     * Writes a fresh random secret to a file readable and writable by its owner only, which is
+     * deleted when the server exits.
+     *
+     * @param path - Secret file
+     * @return Secret
+     * @throws IOException if the file can't be written
+     */
+    private static byte[] writeSecret(Path path) throws IOException {
+        byte[] random = new byte[16];
+        new SecureRandom().nextBytes(random);
+
+        StringBuilder hex = new StringBuilder();
+        for (byte b : random)
+            hex.append(String.format("%02x", b));
+        byte[] secret = hex.toString().getBytes(StandardCharsets.UTF_8);
+
+        // Recreated rather than overwritten, so that it's never readable by others, even briefly.
+        Files.deleteIfExists(path);
+        try {
+            Files.createFile(path,
+                PosixFilePermissions.asFileAttribute(PosixFilePermissions.fromString("rw-------")));
+        } catch (UnsupportedOperationException e) {
+            // Not a POSIX file system.
+            Files.createFile(path);
+        }
+        path.toFile().deleteOnExit();
+        Files.write(path, secret);
+
+        return secret;
+    }
+
+    /**
+     * Serves a single compile request.
+     *
+     * @param client - Client connection
+     * @param secret - Secret the request must start with
+     * @throws IOException
+     */
+    private static void handle(Socket client, byte[] secret) throws IOException {
+        BufferedReader in = new BufferedReader(
+            new InputStreamReader(client.getInputStream(), StandardCharsets.UTF_8));
+        Writer out = new BufferedWriter(
+            new OutputStreamWriter(client.getOutputStream(), StandardCharsets.UTF_8));
+
+        String[] args;
+        File workDir;
+        try {
+            String given = in.readLine();
+            if (given == null || !MessageDigest.isEqual(secret,
+                given.getBytes(StandardCharsets.UTF_8)))
+                throw new IllegalArgumentException("Wrong secret");
+
+            String dir = in.readLine();
+            String count = in.readLine();
+            if (dir == null || count == null)
+                throw new IllegalArgumentException("Missing working directory or argument count");
+            workDir = new File(dir);
+
+            int n;
+            try {
+                n = Integer.parseInt(count.trim());
+            } catch (NumberFormatException e) {
+                throw new IllegalArgumentException("Invalid argument count " + count);
+            }
+            if (n < 0 || n > MAX_ARGS)
+                throw new IllegalArgumentException("Invalid argument count " + n);
+
+            args = new String[n];
+            for (int i = 0; i < args.length; i++) {
+                args[i] = in.readLine();
+                if (args[i] == null)
+                    throw new IllegalArgumentException("Missing argument " + (i + 1) + " of " + n);
+            }
+        } catch (IllegalArgumentException e) {
+            out.write("2 ERROR: Rejected request: " + e.getMessage() + "\n");
+            out.write("exit -1\n");
+            out.flush();
+            return;
+        }
+
+        Transcript transcript = new Transcript();
+        int status = compile(args, workDir, transcript);
+
+        for (String line : transcript.lines()) {
+            out.write(line);
+            out.write("\n");
+        }
+        out.write("exit " + status + "\n");
+        out.flush();
+    }
+
+    /**
+     * Runs the compiler in-process for a request, capturing what it prints.
+     *
+     * @param args - Command-line arguments of the request
+     * @param workDir - Working directory of the client
+     * @param transcript - Transcript of what the compiler prints
+     * @return Exit status
+     */
+    private static int compile(String[] args, File workDir, Transcript transcript) {
+        PrintStream stdout = new PrintStream(transcript.stream("1 "), true);
+        PrintStream stderr = new PrintStream(transcript.stream("2 "), true);
+
+        for (String arg : args) {
+            if (arg.equals("-server")) {
+                stderr.println("ERROR: Already running as a compile server");
+                return -1;
+            }
+        }
+
+        PrintStream systemOut = System.out;
+        PrintStream systemErr = System.err;
+
+        System.setOut(stdout);
+        System.setErr(stderr);
+        try {
+            return Main.run(args, workDir);
+        } catch (RuntimeException e) {
+            // A compiler crash must not take the server down with it.
+            e.printStackTrace();
+            return 1;
+        } finally {
+            System.setOut(systemOut);
+            System.setErr(systemErr);
+            stdout.close();
+            stderr.close();
+        }
+    }
+
+    /**
+     * Lines printed to stdout and stderr, each with its stream prefix, in the order they were
+     * completed, so that the client replays both streams interleaved as a local run prints them.
+     */
+    private static class Transcript {
+
+        /** Prefixed lines. */
+        private final List<String> lines = new ArrayList<String>();
+
+        /**
+         * @param prefix - Stream prefix
+         * @return Stream whose lines are added to the transcript with the prefix
+         */
+        OutputStream stream(final String prefix) {
+            return new OutputStream() {
+
+                /** Current line. */
+                private final ByteArrayOutputStream line = new ByteArrayOutputStream();
+
+                @Override
+                public void write(int b) {
+                    if (b == '\n')
+                        this.end();
+                    else
+                        this.line.write(b);
+                }
+
+                @Override
+                public void close() {
+                    // Output not ending in a line break still makes a last line.
+                    if (this.line.size() > 0)
+                        this.end();
+                }
+
+                /** Adds the current line to the transcript. */
+                private void end() {
+                    String s = new String(this.line.toByteArray(), StandardCharsets.UTF_8);
+                    if (s.endsWith("\r"))
+                        s = s.substring(0, s.length() - 1);
+                    this.line.reset();
+
+                    synchronized (Transcript.this.lines) {
+                        Transcript.this.lines.add(prefix + s);
+                    }
+                }
+
+            };
+        }
+
+        /**
+         * @return Prefixed lines
+         */
+        List<String> lines() {
+            synchronized (this.lines) {
+                return new ArrayList<String>(this.lines);
+            }
+        }
+
+    }
+
+    /**
+     * Runs a small program through every phase so that the lexer and parser tables are loaded and
+     * the compiler classes initialized before the first request comes in.
+     */
+    private static void warmUp() {
+        String program = "package main\n\nfunc main() {\n\tvar x int = 1\n\tprintln(x + 1)\n}\n";
+
+        try {
+            CompilationUnit unit = CompilationUnit.ofString(program, false);
+            unit.getWeededAST().apply(new CodeGenerator(unit.getTypeTable(), false));
+        } catch (LexerException|ParserException|IOException e) {
+            System.err.println("ERROR: " + e);
+        }
+    }
+
+}
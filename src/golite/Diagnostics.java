@@ -0,0 +1,89 @@
+package golite;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+
+/**
+ * Diagnostics.
+ *
+ * Collects the errors the front-end phases find in a program, for them to carry on after each
+ * error rather than stop at the first, so that all of them can be reported in one run. Compiling
+ * stops on finding an error past a given number of them.
+ */
+public class Diagnostics {
+
+    /** Thrown on reporting an error past the maximum number, to stop compiling the program. */
+    @SuppressWarnings("serial")
+    public static class LimitReachedException extends RuntimeException {
+
+        public LimitReachedException() {
+            super(null, null, false, false);
+        }
+
+    }
+
+    /** Maximum number of errors. */
+    private final int limit;
+    /** Errors, in the order found. */
+    private final List<Exception> errors;
+    /** Flag indicating whether errors were found past the maximum number. */
+    private boolean truncated;
+
+    /**
+     * Constructor.
+     *
+     * @param limit - Maximum number of errors (at least 1)
+     */
+    public Diagnostics(int limit) {
+        if (limit < 1)
+            throw new IllegalArgumentException("Error limit " + limit + " is below 1");
+
+        this.limit = limit;
+        this.errors = new ArrayList<Exception>();
+        this.truncated = false;
+    }
+
+    /**
+     * Reports an error.
+     *
+     * @param error - Error
+     * @throws LimitReachedException if the maximum number of errors was already reported (The
+     *  error is dropped then)
+     */
+    public void report(Exception error) {
+        if (this.errors.size() == this.limit) {
+            this.truncated = true;
+            throw new LimitReachedException();
+        }
+
+        this.errors.add(error);
+    }
+
+    /**
+     * Checks whether any error was reported.
+     *
+     * @return True if errors were reported, false otherwise
+     */
+    public boolean hasErrors() {
+        return !this.errors.isEmpty();
+    }
+
+    /**
+     * Checks whether errors were found past the maximum number (and dropped).
+     *
+     * @return True if errors were dropped, false otherwise
+     */
+    public boolean isTruncated() {
+        return this.truncated;
+    }
+
+    /**
+     * Getter.
+     */
+    public List<Exception> getErrors() {
+        return Collections.unmodifiableList(this.errors);
+    }
+
+}
@@ -0,0 +1,366 @@
+package golite;
+
+import java.io.File;
+import java.io.IOException;
+import java.net.URISyntaxException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.AtomicMoveNotSupportedException;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.security.CodeSource;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+
+/**
+ * Code Generation Cache.
+ *
+ * On-disk cache of the outcome of code generation, keyed by a hash of the program's bytes and the
+ * compiler flags. An entry is either the generated Python code ('<key>.py') or the compile error
+ * the program was rejected with ('<key>.err'), so that a hit skips the whole compiler pipeline.
+ *
+ * Entries are written to a temporary file and atomically renamed into place, so that any number
+ * of compilers (threads or processes) can share a cache directory without ever seeing a partial
+ * entry. The cache is bounded in size: once it grows past its bound, the least recently used
+ * entries (by modification time, which a hit refreshes) are evicted.
+ *
+ * Keys also hash the compiler's own classes, so that a compiler built from other sources (which
+ * may generate other code) never reuses the outcomes of this one.
+ */
+class GenCache {
+
+    /** Version of the layout of the entries, to bump whenever it changes. */
+    private static final String VERSION = "1";
+    /** Hash of the classes of the compiler, i.e. of the build the outcomes are cached by. */
+    private static final String BUILD = hashBuild();
+
+    /** Extension of entries holding generated code. */
+    private static final String CODE_EXT = ".py";
+    /** Extension of entries holding compile errors. */
+    private static final String ERROR_EXT = ".err";
+    /** Extension of entries being written. */
+    private static final String TMP_EXT = ".tmp";
+
+    /** Fraction of the bound that eviction brings the cache size down to. */
+    private static final double EVICTION_TARGET = 0.9;
+
+    /** Outcome of a cache hit. */
+    static class Hit {
+        /** Compile error, or null if the cached code was written to the output file. */
+        final String error;
+
+        private Hit(String error) {
+            this.error = error;
+        }
+    }
+
+    /** Cache directory. */
+    private final File dir;
+    /** Bound on the total size of the entries, in bytes. */
+    private final long maxBytes;
+    /** Compiler flags the outcomes depend on, as passed on the command line. */
+    private final String flags;
+
+    /** Estimated total size of the entries (-1 until first measured). */
+    private final AtomicLong size = new AtomicLong(-1);
+
+    /**
+     * Constructor.
+     *
+     * @param dir - Cache directory (created if it doesn't exist)
+     * @param maxBytes - Bound on the total size of the entries, in bytes
+     * @param flags - Every compiler flag the outcome of code generation depends on, be it the
+     *  generated code or the wording of the errors (e.g. "-safe -rdparse")
+     * @throws IOException if the cache directory can't be created
+     */
+    GenCache(File dir, long maxBytes, String flags) throws IOException {
+        Files.createDirectories(dir.toPath());
+
+        this.dir = dir;
+        this.maxBytes = maxBytes;
+        this.flags = flags;
+    }
+
+    /**
+     * Computes the cache key of a program, i.e. the SHA-256 of its bytes, the compiler flags and
+     * the build.
+     *
+     * @param inPath - Filepath to GoLite program
+     * @return Cache key (in hex)
+     * @throws IOException if the program can't be read
+     */
+    String key(String inPath) throws IOException {
+        MessageDigest digest = sha256();
+
+        String flags = "golite-gen " + VERSION + " " + BUILD + " " + this.flags + "\n";
+        digest.update(flags.getBytes(StandardCharsets.US_ASCII));
+
+        try (FileChannel channel = FileChannel.open(new File(inPath).toPath(),
+            StandardOpenOption.READ)) {
+            ByteBuffer bytes = channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+            digest.update(bytes);
+        }
+
+        return hex(digest.digest());
+    }
+
+    /**
+     * Hashes the classes of the compiler: the jar they're packaged in, or every class file of the
+     * golite packages if they're compiled in place (as the Makefile does).
+     *
+     * @return Build hash (in hex), or "unknown" if the classes can't be located or read, in which
+     *  case only the version tells builds apart
+     */
+    private static String hashBuild() {
+        MessageDigest digest = sha256();
+
+        try {
+            CodeSource source = GenCache.class.getProtectionDomain().getCodeSource();
+            if (source == null)
+                return "unknown";
+
+            Path location = Paths.get(source.getLocation().toURI());
+            if (Files.isDirectory(location)) {
+                List<Path> classes;
+                try (Stream<Path> files = Files.walk(location.resolve("golite"))) {
+                    classes = files.filter(file -> file.toString().endsWith(".class")).sorted()
+                        .collect(Collectors.toList());
+                }
+
+                for (Path file : classes) {
+                    digest.update(location.relativize(file).toString()
+                        .getBytes(StandardCharsets.UTF_8));
+                    digest.update(Files.readAllBytes(file));
+                }
+            } else
+                digest.update(Files.readAllBytes(location));
+        } catch (IOException|URISyntaxException|SecurityException e) {
+            return "unknown";
+        }
+
+        return hex(digest.digest());
+    }
+
+    /**
+     * @return SHA-256 digest
+     */
+    private static MessageDigest sha256() {
+        try {
+            return MessageDigest.getInstance("SHA-256");
+        } catch (NoSuchAlgorithmException e) {
+            // Every Java platform is required to support SHA-256.
+            throw new IllegalStateException(e);
+        }
+    }
+
+    /**
+     * @param bytes - Bytes
+     * @return Bytes in hex
+     */
+    private static String hex(byte[] bytes) {
+        StringBuilder hex = new StringBuilder();
+        for (byte b : bytes)
+            hex.append(String.format("%02x", b));
+
+        return hex.toString();
+    }
+
+    /**
+     * Looks up the outcome for a key. On a hit with generated code, the code is copied to the
+     * output file.
+     *
+     * @param key - Cache key
+     * @param outFile - Output file for the generated code
+     * @return Hit, or null on a miss
+     * @throws IOException if the output file can't be written
+     */
+    Hit lookup(String key, File outFile) throws IOException {
+        Path code = entry(key, CODE_EXT);
+        Path error = entry(key, ERROR_EXT);
+
+        // Entries may be evicted by another compiler at any point, which is just a miss.
+        try {
+            if (Files.exists(code)) {
+                Files.copy(code, outFile.toPath(), StandardCopyOption.REPLACE_EXISTING);
+                touch(code);
+                return new Hit(null);
+            }
+
+            if (Files.exists(error)) {
+                String message = new String(Files.readAllBytes(error), StandardCharsets.UTF_8);
+                touch(error);
+                return new Hit(message);
+            }
+        } catch (NoSuchFileException e) {
+            return null;
+        }
+
+        return null;
+    }
+
+    /**
+     * Caches the code generated for a key. Caching is best effort: if the entry can't be written,
+     * the key just keeps missing.
+     *
+     * @param key - Cache key
+     * @param generated - File holding the generated code
+     */
+    void putCode(String key, File generated) {
+        try {
+            Path tmp = Files.createTempFile(this.dir.toPath(), key, TMP_EXT);
+            try {
+                Files.copy(generated.toPath(), tmp, StandardCopyOption.REPLACE_EXISTING);
+                commit(tmp, entry(key, CODE_EXT));
+            } finally {
+                Files.deleteIfExists(tmp);
+            }
+        } catch (IOException e) {}
+    }
+
+    /**
+     * Caches the compile error for a key. Caching is best effort: if the entry can't be written,
+     * the key just keeps missing.
+     *
+     * @param key - Cache key
+     * @param error - Compile error
+     */
+    void putError(String key, String error) {
+        try {
+            Path tmp = Files.createTempFile(this.dir.toPath(), key, TMP_EXT);
+            try {
+                Files.write(tmp, error.getBytes(StandardCharsets.UTF_8));
+                commit(tmp, entry(key, ERROR_EXT));
+            } finally {
+                Files.deleteIfExists(tmp);
+            }
+        } catch (IOException e) {}
+    }
+
+    /**
+     * @param key - Cache key
+     * @param ext - Entry extension
+     * @return Path to the entry
+     */
+    private Path entry(String key, String ext) {
+        return new File(this.dir, key + ext).toPath();
+    }
+
+    /**
+     * Marks an entry as just used.
+     *
+     * @param entry - Entry
+     */
+    private static void touch(Path entry) {
+        // Best effort, a failure only makes the entry look older than it is.
+        entry.toFile().setLastModified(System.currentTimeMillis());
+    }
+
+    /**
+     * Atomically moves a fully written temporary file into place as an entry, then evicts entries
+     * if the cache has grown past its bound.
+     *
+     * @param tmp - Temporary file
+     * @param entry - Entry
+     * @throws IOException
+     */
+    private void commit(Path tmp, Path entry) throws IOException {
+        // Measure the cache on first use (before the entry is in, so it isn't counted twice), and
+        // only rescan it when the estimate goes over the bound, rather than on every write.
+        if (this.size.get() < 0)
+            this.size.compareAndSet(-1, measure());
+
+        // An entry written by another compiler in the meantime is replaced.
+        long bytes = Files.size(tmp) - sizeOf(entry);
+
+        try {
+            Files.move(tmp, entry, StandardCopyOption.ATOMIC_MOVE,
+                StandardCopyOption.REPLACE_EXISTING);
+        } catch (AtomicMoveNotSupportedException e) {
+            Files.move(tmp, entry, StandardCopyOption.REPLACE_EXISTING);
+        }
+
+        if (this.size.addAndGet(bytes) > this.maxBytes)
+            evict();
+    }
+
+    /**
+     * @return Total size of the entries on disk
+     * @throws IOException
+     */
+    private long measure() throws IOException {
+        long total = 0;
+        for (Path entry : entries())
+            total += sizeOf(entry);
+
+        return total;
+    }
+
+    /**
+     * Deletes the least recently used entries until the cache is comfortably under its bound.
+     *
+     * @throws IOException
+     */
+    private synchronized void evict() throws IOException {
+        List<Path> entries = entries();
+
+        Map<Path, Long> modified = new HashMap<Path, Long>();
+        long total = 0;
+        for (Path entry : entries) {
+            modified.put(entry, entry.toFile().lastModified());
+            total += sizeOf(entry);
+        }
+
+        // Least recently used first.
+        entries.sort(Comparator.comparing(modified::get));
+
+        long target = (long) (this.maxBytes * EVICTION_TARGET);
+        for (Path entry : entries) {
+            if (total <= target)
+                break;
+
+            long bytes = sizeOf(entry);
+            // Another compiler may have evicted it already.
+            Files.deleteIfExists(entry);
+            total -= bytes;
+        }
+
+        this.size.set(total);
+    }
+
+    /**
+     * @return Entries currently on disk
+     * @throws IOException
+     */
+    private List<Path> entries() throws IOException {
+        try (Stream<Path> paths = Files.list(this.dir.toPath())) {
+            return paths
+                .filter(p -> {
+                    String name = p.getFileName().toString();
+                    return name.endsWith(CODE_EXT) || name.endsWith(ERROR_EXT);
+                })
+                .collect(Collectors.toList());
+        }
+    }
+
+    /**
+     * @param entry - Entry
+     * @return Size of the entry, or 0 if it no longer exists
+     */
+    private static long sizeOf(Path entry) {
+        return entry.toFile().length();
+    }
+
+}
@@ -27,63 +27,33 @@ public class GoLiteLexer extends Lexer {
     }
 
     /**
-     * Checks if the given token is "effective" or not (i.e. is a non-ignored
-     * token).
+     * Checks if a semi-colon token needs to be entered into the scanning stream in place of a
+     * token.
      *
      * @param t - Token
-     * @return True if the token is effective, false otherwise
-     */
-    private boolean isEffectiveToken(Token t) {
-        return !(t instanceof TBlank || t instanceof TComment || t instanceof TEol);
-    }
-
-    /**
-     * Checks if a semi-colon token needs to be entered into the scanning stream.
-     * 
+     * @param lastEffectiveToken - Last effective token before it
      * @return True if a semi-colon token (TSemi) needs to be inserted into the
      *  scanning stream
      */
-    private boolean requiresSemi() {
-        return
-            (this.token instanceof TEol || this.token instanceof EOF) &&
-            (this.lastEffectiveToken instanceof TId ||
-                // Keywords.
-                this.lastEffectiveToken instanceof TBreak ||
-                this.lastEffectiveToken instanceof TContinue ||
-                this.lastEffectiveToken instanceof TFallthrough ||
-                this.lastEffectiveToken instanceof TReturn ||
-                // Types.
-                this.lastEffectiveToken instanceof TInt ||
-                this.lastEffectiveToken instanceof TFloat64 ||
-                this.lastEffectiveToken instanceof TBool ||
-                this.lastEffectiveToken instanceof TRune ||
-                this.lastEffectiveToken instanceof TString ||
-                // Operators.
-                this.lastEffectiveToken instanceof TPlusPlus ||
-                this.lastEffectiveToken instanceof TMinusMinus ||
-                this.lastEffectiveToken instanceof TRparen ||
-                this.lastEffectiveToken instanceof TRsquare ||
-                this.lastEffectiveToken instanceof TRbrace ||
-                // Literals.
-                this.lastEffectiveToken instanceof TIntLit ||
-                this.lastEffectiveToken instanceof TOctLit ||
-                this.lastEffectiveToken instanceof THexLit ||
-                this.lastEffectiveToken instanceof TFloatLit ||
-                this.lastEffectiveToken instanceof TRuneLit ||
-                this.lastEffectiveToken instanceof TInterpretedStringLit ||
-                this.lastEffectiveToken instanceof TRawStringLit);
+    static boolean requiresSemi(Token t, Token lastEffectiveToken) {
+        return TokenKind.endsLine(t) && TokenKind.endsStatement(lastEffectiveToken);
     }
 
     /**
      * Updates the scanning stream.
      */
     protected void filter() {
-        if (this.requiresSemi())
+        this.lastToken = this.token;
+
+        // Blanks and comments neither end a line nor are effective, which settles the most common
+        // tokens with a single check.
+        if (TokenKind.isInlineTrivia(this.token))
+            return;
+
+        if (requiresSemi(this.token, this.lastEffectiveToken))
             this.token = new TSemi();
 
-        if (this.isEffectiveToken(this.token))
+        if (TokenKind.isEffective(this.token))
             this.lastEffectiveToken = this.token;
-
-        this.lastToken = this.token;
     }
 }
@@ -0,0 +1,1203 @@
+package golite;
+
+import java.io.IOException;
+import java.util.LinkedList;
+
+import golite.lexer.Lexer;
+import golite.lexer.LexerException;
+import golite.node.*;
+import golite.parser.ParserException;
+
+
+/**
+ * Hand-Written GoLite Parser.
+ *
+ * Recursive-descent parser for the language of the SableCC grammar (golite.sablecc), with
+ * precedence climbing (Pratt parsing) for binary expressions. It builds exactly the AST the
+ * SableCC generated parser builds (i.e. after the CST to AST transformations of the grammar), so
+ * that the later phases can't tell the two apart, but goes straight from the tokens to the AST
+ * nodes, without the parse stack and intermediate productions of the LALR parser.
+ *
+ * Programs are accepted or rejected exactly as by the generated parser, though a program may be
+ * rejected at a later token, and with a different list of expected tokens.
+ *
+ * If given diagnostics to report errors to, the parser carries on after a syntax error in a
+ * statement or top-level declaration, skipping the tokens up to the end of it: the next semi-colon
+ * or closing brace of the enclosing block (Any block opened in between is skipped whole).
+ */
+public class GoLiteParser {
+
+    /** Thrown when the input runs out while skipping tokens after an error. */
+    @SuppressWarnings("serial")
+    private static class EndOfInputException extends RuntimeException {
+
+        EndOfInputException() {
+            super(null, null, false, false);
+        }
+
+    }
+
+    /** Lexer the tokens are read from. */
+    private final Lexer lexer;
+    /** Current token (never trivia). */
+    private Token token;
+    /** Last expression parsed in between parentheses (Those aren't assignable). */
+    private PExpr lastParenthesized;
+    /** Diagnostics the syntax errors are reported to (null to throw the first error instead). */
+    private final Diagnostics diagnostics;
+
+    /**
+     * @param lexer - Lexer on the GoLite program
+     */
+    public GoLiteParser(Lexer lexer) {
+        this(lexer, null);
+    }
+
+    /**
+     * @param lexer - Lexer on the GoLite program
+     * @param diagnostics - Diagnostics to report the syntax errors to, carrying on after each
+     *  (null to throw the first error instead)
+     */
+    public GoLiteParser(Lexer lexer, Diagnostics diagnostics) {
+        this.lexer = lexer;
+        this.diagnostics = diagnostics;
+    }
+
+    /**
+     * Parses the GoLite program.
+     *
+     * @return Root of the AST (If errors were reported, without the statements and declarations
+     *  that had them, or null if parsing couldn't carry on)
+     * @throws ParserException if the program doesn't parse
+     * @throws LexerException if the program doesn't scan
+     * @throws IOException if something goes wrong with the reading of the program
+     */
+    public Start parse() throws ParserException, LexerException, IOException {
+        this.advance();
+
+        TId id;
+        try {
+            this.expect(TPackage.class, "'package'");
+            id = this.expectId();
+            this.expectSemi();
+        } catch (ParserException e) {
+            if (this.diagnostics == null)
+                throw e;
+
+            // Nothing follows without a package clause.
+            this.diagnostics.report(e);
+            return null;
+        }
+
+        LinkedList<PTopDec> topDecs = new LinkedList<PTopDec>();
+        try {
+            while (!(this.token instanceof EOF)) {
+                try {
+                    topDecs.add(this.parseTopDec());
+                } catch (ParserException e) {
+                    this.recover(e, false);
+                }
+            }
+        } catch (EndOfInputException e) {
+            return null;
+        }
+
+        return new Start(new AProgProg(id, topDecs), (EOF) this.token);
+    }
+
+    /**
+     * Parses the package clause of the GoLite program, to parse the program one top-level
+     * declaration at a time after it (See {@link #parseNextTopDec()}), rather than all at once.
+     * (Only for a parser without diagnostics, which throws the first error.)
+     *
+     * @return Package name
+     * @throws ParserException if the package clause doesn't parse
+     * @throws LexerException if the package clause doesn't scan
+     * @throws IOException if something goes wrong with the reading of the program
+     */
+    public TId parsePackage() throws ParserException, LexerException, IOException {
+        this.advance();
+
+        this.expect(TPackage.class, "'package'");
+        TId id = this.expectId();
+        this.expectSemi();
+
+        return id;
+    }
+
+    /**
+     * Parses the next top-level declaration of the GoLite program, once the package clause is (See
+     * {@link #parsePackage()}). The declaration isn't attached to any program node, so it can be
+     * dropped once compiled.
+     *
+     * @return Top-level declaration, or null at the end of the program
+     * @throws ParserException if the declaration doesn't parse
+     * @throws LexerException if the declaration doesn't scan
+     * @throws IOException if something goes wrong with the reading of the program
+     */
+    public PTopDec parseNextTopDec() throws ParserException, LexerException, IOException {
+        return (this.token instanceof EOF) ? null : this.parseTopDec();
+    }
+
+    /**
+     * Returns the end of the GoLite program, once all its top-level declarations are parsed (See
+     * {@link #parseNextTopDec()}).
+     *
+     * @return EOF token
+     * @throws IllegalStateException if there are declarations left to parse
+     */
+    public EOF getEOF() {
+        if (!(this.token instanceof EOF))
+            throw new IllegalStateException("Declarations left to parse");
+
+        return (EOF) this.token;
+    }
+
+    /**
+     * Carries on after a syntax error in a statement or top-level declaration, if errors are
+     * collected, by reporting it and skipping the tokens up to the end of the statement or
+     * declaration.
+     *
+     * @param e - Syntax error
+     * @param inBlock - Flag indicating whether the error is in a block (A closing brace ends the
+     *  statement then, and is left to close the block)
+     * @throws ParserException (the given error) if errors aren't collected
+     * @throws EndOfInputException if the input runs out in a block
+     * @throws LexerException
+     * @throws IOException
+     */
+    private void recover(ParserException e, boolean inBlock)
+        throws ParserException, LexerException, IOException {
+
+        if (this.diagnostics == null)
+            throw e;
+
+        this.diagnostics.report(e);
+
+        // Number of blocks opened since the error.
+        int depth = 0;
+        while (!(this.token instanceof EOF)) {
+            if (this.token instanceof TLbrace)
+                depth++;
+            else if (this.token instanceof TRbrace) {
+                if (depth == 0 && inBlock)
+                    return;
+                else if (depth > 0)
+                    depth--;
+            } else if (this.token instanceof TSemi && depth == 0) {
+                this.consume();
+                return;
+            }
+
+            this.consume();
+        }
+
+        if (inBlock)
+            throw new EndOfInputException();
+    }
+
+    /* Tokens. */
+
+    /**
+     * Moves on to the next token that isn't trivia.
+     *
+     * @throws LexerException
+     * @throws IOException
+     */
+    private void advance() throws LexerException, IOException {
+        Token t = this.lexer.next();
+        while (TokenKind.isTrivia(t))
+            t = this.lexer.next();
+
+        this.token = t;
+    }
+
+    /**
+     * Consumes the current token.
+     *
+     * @return Consumed token
+     * @throws LexerException
+     * @throws IOException
+     */
+    private Token consume() throws LexerException, IOException {
+        Token t = this.token;
+        this.advance();
+
+        return t;
+    }
+
+    /**
+     * Consumes the current token if it's of the given class.
+     *
+     * @param c - Expected token class
+     * @param expected - Description of the expected token (for the error)
+     * @return Consumed token
+     * @throws ParserException if the current token isn't of the given class
+     * @throws LexerException
+     * @throws IOException
+     */
+    private <T extends Token> T expect(Class<T> c, String expected)
+        throws ParserException, LexerException, IOException {
+
+        if (!c.isInstance(this.token))
+            throw this.error(expected);
+
+        return c.cast(this.consume());
+    }
+
+    /**
+     * Consumes the current token if it's an Id.
+     *
+     * @return Consumed Id
+     * @throws ParserException if the current token isn't an Id
+     * @throws LexerException
+     * @throws IOException
+     */
+    private TId expectId() throws ParserException, LexerException, IOException {
+        return this.expect(TId.class, "id");
+    }
+
+    /**
+     * Consumes the current token if it's a semi-colon.
+     *
+     * @throws ParserException if the current token isn't a semi-colon
+     * @throws LexerException
+     * @throws IOException
+     */
+    private void expectSemi() throws ParserException, LexerException, IOException {
+        this.expect(TSemi.class, "';'");
+    }
+
+    /**
+     * Creates the error for an unexpected current token, in the format of the generated parser.
+     *
+     * @param expected - Description of the expected input
+     * @return Parser exception
+     */
+    private ParserException error(String expected) {
+        return new ParserException(this.token,
+            "[" + this.token.getLine() + "," + this.token.getPos() + "] expecting: " + expected);
+    }
+
+    /* Declarations. */
+
+    /**
+     * Parses a top-level declaration.
+     *
+     * @return Top-level declaration
+     * @throws ParserException
+     * @throws LexerException
+     * @throws IOException
+     */
+    private PTopDec parseTopDec() throws ParserException, LexerException, IOException {
+        if (this.token instanceof TVar)
+            return new AVarsTopDec(this.parseVarDec());
+        else if (this.token instanceof TType)
+            return new ATypesTopDec(this.parseTypeDec());
+        else if (this.token instanceof TFunc)
+            return this.parseFuncDec();
+
+        throw this.error("'func', 'type', 'var'");
+    }
+
+    /**
+     * Parses a variable declaration, single or distributed, along with its semi-colon.
+     *
+     * @return Variable specifications
+     * @throws ParserException
+     * @throws LexerException
+     * @throws IOException
+     */
+    private LinkedList<PVarSpec> parseVarDec()
+        throws ParserException, LexerException, IOException {
+
+        this.consume();
+
+        LinkedList<PVarSpec> specs = new LinkedList<PVarSpec>();
+        if (this.token instanceof TLparen) {
+            this.consume();
+            while (!(this.token instanceof TRparen)) {
+                specs.add(this.parseVarSpec());
+                this.expectSemi();
+            }
+            this.consume();
+        } else
+            specs.add(this.parseVarSpec());
+
+        this.expectSemi();
+
+        return specs;
+    }
+
+    /**
+     * Parses a variable specification.
+     *
+     * @return Variable specification
+     * @throws ParserException
+     * @throws LexerException
+     * @throws IOException
+     */
+    private PVarSpec parseVarSpec() throws ParserException, LexerException, IOException {
+        LinkedList<POptId> ids = this.parseOptIdList();
+
+        PTypeExpr typeExpr = null;
+        if (!(this.token instanceof TAssign))
+            typeExpr = this.parseTypeExpr();
+
+        LinkedList<PExpr> exprs = new LinkedList<PExpr>();
+        if (this.token instanceof TAssign) {
+            this.consume();
+            exprs = this.parseExprList();
+        }
+
+        return new ASpecVarSpec(ids, typeExpr, exprs);
+    }
+
+    /**
+     * Parses a type declaration, single or distributed, along with its semi-colon.
+     *
+     * @return Type specifications
+     * @throws ParserException
+     * @throws LexerException
+     * @throws IOException
+     */
+    private LinkedList<PTypeSpec> parseTypeDec()
+        throws ParserException, LexerException, IOException {
+
+        this.consume();
+
+        LinkedList<PTypeSpec> specs = new LinkedList<PTypeSpec>();
+        if (this.token instanceof TLparen) {
+            this.consume();
+            while (!(this.token instanceof TRparen)) {
+                specs.add(new ASpecTypeSpec(this.parseOptId(), this.parseTypeExpr()));
+                this.expectSemi();
+            }
+            this.consume();
+        } else
+            specs.add(new ASpecTypeSpec(this.parseOptId(), this.parseTypeExpr()));
+
+        this.expectSemi();
+
+        return specs;
+    }
+
+    /**
+     * Parses a function declaration, along with its semi-colon.
+     *
+     * @return Function declaration
+     * @throws ParserException
+     * @throws LexerException
+     * @throws IOException
+     */
+    private PTopDec parseFuncDec() throws ParserException, LexerException, IOException {
+        this.consume();
+        TId id = this.expectId();
+        this.expect(TLparen.class, "'('");
+
+        LinkedList<PArgGroup> argGroups = new LinkedList<PArgGroup>();
+        if (!(this.token instanceof TRparen)) {
+            while (true) {
+                LinkedList<TId> ids = new LinkedList<TId>();
+                ids.add(this.expectId());
+                while (this.token instanceof TComma) {
+                    this.consume();
+                    ids.add(this.expectId());
+                }
+                argGroups.add(new AArgArgGroup(ids, this.parseTypeExpr()));
+
+                if (!(this.token instanceof TComma))
+                    break;
+                this.consume();
+            }
+        }
+        this.expect(TRparen.class, "')'");
+
+        PTypeExpr returnType = null;
+        if (!(this.token instanceof TLbrace))
+            returnType = this.parseTypeExpr();
+
+        LinkedList<PStmt> stmts = this.parseBlock();
+        this.expectSemi();
+
+        return new AFuncTopDec(id, argGroups, returnType, stmts);
+    }
+
+    /**
+     * Parses an Id or a blank.
+     *
+     * @return Optional Id
+     * @throws ParserException
+     * @throws LexerException
+     * @throws IOException
+     */
+    private POptId parseOptId() throws ParserException, LexerException, IOException {
+        if (this.token instanceof TUnderscore) {
+            this.consume();
+            return new ABlankOptId();
+        }
+
+        return new AIdOptId(this.expectId());
+    }
+
+    /**
+     * Parses a comma-separated list of Id's and blanks.
+     *
+     * @return Optional Id's
+     * @throws ParserException
+     * @throws LexerException
+     * @throws IOException
+     */
+    private LinkedList<POptId> parseOptIdList()
+        throws ParserException, LexerException, IOException {
+
+        LinkedList<POptId> ids = new LinkedList<POptId>();
+        ids.add(this.parseOptId());
+        while (this.token instanceof TComma) {
+            this.consume();
+            ids.add(this.parseOptId());
+        }
+
+        return ids;
+    }
+
+    /* Types. */
+
+    /**
+     * Parses a type expression.
+     *
+     * @return Type expression
+     * @throws ParserException
+     * @throws LexerException
+     * @throws IOException
+     */
+    private PTypeExpr parseTypeExpr() throws ParserException, LexerException, IOException {
+        Token t = this.token;
+
+        if (isPrimType(t)) {
+            this.consume();
+            return primTypeExpr(t);
+        } else if (t instanceof TId) {
+            this.consume();
+            return new AAliasTypeExpr((TId) t);
+        } else if (t instanceof TLsquare) {
+            this.consume();
+            if (this.token instanceof TRsquare) {
+                this.consume();
+                return new ASliceTypeExpr(this.parseTypeExpr());
+            }
+
+            PExpr bound = this.parseExpr();
+            this.expect(TRsquare.class, "']'");
+            return new AArrayTypeExpr(bound, this.parseTypeExpr());
+        } else if (t instanceof TStruct) {
+            this.consume();
+            this.expect(TLbrace.class, "'{'");
+
+            LinkedList<PFieldSpec> fields = new LinkedList<PFieldSpec>();
+            while (!(this.token instanceof TRbrace)) {
+                LinkedList<POptId> ids = this.parseOptIdList();
+                fields.add(new ASpecFieldSpec(ids, this.parseTypeExpr()));
+                this.expectSemi();
+            }
+            this.consume();
+
+            return new AStructTypeExpr(fields);
+        } else if (t instanceof TLparen) {
+            this.consume();
+            PTypeExpr typeExpr = this.parseTypeExpr();
+            this.expect(TRparen.class, "')'");
+            return typeExpr;
+        }
+
+        throw this.error("'(', '[', 'bool', 'float64', 'int', 'rune', 'string', 'struct', id");
+    }
+
+    /**
+     * @param t - Token
+     * @return True if the token is a primitive type, false otherwise
+     */
+    private static boolean isPrimType(Token t) {
+        return t instanceof TBool || t instanceof TInt || t instanceof TFloat64
+            || t instanceof TRune || t instanceof TString;
+    }
+
+    /**
+     * @param t - Primitive type token
+     * @return Corresponding type expression
+     */
+    private static PTypeExpr primTypeExpr(Token t) {
+        if (t instanceof TBool)
+            return new ABoolTypeExpr((TBool) t);
+        else if (t instanceof TInt)
+            return new AIntTypeExpr((TInt) t);
+        else if (t instanceof TFloat64)
+            return new AFloatTypeExpr((TFloat64) t);
+        else if (t instanceof TRune)
+            return new ARuneTypeExpr((TRune) t);
+
+        return new AStringTypeExpr((TString) t);
+    }
+
+    /* Statements. */
+
+    /**
+     * Parses a block (without the semi-colon following it).
+     *
+     * @return Statements of the block
+     * @throws ParserException
+     * @throws LexerException
+     * @throws IOException
+     */
+    private LinkedList<PStmt> parseBlock() throws ParserException, LexerException, IOException {
+        this.expect(TLbrace.class, "'{'");
+
+        LinkedList<PStmt> stmts = new LinkedList<PStmt>();
+        while (!(this.token instanceof TRbrace))
+            this.parseStmt(stmts);
+        this.consume();
+
+        return stmts;
+    }
+
+    /**
+     * Parses a statement of a block, along with its semi-colon, adding it to the block's statements
+     * (unless it has a syntax error, and errors are collected).
+     *
+     * @param stmts - Statements of the block
+     * @throws ParserException
+     * @throws LexerException
+     * @throws IOException
+     */
+    private void parseStmt(LinkedList<PStmt> stmts)
+        throws ParserException, LexerException, IOException {
+
+        try {
+            stmts.add(this.parseStmt());
+        } catch (ParserException e) {
+            this.recover(e, true);
+        }
+    }
+
+    /**
+     * Parses a statement, along with its semi-colon.
+     *
+     * @return Statement
+     * @throws ParserException
+     * @throws LexerException
+     * @throws IOException
+     */
+    private PStmt parseStmt() throws ParserException, LexerException, IOException {
+        Token t = this.token;
+        PStmt stmt;
+
+        if (t instanceof TSemi) {
+            this.consume();
+            return new AEmptyStmt();
+        } else if (t instanceof TVar) {
+            // Declarations parse their own semi-colon.
+            return new AVarDecStmt(this.parseVarDec());
+        } else if (t instanceof TType) {
+            return new ATypeDecStmt(this.parseTypeDec());
+        } else if (t instanceof TPrint || t instanceof TPrintln) {
+            this.consume();
+            this.expect(TLparen.class, "'('");
+            LinkedList<PExpr> exprs = this.parseExprList();
+            this.expect(TRparen.class, "')'");
+
+            if (t instanceof TPrint)
+                stmt = new APrintStmt(exprs);
+            else
+                stmt = new APrintlnStmt(exprs);
+        } else if (t instanceof TReturn) {
+            this.consume();
+            stmt = new AReturnStmt((this.token instanceof TSemi) ? null : this.parseExpr());
+        } else if (t instanceof TIf)
+            stmt = this.parseIfElse();
+        else if (t instanceof TSwitch)
+            stmt = this.parseSwitch();
+        else if (t instanceof TFor)
+            stmt = this.parseLoop();
+        else if (t instanceof TBreak) {
+            this.consume();
+            stmt = new ABreakStmt();
+        } else if (t instanceof TContinue) {
+            this.consume();
+            stmt = new AContinueStmt();
+        } else if (t instanceof TLbrace)
+            stmt = new ABlockStmt(this.parseBlock());
+        else {
+            Node simple = this.parseSimple();
+            if (simple instanceof PExpr)
+                stmt = new AExprStmt((PExpr) simple);
+            else
+                stmt = (PStmt) simple;
+        }
+
+        this.expectSemi();
+
+        return stmt;
+    }
+
+    /**
+     * Parses a simple statement (assignment, short assignment, increment or decrement), or a lone
+     * expression. Which one is only known after the left-hand side, so it's parsed as a list of
+     * expressions and blanks first, and then checked to be valid for the statement.
+     *
+     * @return Simple statement, or expression
+     * @throws ParserException
+     * @throws LexerException
+     * @throws IOException
+     */
+    private Node parseSimple() throws ParserException, LexerException, IOException {
+        LinkedList<PExpr> lhs = new LinkedList<PExpr>();
+        // Whether all the left-hand side can be assigned to (i.e. are blanks, variables, fields or
+        // array elements, not in between parentheses).
+        boolean assignable = true;
+        // Whether all the left-hand side can be declared (i.e. are blanks or plain variables).
+        boolean declarable = true;
+
+        while (true) {
+            if (this.token instanceof TUnderscore) {
+                this.consume();
+                lhs.add(new ABlankExpr());
+            } else {
+                PExpr expr = this.parseExpr();
+                boolean parenthesized = expr == this.lastParenthesized;
+
+                assignable &= !parenthesized && (expr instanceof AVariableExpr
+                    || expr instanceof AFieldExpr || expr instanceof AArrayElemExpr);
+                declarable &= !parenthesized && expr instanceof AVariableExpr;
+                lhs.add(expr);
+            }
+
+            if (!(this.token instanceof TComma))
+                break;
+            this.consume();
+        }
+
+        Token t = this.token;
+        PExpr first = lhs.getFirst();
+
+        if (t instanceof TShortAssign && declarable) {
+            this.consume();
+
+            LinkedList<POptId> ids = new LinkedList<POptId>();
+            for (PExpr e : lhs) {
+                if (e instanceof ABlankExpr)
+                    ids.add(new ABlankOptId());
+                else
+                    ids.add(new AIdOptId(((AVariableExpr) e).getId()));
+            }
+
+            return new AShortAssignStmt(ids, this.parseExprList());
+        } else if (t instanceof TAssign && assignable) {
+            this.consume();
+            return new AAssignStmt(lhs, this.parseExprList());
+        }
+
+        // The other statements (and expressions) have a single expression on their left.
+        if (lhs.size() == 1 && !(first instanceof ABlankExpr)) {
+            if (t instanceof TPlusPlus) {
+                this.consume();
+                return new AIncrStmt(first);
+            } else if (t instanceof TMinusMinus) {
+                this.consume();
+                return new ADecrStmt(first);
+            } else if (isOpAssign(t)) {
+                if (assignable) {
+                    this.consume();
+                    return opAssign(t, first, this.parseExpr());
+                }
+            } else if (!(t instanceof TShortAssign || t instanceof TAssign))
+                return first;
+        }
+
+        throw this.error("simple statement");
+    }
+
+    /**
+     * @param t - Token
+     * @return True if the token is an operation-assignment (e.g. '+='), false otherwise
+     */
+    private static boolean isOpAssign(Token t) {
+        return t instanceof TPlusAssign || t instanceof TMinusAssign || t instanceof TStarAssign
+            || t instanceof TSlashAssign || t instanceof TPercAssign || t instanceof TAndAssign
+            || t instanceof TPipeAssign || t instanceof TCarotAssign || t instanceof TLshiftAssign
+            || t instanceof TRshiftAssign || t instanceof TAmpCarotAssign;
+    }
+
+    /**
+     * @param t - Operation-assignment token
+     * @param lhs - Left-hand side
+     * @param rhs - Right-hand side
+     * @return Corresponding operation-assignment statement
+     */
+    private static PStmt opAssign(Token t, PExpr lhs, PExpr rhs) {
+        if (t instanceof TPlusAssign)
+            return new APlusAssignStmt(lhs, rhs);
+        else if (t instanceof TMinusAssign)
+            return new AMinusAssignStmt(lhs, rhs);
+        else if (t instanceof TStarAssign)
+            return new AStarAssignStmt(lhs, rhs);
+        else if (t instanceof TSlashAssign)
+            return new ASlashAssignStmt(lhs, rhs);
+        else if (t instanceof TPercAssign)
+            return new APercAssignStmt(lhs, rhs);
+        else if (t instanceof TAndAssign)
+            return new AAndAssignStmt(lhs, rhs);
+        else if (t instanceof TPipeAssign)
+            return new APipeAssignStmt(lhs, rhs);
+        else if (t instanceof TCarotAssign)
+            return new ACarotAssignStmt(lhs, rhs);
+        else if (t instanceof TLshiftAssign)
+            return new ALshiftAssignStmt(lhs, rhs);
+        else if (t instanceof TRshiftAssign)
+            return new ARshiftAssignStmt(lhs, rhs);
+
+        return new AAmpCarotAssignStmt(lhs, rhs);
+    }
+
+    /**
+     * Parses the optional simple statement of an if or switch statement's header, or the
+     * expression in its place.
+     *
+     * @return Simple statement or expression, or null if the header starts with a semi-colon
+     * @throws ParserException
+     * @throws LexerException
+     * @throws IOException
+     */
+    private Node parseHeaderSimple() throws ParserException, LexerException, IOException {
+        return (this.token instanceof TSemi) ? null : this.parseSimple();
+    }
+
+    /**
+     * Parses the semi-colon after the simple statement of a header.
+     *
+     * @param simple - Simple statement or expression (null if none)
+     * @return Simple statement
+     * @throws ParserException if there's an expression in place of the simple statement
+     * @throws LexerException
+     * @throws IOException
+     */
+    private PStmt expectHeaderSemi(Node simple)
+        throws ParserException, LexerException, IOException {
+
+        // An expression (e.g. a function call) isn't a simple statement here.
+        if (simple instanceof PExpr)
+            throw this.error("'++', '--', '=', ':=', op-assignment");
+
+        this.expectSemi();
+
+        return (PStmt) simple;
+    }
+
+    /**
+     * Parses an if-else statement (without its semi-colon).
+     *
+     * @return If-else statement
+     * @throws ParserException
+     * @throws LexerException
+     * @throws IOException
+     */
+    private PStmt parseIfElse() throws ParserException, LexerException, IOException {
+        this.consume();
+
+        PCondition condition;
+        Node simple = this.parseHeaderSimple();
+        if (this.token instanceof TSemi) {
+            PStmt stmt = this.expectHeaderSemi(simple);
+            condition = new AConditionCondition((stmt != null) ? stmt : new AEmptyStmt(),
+                this.parseExpr());
+        } else if (simple instanceof PExpr)
+            condition = new AConditionCondition(null, (PExpr) simple);
+        else
+            throw this.error("';'");
+
+        LinkedList<PStmt> ifBlock = this.parseBlock();
+
+        LinkedList<PStmt> elseBlock = new LinkedList<PStmt>();
+        if (this.token instanceof TElse) {
+            this.consume();
+            if (this.token instanceof TIf)
+                elseBlock.add(this.parseIfElse());
+            else
+                elseBlock = this.parseBlock();
+        }
+
+        return new AIfElseStmt(condition, ifBlock, elseBlock);
+    }
+
+    /**
+     * Parses a switch statement (without its semi-colon).
+     *
+     * @return Switch statement
+     * @throws ParserException
+     * @throws LexerException
+     * @throws IOException
+     */
+    private PStmt parseSwitch() throws ParserException, LexerException, IOException {
+        this.consume();
+
+        // Unlike in if and for statements, a missing simple statement is null, not empty.
+        PStmt stmt = null;
+        PExpr expr = null;
+        if (!(this.token instanceof TLbrace)) {
+            Node simple = this.parseHeaderSimple();
+            if (this.token instanceof TSemi) {
+                stmt = this.expectHeaderSemi(simple);
+                if (!(this.token instanceof TLbrace))
+                    expr = this.parseExpr();
+            } else if (simple instanceof PExpr)
+                expr = (PExpr) simple;
+            else
+                throw this.error("';'");
+        }
+
+        this.expect(TLbrace.class, "'{'");
+
+        LinkedList<PCaseBlock> caseBlocks = new LinkedList<PCaseBlock>();
+        while (!(this.token instanceof TRbrace)) {
+            PCaseCondition caseCondition;
+            if (this.token instanceof TCase) {
+                this.consume();
+                caseCondition = new AExprsCaseCondition(this.parseExprList());
+            } else if (this.token instanceof TDefault) {
+                this.consume();
+                caseCondition = new ADefaultCaseCondition();
+            } else
+                throw this.error("'case', 'default', '}'");
+
+            this.expect(TColon.class, "':'");
+
+            LinkedList<PStmt> stmts = new LinkedList<PStmt>();
+            while (!(this.token instanceof TCase || this.token instanceof TDefault
+                || this.token instanceof TRbrace))
+                this.parseStmt(stmts);
+
+            caseBlocks.add(new ABlockCaseBlock(caseCondition, stmts));
+        }
+        this.consume();
+
+        return new ASwitchStmt(stmt, expr, caseBlocks);
+    }
+
+    /**
+     * Parses a for loop (without its semi-colon).
+     *
+     * @return Loop statement
+     * @throws ParserException
+     * @throws LexerException
+     * @throws IOException
+     */
+    private PStmt parseLoop() throws ParserException, LexerException, IOException {
+        this.consume();
+
+        // Infinite loop.
+        if (this.token instanceof TLbrace)
+            return new ALoopStmt(null, null, null, this.parseBlock());
+
+        // While loop.
+        Node simple = this.parseHeaderSimple();
+        if (!(this.token instanceof TSemi)) {
+            if (!(simple instanceof PExpr))
+                throw this.error("';'");
+
+            return new ALoopStmt(null, (PExpr) simple, null, this.parseBlock());
+        }
+
+        // Three-part loop, whose missing parts are empty.
+        PStmt init = this.expectHeaderSemi(simple);
+        if (init == null)
+            init = new AEmptyStmt();
+
+        PExpr cond = (this.token instanceof TSemi) ? new AEmptyExpr() : this.parseExpr();
+        this.expectSemi();
+
+        PStmt end = new AEmptyStmt();
+        if (!(this.token instanceof TLbrace)) {
+            Node endSimple = this.parseSimple();
+            if (endSimple instanceof PExpr)
+                throw this.error("'++', '--', '=', ':=', op-assignment");
+
+            end = (PStmt) endSimple;
+        }
+
+        return new ALoopStmt(init, cond, end, this.parseBlock());
+    }
+
+    /* Expressions. */
+
+    /**
+     * Parses a comma-separated list of expressions, possibly empty.
+     *
+     * @return Expressions
+     * @throws ParserException
+     * @throws LexerException
+     * @throws IOException
+     */
+    private LinkedList<PExpr> parseExprList() throws ParserException, LexerException, IOException {
+        LinkedList<PExpr> exprs = new LinkedList<PExpr>();
+        // Whatever follows an expression list can't start an expression.
+        if (!startsExpr(this.token))
+            return exprs;
+
+        exprs.add(this.parseExpr());
+        while (this.token instanceof TComma) {
+            this.consume();
+            exprs.add(this.parseExpr());
+        }
+
+        return exprs;
+    }
+
+    /**
+     * @param t - Token
+     * @return True if an expression can start with the token, false otherwise
+     */
+    private static boolean startsExpr(Token t) {
+        return t instanceof TId || t instanceof TLparen || t instanceof TAppend || isPrimType(t)
+            || t instanceof TPlus || t instanceof TMinus || t instanceof TNot
+            || t instanceof TCarot || literal(t) != null;
+    }
+
+    /**
+     * Parses an expression.
+     *
+     * @return Expression
+     * @throws ParserException
+     * @throws LexerException
+     * @throws IOException
+     */
+    private PExpr parseExpr() throws ParserException, LexerException, IOException {
+        return this.parseBinary(1);
+    }
+
+    /**
+     * Returns the precedence of a binary operator (from the grammar's expr, conjunction, clause,
+     * sub_expr and factor productions).
+     *
+     * @param t - Token
+     * @return Precedence (the higher, the tighter the operator binds), or 0 if the token isn't a
+     *  binary operator
+     */
+    private static int precedence(Token t) {
+        if (t instanceof TPipePipe)
+            return 1;
+        else if (t instanceof TAmpAmp)
+            return 2;
+        else if (t instanceof TEquals || t instanceof TNotEquals || t instanceof TLt
+            || t instanceof TLte || t instanceof TGt || t instanceof TGte)
+            return 3;
+        else if (t instanceof TPlus || t instanceof TMinus || t instanceof TPipe
+            || t instanceof TCarot)
+            return 4;
+        else if (t instanceof TStar || t instanceof TSlash || t instanceof TPerc
+            || t instanceof TLshift || t instanceof TRshift || t instanceof TAmp
+            || t instanceof TAmpCarot)
+            return 5;
+
+        return 0;
+    }
+
+    /**
+     * Parses an expression whose binary operators (outside parentheses) all bind at least as
+     * tightly as the given precedence. Operators of the same precedence associate to the left.
+     *
+     * @param minPrecedence - Minimum precedence
+     * @return Expression
+     * @throws ParserException
+     * @throws LexerException
+     * @throws IOException
+     */
+    private PExpr parseBinary(int minPrecedence)
+        throws ParserException, LexerException, IOException {
+
+        PExpr left = this.parseUnary();
+
+        int precedence;
+        while ((precedence = precedence(this.token)) >= minPrecedence) {
+            Token op = this.consume();
+            left = binary(op, left, this.parseBinary(precedence + 1));
+        }
+
+        return left;
+    }
+
+    /**
+     * @param op - Binary operator token
+     * @param left - Left operand
+     * @param right - Right operand
+     * @return Corresponding binary expression
+     */
+    private static PExpr binary(Token op, PExpr left, PExpr right) {
+        if (op instanceof TPipePipe)
+            return new AOrExpr(left, right);
+        else if (op instanceof TAmpAmp)
+            return new AAndExpr(left, right);
+        else if (op instanceof TEquals)
+            return new AEqExpr(left, right);
+        else if (op instanceof TNotEquals)
+            return new ANeqExpr(left, right);
+        else if (op instanceof TLt)
+            return new ALtExpr(left, right);
+        else if (op instanceof TLte)
+            return new ALteExpr(left, right);
+        else if (op instanceof TGt)
+            return new AGtExpr(left, right);
+        else if (op instanceof TGte)
+            return new AGteExpr(left, right);
+        else if (op instanceof TPlus)
+            return new AAddExpr(left, right);
+        else if (op instanceof TMinus)
+            return new ASubtractExpr(left, right);
+        else if (op instanceof TPipe)
+            return new ABitOrExpr(left, right);
+        else if (op instanceof TCarot)
+            return new ABitXorExpr(left, right);
+        else if (op instanceof TStar)
+            return new AMultExpr(left, right);
+        else if (op instanceof TSlash)
+            return new ADivExpr(left, right);
+        else if (op instanceof TPerc)
+            return new AModExpr(left, right);
+        else if (op instanceof TLshift)
+            return new ABitLshiftExpr(left, right);
+        else if (op instanceof TRshift)
+            return new ABitRshiftExpr(left, right);
+        else if (op instanceof TAmp)
+            return new ABitAndExpr(left, right);
+
+        return new ABitClearExpr(left, right);
+    }
+
+    /**
+     * Parses a unary expression (the grammar's term), i.e. an operand with its postfix field
+     * accesses and indexings, under any number of unary operators.
+     *
+     * @return Expression
+     * @throws ParserException
+     * @throws LexerException
+     * @throws IOException
+     */
+    private PExpr parseUnary() throws ParserException, LexerException, IOException {
+        Token t = this.token;
+
+        if (t instanceof TPlus) {
+            this.consume();
+            return new APosExpr(this.parseUnary());
+        } else if (t instanceof TMinus) {
+            this.consume();
+            return new ANegExpr(this.parseUnary());
+        } else if (t instanceof TNot) {
+            this.consume();
+            return new ANotExpr(this.parseUnary());
+        } else if (t instanceof TCarot) {
+            this.consume();
+            return new ABitCompExpr(this.parseUnary());
+        }
+
+        return this.parsePostfix(this.parseOperand());
+    }
+
+    /**
+     * Parses the field accesses and indexings following an operand.
+     *
+     * @param expr - Operand
+     * @return Expression
+     * @throws ParserException
+     * @throws LexerException
+     * @throws IOException
+     */
+    private PExpr parsePostfix(PExpr expr) throws ParserException, LexerException, IOException {
+        while (true) {
+            if (this.token instanceof TDot) {
+                this.consume();
+                expr = new AFieldExpr(expr, this.expectId());
+            } else if (this.token instanceof TLsquare) {
+                this.consume();
+                PExpr index = this.parseExpr();
+                this.expect(TRsquare.class, "']'");
+                expr = new AArrayElemExpr(expr, index);
+            } else
+                return expr;
+        }
+    }
+
+    /**
+     * Parses an operand, i.e. a literal, variable, function call, append, type cast or
+     * parenthesized expression.
+     *
+     * @return Expression
+     * @throws ParserException
+     * @throws LexerException
+     * @throws IOException
+     */
+    private PExpr parseOperand() throws ParserException, LexerException, IOException {
+        Token t = this.token;
+
+        if (t instanceof TId) {
+            this.consume();
+            if (!(this.token instanceof TLparen))
+                return new AVariableExpr((TId) t);
+
+            // Only Id's can be called.
+            this.consume();
+            LinkedList<PExpr> args = this.parseExprList();
+            this.expect(TRparen.class, "')'");
+            return new AFuncCallExpr((TId) t, args);
+        } else if (t instanceof TAppend) {
+            this.consume();
+            this.expect(TLparen.class, "'('");
+            TId id = this.expectId();
+            this.expect(TComma.class, "','");
+            PExpr expr = this.parseExpr();
+            this.expect(TRparen.class, "')'");
+            return new AAppendExpr(id, expr);
+        } else if (isPrimType(t)) {
+            this.consume();
+            this.expect(TLparen.class, "'('");
+            PExpr expr = this.parseExpr();
+            this.expect(TRparen.class, "')'");
+            return new ATypeCastExpr(primTypeExpr(t), expr);
+        } else if (t instanceof TLparen) {
+            // Parentheses leave no node behind.
+            this.consume();
+            PExpr expr = this.parseExpr();
+            this.expect(TRparen.class, "')'");
+            this.lastParenthesized = expr;
+            return expr;
+        }
+
+        PExpr literal = literal(t);
+        if (literal == null)
+            throw this.error("expression");
+
+        this.consume();
+        return literal;
+    }
+
+    /**
+     * @param t - Token
+     * @return Literal expression of the token, or null if the token isn't a literal
+     */
+    private static PExpr literal(Token t) {
+        if (t instanceof TIntLit)
+            return new AIntLitExpr((TIntLit) t);
+        else if (t instanceof TOctLit)
+            return new AOctLitExpr((TOctLit) t);
+        else if (t instanceof THexLit)
+            return new AHexLitExpr((THexLit) t);
+        else if (t instanceof TFloatLit)
+            return new AFloatLitExpr((TFloatLit) t);
+        else if (t instanceof TRuneLit)
+            return new ARuneLitExpr((TRuneLit) t);
+        else if (t instanceof TInterpretedStringLit)
+            return new AInterpretedStringLitExpr((TInterpretedStringLit) t);
+        else if (t instanceof TRawStringLit)
+            return new ARawStringLitExpr((TRawStringLit) t);
+
+        return null;
+    }
+
+}
@@ -0,0 +1,610 @@
+package golite;
+
+import java.io.IOException;
+import java.io.PushbackReader;
+import java.io.StringReader;
+
+import golite.lexer.Lexer;
+import golite.lexer.LexerException;
+import golite.node.*;
+
+
+/**
+ * Hand-Written GoLite Scanner.
+ *
+ * Produces exactly the token stream of {@link GoLiteLexer} (i.e. the SableCC generated lexer with
+ * the GoLite semi-colon rule), but scans directly over the characters of the program with
+ * hand-coded matching, instead of driving the DFA tables of the generated lexer a character at a
+ * time through a PushbackReader. Semi-colons are inserted as tokens are scanned.
+ *
+ * Line and positions of tokens, as well as the error reported for text no token matches, are the
+ * same as the generated lexer's.
+ *
+ * The scanner can also skip trivia, for phases that only parse the token stream: blanks, comments
+ * and EOL's are then stepped over in place, keeping track of lines and positions, without ever
+ * allocating their tokens or text, and the stream is made of effective tokens only (with the
+ * semi-colons the rule inserts).
+ */
+public class GoLiteScanner extends Lexer {
+
+    /** Program being scanned. */
+    private final CharSequence source;
+    /** Length of the program. */
+    private final int length;
+    /** Flag indicating whether blanks, comments and EOL's are skipped rather than returned. */
+    private final boolean skipTrivia;
+    /** Offset of the next character to scan. */
+    private int offset = 0;
+    /** Line of the next character to scan (0-indexed, as in the generated lexer). */
+    private int line = 0;
+    /** Position of the next character to scan (0-indexed, as in the generated lexer). */
+    private int pos = 0;
+    /** Tracks whether the last scanned character was a carriage return. */
+    private boolean cr = false;
+    /** Tracks the last "effective" token, i.e. a non-ignored token. */
+    private Token lastEffectiveToken = null;
+
+    /**
+     * @param source - GoLite program
+     */
+    public GoLiteScanner(CharSequence source) {
+        this(source, false);
+    }
+
+    /**
+     * @param source - GoLite program
+     * @param skipTrivia - Flag indicating whether to skip blanks, comments and EOL's rather than
+     *  return their tokens
+     */
+    public GoLiteScanner(CharSequence source, boolean skipTrivia) {
+        // The underlying reader of the generated lexer is never read from.
+        super(new PushbackReader(new StringReader("")));
+
+        this.source = source;
+        this.length = source.length();
+        this.skipTrivia = skipTrivia;
+    }
+
+    /**
+     * Creates a scanner over the program a reader reads. If the reader is a CharSequence (e.g. a
+     * MappedSourceReader), the program is scanned in place, otherwise it's read into memory first.
+     *
+     * @param in - GoLite program reader (closed once read)
+     * @param skipTrivia - Flag indicating whether to skip blanks, comments and EOL's rather than
+     *  return their tokens
+     * @return Scanner
+     * @throws IOException if the program can't be read
+     */
+    public static GoLiteScanner of(PushbackReader in, boolean skipTrivia) throws IOException {
+        if (in instanceof CharSequence)
+            return new GoLiteScanner((CharSequence) in, skipTrivia);
+
+        try {
+            StringBuilder program = new StringBuilder();
+            char[] buffer = new char[8192];
+            int n;
+            while ((n = in.read(buffer)) != -1)
+                program.append(buffer, 0, n);
+
+            return new GoLiteScanner(program, skipTrivia);
+        } finally {
+            in.close();
+        }
+    }
+
+    /**
+     * Returns the next token of the scanning stream, with the semi-colon rule applied.
+     *
+     * @return Next token
+     * @throws LexerException if no token matches the next characters
+     */
+    @Override
+    protected Token getToken() throws IOException, LexerException {
+        if (this.skipTrivia && this.skipToEffective()) {
+            this.lastEffectiveToken = new TSemi();
+            return this.lastEffectiveToken;
+        }
+
+        Token t = this.scan();
+
+        // Blanks and comments neither end a line nor are effective.
+        if (TokenKind.isInlineTrivia(t))
+            return t;
+
+        if (GoLiteLexer.requiresSemi(t, this.lastEffectiveToken))
+            t = new TSemi();
+
+        if (TokenKind.isEffective(t))
+            this.lastEffectiveToken = t;
+
+        return t;
+    }
+
+    /**
+     * Skips blanks, comments and EOL's up to the next effective token, or up to the first EOL
+     * where the semi-colon rule inserts a semi-colon.
+     *
+     * @return True if the skipping stopped at an EOL requiring a semi-colon, false otherwise
+     */
+    private boolean skipToEffective() {
+        while (true) {
+            int c = this.charAt(this.offset);
+
+            if (c == ' ' || c == '\t')
+                this.skip(1);
+            else if (c == '\n' || c == '\r') {
+                this.advance((c == '\r' && this.charAt(this.offset + 1) == '\n') ? 2 : 1);
+                if (TokenKind.endsStatement(this.lastEffectiveToken))
+                    return true;
+            } else if (c == '/') {
+                int n = this.commentLength();
+                if (n == 0)
+                    return false;
+
+                this.advance(n);
+            } else
+                return false;
+        }
+    }
+
+    /**
+     * Returns the character at the given offset.
+     *
+     * @param i - Offset
+     * @return Character at the offset, or -1 past the end of the program
+     */
+    private int charAt(int i) {
+        return i < this.length ? this.source.charAt(i) : -1;
+    }
+
+    /**
+     * Consumes characters.
+     *
+     * @param n - Number of characters
+     * @return Consumed text
+     */
+    private String consume(int n) {
+        int start = this.offset;
+        this.advance(n);
+
+        return this.source.subSequence(start, this.offset).toString();
+    }
+
+    /**
+     * Steps over characters, tracking lines and positions as the generated lexer does (A carriage
+     * return, line feed or both end a line).
+     *
+     * @param n - Number of characters
+     */
+    private void advance(int n) {
+        int end = this.offset + n;
+        for (int i = this.offset; i < end; i++) {
+            char c = this.source.charAt(i);
+            if (c == '\n') {
+                if (this.cr)
+                    this.cr = false;
+                else {
+                    this.line++;
+                    this.pos = 0;
+                }
+            } else if (c == '\r') {
+                this.line++;
+                this.pos = 0;
+                this.cr = true;
+            } else {
+                this.pos++;
+                this.cr = false;
+            }
+        }
+
+        this.offset = end;
+    }
+
+    /**
+     * Skips the characters of a token that can't span lines.
+     *
+     * @param n - Number of characters
+     */
+    private void skip(int n) {
+        this.offset += n;
+        this.pos += n;
+        this.cr = false;
+    }
+
+    /**
+     * Scans the next token (without the semi-colon rule).
+     *
+     * @return Next token
+     * @throws LexerException if no token matches the next characters
+     */
+    private Token scan() throws LexerException {
+        int l = this.line + 1;
+        int p = this.pos + 1;
+        int c = this.charAt(this.offset);
+
+        if (c == -1)
+            return new EOF(l, p);
+
+        switch (c) {
+            case ' ':
+            case '\t':
+                return new TBlank(this.consume(1), l, p);
+            case '\n':
+                return new TEol(this.consume(1), l, p);
+            case '\r':
+                return new TEol(this.consume(this.charAt(this.offset + 1) == '\n' ? 2 : 1), l, p);
+            case '"':
+                return this.scanInterpretedString(l, p);
+            case '`':
+                return this.scanRawString(l, p);
+            case '\'':
+                return this.scanRune(l, p);
+            case '/': {
+                int n = this.commentLength();
+                if (n > 0)
+                    return new TComment(this.consume(n), l, p);
+                break;
+            }
+            case '.':
+                if (isDigit(this.charAt(this.offset + 1)))
+                    return this.scanNumber(l, p);
+                break;
+            default:
+                if (isDigit(c))
+                    return this.scanNumber(l, p);
+                if (isAlpha(c) || c == '_')
+                    return this.scanWord(l, p);
+        }
+
+        return this.scanOperator(c, l, p);
+    }
+
+    /**
+     * Returns the length of the comment at the current offset.
+     *
+     * @return Length of the comment, or 0 if there's none
+     */
+    private int commentLength() {
+        int i = this.offset + 1;
+        int c = this.charAt(i);
+
+        // Single-line comment, up to the end of the line.
+        if (c == '/') {
+            i++;
+            while ((c = this.charAt(i)) != -1 && c != '\n' && c != '\r' && c < 128)
+                i++;
+            return i - this.offset;
+        }
+
+        if (c != '*')
+            return 0;
+
+        // '/**/' on its own.
+        int shortest = 0;
+        if (this.charAt(i + 1) == '*' && this.charAt(i + 2) == '/')
+            shortest = 4;
+
+        // Otherwise, the comment must start (after any stars) with a character other than a star,
+        // and ends at the first '*/' after it.
+        i++;
+        while (this.charAt(i) == '*')
+            i++;
+        c = this.charAt(i);
+        if (c == -1 || c >= 128)
+            return shortest;
+        for (i++; (c = this.charAt(i)) != -1 && c < 128; i++) {
+            if (c == '*' && this.charAt(i + 1) == '/')
+                return Math.max(shortest, i + 2 - this.offset);
+        }
+
+        return shortest;
+    }
+
+    /**
+     * Scans an integer, octal, hexadecimal or floating-point literal.
+     *
+     * @param l - Line of the token
+     * @param p - Position of the token
+     * @return Literal token
+     */
+    private Token scanNumber(int l, int p) {
+        int i = this.offset;
+        while (isDigit(this.charAt(i)))
+            i++;
+
+        if (this.charAt(i) == '.') {
+            i++;
+            while (isDigit(this.charAt(i)))
+                i++;
+            return new TFloatLit(this.consume(i - this.offset), l, p);
+        }
+
+        if (this.charAt(this.offset) != '0')
+            return new TIntLit(this.consume(i - this.offset), l, p);
+
+        int x = this.charAt(this.offset + 1);
+        if ((x == 'x' || x == 'X') && isHexDigit(this.charAt(this.offset + 2))) {
+            i = this.offset + 2;
+            while (isHexDigit(this.charAt(i)))
+                i++;
+            return new THexLit(this.consume(i - this.offset), l, p);
+        }
+
+        i = this.offset + 1;
+        while (isOctDigit(this.charAt(i)))
+            i++;
+        if (i > this.offset + 1)
+            return new TOctLit(this.consume(i - this.offset), l, p);
+
+        // A lone '0' (Any other digits that follow are another literal).
+        return new TIntLit(this.consume(1), l, p);
+    }
+
+    /**
+     * Scans an identifier, keyword or underscore.
+     *
+     * @param l - Line of the token
+     * @param p - Position of the token
+     * @return Identifier, keyword or underscore token
+     */
+    private Token scanWord(int l, int p) {
+        int i = this.offset + 1;
+        int c;
+        while ((c = this.charAt(i)) == '_' || isAlpha(c) || isDigit(c))
+            i++;
+
+        String text = this.source.subSequence(this.offset, i).toString();
+        this.skip(i - this.offset);
+
+        Token keyword = keyword(text, l, p);
+        return (keyword != null) ? keyword : new TId(text, l, p);
+    }
+
+    /**
+     * Returns the keyword (or underscore) token for a word.
+     *
+     * @param text - Word
+     * @param l - Line of the token
+     * @param p - Position of the token
+     * @return Keyword token, or null if the word isn't a keyword
+     */
+    private static Token keyword(String text, int l, int p) {
+        switch (text) {
+            case "_": return new TUnderscore(l, p);
+            // Go keywords.
+            case "break": return new TBreak(l, p);
+            case "case": return new TCase(l, p);
+            case "chan": return new TChan(l, p);
+            case "const": return new TConst(l, p);
+            case "continue": return new TContinue(l, p);
+            case "default": return new TDefault(l, p);
+            case "defer": return new TDefer(l, p);
+            case "else": return new TElse(l, p);
+            case "fallthrough": return new TFallthrough(l, p);
+            case "for": return new TFor(l, p);
+            case "func": return new TFunc(l, p);
+            case "go": return new TGo(l, p);
+            case "goto": return new TGoto(l, p);
+            case "if": return new TIf(l, p);
+            case "import": return new TImport(l, p);
+            case "interface": return new TInterface(l, p);
+            case "map": return new TMap(l, p);
+            case "package": return new TPackage(l, p);
+            case "range": return new TRange(l, p);
+            case "return": return new TReturn(l, p);
+            case "select": return new TSelect(l, p);
+            case "struct": return new TStruct(l, p);
+            case "switch": return new TSwitch(l, p);
+            case "type": return new TType(l, p);
+            case "var": return new TVar(l, p);
+            // GoLite keywords.
+            case "int": return new TInt(l, p);
+            case "float64": return new TFloat64(l, p);
+            case "bool": return new TBool(l, p);
+            case "rune": return new TRune(l, p);
+            case "string": return new TString(l, p);
+            case "print": return new TPrint(l, p);
+            case "println": return new TPrintln(l, p);
+            case "append": return new TAppend(l, p);
+            default: return null;
+        }
+    }
+
+    /**
+     * Scans an interpreted string literal.
+     *
+     * @param l - Line of the token
+     * @param p - Position of the token
+     * @return Interpreted string literal token
+     * @throws LexerException if the literal is malformed
+     */
+    private Token scanInterpretedString(int l, int p) throws LexerException {
+        int i = this.offset + 1;
+        while (true) {
+            int c = this.charAt(i);
+            if (c == '"')
+                return new TInterpretedStringLit(this.consume(i + 1 - this.offset), l, p);
+
+            if (c == '\\') {
+                int e = this.charAt(i + 1);
+                if (e != '"' && !isEscape(e))
+                    throw this.unknownToken(i + 2, l, p);
+                i += 2;
+            } else if (c == -1 || c == '\n' || c == '\r' || c >= 128)
+                throw this.unknownToken(i + 1, l, p);
+            else
+                i++;
+        }
+    }
+
+    /**
+     * Scans a raw string literal.
+     *
+     * @param l - Line of the token
+     * @param p - Position of the token
+     * @return Raw string literal token
+     * @throws LexerException if the literal is malformed
+     */
+    private Token scanRawString(int l, int p) throws LexerException {
+        int i = this.offset + 1;
+        int c;
+        while ((c = this.charAt(i)) != '`') {
+            if (c == -1 || c >= 128)
+                throw this.unknownToken(i + 1, l, p);
+            i++;
+        }
+
+        return new TRawStringLit(this.consume(i + 1 - this.offset), l, p);
+    }
+
+    /**
+     * Scans a rune literal.
+     *
+     * @param l - Line of the token
+     * @param p - Position of the token
+     * @return Rune literal token
+     * @throws LexerException if the literal is malformed
+     */
+    private Token scanRune(int l, int p) throws LexerException {
+        int i = this.offset + 1;
+        int c = this.charAt(i);
+
+        if (c == '\\') {
+            int e = this.charAt(i + 1);
+            if (e != '\'' && !isEscape(e))
+                throw this.unknownToken(i + 2, l, p);
+            i += 2;
+        } else if (c == -1 || c == '\n' || c == '\r' || c == '\'' || c >= 128)
+            throw this.unknownToken(i + 1, l, p);
+        else
+            i++;
+
+        if (this.charAt(i) != '\'')
+            throw this.unknownToken(i + 1, l, p);
+
+        return new TRuneLit(this.consume(i + 1 - this.offset), l, p);
+    }
+
+    /**
+     * Scans an operator or punctuation token, the longest that matches.
+     *
+     * @param c - First character
+     * @param l - Line of the token
+     * @param p - Position of the token
+     * @return Operator token
+     * @throws LexerException if no token matches
+     */
+    private Token scanOperator(int c, int l, int p) throws LexerException {
+        int c1 = this.charAt(this.offset + 1);
+        int c2 = this.charAt(this.offset + 2);
+        Token t;
+
+        switch (c) {
+            case '+':
+                t = (c1 == '=') ? new TPlusAssign(l, p)
+                    : (c1 == '+') ? new TPlusPlus(l, p) : new TPlus(l, p);
+                break;
+            case '-':
+                t = (c1 == '=') ? new TMinusAssign(l, p)
+                    : (c1 == '-') ? new TMinusMinus(l, p) : new TMinus(l, p);
+                break;
+            case '*':
+                t = (c1 == '=') ? new TStarAssign(l, p) : new TStar(l, p);
+                break;
+            case '/':
+                t = (c1 == '=') ? new TSlashAssign(l, p) : new TSlash(l, p);
+                break;
+            case '%':
+                t = (c1 == '=') ? new TPercAssign(l, p) : new TPerc(l, p);
+                break;
+            case '&':
+                if (c1 == '^')
+                    t = (c2 == '=') ? new TAmpCarotAssign(l, p) : new TAmpCarot(l, p);
+                else
+                    t = (c1 == '=') ? new TAndAssign(l, p)
+                        : (c1 == '&') ? new TAmpAmp(l, p) : new TAmp(l, p);
+                break;
+            case '|':
+                t = (c1 == '=') ? new TPipeAssign(l, p)
+                    : (c1 == '|') ? new TPipePipe(l, p) : new TPipe(l, p);
+                break;
+            case '^':
+                t = (c1 == '=') ? new TCarotAssign(l, p) : new TCarot(l, p);
+                break;
+            case '<':
+                if (c1 == '<')
+                    t = (c2 == '=') ? new TLshiftAssign(l, p) : new TLshift(l, p);
+                else
+                    t = (c1 == '=') ? new TLte(l, p)
+                        : (c1 == '-') ? new TArrow(l, p) : new TLt(l, p);
+                break;
+            case '>':
+                if (c1 == '>')
+                    t = (c2 == '=') ? new TRshiftAssign(l, p) : new TRshift(l, p);
+                else
+                    t = (c1 == '=') ? new TGte(l, p) : new TGt(l, p);
+                break;
+            case '=':
+                t = (c1 == '=') ? new TEquals(l, p) : new TAssign(l, p);
+                break;
+            case '!':
+                t = (c1 == '=') ? new TNotEquals(l, p) : new TNot(l, p);
+                break;
+            case ':':
+                t = (c1 == '=') ? new TShortAssign(l, p) : new TColon(l, p);
+                break;
+            case '.':
+                t = (c1 == '.' && c2 == '.') ? new TEllipsis(l, p) : new TDot(l, p);
+                break;
+            case '(': t = new TLparen(l, p); break;
+            case ')': t = new TRparen(l, p); break;
+            case '[': t = new TLsquare(l, p); break;
+            case ']': t = new TRsquare(l, p); break;
+            case '{': t = new TLbrace(l, p); break;
+            case '}': t = new TRbrace(l, p); break;
+            case ',': t = new TComma(l, p); break;
+            case ';': t = new TSemi(l, p); break;
+            default:
+                throw this.unknownToken(this.offset + 1, l, p);
+        }
+
+        this.skip(t.getText().length());
+        return t;
+    }
+
+    /**
+     * Creates the error for text that no token matches, as the generated lexer reports it.
+     *
+     * @param end - Offset just past the last character read
+     * @param l - Line of the text
+     * @param p - Position of the text
+     * @return Lexer exception
+     */
+    private LexerException unknownToken(int end, int l, int p) {
+        String text = this.source.subSequence(this.offset, Math.min(end, this.length)).toString();
+        return new LexerException(new InvalidToken(text.substring(0, 1), l, p),
+            "[" + l + "," + p + "] Unknown token: " + text);
+    }
+
+    private static boolean isDigit(int c) {
+        return c >= '0' && c <= '9';
+    }
+
+    private static boolean isOctDigit(int c) {
+        return c >= '0' && c <= '7';
+    }
+
+    private static boolean isHexDigit(int c) {
+        return isDigit(c) || (c >= 'a' && c <= 'f') || (c >= 'A' && c <= 'F');
+    }
+
+    private static boolean isAlpha(int c) {
+        return (c >= 'a' && c <= 'z') || (c >= 'A' && c <= 'Z');
+    }
+
+    private static boolean isEscape(int c) {
+        return c == 'a' || c == 'b' || c == 'f' || c == 'n' || c == 'r' || c == 't' || c == 'v'
+            || c == '\\';
+    }
+
+}
@@ -4,23 +4,27 @@ import golite.exception.SymbolTableException;
 import golite.exception.TypeCheckException;
 import golite.exception.WeederException;
 import golite.generator.CodeGenerator;
+import golite.generator.CodeWriter;
 import golite.symbol.SymbolTable;
-import golite.symbol.SymbolTableBuilder;
-import golite.type.TypeChecker;
+import golite.symbol.SymbolTableLogger;
+import golite.type.GoLiteType;
 import golite.lexer.*;
 import golite.node.*;
 import golite.parser.*;
 
+import java.io.BufferedWriter;
 import java.io.File;
-import java.io.FileReader;
 import java.io.FileWriter;
 import java.io.IOException;
 import java.io.PrintWriter;
-import java.io.PushbackReader;
+import java.io.UncheckedIOException;
+import java.util.Arrays;
+import java.util.Map;
 
 import org.apache.commons.cli.CommandLine;
 import org.apache.commons.cli.CommandLineParser;
 import org.apache.commons.cli.HelpFormatter;
+import org.apache.commons.cli.Option;
 import org.apache.commons.cli.PosixParser;
 import org.apache.commons.cli.Options;
 import org.apache.commons.cli.ParseException;
@@ -32,10 +36,48 @@ import org.apache.commons.cli.ParseException;
 class Main {
 
     // Valid/Invalid messages to print for phase checks on programs.
-    private final static String VALID_MESSAGE = "VALID";
-    private final static String INVALID_MESSAGE = "INVALID";
+    final static String VALID_MESSAGE = "VALID";
+    final static String INVALID_MESSAGE = "INVALID";
+
+    // Default size bound of the code generation cache, in MB.
+    final static int DEFAULT_CACHE_SIZE = 256;
+
+    // Default maximum number of errors reported with -allerrors.
+    final static int DEFAULT_MAX_ERRORS = 10;
+
+    // Options the outcome of code generation depends on (be it the code or the wording of the
+    // errors), which the code generation cache is keyed by.
+    private final static String[] CACHED_OPTIONS = {
+        "safe", "ut", "fastscan", "rdparse", "fuse", "partype", "pargen", "stream", "load"
+    };
+
+    // Options -batch honours (It rejects any other, rather than run without it, or cache its
+    // outcome under a key with it).
+    private final static String[] BATCH_OPTIONS = {
+        "batch", "scan", "parse", "type", "gen", "safe", "ut", "fastscan", "rdparse", "fuse",
+        "threads", "cache", "cachesize"
+    };
+
+    // Phase options, in the order their outputs are produced when several are passed.
+    private final static String[] PHASES = {
+        "scan", "tokens", "parse", "pretty", "ast", "type", "dumpsymtab", "pptype", "gen"
+    };
 
     public static void main(String args[]) {
+        int status = run(args, new File("."));
+        if (status != 0)
+            System.exit(status);
+    }
+
+    /**
+     * Runs the compiler on the given command-line arguments.
+     *
+     * @param args - Command-line arguments
+     * @param workDir - Directory that relative program paths are resolved against, and that
+     *  output files are written to
+     * @return Exit status (0 on success)
+     */
+    static int run(String args[], File workDir) {
         // Create the command-line parser.
         CommandLineParser parser = new PosixParser();
 
@@ -56,6 +98,46 @@ class Main {
         options.addOption("safe", false,
             "enforce wrap-arounds for integers (slows down generated code)");
         options.addOption("ut", false, "allow top-level declarations to be unordered");
+        options.addOption("fastscan", false,
+            "scan with the hand-written scanner instead of the SableCC generated lexer");
+        options.addOption("rdparse", false, "parse with the hand-written recursive-descent " +
+            "parser instead of the SableCC generated parser");
+        options.addOption("fuse", false, "weed in the type checker's traversal rather than in " +
+            "a traversal of its own");
+        options.addOption("partype", false, "with -ut, type check the function bodies in " +
+            "parallel");
+        options.addOption("pargen", false, "generate the function bodies in parallel");
+        options.addOption("stream", false, "with -type or -gen, compile one top-level " +
+            "declaration at a time rather than building the whole AST (not with -ut)");
+        options.addOption("save", false, "with -type, save the type checked program to a " +
+            "typed AST file (foo.tast)");
+        options.addOption("load", false, "read the type checked program from a typed AST file " +
+            "saved with -save rather than from source, for -pretty, -ast, -type, -dumpsymtab, " +
+            "-pptype or -gen");
+        options.addOption("allerrors", false, "with -parse or -type, carry on after errors and " +
+            "report all of them, rather than only the first");
+        options.addOption("maxerrors", true, "maximum number of errors reported with -allerrors " +
+            "(default " + DEFAULT_MAX_ERRORS + ")");
+        options.addOption("batch", false, "run the phase on every program in a directory, glob " +
+            "or manifest file, and report VALID/INVALID for each (code generation by default), " +
+            "exiting with 1 if any is INVALID");
+        options.addOption("threads", true, "number of threads for -batch (default: one per core)");
+        options.addOption("server", false, "run as a compile server on a loopback port");
+        options.addOption("port", true,
+            "port of the compile server (default " + CompileServer.DEFAULT_PORT + ")");
+        options.addOption("cache", true, "directory caching the outcome of -gen per program " +
+            "and flags, shared by concurrent compilers");
+        options.addOption("cachesize", true, "size bound of the -cache directory in MB " +
+            "(default " + DEFAULT_CACHE_SIZE + ")");
+        options.addOption("bench", false,
+            "with -tokens, measure the scanning throughput of the source readers and scanners, " +
+            "with -parse, the parsing throughput of the parsers, with -ast, the heap taken by " +
+            "the AST as nodes and in compact form, with -type, the time taken by weeding in a " +
+            "traversal of its own and in the type checker's, and by checking the function " +
+            "bodies in order and in parallel (with -save, the time taken by saving and loading " +
+            "the typed AST against the front end), with -dumpsymtab, the time taken by the " +
+            "symbol table layouts, and with -gen, the time taken by generating the function " +
+            "bodies in order and in parallel");
         options.addOption("help", false, "display help");
 
         CommandLine parsed = null;
@@ -63,73 +145,346 @@ class Main {
             parsed = parser.parse(options, args, false);
         } catch (ParseException e) {
             System.err.println("Parsing failed. ERROR: " + e.getMessage());
+            printUsage();
+            return -1;
+        }
+
+        // Serve compile requests until killed.
+        if (parsed.hasOption("server")) {
+            int port = CompileServer.DEFAULT_PORT;
+            try {
+                if (parsed.hasOption("port"))
+                    port = Integer.parseInt(parsed.getOptionValue("port"));
+                new CompileServer(port).serve();
+            } catch (NumberFormatException e) {
+                System.err.println("Parsing failed. ERROR: Invalid port " + parsed.getOptionValue("port"));
+                return -1;
+            } catch (IOException e) {
+                System.err.println("IO ERROR: " + e.getMessage());
+                return -1;
+            }
+
+            return 0;
         }
 
-        // Throw an error if the number of arguments passed is off.
-        if (args.length < 1 || args.length > 4) {
+        // Compile many programs in one go.
+        if (parsed.hasOption("batch")) {
+            if (parsed.getArgs().length != 1) {
+                printUsage();
+                return -1;
+            }
+
+            for (Option option : parsed.getOptions()) {
+                if (!Arrays.asList(BATCH_OPTIONS).contains(option.getOpt())) {
+                    System.err.println("Parsing failed. ERROR: -batch doesn't take -" +
+                        option.getOpt());
+                    return -1;
+                }
+            }
+
+            BatchCompiler.Phase phase = BatchCompiler.Phase.GEN;
+            if (parsed.hasOption("scan"))
+                phase = BatchCompiler.Phase.SCAN;
+            else if (parsed.hasOption("parse"))
+                phase = BatchCompiler.Phase.PARSE;
+            else if (parsed.hasOption("type"))
+                phase = BatchCompiler.Phase.TYPE;
+
+            int threads = Runtime.getRuntime().availableProcessors();
+            try {
+                if (parsed.hasOption("threads"))
+                    threads = Integer.parseInt(parsed.getOptionValue("threads"));
+                if (threads < 1)
+                    throw new NumberFormatException();
+
+                GenCache cache = null;
+                if (parsed.hasOption("cache")) {
+                    try {
+                        cache = openCache(parsed, workDir);
+                    } catch (NumberFormatException e) {
+                        System.err.println("Parsing failed. ERROR: Invalid cache size " +
+                            parsed.getOptionValue("cachesize"));
+                        return -1;
+                    }
+                }
+
+                int invalid = new BatchCompiler(phase, parsed.hasOption("ut"),
+                    parsed.hasOption("safe"), parsed.hasOption("fastscan"),
+                    parsed.hasOption("rdparse"), parsed.hasOption("fuse"), threads, cache)
+                    .run(parsed.getArgs()[0], workDir);
+
+                // Let scripts tell a run with INVALID programs from one without.
+                if (invalid > 0)
+                    return 1;
+            } catch (NumberFormatException e) {
+                System.err.println("Parsing failed. ERROR: Invalid number of threads " +
+                    parsed.getOptionValue("threads"));
+                return -1;
+            } catch (IOException e) {
+                System.err.println("IO ERROR: " + e.getMessage());
+                return -1;
+            }
+
+            return 0;
+        }
+
+        // Throw an error if the number of arguments passed is off (Any number of phases can be
+        // asked for, but only on one program).
+        if (args.length < 1 || parsed.getArgs().length > 1) {
             printUsage();
-            System.exit(-1);
+            return -1;
         }
 
         // Make sure the last argument corresponds to a program that exists, otherwise throw an
         // error.
         String programPath = args[args.length - 1];
-        if (!programPath.equals("-help") && !new File(programPath).exists()) {
+        File programFile = resolve(workDir, programPath);
+        if (!programPath.equals("-help") && !programFile.exists()) {
             System.err.println("Parsing failed. ERROR: " + programPath + " does not exist ");
             printUsage();
-            System.exit(-1);
+            return -1;
         }
 
         // Make sure the passed filepath points to a file and not a directory.
-        if (new File(programPath).isDirectory()) {
+        if (programFile.isDirectory()) {
             System.err.println("Parsing failed. ERROR: Expecting a file, not a directory");
-            System.exit(-1);
+            return -1;
         }
 
+        String inPath = programFile.getPath();
+
         // Flag for whether top declarations are allowed in any order or not.
         boolean ut = parsed.hasOption("ut");
         // Flag for whether to enforce wrap-arounds for integers in the generated code at the cost
         // of really slow code.
         boolean safe = parsed.hasOption("safe");
+        // Flag for whether to scan with the hand-written scanner.
+        boolean fastScan = parsed.hasOption("fastscan");
+        // Flag for whether to parse with the hand-written parser.
+        boolean rdParse = parsed.hasOption("rdparse");
+        // Flag for whether to weed in the type checker's traversal.
+        boolean fuse = parsed.hasOption("fuse");
+        // Flag for whether to type check the function bodies in parallel.
+        boolean parType = parsed.hasOption("partype");
+        // Flag for whether to generate the function bodies in parallel.
+        boolean parGen = parsed.hasOption("pargen");
+        // Flag for whether to compile one top-level declaration at a time.
+        boolean stream = parsed.hasOption("stream");
+
+        // Flag for whether to save the type checked program.
+        boolean save = parsed.hasOption("save");
+        // Flag for whether to load the type checked program rather than compile it from source.
+        boolean load = parsed.hasOption("load");
+
+        if (stream && ut) {
+            System.err.println("Parsing failed. ERROR: -stream needs the top-level declarations " +
+                "in order (not -ut)");
+            return -1;
+        }
+
+        if (save && (!parsed.hasOption("type") || stream || parsed.hasOption("allerrors"))) {
+            System.err.println("Parsing failed. ERROR: -save needs -type on the AST of the " +
+                "whole program (not -stream or -allerrors)");
+            return -1;
+        }
+
+        if (load && (parsed.hasOption("scan") || parsed.hasOption("tokens") ||
+            parsed.hasOption("parse") || stream || parsed.hasOption("allerrors") ||
+            parsed.hasOption("bench"))) {
+            System.err.println("Parsing failed. ERROR: -load has no program source to scan, " +
+                "parse, stream, diagnose or benchmark");
+            return -1;
+        }
 
+        // Maximum number of errors reported with -allerrors.
+        int maxErrors = DEFAULT_MAX_ERRORS;
         try {
-            if (parsed.hasOption("scan")) {
-                if (scan(programPath))
-                    System.out.println(VALID_MESSAGE);
-                else
-                    System.out.println(INVALID_MESSAGE);
-            } else if (parsed.hasOption("tokens"))
-                displayTokens(programPath);
-            else if (parsed.hasOption("parse")) {
-                if (parse(programPath))
-                    System.out.println(VALID_MESSAGE);
-                else
-                    System.out.println(INVALID_MESSAGE);
-            } else if (parsed.hasOption("pretty"))
-                prettyPrint(programPath);
-            else if (parsed.hasOption("ast"))
-                printAST(programPath);
-            else if (parsed.hasOption("type")) {
-                if (typeCheck(programPath, ut))
-                    System.out.println(VALID_MESSAGE);
-                else
-                    System.out.println(INVALID_MESSAGE);
-            } else if (parsed.hasOption("dumpsymtab"))
-                dumpSymbolTable(programPath, ut);
-            else if (parsed.hasOption("pptype"))
-                typedPrettyPrint(programPath, ut);
-            else if (parsed.hasOption("gen"))
-                generateCode(programPath, ut, safe);
-            else if (parsed.hasOption("help"))
+            if (parsed.hasOption("maxerrors"))
+                maxErrors = Integer.parseInt(parsed.getOptionValue("maxerrors"));
+        } catch (NumberFormatException e) {
+            maxErrors = 0;
+        }
+
+        if (maxErrors < 1) {
+            System.err.println("Parsing failed. ERROR: Invalid maximum number of errors " +
+                parsed.getOptionValue("maxerrors"));
+            return -1;
+        }
+
+        // Cache of code generation outcomes, if asked for.
+        GenCache cache = null;
+        try {
+            if (parsed.hasOption("cache"))
+                cache = openCache(parsed, workDir);
+        } catch (NumberFormatException e) {
+            System.err.println("Parsing failed. ERROR: Invalid cache size " +
+                parsed.getOptionValue("cachesize"));
+            return -1;
+        } catch (IOException e) {
+            System.err.println("IO ERROR: " + e.getMessage());
+            return -1;
+        }
+
+        // Front-end results shared by all the requested phases, so that asking for several outputs
+        // costs a single parse (and type check).
+        CompilationUnit unit;
+        try {
+            unit = load ? CompilationUnit.ofTypedAST(inPath, ut)
+                : CompilationUnit.ofFile(inPath, ut, fastScan, rdParse, fuse);
+        } catch (IOException e) {
+            System.err.println("IO ERROR: " + e.getMessage());
+            return -1;
+        }
+        unit.setParallelTypeCheck(parType);
+        boolean ran = false;
+        int status = 0;
+        // Log of the symbol table activity, streamed to its dump as the program is type checked.
+        SymbolTableLogger symbolTableLog = null;
+
+        try {
+            if (parsed.hasOption("dumpsymtab") && !parsed.hasOption("bench"))
+                symbolTableLog = logSymbolTable(unit, inPath, workDir);
+
+            for (String phase : PHASES) {
+                if (!parsed.hasOption(phase))
+                    continue;
+
+                ran = true;
+
+                switch (phase) {
+                    case "scan":
+                        if (scan(inPath, fastScan))
+                            System.out.println(VALID_MESSAGE);
+                        else
+                            System.out.println(INVALID_MESSAGE);
+                        break;
+                    case "tokens":
+                        if (parsed.hasOption("bench"))
+                            benchmarkTokens(inPath);
+                        else
+                            displayTokens(inPath, fastScan);
+                        break;
+                    case "parse":
+                        if (parsed.hasOption("bench"))
+                            benchmarkParse(inPath);
+                        else if (parsed.hasOption("allerrors")) {
+                            if (diagnose(unit, false, maxErrors))
+                                System.out.println(VALID_MESSAGE);
+                            else
+                                System.out.println(INVALID_MESSAGE);
+                        } else if (parse(unit))
+                            System.out.println(VALID_MESSAGE);
+                        else
+                            System.out.println(INVALID_MESSAGE);
+                        break;
+                    case "pretty":
+                        prettyPrint(unit, inPath, workDir);
+                        break;
+                    case "ast":
+                        if (parsed.hasOption("bench"))
+                            benchmarkAST(inPath);
+                        else
+                            printAST(unit);
+                        break;
+                    case "type":
+                        if (parsed.hasOption("bench") && save)
+                            benchmarkTypedAST(inPath);
+                        else if (parsed.hasOption("bench"))
+                            benchmarkTypeCheck(inPath);
+                        else if (parsed.hasOption("allerrors")) {
+                            if (diagnose(unit, true, maxErrors))
+                                System.out.println(VALID_MESSAGE);
+                            else
+                                System.out.println(INVALID_MESSAGE);
+                        } else if (stream) {
+                            if (streamTypeCheck(inPath, fastScan))
+                                System.out.println(VALID_MESSAGE);
+                            else
+                                System.out.println(INVALID_MESSAGE);
+                        } else if (typeCheck(unit)) {
+                            if (save)
+                                saveTypedAST(unit, inPath, workDir);
+                            System.out.println(VALID_MESSAGE);
+                        } else
+                            System.out.println(INVALID_MESSAGE);
+                        break;
+                    case "dumpsymtab":
+                        if (parsed.hasOption("bench"))
+                            benchmarkSymbolTable(inPath);
+                        else if (!dumpSymbolTable(unit, symbolTableLog, inPath, workDir))
+                            status = -1;
+                        break;
+                    case "pptype":
+                        if (!typedPrettyPrint(unit, inPath, workDir))
+                            status = -1;
+                        break;
+                    case "gen":
+                        if (parsed.hasOption("bench"))
+                            benchmarkGenerate(inPath, safe);
+                        else if (!generateCode(unit, inPath, safe, parGen,
+                            stream ? new StreamingCompiler(fastScan, safe) : null, workDir, cache))
+                            status = -1;
+                        break;
+                }
+            }
+        } catch (IOException e) {
+            System.err.println("IO ERROR: " + e.getMessage());
+            return -1;
+        } finally {
+            if (symbolTableLog != null)
+                symbolTableLog.close();
+        }
+
+        if (!ran) {
+            if (parsed.hasOption("help"))
                 new HelpFormatter().printHelp("GoLite Compiler", options);
             else {
                 printUsage();
-                System.exit(-1);
+                return -1;
             }
-        } catch (IOException e) {
-            System.err.println("IO ERROR: " + e.getMessage());
-            System.exit(-1);
         }
+
+        return status;
+    }
+
+    /**
+     * Opens the code generation cache designated by the command line.
+     *
+     * @param parsed - Parsed command line (with a -cache option)
+     * @param workDir - Directory that a relative cache directory is resolved against
+     * @return Code generation cache, keyed by the options in {@link #CACHED_OPTIONS} given on the
+     *  command line
+     * @throws NumberFormatException if the cache size isn't a positive integer
+     * @throws IOException if the cache directory can't be created
+     */
+    static GenCache openCache(CommandLine parsed, File workDir) throws IOException {
+
+        long size = DEFAULT_CACHE_SIZE;
+        if (parsed.hasOption("cachesize"))
+            size = Long.parseLong(parsed.getOptionValue("cachesize"));
+        if (size < 1)
+            throw new NumberFormatException();
+
+        StringBuilder flags = new StringBuilder();
+        for (String option : CACHED_OPTIONS) {
+            if (parsed.hasOption(option))
+                flags.append(" -").append(option);
+        }
+
+        return new GenCache(resolve(workDir, parsed.getOptionValue("cache")), size * 1024 * 1024,
+            flags.toString().trim());
+    }
+
+    /**
+     * Resolves a filepath against a working directory.
+     *
+     * @param workDir - Working directory
+     * @param path - Absolute filepath, or filepath relative to the working directory
+     * @return Resolved file
+     */
+    static File resolve(File workDir, String path) {
+        File file = new File(path);
+        return file.isAbsolute() ? file : new File(workDir, path);
     }
 
     /**
@@ -137,23 +492,41 @@ class Main {
      */
     private static void printUsage() {
         System.err.println("Usage: java golite.Main -<scan | tokens | parse | pretty | ast | " +
-            "type | dumpsymtab | pptype | gen | help> filepath");
+            "type | dumpsymtab | pptype | gen | help> [-fastscan] [-rdparse] [-fuse] filepath");
+        System.err.println("       java golite.Main -gen [-safe] [-ut] [-pargen] " +
+            "[-cache dir [-cachesize mb]] filepath");
+        System.err.println("       java golite.Main -<type | gen> -stream [-safe] [-fastscan] " +
+            "filepath");
+        System.err.println("       java golite.Main -type -save [-bench] filepath");
+        System.err.println("       java golite.Main -<pretty | ast | type | dumpsymtab | pptype " +
+            "| gen> -load [-safe] typed-ast-filepath");
+        System.err.println("       java golite.Main -<type | dumpsymtab | pptype | gen> -ut " +
+            "-partype filepath");
+        System.err.println("       java golite.Main -<tokens | parse | ast | type | dumpsymtab " +
+            "| gen> -bench [-safe] filepath");
+        System.err.println("       java golite.Main -<parse | type> -allerrors [-maxerrors n] " +
+            "[-ut] [-fastscan] filepath");
+        System.err.println("       java golite.Main -batch [-scan | -parse | -type | -gen] " +
+            "[-threads n] [-safe] [-ut] [-fastscan] [-rdparse] [-fuse] " +
+            "[-cache dir [-cachesize mb]] <directory | glob | manifest>");
+        System.err.println("       java golite.Main -server [-port port]");
     }
 
     /**
      * Scans a GoLite program.
      *
      * @param inPath - Filepath to GoLite program to scan
+     * @param fastScan - Flag indicating whether to scan with the hand-written scanner
      * @return True if the program passed scanning, false otherwise (If false, prints the error to
      *  stderr as well)
      * @throws IOException
      */
-    private static boolean scan(String inPath) throws IOException {
+    private static boolean scan(String inPath, boolean fastScan) throws IOException {
         Token token = null;
 
-        try {
+        try (MappedSourceReader in = MappedSourceReader.open(inPath)) {
             for (
-                Lexer lexer = new GoLiteLexer(new PushbackReader(new FileReader(inPath), 1024));
+                Lexer lexer = CompilationUnit.newLexer(in, fastScan, true);
                 !(lexer.peek() instanceof EOF);
                 token = lexer.next()
             ) {}
@@ -170,14 +543,16 @@ class Main {
      * along with the underlying scanned text in brackets (except for TEol token).
      *
      * @param inPath - Filepath to GoLite program to scan
+     * @param fastScan - Flag indicating whether to scan with the hand-written scanner
      * @throws IOException
      *
      * Consulted <a href="http://www.sable.mcgill.ca/~hendren/520/2016/tiny/sablecc-3/tiny/Main.java">
      * Main.java</a> of the Tiny language example on the course website.
      */
-    private static void displayTokens(String inPath) throws IOException {
-        try {
-            Lexer lexer = new GoLiteLexer(new PushbackReader(new FileReader(inPath), 1024));
+    private static void displayTokens(String inPath, boolean fastScan) throws IOException {
+        try (MappedSourceReader in = MappedSourceReader.open(inPath)) {
+            // Every token is displayed, trivia included.
+            Lexer lexer = CompilationUnit.newLexer(in, fastScan, false);
 
             while (!(lexer.peek() instanceof EOF)) {
                 Token token = lexer.next();
@@ -194,21 +569,124 @@ class Main {
     }
 
     /**
-     * Parses a GoLite program.
+     * Measures the scanning throughput of a GoLite program for each source reader and scanner, and
+     * prints it to stdout.
+     *
+     * @param inPath - Filepath to GoLite program to scan
+     * @throws IOException
+     */
+    private static void benchmarkTokens(String inPath) throws IOException {
+        try {
+            Benchmark.tokens(inPath);
+        } catch (LexerException e) {
+            System.err.println("ERROR: " + e);
+        }
+    }
+
+    /**
+     * Measures the parsing throughput of a GoLite program for each parser, and prints it to stdout.
      *
      * @param inPath - Filepath to GoLite program to parse
+     * @throws IOException
+     */
+    private static void benchmarkParse(String inPath) throws IOException {
+        try {
+            Benchmark.parse(inPath);
+        } catch (LexerException|ParserException e) {
+            System.err.println("ERROR: " + e);
+        }
+    }
+
+    /**
+     * Measures the time saving and loading the typed AST of a GoLite program take, against the
+     * time the front end takes, and prints it to stdout.
+     *
+     * @param inPath - Filepath to GoLite program
+     * @throws IOException
+     */
+    private static void benchmarkTypedAST(String inPath) throws IOException {
+        try {
+            Benchmark.typedAST(inPath);
+        } catch (LexerException|ParserException|SymbolTableException|WeederException|
+            TypeCheckException e) {
+            System.err.println("ERROR: " + e);
+        }
+    }
+
+    /**
+     * Measures the heap the AST of a GoLite program takes as nodes and in compact form, and the
+     * time the passes over each take, and prints it to stdout.
+     *
+     * @param inPath - Filepath to GoLite program
+     * @throws IOException
+     */
+    private static void benchmarkAST(String inPath) throws IOException {
+        try {
+            Benchmark.ast(inPath);
+        } catch (LexerException|ParserException e) {
+            System.err.println("ERROR: " + e);
+        }
+    }
+
+    /**
+     * Measures the time weeding and type checking a GoLite program take for each weeding mode, and
+     * prints it to stdout.
+     *
+     * @param inPath - Filepath to GoLite program
+     * @throws IOException
+     */
+    private static void benchmarkTypeCheck(String inPath) throws IOException {
+        try {
+            Benchmark.typeCheck(inPath);
+        } catch (LexerException|ParserException|SymbolTableException|WeederException|
+            TypeCheckException e) {
+            System.err.println("ERROR: " + e);
+        }
+    }
+
+    /**
+     * Measures the time the symbol table operations of a GoLite program take for each symbol table
+     * layout, and prints it to stdout.
+     *
+     * @param inPath - Filepath to GoLite program
+     * @throws IOException
+     */
+    private static void benchmarkSymbolTable(String inPath) throws IOException {
+        try {
+            Benchmark.symbolTable(inPath);
+        } catch (LexerException|ParserException|WeederException e) {
+            System.err.println("ERROR: " + e);
+        }
+    }
+
+    /**
+     * Measures the time generating the code of a GoLite program takes, with the function bodies
+     * generated in order and in parallel, and prints it to stdout.
+     *
+     * @param inPath - Filepath to GoLite program
+     * @param wrap - Flag indicating whether to enforce wrap-arounds for integers
+     * @throws IOException
+     */
+    private static void benchmarkGenerate(String inPath, boolean wrap) throws IOException {
+        try {
+            Benchmark.generate(inPath, wrap);
+        } catch (LexerException|ParserException|SymbolTableException|WeederException|
+            TypeCheckException e) {
+            System.err.println("ERROR: " + e);
+        }
+    }
+
+    /**
+     * Parses a GoLite program.
+     *
+     * @param unit - GoLite program to parse
      * @return True if the program passed parsing, false otherwise (If false, prints the error to
      *  stderr as well)
      * @throws IOException
      */
-    private static boolean parse(String inPath) throws IOException {
+    private static boolean parse(CompilationUnit unit) throws IOException {
         try {
-            Lexer lexer = new GoLiteLexer(new PushbackReader(new FileReader(inPath), 1024));
-            Parser p = new Parser(lexer);
-            Weeder weeder = new Weeder();
-
-            Start ast = p.parse();
-            ast.apply(weeder);
+            unit.getWeededAST();
         } catch (LexerException|ParserException|WeederException e) {
             System.err.println("ERROR: " + e);
             return false;
@@ -221,22 +699,20 @@ class Main {
      * Pretty print a GoLite program to file. Given an input file of the form 'foo.go', the method
      * writes these results to 'foo.pretty.go'.
      *
+     * @param unit - GoLite program
      * @param inPath - Filepath to GoLite program
+     * @param outDir - Output directory
      * @throws IOException
      */
-    private static void prettyPrint(String inPath) throws IOException {
+    private static void prettyPrint(CompilationUnit unit, String inPath, File outDir)
+        throws IOException {
         try {
-            Lexer lexer = new GoLiteLexer(new PushbackReader(new FileReader(inPath), 1024));
-            Parser parser = new Parser(lexer);
-            Weeder weeder = new Weeder();
-
-            Start tree = parser.parse();
-            tree.apply(weeder);
+            Start tree = unit.getWeededAST();
 
             PrettyPrinter pp = new PrettyPrinter();
             tree.apply(pp);
 
-            dump(pp.getPrettyPrint(), inPath, ".pretty.go");
+            dump(pp.getPrettyPrint(), inPath, ".pretty.go", outDir);
         } catch (Exception e) {
             System.err.println("ERROR: " + e);
         }
@@ -245,15 +721,12 @@ class Main {
     /**
      * Print the AST a GoLite program in standard treebank format.
      *
-     * @param inPath - Filepath to GoLite program
+     * @param unit - GoLite program
      * @throws IOException
      */
-    private static void printAST(String inPath) throws IOException {
+    private static void printAST(CompilationUnit unit) throws IOException {
         try {
-            Lexer lexer = new GoLiteLexer(new PushbackReader(new FileReader(inPath), 1024));
-            Parser parser = new Parser(lexer);
-
-            Start tree = parser.parse();
+            Start tree = unit.getAST();
 
             ASTEncoder encoder = new ASTEncoder();
             tree.apply(encoder);
@@ -267,31 +740,35 @@ class Main {
     /**
      * Type check a GoLite program.
      *
-     * @param inPath - Filepath to GoLite program
-     * @param ut - Flag indicating whether top-declarations are allowed to be unordered
+     * @param unit - GoLite program
      * @return True if the program passes type checking, false otherwise (If false, prints the error to
      *  stderr as well)
      * @throws IOException
      */
-    private static boolean typeCheck(String inPath, boolean ut) throws IOException {
+    private static boolean typeCheck(CompilationUnit unit) throws IOException {
         try {
-            Lexer lexer = new GoLiteLexer(new PushbackReader(new FileReader(inPath), 1024));
-            Parser parser = new Parser(lexer);
-            Weeder weeder = new Weeder();
-
-            Start ast = parser.parse();
-            ast.apply(weeder);
-
-            TypeChecker typeChecker = null;
-            if (ut) {
-                SymbolTableBuilder symbolTableBuilder = new SymbolTableBuilder();
-                ast.apply(symbolTableBuilder);
+            unit.getTypeTable();
+        } catch (LexerException|ParserException|SymbolTableException|WeederException|TypeCheckException e) {
+            System.err.println("ERROR: " + e);
+            return false;
+        }
 
-                typeChecker = new TypeChecker(symbolTableBuilder.getTable());
-            } else
-                typeChecker = new TypeChecker();
+        return true;
+    }
 
-            ast.apply(typeChecker);
+    /**
+     * Type check a GoLite program one top-level declaration at a time (See
+     * {@link StreamingCompiler}).
+     *
+     * @param inPath - Filepath to GoLite program
+     * @param fastScan - Flag indicating whether to scan with the hand-written scanner
+     * @return True if the program passes type checking, false otherwise (If false, prints the error to
+     *  stderr as well)
+     * @throws IOException
+     */
+    private static boolean streamTypeCheck(String inPath, boolean fastScan) throws IOException {
+        try (MappedSourceReader in = MappedSourceReader.open(inPath)) {
+            new StreamingCompiler(fastScan, false).compile(in, null);
         } catch (LexerException|ParserException|SymbolTableException|WeederException|TypeCheckException e) {
             System.err.println("ERROR: " + e);
             return false;
@@ -300,38 +777,102 @@ class Main {
         return true;
     }
 
+    /**
+     * Checks a GoLite program passes parsing (and weeding), or type checking, carrying on after
+     * errors to report all of them.
+     *
+     * @param unit - GoLite program
+     * @param typeCheck - Flag indicating whether to type check the program
+     * @param maxErrors - Maximum number of errors to report
+     * @return True if the program has no errors, false otherwise (If false, prints the errors to
+     *  stderr as well)
+     * @throws IOException
+     */
+    private static boolean diagnose(CompilationUnit unit, boolean typeCheck, int maxErrors)
+        throws IOException {
+        Diagnostics diagnostics = new Diagnostics(maxErrors);
+        unit.diagnose(diagnostics, typeCheck);
+
+        for (Exception e : diagnostics.getErrors())
+            System.err.println("ERROR: " + e);
+        if (diagnostics.isTruncated())
+            System.err.println("ERROR: Too many errors");
+
+        return !diagnostics.hasErrors();
+    }
+
+    /**
+     * Logs the activity of the symbol table of a GoLite program as it's type checked, whichever
+     * phase type checks it first. Given an input file of the form 'foo.go', the log is written to
+     * 'foo.symtab'.
+     *
+     * @param unit - GoLite program
+     * @param inPath - Filepath to GoLite program
+     * @param outDir - Output directory
+     * @return Log (to be closed once the program is type checked)
+     * @throws IOException
+     */
+    private static SymbolTableLogger logSymbolTable(CompilationUnit unit, String inPath,
+        File outDir) throws IOException {
+
+        SymbolTableLogger log = new SymbolTableLogger(
+            new BufferedWriter(new FileWriter(outputFile(inPath, ".symtab", outDir))));
+        unit.setSymbolTableListener(log);
+
+        return log;
+    }
+
     /**
      * Dumps the symbol table for a GoLite program. Given an input file of the form 'foo.go', the
      * method writes these results to 'foo.symtab'.
      *
+     * @param unit - GoLite program
+     * @param log - Log the symbol table activity is streamed to (see
+     *  {@link #logSymbolTable(CompilationUnit, String, File)})
      * @param inPath - Filepath to GoLite program
-     * @param ut - Flag indicating whether top-declarations are allowed to be unordered.
+     * @param outDir - Output directory
+     * @return True if the symbol table was dumped, false otherwise (If false, prints the error to
+     *  stderr as well)
      * @throws IOException
      */
-    private static void dumpSymbolTable(String inPath, boolean ut) throws IOException {
+    private static boolean dumpSymbolTable(CompilationUnit unit, SymbolTableLogger log,
+        String inPath, File outDir) throws IOException {
         try {
-            Lexer lexer = new GoLiteLexer(new PushbackReader(new FileReader(inPath), 1024));
-            Parser parser = new Parser(lexer);
-            Weeder weeder = new Weeder();
+            unit.getSymbolTable();
+        } catch (LexerException|ParserException|WeederException|SymbolTableException|TypeCheckException e) {
+            System.err.println("ERROR: " + e);
 
-            Start ast = parser.parse();
-            ast.apply(weeder);
+            // Drop the partial log.
+            log.close();
+            outputFile(inPath, ".symtab", outDir).delete();
 
-            TypeChecker typeChecker = null;
-            if (ut) {
-                SymbolTableBuilder symbolTableBuilder = new SymbolTableBuilder();
-                ast.apply(symbolTableBuilder);
+            return false;
+        }
 
-                typeChecker = new TypeChecker(symbolTableBuilder.getTable());
-            } else
-                typeChecker = new TypeChecker();
+        log.close();
+        if (log.checkError())
+            throw new IOException("Failed to write " + outputFile(inPath, ".symtab", outDir));
 
-            ast.apply(typeChecker);
+        return true;
+    }
 
-            dump(typeChecker.getSymbolTable().getLog(), inPath, ".symtab");
-        } catch (LexerException|ParserException|WeederException|SymbolTableException|TypeCheckException e) {
-            System.err.println("ERROR: " + e);
-            System.exit(-1);
+    /**
+     * Saves a type checked GoLite program to a typed AST file (See {@link TypedASTFile}). Given an
+     * input file of the form 'foo.go', the method writes it to 'foo.tast'.
+     *
+     * @param unit - GoLite program (type checked)
+     * @param inPath - Filepath to GoLite program
+     * @param outDir - Output directory
+     * @throws IOException
+     */
+    private static void saveTypedAST(CompilationUnit unit, String inPath, File outDir)
+        throws IOException {
+        try {
+            TypedASTFile.write(unit.getWeededAST(), unit.getTypeTable(),
+                outputFile(inPath, ".tast", outDir).getPath());
+        } catch (LexerException|ParserException e) {
+            // Can't happen once type checked.
+            throw new IllegalStateException(e);
         }
     }
 
@@ -339,94 +880,130 @@ class Main {
      * Typed pretty print a GoLite program to file. Given an input file of the form 'foo.go', the
      * method writes these results to 'foo.pptype.go'.
      *
+     * @param unit - GoLite program
      * @param inPath - Filepath to GoLite program
-     * @param ut - Flag indicating whether top-declarations are allowed to be unordered
+     * @param outDir - Output directory
+     * @return True if the typed pretty print was written, false otherwise (If false, prints the
+     *  error to stderr as well)
      * @throws IOException
      */
-    public static void typedPrettyPrint(String inPath, boolean ut) throws IOException {
+    public static boolean typedPrettyPrint(CompilationUnit unit, String inPath, File outDir)
+        throws IOException {
         try {
-            Lexer lexer = new GoLiteLexer(new PushbackReader(new FileReader(inPath), 1024));
-            Parser parser = new Parser(lexer);
-            Weeder weeder = new Weeder();
-
-            Start ast = parser.parse();
-            ast.apply(weeder);
-
-            TypeChecker typeChecker = null;
-            if (ut) {
-                SymbolTableBuilder symbolTableBuilder = new SymbolTableBuilder();
-                ast.apply(symbolTableBuilder);
-
-                typeChecker = new TypeChecker(symbolTableBuilder.getTable());
-            } else
-                typeChecker = new TypeChecker();
-
-            ast.apply(typeChecker);
-
-            TypedPrettyPrinter tpp = new TypedPrettyPrinter(typeChecker.getTypeTable());
-            ast.apply(tpp);
+            TypedPrettyPrinter tpp = new TypedPrettyPrinter(unit.getTypeTable());
+            unit.getWeededAST().apply(tpp);
 
-            dump(tpp.getPrettyPrint(), inPath, ".pptype.go");
+            dump(tpp.getPrettyPrint(), inPath, ".pptype.go", outDir);
         } catch (LexerException|ParserException|WeederException|SymbolTableException|TypeCheckException e) {
             System.err.println("ERROR: " + e);
-            System.exit(-1);
+            return false;
         }
+
+        return true;
     }
 
     /**
      * Compile a GoLite program and generate the corresponding Python code to file. Given an input
      * file of the form 'foo.go', the method writes these results to 'foo.golite.py'.
      *
+     * @param unit - GoLite program
      * @param inPath - Filepath to GoLite program
-     * @param ut - Flag indicating whether top-declarations are allowed to be unordered
      * @param wrap - Flag indicating whether to enforce wrap-arounds for integers at the cost of
      *  slower code
+     * @param parallel - Flag indicating whether to generate the function bodies in parallel
+     * @param streamer - Compiler to compile the program with one top-level declaration at a time,
+     *  straight from its source (null to generate the code from the unit's AST)
+     * @param outDir - Output directory
+     * @param cache - Cache of code generation outcomes (null for none)
+     * @return True if the code was generated, false otherwise (If false, prints the error to
+     *  stderr as well)
      * @throws IOException
      */
-    private static void generateCode(String inPath, boolean ut, boolean wrap) throws IOException {
-        try {
-            Lexer lexer = new GoLiteLexer(new PushbackReader(new FileReader(inPath), 1024));
-            Parser parser = new Parser(lexer);
-            Weeder weeder = new Weeder();
-
-            Start ast = parser.parse();
-            ast.apply(weeder);
-
-            TypeChecker typeChecker = null;
-            if (ut) {
-                SymbolTableBuilder symbolTableBuilder = new SymbolTableBuilder();
-                ast.apply(symbolTableBuilder);
-
-                typeChecker = new TypeChecker(symbolTableBuilder.getTable());
-            } else
-                typeChecker = new TypeChecker();
-
-            ast.apply(typeChecker);
+    private static boolean generateCode(CompilationUnit unit, String inPath, boolean wrap,
+        boolean parallel, StreamingCompiler streamer, File outDir, GenCache cache)
+        throws IOException {
+        File outFile = outputFile(inPath, ".golite.py", outDir);
+
+        // Skip the whole pipeline if the outcome for this very program and flags is cached.
+        String key = null;
+        if (cache != null) {
+            key = cache.key(inPath);
+
+            GenCache.Hit hit = cache.lookup(key, outFile);
+            if (hit != null && hit.error == null)
+                return true;
+            else if (hit != null) {
+                System.err.println("ERROR: " + hit.error);
+                return false;
+            }
+        }
 
-            CodeGenerator codeGenerator = new CodeGenerator(typeChecker.getTypeTable(), wrap);
-            ast.apply(codeGenerator);
+        try {
+            // Type check the whole program first, unless it's compiled one declaration at a time.
+            Map<Node, GoLiteType> typeTable = (streamer == null) ? unit.getTypeTable() : null;
+
+            // Stream the generated code straight to file.
+            try (CodeWriter out = CodeWriter.open(outFile)) {
+                if (streamer != null) {
+                    try (MappedSourceReader in = MappedSourceReader.open(inPath)) {
+                        streamer.compile(in, out);
+                    }
+                } else {
+                    CodeGenerator generator = new CodeGenerator(typeTable, wrap, out);
+                    generator.setParallel(parallel);
+                    unit.getWeededAST().apply(generator);
+                }
+            } catch (UncheckedIOException e) {
+                outFile.delete();
+                throw e.getCause();
+            } catch (LexerException|ParserException|RuntimeException e) {
+                // Don't leave a truncated program behind.
+                outFile.delete();
+                throw e;
+            }
 
-            dump(codeGenerator.getGeneratedCode(), inPath, ".golite.py");
+            if (cache != null)
+                cache.putCode(key, outFile);
         } catch (LexerException|ParserException|WeederException|SymbolTableException|TypeCheckException e) {
             System.err.println("ERROR: " + e);
-            System.exit(-1);
+
+            if (cache != null)
+                cache.putError(key, e.toString());
+
+            return false;
         }
+
+        return true;
     }
 
     /**
      * Dumps the data dervied from the given input file of the form 'foo.go', to a file in the
-     * current folder with the same name but specified extension.
+     * output folder with the same name but specified extension.
      *
      * @param data - Data to dump
      * @param inPath - Filepath to input
      * @param ext - Output extension
+     * @param outDir - Output directory
      */
-    private static void dump(String data, String inPath, String ext) throws IOException {
-        String filename = new File(inPath).getName();
-        String name = filename.substring(0, filename.indexOf('.'));
-        PrintWriter out = new PrintWriter(new FileWriter(name + ext));
+    private static void dump(String data, String inPath, String ext, File outDir)
+        throws IOException {
+        PrintWriter out = new PrintWriter(new FileWriter(outputFile(inPath, ext, outDir)));
         out.print(data);
         out.close();
     }
 
+    /**
+     * Returns the file to output to for a GoLite program, with the given extension.
+     *
+     * @param inPath - Filepath to GoLite program
+     * @param ext - Extension of output file
+     * @param outDir - Directory to output to
+     * @return Output file
+     */
+    private static File outputFile(String inPath, String ext, File outDir) {
+        String filename = new File(inPath).getName();
+        String name = filename.substring(0, filename.indexOf('.'));
+        return new File(outDir, name + ext);
+    }
+
 }
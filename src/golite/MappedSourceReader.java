@@ -0,0 +1,209 @@
+package golite;
+
+import java.io.FileNotFoundException;
+import java.io.IOException;
+import java.io.PushbackReader;
+import java.io.StringReader;
+import java.nio.ByteBuffer;
+import java.nio.CharBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.CharacterCodingException;
+import java.nio.charset.Charset;
+import java.nio.charset.CodingErrorAction;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
+import java.util.Arrays;
+
+
+/**
+ * Memory-Mapped Source Reader.
+ *
+ * Reads a GoLite program straight out of a memory-mapped file. The grammar only admits ASCII
+ * characters, which are decoded by a simple widening of their byte, without any intermediate copy
+ * or per-character locking. Only in the unlikely case that the program contains a non-ASCII byte
+ * is the remainder of the file decoded with the platform charset (like a FileReader would), so
+ * that the lexer reports the same unknown tokens either way.
+ *
+ * The reader is a PushbackReader so that it can be handed to the SableCC lexer, which unreads the
+ * characters of the longest match it didn't accept. It's also a CharSequence over the whole
+ * program, for consumers that want random access.
+ *
+ * Closing the reader lets go of the mapping (which is unmapped once collected, as the channel is
+ * closed as soon as the file is mapped), after which it reads as an empty program.
+ *
+ * Not thread-safe.
+ */
+public class MappedSourceReader extends PushbackReader implements CharSequence {
+
+    /** Initial capacity of the pushback stack. */
+    private static final int PUSHBACK_SIZE = 1024;
+
+    /** Mapped bytes of the program (empty once closed). */
+    private ByteBuffer bytes;
+    /** Number of leading bytes that are ASCII characters. */
+    private int asciiLength;
+    /** Decoded characters following the ASCII prefix (empty if the whole program is ASCII). */
+    private char[] tail;
+
+    /** Index of the next character to read. */
+    private int pos;
+    /** Stack of unread characters. */
+    private char[] pushback;
+    /** Number of unread characters. */
+    private int pushbackLength;
+
+    /**
+     * @param bytes - Bytes of the program
+     * @param charset - Charset to decode non-ASCII bytes with
+     */
+    MappedSourceReader(ByteBuffer bytes, Charset charset) {
+        // The underlying reader is never read from.
+        super(new StringReader(""), 1);
+
+        this.bytes = bytes;
+
+        int i = 0;
+        int limit = bytes.limit();
+        while (i < limit && bytes.get(i) >= 0)
+            i++;
+        this.asciiLength = i;
+
+        if (i < limit) {
+            ByteBuffer rest = bytes.duplicate();
+            rest.position(i);
+
+            try {
+                CharBuffer decoded = charset.newDecoder()
+                    .onMalformedInput(CodingErrorAction.REPLACE)
+                    .onUnmappableCharacter(CodingErrorAction.REPLACE)
+                    .decode(rest);
+                this.tail = Arrays.copyOf(decoded.array(), decoded.limit());
+            } catch (CharacterCodingException e) {
+                // Can't happen when replacing malformed input.
+                throw new IllegalStateException(e);
+            }
+        } else
+            this.tail = new char[0];
+
+        this.pos = 0;
+        this.pushback = new char[PUSHBACK_SIZE];
+        this.pushbackLength = 0;
+    }
+
+    /**
+     * Memory-maps a GoLite program.
+     *
+     * @param path - Filepath to GoLite program
+     * @return Reader over the program
+     * @throws IOException if the file can't be opened or mapped
+     */
+    public static MappedSourceReader open(String path) throws IOException {
+        try (FileChannel channel = FileChannel.open(Paths.get(path), StandardOpenOption.READ)) {
+            // The mapping stays valid after the channel is closed.
+            ByteBuffer bytes = channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+            return new MappedSourceReader(bytes, Charset.defaultCharset());
+        } catch (NoSuchFileException e) {
+            // Same error as a FileReader.
+            throw new FileNotFoundException(path + " (No such file or directory)");
+        }
+    }
+
+    @Override
+    public int length() {
+        return this.asciiLength + this.tail.length;
+    }
+
+    @Override
+    public char charAt(int index) {
+        if (index < this.asciiLength)
+            return (char) this.bytes.get(index);
+
+        return this.tail[index - this.asciiLength];
+    }
+
+    @Override
+    public CharSequence subSequence(int start, int end) {
+        char[] chars = new char[end - start];
+        for (int i = start; i < end; i++)
+            chars[i - start] = charAt(i);
+
+        return new String(chars);
+    }
+
+    @Override
+    public String toString() {
+        return subSequence(0, length()).toString();
+    }
+
+    @Override
+    public int read() {
+        if (this.pushbackLength > 0)
+            return this.pushback[--this.pushbackLength];
+
+        if (this.pos == length())
+            return -1;
+
+        return charAt(this.pos++);
+    }
+
+    @Override
+    public int read(char[] cbuf, int off, int len) {
+        if (len == 0)
+            return 0;
+
+        int n = 0;
+        while (n < len && this.pushbackLength > 0)
+            cbuf[off + n++] = this.pushback[--this.pushbackLength];
+
+        while (n < len && this.pos < length())
+            cbuf[off + n++] = charAt(this.pos++);
+
+        return n == 0 ? -1 : n;
+    }
+
+    @Override
+    public void unread(int c) {
+        if (this.pushbackLength == this.pushback.length)
+            this.pushback = Arrays.copyOf(this.pushback, 2 * this.pushback.length);
+
+        this.pushback[this.pushbackLength++] = (char) c;
+    }
+
+    @Override
+    public void unread(char[] cbuf, int off, int len) {
+        for (int i = off + len - 1; i >= off; i--)
+            unread(cbuf[i]);
+    }
+
+    @Override
+    public void unread(char[] cbuf) {
+        unread(cbuf, 0, cbuf.length);
+    }
+
+    @Override
+    public boolean ready() {
+        return this.pushbackLength > 0 || this.pos < length();
+    }
+
+    @Override
+    public long skip(long n) {
+        long skipped = 0;
+        while (skipped < n && read() != -1)
+            skipped++;
+
+        return skipped;
+    }
+
+    @Override
+    public void close() {
+        // Lexers, scanners and parsers keep the reader, so let go of the mapping rather than wait
+        // for them to be collected.
+        this.bytes = ByteBuffer.allocate(0);
+        this.asciiLength = 0;
+        this.tail = new char[0];
+        this.pos = 0;
+        this.pushbackLength = 0;
+    }
+
+}
@@ -0,0 +1,212 @@
+package golite;
+
+import golite.exception.WeederException;
+import golite.generator.CodeGenerator;
+import golite.generator.CodeWriter;
+import golite.symbol.Symbol;
+import golite.symbol.SymbolTableListener;
+import golite.type.TypeChecker;
+import golite.util.LineAndPosTracker;
+import golite.lexer.*;
+import golite.node.*;
+import golite.parser.*;
+
+import java.io.IOException;
+import java.io.PushbackReader;
+import java.io.UncheckedIOException;
+import java.util.LinkedList;
+
+
+/**
+ * Streaming Compiler.
+ *
+ * Compiles a GoLite program whose top-level declarations are in order (i.e. without -ut) one
+ * declaration at a time: each is parsed, weeded, type checked and generated in turn, and then
+ * dropped, so that the AST of the whole program is never built. All that's kept from one
+ * declaration to the next is the symbols of the global scopes (without the nodes of their
+ * declarations) and the type table of the current declaration, so the heap the compiler needs
+ * depends on the size of the largest declaration and on the number of global names, rather than
+ * on the size of the program.
+ *
+ * The program is parsed with the hand-written parser, and the outcome is the same as compiling it
+ * whole with it: errors are still reported by phase (a syntax error anywhere in the program before
+ * a weeder error, and so on), and at the same positions. Once a declaration fails, the
+ * declarations after it are only put through the earlier phases, to find any error that takes
+ * precedence. The code generated up to an error is left in the sink, for the caller to discard.
+ *
+ * Not thread-safe.
+ */
+public class StreamingCompiler {
+
+    /** Phases a declaration goes through, in the order their errors take precedence. */
+    private static final int WEED = 0, TYPE = 1, GEN = 2, NONE = 3;
+
+    /** Drops the declaration nodes of the symbols as they're put into the symbol table. */
+    private static final SymbolTableListener NODE_CLEARER = new SymbolTableListener() {
+        @Override
+        public void symbolPut(Symbol symbol) {
+            symbol.clearNode();
+        }
+    };
+
+    /** Phases run on the declarations of one program, in order. */
+    private static class Pipeline {
+
+        /** Weeder. */
+        private final Weeder weeder = new Weeder();
+        /** Type checker, with the global scopes. */
+        private final TypeChecker typeChecker = new TypeChecker();
+        /** Code generator (null to only type check). */
+        private final CodeGenerator generator;
+
+        /** Phase of the error taking precedence so far (NONE if none). */
+        private int failed = NONE;
+        /** Error taking precedence so far (null if none). */
+        private RuntimeException error;
+
+        /**
+         * @param out - Sink to emit the generated Python code to (null to only type check)
+         * @param wrap - Flag indicating whether to enforce wrap-arounds for integers
+         */
+        Pipeline(CodeWriter out, boolean wrap) {
+            this.typeChecker.setSymbolTableListener(NODE_CLEARER);
+            this.typeChecker.begin();
+
+            if (out != null) {
+                this.generator = new CodeGenerator(this.typeChecker.getTypeTable(), wrap, out);
+                this.generator.begin(NODE_CLEARER);
+            } else
+                this.generator = null;
+        }
+
+        /**
+         * Runs the phases that could still find the error taking precedence on a declaration.
+         *
+         * @param node - Top-level declaration
+         * @throws UncheckedIOException if something goes wrong with the writing of the code
+         */
+        void compile(PTopDec node) {
+            if (this.failed > WEED) {
+                try {
+                    node.apply(this.weeder);
+                } catch (WeederException e) {
+                    this.failed = WEED;
+                    this.error = e;
+                }
+            }
+
+            if (this.failed > TYPE) {
+                try {
+                    this.typeChecker.checkTopDec(node);
+                } catch (RuntimeException e) {
+                    this.failed = TYPE;
+                    this.error = e;
+                }
+            }
+
+            if (this.failed > GEN && this.generator != null) {
+                try {
+                    this.generator.generateTopDec(node);
+                } catch (UncheckedIOException e) {
+                    throw e;
+                } catch (RuntimeException e) {
+                    this.failed = GEN;
+                    this.error = e;
+                }
+            }
+        }
+
+        /**
+         * Ends the program.
+         *
+         * @throws RuntimeException (the error taking precedence) if a declaration failed
+         */
+        void end() {
+            if (this.error != null)
+                throw this.error;
+
+            this.typeChecker.end();
+            if (this.generator != null)
+                this.generator.end();
+        }
+
+    }
+
+    /** Flag indicating whether the program is scanned with the hand-written scanner. */
+    private final boolean fastScan;
+    /** Flag indicating whether to enforce wrap-arounds for integers in the generated code. */
+    private final boolean wrap;
+
+    /**
+     * Constructor.
+     *
+     * @param fastScan - Flag indicating whether to scan with the hand-written scanner
+     * @param wrap - Flag indicating whether to enforce wrap-arounds for integers at the cost of
+     *  slower code
+     */
+    public StreamingCompiler(boolean fastScan, boolean wrap) {
+        this.fastScan = fastScan;
+        this.wrap = wrap;
+    }
+
+    /**
+     * Compiles a GoLite program, emitting the generated code as each declaration is type checked.
+     *
+     * @param in - GoLite program reader
+     * @param out - Sink to emit the generated Python code to (null to only type check)
+     * @throws IOException if something goes wrong with the reading of the program
+     * @throws LexerException if the program doesn't scan
+     * @throws ParserException if the program doesn't parse
+     * @throws golite.exception.WeederException if the program doesn't weed
+     * @throws golite.exception.TypeCheckException if the program doesn't type check
+     * @throws UncheckedIOException if something goes wrong with the writing of the code
+     */
+    public void compile(PushbackReader in, CodeWriter out)
+        throws IOException, LexerException, ParserException {
+
+        // The parser ignores trivia anyway.
+        GoLiteParser parser =
+            new GoLiteParser(CompilationUnit.newLexer(in, this.fastScan, true));
+        TId id = parser.parsePackage();
+
+        Pipeline pipeline = new Pipeline(out, this.wrap);
+
+        // Declarations parsed but not compiled yet, attached to a program node, so that an error
+        // on a node without a token of its own is located at the token following it, as in the
+        // whole AST. A declaration is only compiled once such a token is parsed.
+        AProgProg window = new AProgProg(id, new LinkedList<PTopDec>());
+        LinkedList<PTopDec> pending = new LinkedList<PTopDec>();
+
+        for (PTopDec d = parser.parseNextTopDec(); d != null; d = parser.parseNextTopDec()) {
+            boolean located = LineAndPosTracker.hasToken(d);
+
+            pending.add(d);
+            window.setTopDec(pending);
+
+            if (located) {
+                while (pending.size() > 1)
+                    compile(pipeline, pending);
+            }
+        }
+
+        new Start(window, parser.getEOF());
+        while (!pending.isEmpty())
+            compile(pipeline, pending);
+
+        pipeline.end();
+    }
+
+    /**
+     * Compiles the first pending declaration, and drops it.
+     *
+     * @param pipeline - Phases of the program
+     * @param pending - Declarations parsed but not compiled yet
+     */
+    private static void compile(Pipeline pipeline, LinkedList<PTopDec> pending) {
+        PTopDec d = pending.removeFirst();
+
+        pipeline.compile(d);
+        d.replaceBy(null);
+    }
+
+}
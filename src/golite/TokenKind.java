@@ -0,0 +1,119 @@
+package golite;
+
+import java.util.HashMap;
+import java.util.Map;
+
+import golite.node.*;
+
+
+/**
+ * Token Kinds.
+ *
+ * Attributes of each token class that the scanning stream is filtered on, computed once per class
+ * and looked up thereafter.
+ *
+ * Every token is checked for being trivia, and for ending a line, so those checks test against
+ * the (final) token classes directly, which the JIT turns into a single comparison each, cheaper
+ * than any lookup. Whether a token ends a statement, which used to be a chain of some twenty
+ * checks, is only asked of the last effective token of a line, and is looked up.
+ */
+public final class TokenKind {
+
+    /** Token is ignored by the parser (blanks, comments and EOL's). */
+    public static final int TRIVIA = 1;
+    /** Token isn't ignored by the parser. */
+    public static final int EFFECTIVE = 1 << 1;
+    /** Token ends a statement when it's the last effective token on a line. */
+    public static final int ENDS_STATEMENT = 1 << 2;
+    /** Token ends a line (EOL or EOF), where a semi-colon may be inserted. */
+    public static final int ENDS_LINE = 1 << 3;
+
+    /** Attributes of the token classes that have any besides being effective. */
+    private static final Map<Class<?>, Integer> attributes = new HashMap<Class<?>, Integer>();
+
+    static {
+        attributes.put(TBlank.class, TRIVIA);
+        attributes.put(TComment.class, TRIVIA);
+        attributes.put(TEol.class, TRIVIA | ENDS_LINE);
+        attributes.put(EOF.class, EFFECTIVE | ENDS_LINE);
+
+        Class<?>[] endsStatement = {
+            TId.class,
+            // Keywords.
+            TBreak.class, TContinue.class, TFallthrough.class, TReturn.class,
+            // Types.
+            TInt.class, TFloat64.class, TBool.class, TRune.class, TString.class,
+            // Operators.
+            TPlusPlus.class, TMinusMinus.class, TRparen.class, TRsquare.class, TRbrace.class,
+            // Literals.
+            TIntLit.class, TOctLit.class, THexLit.class, TFloatLit.class, TRuneLit.class,
+            TInterpretedStringLit.class, TRawStringLit.class
+        };
+        for (Class<?> c : endsStatement)
+            attributes.put(c, EFFECTIVE | ENDS_STATEMENT);
+    }
+
+    /** Attributes by token class, computed on first lookup. */
+    private static final ClassValue<Integer> kinds = new ClassValue<Integer>() {
+        @Override
+        protected Integer computeValue(Class<?> type) {
+            Integer kind = attributes.get(type);
+            return (kind != null) ? kind : EFFECTIVE;
+        }
+    };
+
+    private TokenKind() {}
+
+    /**
+     * @param t - Token (non-null)
+     * @return Attributes of the token's class
+     */
+    public static int of(Token t) {
+        return kinds.get(t.getClass());
+    }
+
+    /**
+     * @param t - Token (non-null)
+     * @return True if the token is ignored by the parser (i.e. has the TRIVIA attribute), false
+     *  otherwise
+     */
+    public static boolean isTrivia(Token t) {
+        return isInlineTrivia(t) || t instanceof TEol;
+    }
+
+    /**
+     * @param t - Token (non-null)
+     * @return True if the token is a blank or a comment, i.e. trivia that doesn't end a line,
+     *  false otherwise
+     */
+    public static boolean isInlineTrivia(Token t) {
+        return t instanceof TBlank || t instanceof TComment;
+    }
+
+    /**
+     * @param t - Token (non-null)
+     * @return True if the token isn't ignored by the parser (i.e. has the EFFECTIVE attribute),
+     *  false otherwise
+     */
+    public static boolean isEffective(Token t) {
+        return !isTrivia(t);
+    }
+
+    /**
+     * @param t - Token (non-null)
+     * @return True if the token ends a line (i.e. has the ENDS_LINE attribute), false otherwise
+     */
+    public static boolean endsLine(Token t) {
+        return t instanceof TEol || t instanceof EOF;
+    }
+
+    /**
+     * @param t - Token (possibly null)
+     * @return True if the token ends a statement at the end of a line (i.e. has the ENDS_STATEMENT
+     *  attribute), false otherwise
+     */
+    public static boolean endsStatement(Token t) {
+        return t != null && (of(t) & ENDS_STATEMENT) != 0;
+    }
+
+}
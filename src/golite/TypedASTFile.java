@@ -0,0 +1,471 @@
+package golite;
+
+import golite.type.AliasType;
+import golite.type.ArrayType;
+import golite.type.GoLiteType;
+import golite.type.SliceType;
+import golite.type.StructType;
+import golite.type.TypeFactory;
+import golite.util.NodeTable;
+import golite.node.*;
+
+import java.io.FileNotFoundException;
+import java.io.IOException;
+import java.lang.reflect.Constructor;
+import java.nio.BufferUnderflowException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.IntBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.IdentityHashMap;
+import java.util.Iterator;
+import java.util.LinkedList;
+import java.util.List;
+import java.util.Map;
+
+
+/**
+ * Typed AST File.
+ *
+ * A type checked program saved in binary, so that the later phases (typed pretty printing, code
+ * generation) can be run on it again without scanning, parsing, weeding or type checking it: its
+ * AST in the layout of a {@link CompactAST}, the types in its type table, and the type of each
+ * node that has one (those of the Id's being the types of the symbols they resolve to).
+ *
+ * The file is a sequence of little-endian integers followed by the UTF-8 bytes of all the strings,
+ * in the order:
+ * <ul>
+ * <li>a header: magic number, version, number of nodes, of child slots, of tokens, of kinds, of
+ *  types, of integers the types take, of typed nodes, of strings, and of string bytes;</li>
+ * <li>the arrays of the compact AST (See {@link CompactAST#write(IntBuffer)});</li>
+ * <li>the node class name of each kind (0 being the list pseudo-kind), as string indices;</li>
+ * <li>the types, each a tag followed by its operands, which only refer to the types before it;
+ * </li>
+ * <li>the typed nodes, as pairs of node ID and type index;</li>
+ * <li>the offset of each string in the string bytes, and of their end.</li>
+ * </ul>
+ * It's written and read through a memory mapping, with bulk copies of the arrays on the way out,
+ * and on the way in, the nodes are built straight out of the mapping, without reading the arrays
+ * into the heap first.
+ */
+public final class TypedASTFile {
+
+    /** Magic number ("GLTA"). */
+    private static final int MAGIC = 0x474c5441;
+    /** Version of the format. */
+    private static final int VERSION = 1;
+    /** Number of integers in the header. */
+    private static final int HEADER = 11;
+
+    /** Tags of the types, the primitive ones being those of {@link #PRIMITIVES}. */
+    private static final int ARRAY = 7, SLICE = 8, STRUCT = 9, ALIAS = 10;
+    /** Primitive types, by tag. */
+    private static final GoLiteType[] PRIMITIVES = {
+        TypeFactory.BOOL, TypeFactory.INT, TypeFactory.FLOAT, TypeFactory.RUNE,
+        TypeFactory.STRING, TypeFactory.VOID, TypeFactory.ERROR
+    };
+
+    /** AST. */
+    private final Start ast;
+    /** Types of the nodes. */
+    private final Map<Node, GoLiteType> typeTable;
+
+    /**
+     * Constructor.
+     */
+    private TypedASTFile(Start ast, Map<Node, GoLiteType> typeTable) {
+        this.ast = ast;
+        this.typeTable = typeTable;
+    }
+
+    /**
+     * @return AST (weeded and type checked)
+     */
+    public Start getAST() {
+        return this.ast;
+    }
+
+    /**
+     * @return Type table
+     */
+    public Map<Node, GoLiteType> getTypeTable() {
+        return this.typeTable;
+    }
+
+    /** Growable array of integers. */
+    private static class Words {
+
+        /** Integers. */
+        private int[] words = new int[256];
+        /** Number of integers. */
+        private int size = 0;
+
+        /**
+         * @param word - Integer to append
+         */
+        void add(int word) {
+            if (this.size == this.words.length)
+                this.words = Arrays.copyOf(this.words, 2 * this.size);
+
+            this.words[this.size++] = word;
+        }
+
+        /**
+         * @param out - Buffer to write the integers to
+         */
+        void write(IntBuffer out) {
+            out.put(this.words, 0, this.size);
+        }
+
+    }
+
+    /** Lays the types of a program out as integers. */
+    private static class TypeLayout {
+
+        /** Strings of the AST, followed by the names in the types. */
+        private final ArrayList<String> strings;
+        /** Indices of the types laid out so far. */
+        private final IdentityHashMap<GoLiteType, Integer> types =
+            new IdentityHashMap<GoLiteType, Integer>();
+        /** Types, each a tag followed by its operands. */
+        private final Words words = new Words();
+
+        /**
+         * @param strings - Strings so far, which the names in the types are appended to
+         */
+        TypeLayout(ArrayList<String> strings) {
+            this.strings = strings;
+        }
+
+        /**
+         * Returns the index of a type, laying it out after its operands if it wasn't already.
+         *
+         * @param type - Type
+         * @return Type index
+         * @throws IllegalArgumentException if the type isn't a type of a type checked program
+         */
+        int typeIndex(GoLiteType type) {
+            Integer index = this.types.get(type);
+            if (index != null)
+                return index;
+
+            Words record = new Words();
+            int tag = Arrays.asList(PRIMITIVES).indexOf(type);
+            if (tag != -1)
+                record.add(tag);
+            else if (type instanceof ArrayType) {
+                record.add(ARRAY);
+                record.add(this.typeIndex(((ArrayType) type).getType()));
+                record.add(((ArrayType) type).getBound());
+            } else if (type instanceof SliceType) {
+                record.add(SLICE);
+                record.add(this.typeIndex(((SliceType) type).getType()));
+            } else if (type instanceof StructType) {
+                record.add(STRUCT);
+                record.add(((StructType) type).size());
+                for (Iterator<StructType.Field> it = ((StructType) type).getFieldIterator();
+                    it.hasNext();) {
+                    StructType.Field field = it.next();
+                    record.add(this.stringIndex(field.getId()));
+                    record.add(this.typeIndex(field.getType()));
+                }
+            } else if (type instanceof AliasType) {
+                record.add(ALIAS);
+                record.add(this.stringIndex(((AliasType) type).getAlias()));
+                record.add(this.typeIndex(((AliasType) type).getType()));
+            } else
+                throw new IllegalArgumentException("Can't save type " + type);
+
+            for (int i = 0; i < record.size; i++)
+                this.words.add(record.words[i]);
+
+            index = this.types.size();
+            this.types.put(type, index);
+
+            return index;
+        }
+
+        /**
+         * @param s - String
+         * @return Index of the string, once appended to the strings
+         */
+        int stringIndex(String s) {
+            this.strings.add(s);
+            return this.strings.size() - 1;
+        }
+
+    }
+
+    /**
+     * Saves a type checked program.
+     *
+     * @param ast - AST of the program (weeded and type checked)
+     * @param typeTable - Type table of the program
+     * @param path - Filepath to save it to
+     * @return Size of the file in bytes
+     * @throws IOException if something goes wrong with the writing of the file
+     * @throws IllegalArgumentException if a type isn't a type of a type checked program
+     */
+    public static long write(Start ast, Map<Node, GoLiteType> typeTable, String path)
+        throws IOException {
+
+        // Typed nodes, as pairs of node ID and type (index, once laid out).
+        Words typed = new Words();
+        List<GoLiteType> nodeTypes = new ArrayList<GoLiteType>();
+        CompactAST compact = CompactAST.of(ast, (node, id) -> {
+            GoLiteType type = typeTable.get(node);
+            if (type != null) {
+                typed.add(id);
+                typed.add(nodeTypes.size());
+                nodeTypes.add(type);
+            }
+        });
+
+        // The strings of the AST come first, so that their indices are the same in the file.
+        ArrayList<String> strings = new ArrayList<String>();
+        for (int i = 0; i < compact.strings(); i++)
+            strings.add(compact.string(i));
+
+        TypeLayout layout = new TypeLayout(strings);
+        for (int i = 1; i < typed.size; i += 2)
+            typed.words[i] = layout.typeIndex(nodeTypes.get(typed.words[i]));
+
+        int kinds = CompactAST.kinds();
+        int[] kindNames = new int[kinds];
+        for (int kind = 0; kind < kinds; kind++) {
+            kindNames[kind] = strings.size();
+            strings.add(CompactAST.kindName(kind));
+        }
+
+        int[] offsets = new int[strings.size() + 1];
+        byte[][] encoded = new byte[strings.size()][];
+        for (int i = 0; i < encoded.length; i++) {
+            encoded[i] = strings.get(i).getBytes(StandardCharsets.UTF_8);
+            offsets[i + 1] = offsets[i] + encoded[i].length;
+        }
+
+        int n = compact.size();
+        int tokens = compact.tokens();
+        long words = HEADER + 3L * n + compact.slots() + 3L * tokens + kinds +
+            layout.words.size + typed.size + offsets.length;
+        long size = 4 * words + offsets[encoded.length];
+
+        try (FileChannel channel = FileChannel.open(Paths.get(path), StandardOpenOption.CREATE,
+            StandardOpenOption.TRUNCATE_EXISTING, StandardOpenOption.READ,
+            StandardOpenOption.WRITE)) {
+            ByteBuffer bytes = channel.map(FileChannel.MapMode.READ_WRITE, 0, size)
+                .order(ByteOrder.LITTLE_ENDIAN);
+
+            IntBuffer out = bytes.asIntBuffer();
+            out.put(new int[] {
+                MAGIC, VERSION, n, compact.slots(), tokens, kinds, layout.types.size(),
+                layout.words.size, typed.size / 2, encoded.length,
+                offsets[encoded.length]
+            });
+            compact.write(out);
+            out.put(kindNames);
+            layout.words.write(out);
+            typed.write(out);
+            out.put(offsets);
+
+            bytes.position((int) (4 * words));
+            for (byte[] e : encoded)
+                bytes.put(e);
+        }
+
+        return size;
+    }
+
+    /**
+     * Loads a type checked program.
+     *
+     * @param path - Filepath to typed AST file
+     * @return Typed AST
+     * @throws IOException if something goes wrong with the reading of the file, or it isn't a
+     *  typed AST file of this version
+     */
+    public static TypedASTFile read(String path) throws IOException {
+        ByteBuffer bytes;
+        try (FileChannel channel = FileChannel.open(Paths.get(path), StandardOpenOption.READ)) {
+            // The mapping stays valid after the channel is closed.
+            bytes = channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size())
+                .order(ByteOrder.LITTLE_ENDIAN);
+        } catch (NoSuchFileException e) {
+            throw new FileNotFoundException(path + " (No such file or directory)");
+        }
+
+        IntBuffer in = bytes.asIntBuffer();
+        if (in.limit() < HEADER || in.get(0) != MAGIC)
+            throw new IOException(path + " is not a typed AST file");
+        if (in.get(1) != VERSION)
+            throw new IOException(path + " is a typed AST file of version " + in.get(1) +
+                " (expected " + VERSION + ")");
+
+        // The counts of the header size the arrays, so they're checked against the size of the
+        // file before any array is allocated.
+        if (!isHeaderConsistent(in, bytes.limit()))
+            throw new IOException("Malformed typed AST file " + path);
+
+        try {
+            return read(bytes, in);
+        } catch (IndexOutOfBoundsException|BufferUnderflowException|ClassCastException|
+            IllegalArgumentException|NegativeArraySizeException|ReflectiveOperationException e) {
+            throw new IOException("Malformed typed AST file " + path, e);
+        }
+    }
+
+    /**
+     * Checks the counts of the header of a typed AST file are non-negative and add up to the size
+     * of the file.
+     *
+     * @param in - Integers of the file
+     * @param size - Size of the file in bytes
+     * @return True if they do, false otherwise
+     */
+    private static boolean isHeaderConsistent(IntBuffer in, long size) {
+        for (int i = 2; i < HEADER; i++) {
+            if (in.get(i) < 0)
+                return false;
+        }
+
+        int n = in.get(2), slots = in.get(3), tokenCount = in.get(4), kinds = in.get(5);
+        int typeCount = in.get(6), typeWords = in.get(7), typedCount = in.get(8);
+        int stringCount = in.get(9), stringBytes = in.get(10);
+
+        // Every type takes at least its tag.
+        if (typeCount > typeWords)
+            return false;
+
+        long words = HEADER + 3L * n + slots + 3L * tokenCount + kinds + typeWords +
+            2L * typedCount + stringCount + 1;
+        return 4 * words + stringBytes == size;
+    }
+
+    /**
+     * Builds the typed AST of a mapped file.
+     *
+     * @param bytes - Bytes of the file
+     * @param in - Integers of the file
+     * @return Typed AST
+     * @throws ReflectiveOperationException if a kind isn't a node class
+     */
+    private static TypedASTFile read(ByteBuffer bytes, IntBuffer in)
+        throws ReflectiveOperationException {
+
+        int n = in.get(2), slots = in.get(3), tokenCount = in.get(4), kinds = in.get(5);
+        int typeCount = in.get(6), typeWords = in.get(7), typedCount = in.get(8);
+        int stringCount = in.get(9), stringBytes = in.get(10);
+
+        // Offsets of the arrays.
+        int kindOf = HEADER, firstOf = kindOf + n, arityOf = firstOf + n, children = arityOf + n;
+        int tokenOf = children + slots, kindNames = tokenOf + 3 * tokenCount;
+        int types = kindNames + kinds, typed = types + typeWords;
+        int offsets = typed + 2 * typedCount, blob = 4 * (offsets + stringCount + 1);
+
+        byte[] utf8 = new byte[stringBytes];
+        ByteBuffer blobBytes = bytes.duplicate();
+        blobBytes.position(blob);
+        blobBytes.get(utf8);
+        String[] strings = new String[stringCount];
+        for (int i = 0; i < stringCount; i++) {
+            int start = in.get(offsets + i);
+            strings[i] = new String(utf8, start, in.get(offsets + i + 1) - start,
+                StandardCharsets.UTF_8);
+        }
+
+        // Constructor of each kind: the one taking all the children of a node, or the text (if
+        // it's not fixed), line and position of a token.
+        Constructor<?>[] constructors = new Constructor<?>[kinds];
+        boolean[] tokens = new boolean[kinds];
+        for (int kind = 1; kind < kinds; kind++) {
+            Class<?> c = Class.forName(Node.class.getPackage().getName() + "." +
+                strings[in.get(kindNames + kind)]);
+            if (!Node.class.isAssignableFrom(c))
+                throw new ClassCastException(c + " is not a node class");
+
+            if (Token.class.isAssignableFrom(c)) {
+                tokens[kind] = true;
+                try {
+                    constructors[kind] = c.getConstructor(String.class, int.class, int.class);
+                } catch (NoSuchMethodException e) {
+                    constructors[kind] = c.getConstructor(int.class, int.class);
+                }
+            } else {
+                for (Constructor<?> constructor : c.getConstructors()) {
+                    if (constructors[kind] == null || constructor.getParameterCount() >
+                        constructors[kind].getParameterCount())
+                        constructors[kind] = constructor;
+                }
+            }
+        }
+
+        // Build the nodes bottom-up, in reverse pre-order, so that the children of each are built
+        // before it.
+        Object[] nodes = new Object[n];
+        int token = tokenOf + 3 * tokenCount;
+        for (int id = n - 1; id >= 0; id--) {
+            int kind = in.get(kindOf + id);
+            int first = children + in.get(firstOf + id);
+            int arity = in.get(arityOf + id);
+
+            if (kind == CompactAST.LIST) {
+                List<Object> list = new LinkedList<Object>();
+                for (int slot = 0; slot < arity; slot++)
+                    list.add(nodes[in.get(first + slot)]);
+                nodes[id] = list;
+            } else if (tokens[kind]) {
+                Constructor<?> constructor = constructors[kind];
+                token -= 3;
+                int line = in.get(token + 1), pos = in.get(token + 2);
+                nodes[id] = (constructor.getParameterCount() == 3)
+                    ? constructor.newInstance(strings[in.get(token)], line, pos)
+                    : constructor.newInstance(line, pos);
+            } else {
+                Object[] args = new Object[arity];
+                for (int slot = 0; slot < arity; slot++) {
+                    int child = in.get(first + slot);
+                    args[slot] = (child == -1) ? null : nodes[child];
+                }
+                nodes[id] = constructors[kind].newInstance(args);
+            }
+        }
+
+        GoLiteType[] typeArray = new GoLiteType[typeCount];
+        for (int i = 0, w = types; i < typeCount; i++) {
+            int tag = in.get(w++);
+            if (tag == ARRAY) {
+                typeArray[i] = TypeFactory.arrayOf(typeArray[in.get(w)], in.get(w + 1));
+                w += 2;
+            } else if (tag == SLICE)
+                typeArray[i] = TypeFactory.sliceOf(typeArray[in.get(w++)]);
+            else if (tag == STRUCT) {
+                int fields = in.get(w++);
+                List<String> ids = new ArrayList<String>(fields);
+                List<GoLiteType> fieldTypes = new ArrayList<GoLiteType>(fields);
+                for (int f = 0; f < fields; f++) {
+                    ids.add(strings[in.get(w++)]);
+                    fieldTypes.add(typeArray[in.get(w++)]);
+                }
+                typeArray[i] = TypeFactory.structOf(ids, fieldTypes);
+            } else if (tag == ALIAS) {
+                typeArray[i] = TypeFactory.aliasOf(strings[in.get(w)], typeArray[in.get(w + 1)]);
+                w += 2;
+            } else
+                typeArray[i] = PRIMITIVES[tag];
+        }
+
+        NodeTable<GoLiteType> typeTable = new NodeTable<GoLiteType>();
+        for (int i = 0; i < typedCount; i++)
+            typeTable.put((Node) nodes[in.get(typed + 2 * i)],
+                typeArray[in.get(typed + 2 * i + 1)]);
+
+        return new TypedASTFile((Start) nodes[0], typeTable);
+    }
+
+}
@@ -4,7 +4,7 @@ import golite.type.GoLiteType;
 import golite.analysis.*;
 import golite.node.*;
 
-import java.util.HashMap;
+import java.util.Map;
 
 
 /**
@@ -13,12 +13,12 @@ import java.util.HashMap;
 public class TypedPrettyPrinter extends PrettyPrinter {
 
     /** Type table. */
-    private HashMap<Node, GoLiteType> typeTable;
+    private Map<Node, GoLiteType> typeTable;
 
     /**
      * Constructor.
      */
-    public TypedPrettyPrinter(HashMap<Node, GoLiteType> typeTable) {
+    public TypedPrettyPrinter(Map<Node, GoLiteType> typeTable) {
         this.typeTable = typeTable;
     }
 
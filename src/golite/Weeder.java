@@ -13,59 +13,143 @@ import golite.analysis.*;
 // TODO: Add string of error-causing code in select error messages.
 public class Weeder extends DepthFirstAdapter {
 
-    /** Line and position tracker for token AST nodes. */
-    private LineAndPosTracker lineAndPosTracker = new LineAndPosTracker();
     /** Tracks the loop nesting depth in a traversal. */
     private int loopDepth = 0;
+    /** Flag for whether the statements analyzed for returns so far contain a break statement. */
+    private boolean foundBreak = false;
+    /** Diagnostics the errors are reported to (null to throw the first error instead). */
+    private Diagnostics diagnostics;
+    /** Runs the checks made on entering a node. */
+    private final AnalysisAdapter enterChecks = new AnalysisAdapter() {
+        @Override
+        public void caseAFuncTopDec(AFuncTopDec node) {
+            inAFuncTopDec(node);
+        }
 
-    /** Finds a break statement in an AST. */
-    private static class BreakStmtFinder extends DepthFirstAdapter {
-        /** Root node of AST. */
-        private Node root;
-        /** Flag for whether the AST contains a breat statement or not. */
-        private boolean found;
-
-        /**
-         * Constructor.
-         *
-         * @param node - Root node of AST
-         */
-        private BreakStmtFinder(Node node) {
-            super();
-            this.root = node;
-            this.found = false;
-            this.root.apply(this);
+        @Override
+        public void caseASpecVarSpec(ASpecVarSpec node) {
+            inASpecVarSpec(node);
         }
 
-        /**
-         * Returns whether a break statement is contained or not.
-         *
-         * @return True if the AST contains a break statement, false otherwise.
-         */
-        protected boolean found() {
-            return this.found;
+        @Override
+        public void caseAExprStmt(AExprStmt node) {
+            inAExprStmt(node);
         }
 
-        // Set found to true.
         @Override
-        public void inABreakStmt(ABreakStmt node) {
-            this.found = true;
+        public void caseAShortAssignStmt(AShortAssignStmt node) {
+            inAShortAssignStmt(node);
         }
 
+        @Override
+        public void caseAAssignStmt(AAssignStmt node) {
+            inAAssignStmt(node);
+        }
+
+        @Override
+        public void caseAIncrStmt(AIncrStmt node) {
+            inAIncrStmt(node);
+        }
+
+        @Override
+        public void caseADecrStmt(ADecrStmt node) {
+            inADecrStmt(node);
+        }
+
+        @Override
+        public void caseASwitchStmt(ASwitchStmt node) {
+            inASwitchStmt(node);
+        }
+
+        @Override
+        public void caseABreakStmt(ABreakStmt node) {
+            inABreakStmt(node);
+        }
+
+        @Override
+        public void caseAContinueStmt(AContinueStmt node) {
+            inAContinueStmt(node);
+        }
+
+        @Override
+        public void caseALoopStmt(ALoopStmt node) {
+            inALoopStmt(node);
+        }
+
+        @Override
+        public void caseAArrayTypeExpr(AArrayTypeExpr node) {
+            inAArrayTypeExpr(node);
+        }
+
+        @Override
+        public void caseATypeCastExpr(ATypeCastExpr node) {
+            inATypeCastExpr(node);
+        }
+
+        @Override
+        public void caseAFieldExpr(AFieldExpr node) {
+            inAFieldExpr(node);
+        }
+
+        @Override
+        public void caseAArrayElemExpr(AArrayElemExpr node) {
+            inAArrayElemExpr(node);
+        }
+    };
+
+    /**
+     * Setter.
+     *
+     * Reports each error to the diagnostics and carries on with the next check, rather than
+     * throwing the first error. The checks are independent of each other, so none of them is
+     * affected by the failure of another.
+     *
+     * @param diagnostics - Diagnostics to report the errors to
+     */
+    public void setDiagnostics(Diagnostics diagnostics) {
+        this.diagnostics = diagnostics;
     }
 
     /**
-     * Throws a weeder exception after annotating the message with line and position information.
+     * Runs the checks made on entering a node, without traversing it, so that another traversal
+     * (i.e. the type checker's) can weed the nodes as it visits them. It must visit every node
+     * once, in the order of this traversal, and call {@link #exit(Node)} on exiting each.
+     *
+     * @param node - AST node
+     * @throws WeederException
+     */
+    public void enter(Node node) {
+        node.apply(this.enterChecks);
+    }
+
+    /**
+     * Runs the checks made on exiting a node, without traversing it (See {@link #enter(Node)}).
+     *
+     * @param node - AST node
+     * @throws WeederException
+     */
+    public void exit(Node node) {
+        if (node instanceof ALoopStmt)
+            this.outALoopStmt((ALoopStmt) node);
+    }
+
+    /**
+     * Throws a weeder exception after annotating the message with line and position information
+     * (or reports it, if errors are collected).
      *
      * @param node - AST node
      * @param msg - Error message
      * @throws WeederException
      */
     private void throwWeederException(Node node, String msg) {
-        Integer line = this.lineAndPosTracker.getLine(node);
-        Integer pos = this.lineAndPosTracker.getPos(node);
+        int line = LineAndPosTracker.getLine(node);
+        int pos = LineAndPosTracker.getPos(node);
+
+        WeederException e = new WeederException("[" + line + "," + pos + "] " + msg);
+        if (this.diagnostics == null)
+            throw e;
 
-        throw new WeederException("[" + line + "," + pos + "] " + msg);
+        this.diagnostics.report(e);
     }
 
     /**
@@ -78,96 +162,128 @@ public class Weeder extends DepthFirstAdapter {
         throwWeederException(node, "Missing return");
     }
 
-    // Gather line and position information.
-    @Override 
-    public void inStart(Start node) {
-        node.apply(this.lineAndPosTracker);
-    }
-
     // Throw an error if the function is non-void and the body doesn't have a return on every
     // branch of execution.
     @Override
     public void inAFuncTopDec(AFuncTopDec node) {
-        if (node.getTypeExpr() != null)
-            this.checkBlockHasReturn(node, node.getStmt());
+        if (node.getTypeExpr() != null) {
+            this.foundBreak = false;
+
+            Node missing = this.findMissingReturn(node, node.getStmt());
+            if (missing != null)
+                this.throwMissingReturnError(missing);
+        }
     }
 
     /**
-     * Recursively check the given block has a return on every execution path, throwing an error if
-     * it doesn't.
+     * Checks the given block has a return on every execution path, in a single bottom-up pass over
+     * its statements, which also records whether it contains a break statement (in foundBreak).
+     *
+     * Every statement of the block is analyzed (so that the breaks in each of them are found), but
+     * whether the block returns only depends on the last "returnable" statement in it, unless a
+     * return statement is found at the top-level.
      *
      * @param node - Root node of block
      * @param stmts - Block statements
+     * @return Node to report a missing return on, or null if the block returns on every path
      */
-    private void checkBlockHasReturn(Node node, LinkedList<PStmt> stmts) {
-        // Throw an error when the body is empty.
-        if (stmts == null || stmts.size() == 0)
-            this.throwMissingReturnError(node);
+    private Node findMissingReturn(Node node, LinkedList<PStmt> stmts) {
+        boolean hasReturn = false;
+        // Node to report a missing return on, as found for the last "returnable" statement so far.
+        Node missing = node;
 
-        // If one of the statements is a return statement, you're good.
         for (PStmt stmt : stmts) {
             if (stmt instanceof AReturnStmt)
-                return;
+                hasReturn = true;
+
+            Node stmtMissing = this.findMissingReturn(stmt);
+            if (this.isReturnable(stmt))
+                missing = stmtMissing;
+        }
+
+        // Throw an error when the body is empty, and if one of the statements is a return
+        // statement, you're good.
+        if (stmts.isEmpty())
+            return node;
+        else if (hasReturn)
+            return null;
+
+        return missing;
+    }
+
+    /**
+     * Checks the given statement has a return on every execution path, recording whether it
+     * contains a break statement (in foundBreak).
+     *
+     * @param stmt - Statement
+     * @return Node to report a missing return on, or null if the statement returns on every path
+     *  (Irrelevant for statements that aren't "returnable")
+     */
+    private Node findMissingReturn(PStmt stmt) {
+        if (stmt instanceof AReturnStmt)
+            return null;
+        else if (stmt instanceof ABreakStmt) {
+            this.foundBreak = true;
+            return stmt;
         }
 
-        // Otherwise, loop through the statements in reverse until a "returnable" statement is
-        // found.
-        boolean foundReturnable = false;
-        ArrayList<PStmt> stmtsArrayList = new ArrayList<PStmt>(stmts);
-        for (int i = stmts.size() - 1; i >= 0 ; i--) {
-            PStmt stmt = stmtsArrayList.get(i);
-
-            if (isReturnable(stmt)) {
-                foundReturnable = true;
-
-                // Check block statements recursively for required return statements.
-                if (stmt instanceof ABlockStmt)
-                    this.checkBlockHasReturn(stmt, ((ABlockStmt) stmt).getStmt());
-                
-                // Check if-else statements recursively, by checking the if-block and else-block,
-                // for required return statements.
-                if (stmt instanceof AIfElseStmt) {
-                    AIfElseStmt ifElseStmtNode = (AIfElseStmt) stmt;
-                    this.checkBlockHasReturn(ifElseStmtNode, ifElseStmtNode.getIfBlock());
-                    this.checkBlockHasReturn(ifElseStmtNode, ifElseStmtNode.getElseBlock());
-                }
-
-                // Check switch statements recursively, by checking each case block, for required
-                // return statements, and making sure there is a default case.
-                if (stmt instanceof ASwitchStmt) {
-                    boolean hasDefaultCase = false;
-
-                    for (PCaseBlock pCaseBlock : ((ASwitchStmt) stmt).getCaseBlock()) {
-                        ABlockCaseBlock caseBlock = (ABlockCaseBlock) pCaseBlock;
-                        this.checkBlockHasReturn(caseBlock, caseBlock.getStmt());
-
-                        // Default case has been found.
-                        if ((caseBlock.getCaseCondition()) instanceof ADefaultCaseCondition)
-                            hasDefaultCase = true;
-                    }
-
-                    // Throw an error if there is no default case.
-                    if (!hasDefaultCase)
-                        this.throwMissingReturnError(stmt);
-                }
-
-                // Check if a for loop statement doesn't have an expression and doesn't have a break
-                // statement anywhere in it's body.
-                if (stmt instanceof ALoopStmt) {
-                    ALoopStmt loopStmt = (ALoopStmt) stmt;
-                    BreakStmtFinder breakStmtFinder = new BreakStmtFinder(loopStmt);
-                    if (loopStmt.getExpr() != null && !(loopStmt.getExpr() instanceof AEmptyExpr)
-                        || breakStmtFinder.found())
-                        this.throwMissingReturnError(loopStmt);
-                }
-
-                break;
+        // Check block statements recursively for required return statements.
+        if (stmt instanceof ABlockStmt)
+            return this.findMissingReturn(stmt, ((ABlockStmt) stmt).getStmt());
+
+        // Check if-else statements recursively, by checking the if-block and else-block, for
+        // required return statements.
+        if (stmt instanceof AIfElseStmt) {
+            AIfElseStmt ifElseStmtNode = (AIfElseStmt) stmt;
+            Node ifMissing = this.findMissingReturn(ifElseStmtNode, ifElseStmtNode.getIfBlock());
+            Node elseMissing = this.findMissingReturn(ifElseStmtNode,
+                ifElseStmtNode.getElseBlock());
+
+            return (ifMissing != null) ? ifMissing : elseMissing;
+        }
+
+        // Check switch statements recursively, by checking each case block, for required return
+        // statements, and making sure there is a default case.
+        if (stmt instanceof ASwitchStmt) {
+            Node missing = null;
+            boolean hasDefaultCase = false;
+
+            for (PCaseBlock pCaseBlock : ((ASwitchStmt) stmt).getCaseBlock()) {
+                ABlockCaseBlock caseBlock = (ABlockCaseBlock) pCaseBlock;
+                Node caseMissing = this.findMissingReturn(caseBlock, caseBlock.getStmt());
+                if (missing == null)
+                    missing = caseMissing;
+
+                // Default case has been found.
+                if ((caseBlock.getCaseCondition()) instanceof ADefaultCaseCondition)
+                    hasDefaultCase = true;
             }
+
+            // Missing a return if there is no default case.
+            return (missing == null && !hasDefaultCase) ? stmt : missing;
+        }
+
+        // Check if a for loop statement doesn't have an expression and doesn't have a break
+        // statement anywhere in it's body.
+        if (stmt instanceof ALoopStmt) {
+            ALoopStmt loopStmt = (ALoopStmt) stmt;
+
+            // Whether the loop's body breaks is found on its own, and then added to the
+            // enclosing statements.
+            boolean outerBreak = this.foundBreak;
+            this.foundBreak = false;
+            this.findMissingReturn(loopStmt, loopStmt.getBlock());
+            boolean bodyBreak = this.foundBreak;
+            this.foundBreak = outerBreak || bodyBreak;
+
+            if (loopStmt.getExpr() != null && !(loopStmt.getExpr() instanceof AEmptyExpr)
+                || bodyBreak)
+                return loopStmt;
+
+            return null;
         }
 
-        // If no "returnable" statement was found, throw an error.
-        if (!foundReturnable)
-            this.throwMissingReturnError(node);
+        return stmt;
     }
 
     /**
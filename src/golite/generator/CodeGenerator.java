@@ -5,6 +5,8 @@ import golite.node.*;
 import golite.symbol.*;
 import golite.type.*;
 import java.util.*;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
 import java.io.*;
 
 /**
@@ -16,45 +18,125 @@ public class CodeGenerator extends DepthFirstAdapter {
     /** Output name for the main function. */
     private static final String OUT_MAIN_NAME = "main_1";
 
-    /** Buffer storing generated python code. */
-    private StringBuffer buffer;
-    /** Keep track of how many tabs need to be added. */
-    private int tabDepth;
-    /** Keep track of the end statement of for loop. */
-    private Stack<PStmt> forEndStmts = new Stack<PStmt>();
-    /** Tracks whether the traversal is inside a type specification. */
-    private boolean inTypeSpec;
-    /** Tracks whether the traversal is inside a struct type expression. */
-    private boolean inStructTypeExpr;
-    /** Tracks whether main function has been generated */
-    private boolean generatedMain = false;
-
-    /** Symbol table. */
-    private SymbolTable symbolTable;
+    /** State of the current compilation. */
+    private GenerationContext context;
     /** Contain information about expressions. */
-    private HashMap<Node, GoLiteType> typeTable;
+    private Map<Node, GoLiteType> typeTable;
 
     /** Flag to apply normalization to int and rune. */
-    private static boolean norm;
+    private final boolean norm;
+    /** Flag to generate the function bodies in parallel. */
+    private boolean parallel = false;
+    /** Variables to declare global in the last function streamed (null if they may have changed
+     * since). */
+    private List<String> streamedGlobals;
+
+    /**
+     * Code generated for a run of consecutive top-level declarations: either functions, generated
+     * on the common fork/join pool, or other declarations, generated in order as they're met.
+     */
+    @SuppressWarnings("serial")
+    private static class Fragment extends RecursiveAction {
+
+        /** Generated code. */
+        private final CodeWriter code = new CodeWriter();
+        /** Generator the fragment is for. */
+        private final CodeGenerator generator;
+        /** Functions (empty for other declarations). */
+        private final ArrayList<AFuncTopDec> functions = new ArrayList<AFuncTopDec>();
+        /** Renamed 0th-scope and global variables to declare global, by function. */
+        private final ArrayList<List<String>> globals = new ArrayList<List<String>>();
+        /** Number of symbols put into the 0th and global scopes once declared, by function. */
+        private final ArrayList<Integer> declared = new ArrayList<Integer>();
+        /** Error the generation of the fragment stopped on (null if none). */
+        private RuntimeException error;
+
+        /**
+         * @param generator - Generator the fragment is for
+         */
+        Fragment(CodeGenerator generator) {
+            this.generator = generator;
+        }
+
+        /**
+         * Adds a function to the run, once declared.
+         *
+         * @param node - Function declaration
+         * @param globals - Renamed 0th-scope and global variables to declare global in it
+         * @param declared - Number of symbols put into the 0th and global scopes
+         */
+        void add(AFuncTopDec node, List<String> globals, int declared) {
+            this.functions.add(node);
+            this.globals.add(globals);
+            this.declared.add(declared);
+        }
+
+        /**
+         * @return True if the fragment is for functions
+         */
+        boolean hasFunctions() {
+            return !this.functions.isEmpty();
+        }
+
+        @Override
+        protected void compute() {
+            SymbolTableHistory history = this.generator.context.history;
+            CodeGenerator generator = new CodeGenerator(this.generator.typeTable,
+                this.generator.norm, this.code);
+
+            try {
+                for (int i = 0; i < this.functions.size(); i++) {
+                    // Scopes of the function's own, on the global ones as they stand at it.
+                    generator.context = new GenerationContext(this.code,
+                        history.fork(this.declared.get(i)));
+
+                    generator.generateFunction(this.functions.get(i), this.globals.get(i));
+                    generator.addLines(1);
+                }
+            } catch (RuntimeException e) {
+                this.error = e;
+            }
+        }
+
+    }
 
     /**
      * Constructor
+     *
+     * @param typeTable - Types of the expressions
+     * @param norm - Flag to apply normalization to int and rune
+     * @param out - Sink to emit the generated python code to
      */
-    public CodeGenerator(HashMap<Node, GoLiteType> typeTable, boolean norm) {
-        this.buffer = new StringBuffer();
-        this.tabDepth = 0;
+    public CodeGenerator(Map<Node, GoLiteType> typeTable, boolean norm, CodeWriter out) {
+        this.context = new GenerationContext(out);
         this.typeTable = typeTable;
         this.norm = norm;
     }
 
+    /**
+     * Constructor (Generated code kept in memory)
+     */
+    public CodeGenerator(Map<Node, GoLiteType> typeTable, boolean norm) {
+        this(typeTable, norm, new CodeWriter());
+    }
+
     /**
      * Constructor (No normalization of integers and runes)
      */
-    public CodeGenerator(HashMap<Node, GoLiteType> typeTable) {
-        this.buffer = new StringBuffer();
-        this.tabDepth = 0;
-        this.typeTable = typeTable;
-        this.norm = false;
+    public CodeGenerator(Map<Node, GoLiteType> typeTable) {
+        this(typeTable, false);
+    }
+
+    /**
+     * Generate the function bodies in parallel, on the common fork/join pool, in runs of
+     * consecutive functions (a few runs per thread). Each function is generated with scopes of
+     * its own, on top of the 0th and global scopes as they stand at it, and the fragments are
+     * spliced into the output in program order, so the code is the same as generated in order.
+     *
+     * @param parallel - Flag to generate the function bodies in parallel
+     */
+    public void setParallel(boolean parallel) {
+        this.parallel = parallel;
     }
 
     /**
@@ -67,36 +149,37 @@ public class CodeGenerator extends DepthFirstAdapter {
             return;
         }
         boolean normalize = false;
-        if (typeTable.get(n) instanceof IntType)
+        GoLiteType type = typeTable.get(n);
+        if (type instanceof IntType)
         {
             if (n instanceof AIntLitExpr)
             {
                 int value = Integer.parseInt(((AIntLitExpr) n).getIntLit().getText());
                 if (value >= 2147483647)
                 {
-                    buffer.append("normalize(");
+                    this.context.out.append("normalize(");
                     normalize = true;
                 }
             }
             else
             {
-                buffer.append("normalize(");
+                this.context.out.append("normalize(");
                 normalize = true;
             }
         }
-        else if (typeTable.get(n) instanceof RuneType)
+        else if (type instanceof RuneType)
         {
             if (!(n instanceof ARuneLitExpr))
             {
-                buffer.append("normalize(");
+                this.context.out.append("normalize(");
                 normalize = true;
             }
         }
         n.apply(this);
-        if (typeTable.get(n) instanceof IntType || typeTable.get(n) instanceof RuneType)
+        if (type instanceof IntType || type instanceof RuneType)
         {
             if (normalize) {
-                buffer.append(")");
+                this.context.out.append(")");
             }
         }
     }
@@ -104,9 +187,10 @@ public class CodeGenerator extends DepthFirstAdapter {
     /**
      * Return the generated python code as string
      *
+     * @throws IllegalStateException if the code was emitted to a writer rather than kept in memory
      */
     public String getGeneratedCode() {
-        return this.buffer.toString();
+        return this.context.out.toString();
     }
 
     /**
@@ -117,7 +201,7 @@ public class CodeGenerator extends DepthFirstAdapter {
      * corresponding symbol declaration)
      */
     private String rename(String name) {
-        return name + "_" + this.symbolTable.getScopeDepth(name);
+        return name + "_" + this.context.symbolTable.getScopeDepth(name);
     }
 
     /**
@@ -171,19 +255,19 @@ public class CodeGenerator extends DepthFirstAdapter {
             return null;
 
         if (node instanceof ABoolTypeExpr)
-            return new BoolType();
+            return TypeFactory.BOOL;
         else if (node instanceof AIntTypeExpr)
-            return new IntType();
+            return TypeFactory.INT;
         else if (node instanceof AFloatTypeExpr)
-            return new FloatType();
+            return TypeFactory.FLOAT;
         else if (node instanceof ARuneTypeExpr)
-            return new RuneType();
+            return TypeFactory.RUNE;
         else if (node instanceof AStringTypeExpr)
-            return new StringType();
+            return TypeFactory.STRING;
         else if (node instanceof AAliasTypeExpr) {
             TId id = ((AAliasTypeExpr) node).getId();
-            GoLiteType type = this.symbolTable.getSymbolType(id.getText());
-            return new AliasType(id.getText(), type);
+            GoLiteType type = this.context.symbolTable.getSymbolType(id.getText());
+            return TypeFactory.aliasOf(id.getText(), type);
         } else if (node instanceof AArrayTypeExpr) {
             PExpr pExpr = ((AArrayTypeExpr) node).getExpr();
 
@@ -199,11 +283,12 @@ public class CodeGenerator extends DepthFirstAdapter {
 
             }
 
-            return new ArrayType(getType(((AArrayTypeExpr) node).getTypeExpr()), bound);
+            return TypeFactory.arrayOf(getType(((AArrayTypeExpr) node).getTypeExpr()), bound);
         } else if (node instanceof ASliceTypeExpr)
-            return new SliceType(getType(((ASliceTypeExpr) node).getTypeExpr()));
+            return TypeFactory.sliceOf(getType(((ASliceTypeExpr) node).getTypeExpr()));
         else if (node instanceof AStructTypeExpr) {
-            StructType structType = new StructType();
+            ArrayList<String> structIds = new ArrayList<String>();
+            ArrayList<GoLiteType> structTypes = new ArrayList<GoLiteType>();
 
             // Keep track of the field Id's to ensure there are no duplicates.
             HashSet<String> fieldIds = new HashSet<String>();
@@ -218,14 +303,14 @@ public class CodeGenerator extends DepthFirstAdapter {
                     // Do not consider blank Id's.
                     if (pOptId instanceof AIdOptId) {
                         TId id = ((AIdOptId) pOptId).getId();
-                        structType.addField(id.getText(),
-                            getType(((ASpecFieldSpec) pFieldSpec).getTypeExpr()));
+                        structIds.add(id.getText());
+                        structTypes.add(getType(((ASpecFieldSpec) pFieldSpec).getTypeExpr()));
                         fieldIds.add(id.getText());
                     }
                 }
             }
 
-            return structType;
+            return TypeFactory.structOf(structIds, structTypes);
         }
 
         return null;
@@ -299,7 +384,7 @@ public class CodeGenerator extends DepthFirstAdapter {
         generateOverheadIn();
 
         // Enter the global scope.
-        this.symbolTable.scope();
+        this.context.symbolTable.scope();
     }
 
     @Override
@@ -307,73 +392,81 @@ public class CodeGenerator extends DepthFirstAdapter {
         generateOverheadOut();
 
         // Unscope the global scope upon program exit.
-        this.symbolTable.unscope();
+        this.context.symbolTable.unscope();
     }
 
     private void generateOverheadIn() {
-        buffer.append("'''\n\n");
-        buffer.append("Presented by [The Heapsters]:\n\n");
-        buffer.append("\t@the Generator: Long, Teng\n");
-        buffer.append("\t@the PrettyPrinter: Macdonald, Ethan\n");
-        buffer.append("\t@the Stoner: Vala, Hardik\n\n");
-        buffer.append("'''\n");
+        this.context.out.append("'''\n\n");
+        this.context.out.append("Presented by [The Heapsters]:\n\n");
+        this.context.out.append("\t@the Generator: Long, Teng\n");
+        this.context.out.append("\t@the PrettyPrinter: Macdonald, Ethan\n");
+        this.context.out.append("\t@the Stoner: Vala, Hardik\n\n");
+        this.context.out.append("'''\n");
         addLines(1);
 
-        buffer.append("from __future__ import print_function\n");
+        this.context.out.append("from __future__ import print_function\n");
         addLines(1);
 
-        buffer.append("twoExp31, twoExp32 = 2 ** 31, 2 ** 32\n");
-        buffer.append("normalize = lambda x : (x + twoExp31) % twoExp32 - twoExp31\n");
+        this.context.out.append("twoExp31, twoExp32 = 2 ** 31, 2 ** 32\n");
+        this.context.out.append("normalize = lambda x : (x + twoExp31) % twoExp32 - twoExp31\n");
         addLines(1);
 
-        buffer.append("true_0, false_0 = True, False\n");
+        this.context.out.append("true_0, false_0 = True, False\n");
         addLines(1);
 
-        buffer.append("#########################################################\n");
-        buffer.append("###### The miracle from GoLite to Python2.7 begins ######\n");
-        buffer.append("#########################################################\n");
+        this.context.out.append("#########################################################\n");
+        this.context.out.append("###### The miracle from GoLite to Python2.7 begins ######\n");
+        this.context.out.append("#########################################################\n");
         addLines(1);
     }
 
     private void generateOverheadOut() {
-        buffer.append("#######################################################\n");
-        buffer.append("###### The miracle from GoLite to Python2.7 ends ######\n");
-        buffer.append("#######################################################\n");
+        this.context.out.append("#######################################################\n");
+        this.context.out.append("###### The miracle from GoLite to Python2.7 ends ######\n");
+        this.context.out.append("#######################################################\n");
         addLines(1);
 
-        buffer.append("if __name__ == '__main__':\n");
-        if (generatedMain) {
-            buffer.append("\t" + OUT_MAIN_NAME + "()\n");
+        this.context.out.append("if __name__ == '__main__':\n");
+        if (this.context.generatedMain) {
+            this.context.out.append("\t" + OUT_MAIN_NAME + "()\n");
         } else {
-            buffer.append("\t" + "pass" + "\n");
+            this.context.out.append("\t" + "pass" + "\n");
         }
     }
 
     @Override
     public void inStart(Start node) {
+        // Start every run from a clean state, emitting to the same sink.
+        this.context = new GenerationContext(this.context.out);
+        if (this.parallel) {
+            this.context.history = new SymbolTableHistory(2);
+            this.context.symbolTable.setListener(this.context.history);
+        }
+
         // Enter the 0th scope.
-        this.symbolTable = new SymbolTable();
-        this.symbolTable.scope();
+        this.context.symbolTable.scope();
 
         // Initialize boolean literals.
-        this.symbolTable.putSymbol(new VariableSymbol("true", new BoolType(), node));
-        this.symbolTable.putSymbol(new VariableSymbol("false", new BoolType(), node));
+        this.context.symbolTable.putSymbol(new VariableSymbol("true", TypeFactory.BOOL, node));
+        this.context.symbolTable.putSymbol(new VariableSymbol("false", TypeFactory.BOOL, node));
     }
 
     @Override
     public void outStart(Start node) {
         // Unscope the 0th scope upon exit.
-        this.symbolTable.unscope();
+        this.context.symbolTable.unscope();
+
+        this.context.out.flush();
     }
 
     @Override
     public void caseAProgProg(AProgProg node) {
         this.inAProgProg(node);
 
-        {
-            List<PTopDec> copy = new ArrayList<PTopDec>(node.getTopDec());
-
-            for (PTopDec e : copy) {
+        if (this.parallel)
+            generateTopDecsInParallel(node.getTopDec());
+        else {
+            for (PTopDec e : node.getTopDec()) {
                 e.apply(this);
                 addLines(1);
             }
@@ -382,6 +475,155 @@ public class CodeGenerator extends DepthFirstAdapter {
         this.outAProgProg(node);
     }
 
+    /**
+     * Start generating a program streamed in one top-level declaration at a time (See
+     * {@link #generateTopDec(PTopDec)}), rather than from its whole AST, by emitting the overhead
+     * and entering the 0th and global scopes. Not in parallel.
+     *
+     * @param listener - Listener to the activity of the symbol table
+     */
+    public void begin(SymbolTableListener listener) {
+        this.inStart(null);
+        this.context.symbolTable.setListener(listener);
+        this.inAProgProg(null);
+
+        this.streamedGlobals = null;
+    }
+
+    /**
+     * Generate the next top-level declaration of a streamed program (See
+     * {@link #begin(SymbolTableListener)}), once type checked.
+     *
+     * @param node - Top-level declaration
+     */
+    public void generateTopDec(PTopDec node) {
+        if (node instanceof AFuncTopDec) {
+            AFuncTopDec f = (AFuncTopDec) node;
+
+            // Declaring a function only changes the variables if it rebinds a name.
+            if (this.context.symbolTable.getSymbol(f.getId().getText()) != null)
+                this.streamedGlobals = null;
+
+            declareFunction(f);
+            if (this.streamedGlobals == null)
+                this.streamedGlobals = getGlobals();
+
+            generateFunction(f, this.streamedGlobals);
+        } else {
+            node.apply(this);
+            this.streamedGlobals = null;
+        }
+
+        addLines(1);
+    }
+
+    /**
+     * End generating a streamed program (See {@link #begin(SymbolTableListener)}), by emitting
+     * the overhead and exiting the global and 0th scopes.
+     */
+    public void end() {
+        this.outAProgProg(null);
+        this.outStart(null);
+    }
+
+    /**
+     * Generate the top-level declarations, with the function bodies generated in parallel (See
+     * {@link #setParallel(boolean)}). The functions are declared and the other declarations
+     * generated in order first, working out the environment of each function, and the bodies are
+     * only forked off then, once the global scopes no longer change.
+     *
+     * @param topDecs - Top-level declarations
+     */
+    private void generateTopDecsInParallel(List<PTopDec> topDecs) {
+        int functions = 0;
+        for (PTopDec d : topDecs) {
+            if (d instanceof AFuncTopDec)
+                functions++;
+        }
+
+        // Number of functions per run, for a few runs per thread.
+        int runSize = Math.max(1, functions / (4 * ForkJoinPool.getCommonPoolParallelism()));
+
+        ArrayList<Fragment> fragments = new ArrayList<Fragment>();
+        Fragment fragment = null;
+        // Variables to declare global in the last function (null if they may have changed since).
+        List<String> globals = null;
+        // Error of the first declaration to fail in order (which ends the pass).
+        RuntimeException error = null;
+
+        for (PTopDec d : topDecs) {
+            if (d instanceof AFuncTopDec) {
+                AFuncTopDec f = (AFuncTopDec) d;
+
+                if (fragment == null || !fragment.hasFunctions()
+                    || fragment.functions.size() == runSize) {
+                    fragment = new Fragment(this);
+                    fragments.add(fragment);
+                }
+
+                try {
+                    // Declaring a function only changes the variables if it rebinds a name.
+                    if (this.context.symbolTable.getSymbol(f.getId().getText()) != null)
+                        globals = null;
+
+                    declareFunction(f);
+                    if (globals == null)
+                        globals = getGlobals();
+                } catch (RuntimeException e) {
+                    error = e;
+                    break;
+                }
+
+                fragment.add(f, globals, this.context.history.size());
+            } else {
+                if (fragment == null || fragment.hasFunctions()) {
+                    fragment = new Fragment(this);
+                    fragments.add(fragment);
+                }
+
+                // Generate into the fragment, on the global scopes.
+                GenerationContext context = this.context;
+                this.context = new GenerationContext(fragment.code, context.symbolTable);
+
+                try {
+                    d.apply(this);
+                    addLines(1);
+                } catch (RuntimeException e) {
+                    error = e;
+                    break;
+                } finally {
+                    this.context = context;
+                }
+
+                globals = null;
+            }
+        }
+
+        for (Fragment f : fragments) {
+            if (f.hasFunctions())
+                f.fork();
+        }
+
+        // Splice the fragments in order, up to the first error.
+        for (Fragment f : fragments) {
+            if (f.hasFunctions())
+                f.join();
+
+            this.context.out.append(f.code);
+
+            if (f.error != null) {
+                // The functions after it don't matter anymore.
+                for (Fragment other : fragments)
+                    other.cancel(false);
+
+                throw f.error;
+            }
+        }
+
+        if (error != null)
+            throw error;
+    }
+
     /**
      * Top-Level Variable Declarations
      *
@@ -407,7 +649,7 @@ public class CodeGenerator extends DepthFirstAdapter {
             // Pre-emptively enter the symbol for the variable into the symbol table so that
             // variable renaming has access to it. The type will be filled in upon exit of this
             // node.
-            this.symbolTable.putSymbol(new VariableSymbol(id.getText(), null, node));
+            this.context.symbolTable.putSymbol(new VariableSymbol(id.getText(), null, node));
             // Increment the position.
             i++;
         }
@@ -418,18 +660,17 @@ public class CodeGenerator extends DepthFirstAdapter {
         this.inASpecVarSpec(node);
 
         {
-            List<POptId> copy = new ArrayList<POptId>(node.getOptId());
-
-            for (int i = 0; i < copy.size(); i++) {
-                if (i > 0) {
+            int i = 0;
+            for (POptId e : node.getOptId()) {
+                if (i++ > 0) {
                     addComma();
                     addSpace();
                 }
-                copy.get(i).apply(this);
+                e.apply(this);
             }
         }
 
-        buffer.append(" = ");
+        this.context.out.append(" = ");
 
         if (node.getTypeExpr() != null && node.getExpr().size() == 0) {
             String defaultValue = getDefaultValue(this.getType(node.getTypeExpr()));
@@ -439,19 +680,18 @@ public class CodeGenerator extends DepthFirstAdapter {
                     addComma();
                     addSpace();
                 }
-                buffer.append(defaultValue);
+                this.context.out.append(defaultValue);
             }
         }
 
         {
-            List<PExpr> copy = new ArrayList<PExpr>(node.getExpr());
-
-            for (int i = 0; i < copy.size(); i++) {
-                if (i > 0) {
+            int i = 0;
+            for (PExpr e : node.getExpr()) {
+                if (i++ > 0) {
                     addComma();
                     addSpace();
                 }
-                normalizeExpr(copy.get(i));
+                normalizeExpr(e);
             }
         }
 
@@ -470,12 +710,12 @@ public class CodeGenerator extends DepthFirstAdapter {
                 // Type of expression.
                 GoLiteType exprType = this.typeTable.get(pExpr);
                 // The variable symbol is already in the symbol table, but this fills in the type.
-                this.symbolTable.getSymbol(id.getText()).setType(exprType);
+                this.context.symbolTable.getSymbol(id.getText()).setType(exprType);
             } else {
                 // GoLite type of the type expression.
                 GoLiteType typeExprType = this.getType(pTypeExpr);
                 // The variable symbol is already in the symbol table, but this fills in the type.
-                Symbol s = this.symbolTable.getSymbol(id.getText());
+                Symbol s = this.context.symbolTable.getSymbol(id.getText());
                 s.setType(typeExprType);
             }
 
@@ -486,19 +726,19 @@ public class CodeGenerator extends DepthFirstAdapter {
 
     @Override
     public void inASpecTypeSpec(ASpecTypeSpec node) {
-        this.inTypeSpec = true;
+        this.context.inTypeSpec = true;
 
         for (TId id: this.getIds(node)) {
             // Get the GoLite type of the type expression.
             GoLiteType type = this.getType(node.getTypeExpr());
             // Add a type alias symbol to the symbol table.
-            this.symbolTable.putSymbol(new TypeAliasSymbol(id.getText(), type, node));
+            this.context.symbolTable.putSymbol(new TypeAliasSymbol(id.getText(), type, node));
         }
     }
 
     @Override
     public void outASpecTypeSpec(ASpecTypeSpec node) {
-        this.inTypeSpec = false;
+        this.context.inTypeSpec = false;
     }
 
     /**
@@ -507,15 +747,20 @@ public class CodeGenerator extends DepthFirstAdapter {
      */
     @Override
     public void caseAFuncTopDec(AFuncTopDec node) {
-        this.inAFuncTopDec(node);
-
-        buffer.append("def");
-        addSpace();
+        declareFunction(node);
+        generateFunction(node, getGlobals());
+    }
 
+    /**
+     * Enter the symbol of a function into the symbol table.
+     *
+     * @param node - Function declaration
+     */
+    private void declareFunction(AFuncTopDec node) {
         // Function name.
         String name = node.getId().getText();
         if (name.equals("main")) {
-            generatedMain = true;
+            this.context.generatedMain = true;
         }
 
         // Function symbol.
@@ -538,37 +783,57 @@ public class CodeGenerator extends DepthFirstAdapter {
         }
 
         // Enter symbol into the table.
-        this.symbolTable.putSymbol(funcSymbol);
-
-        buffer.append(this.rename(name));
+        this.context.symbolTable.putSymbol(funcSymbol);
+    }
 
-        // All renamed 0th-scope and gloval variables to declare global for the function.
+    /**
+     * Return all renamed 0th-scope and global variables, to declare global for a function.
+     *
+     * @return Renamed variables
+     */
+    private List<String> getGlobals() {
         ArrayList<String> globals = new ArrayList<String>();
 
-        for (Symbol s : this.symbolTable.getSymbolsFromScope(0)) {
+        for (Symbol s : this.context.symbolTable.getSymbolsFromScope(0)) {
             if (s instanceof VariableSymbol)
                 globals.add(this.rename((s.getName())));
         }
 
-        for (Symbol s : this.symbolTable.getSymbolsFromScope(1)) {
+        for (Symbol s : this.context.symbolTable.getSymbolsFromScope(1)) {
             if (s instanceof VariableSymbol)
                  globals.add(this.rename((s.getName())));
         }
 
+        return globals;
+    }
+
+    /**
+     * Generate a function, once declared.
+     *
+     * @param node - Function declaration
+     * @param globals - Renamed 0th-scope and global variables to declare global in the function
+     */
+    private void generateFunction(AFuncTopDec node, List<String> globals) {
+        this.inAFuncTopDec(node);
+
+        this.context.out.append("def");
+        addSpace();
+
+        this.context.out.append(this.rename(node.getId().getText()));
+
         // Enter the function body.
-        this.symbolTable.scope();
+        this.context.symbolTable.scope();
 
         addLeftParen();
 
         {
-            List<PArgGroup> copy = new ArrayList<PArgGroup>(node.getArgGroup());
-
-            for (int i = 0; i < copy.size(); i++) {
-                if (i > 0) {
+            int i = 0;
+            for (PArgGroup e : node.getArgGroup()) {
+                if (i++ > 0) {
                     addComma();
                     addSpace();
                 }
-                copy.get(i).apply(this);
+                e.apply(this);
             }
         }
 
@@ -583,7 +848,7 @@ public class CodeGenerator extends DepthFirstAdapter {
             // Allow access to all 0th-scope and global variables.
             if (!globals.isEmpty()) {
                 addTabs();
-                buffer.append("global ");
+                this.context.out.append("global ");
 
                 for (int i = 0; i < globals.size(); i++) {
                     if (i > 0) {
@@ -591,22 +856,22 @@ public class CodeGenerator extends DepthFirstAdapter {
                         addSpace();
                     }
 
-                    buffer.append(globals.get(i));
+                    this.context.out.append(globals.get(i));
                 }
 
                 addLines(1);
             }
 
-            List<PStmt> copy = new ArrayList<PStmt>(node.getStmt());
-            for (PStmt e : copy) {
+            List<PStmt> stmts = node.getStmt();
+            for (PStmt e : stmts) {
                 generateStatement(e);
             }
 
-            exitCodeBlock(isBlockEmpty(copy));
+            exitCodeBlock(isBlockEmpty(stmts));
         }
 
         // Exit the fucntion body.
-        this.symbolTable.unscope();
+        this.context.symbolTable.unscope();
 
         this.outAFuncTopDec(node);
     }
@@ -618,16 +883,15 @@ public class CodeGenerator extends DepthFirstAdapter {
         GoLiteType type = this.getType(node.getTypeExpr());
 
         {
-            List<TId> copy = new ArrayList<TId>(node.getId());
-
-            for (int i = 0; i < copy.size(); i++) {
-                if (i > 0) {
+            int i = 0;
+            for (TId e : node.getId()) {
+                if (i++ > 0) {
                     addComma();
                     addSpace();
                 }
-                String name = copy.get(i).getText();
-                this.symbolTable.putSymbol(new VariableSymbol(name, type, node));
-                buffer.append(this.rename(name));
+                String name = e.getText();
+                this.context.symbolTable.putSymbol(new VariableSymbol(name, type, node));
+                this.context.out.append(this.rename(name));
             }
         }
 
@@ -654,14 +918,13 @@ public class CodeGenerator extends DepthFirstAdapter {
         this.inAVarDecStmt(node);
 
         {
-            List<PVarSpec> copy = new ArrayList<PVarSpec>(node.getVarSpec());
-
-            for (int i = 0; i < copy.size(); i++) {
-                if (i > 0) {
+            int i = 0;
+            for (PVarSpec e : node.getVarSpec()) {
+                if (i++ > 0) {
                     addLines(1);
                     addTabs();
                 }
-                copy.get(i).apply(this);
+                e.apply(this);
             }
         }
 
@@ -677,8 +940,8 @@ public class CodeGenerator extends DepthFirstAdapter {
             // Pre-emptively enter the symbol for the variable into the symbol table (if it's not
             // already defined in the current scope) so that variable renaming has access to it. The
             // type will be filled in upon exit of this node.
-            if (!this.symbolTable.defSymbolInCurrentScope(name))
-                this.symbolTable.putSymbol(new VariableSymbol(name, null, node));
+            if (!this.context.symbolTable.defSymbolInCurrentScope(name))
+                this.context.symbolTable.putSymbol(new VariableSymbol(name, null, node));
             // Increment the position.
             i++;
         }
@@ -689,29 +952,27 @@ public class CodeGenerator extends DepthFirstAdapter {
         this.inAShortAssignStmt(node);
 
         {
-            List<POptId> copy = new ArrayList<POptId>(node.getOptId());
-
-            for (int i = 0; i < copy.size(); i++) {
-                if (i > 0) {
+            int i = 0;
+            for (POptId e : node.getOptId()) {
+                if (i++ > 0) {
                     addComma();
                     addSpace();
                 }
-                copy.get(i).apply(this);
+                e.apply(this);
             }
         }
 
-        buffer.append(" = ");
+        this.context.out.append(" = ");
 
         {
-            List<PExpr> copy = new ArrayList<PExpr>(node.getExpr());
-
-            for (int i = 0; i < copy.size(); i++) {
-                if (i > 0) {
+            int i = 0;
+            for (PExpr e : node.getExpr()) {
+                if (i++ > 0) {
                     addComma();
                     addSpace();
                 }
 
-                normalizeExpr(copy.get(i));
+                normalizeExpr(e);
             }
         }
 
@@ -724,7 +985,7 @@ public class CodeGenerator extends DepthFirstAdapter {
         // Get L.H.S. (non-blank) Id's.
         ArrayList<TId> ids = this.getIds(node);
         // Get R.H.S. expressions.
-        ArrayList<PExpr> pExprs = new ArrayList<PExpr>(node.getExpr());
+        Iterator<PExpr> pExprs = node.getExpr().iterator();
 
         // Loop through the Id's in sequence, tracking the position.
         for (int i = 0; i < ids.size(); i++) {
@@ -732,15 +993,15 @@ public class CodeGenerator extends DepthFirstAdapter {
             String name = id.getText();
 
             // Get the corresponding expression node.
-            PExpr pExpr = pExprs.get(i);
+            PExpr pExpr = pExprs.next();
             // Get its GoLite type.
             GoLiteType exprType = this.typeTable.get(pExpr);
 
             // A symbol with the given name doesn't exist in the current scope.
-            if (!this.symbolTable.defSymbolInCurrentScope(name))
+            if (!this.context.symbolTable.defSymbolInCurrentScope(name))
                 // Go ahead and set the type of the symbol, which has already been entered, using
                 // its inferred type.
-                this.symbolTable.getSymbol(name).setType(exprType);
+                this.context.symbolTable.getSymbol(name).setType(exprType);
         }
     }
 
@@ -748,7 +1009,7 @@ public class CodeGenerator extends DepthFirstAdapter {
     public void caseABlankOptId(ABlankOptId node) {
         this.inABlankOptId(node);
 
-        buffer.append('_');
+        this.context.out.append('_');
 
         this.outABlankOptId(node);
     }
@@ -758,8 +1019,8 @@ public class CodeGenerator extends DepthFirstAdapter {
         this.inAIdOptId(node);
 
         if (node.getId() != null) {
-            if (!this.inTypeSpec && !this.inStructTypeExpr)
-                buffer.append(this.rename(node.getId().getText()));
+            if (!this.context.inTypeSpec && !this.context.inStructTypeExpr)
+                this.context.out.append(this.rename(node.getId().getText()));
         }
 
         this.outAIdOptId(node);
@@ -783,19 +1044,20 @@ public class CodeGenerator extends DepthFirstAdapter {
         this.inAAssignStmt(node);
 
         {
-            List<PExpr> lhsExprs = new ArrayList<PExpr>(node.getLhs());
-            List<PExpr> rhsExprs = new ArrayList<PExpr>(node.getRhs());
+            LinkedList<PExpr> lhsExprs = node.getLhs();
+            LinkedList<PExpr> rhsExprs = node.getRhs();
 
             if (lhsExprs.size() == 1 && rhsExprs.size() == 1 &&
-                lhsExprs.get(0) instanceof AVariableExpr && rhsExprs.get(0) instanceof AAppendExpr) {
-                AVariableExpr lhs = (AVariableExpr) lhsExprs.get(0);
-                AAppendExpr rhs = (AAppendExpr) rhsExprs.get(0);
+                lhsExprs.getFirst() instanceof AVariableExpr &&
+                rhsExprs.getFirst() instanceof AAppendExpr) {
+                AVariableExpr lhs = (AVariableExpr) lhsExprs.getFirst();
+                AAppendExpr rhs = (AAppendExpr) rhsExprs.getFirst();
 
                 if (lhs.getId().getText().equals(rhs.getId().getText())) {
-                    buffer.append(this.rename(lhs.getId().getText()));
+                    this.context.out.append(this.rename(lhs.getId().getText()));
                     addDot();
 
-                    buffer.append("append");
+                    this.context.out.append("append");
                     addLeftParen();
                     rhs.getExpr().apply(this);
                     addRightParen();
@@ -806,28 +1068,26 @@ public class CodeGenerator extends DepthFirstAdapter {
         }
 
         {
-            List<PExpr> copy = new ArrayList<PExpr>(node.getLhs());
-
-            for (int i = 0; i < copy.size(); i++) {
-                if (i > 0) {
+            int i = 0;
+            for (PExpr e : node.getLhs()) {
+                if (i++ > 0) {
                     addComma();
                     addSpace();
                 }
-                copy.get(i).apply(this);
+                e.apply(this);
             }
         }
 
-        buffer.append(" = ");
+        this.context.out.append(" = ");
 
         {
-            List<PExpr> copy = new ArrayList<PExpr>(node.getRhs());
-
-            for (int i = 0; i < copy.size(); i++) {
-                if (i > 0) {
+            int i = 0;
+            for (PExpr e : node.getRhs()) {
+                if (i++ > 0) {
                     addComma();
                     addSpace();
                 }
-                normalizeExpr(copy.get(i));
+                normalizeExpr(e);
             }
         }
 
@@ -852,7 +1112,7 @@ public class CodeGenerator extends DepthFirstAdapter {
             node.getLhs().apply(this);
         }
 
-        buffer.append(" += ");
+        this.context.out.append(" += ");
 
         if (node.getRhs() != null) {
             node.getRhs().apply(this);
@@ -874,7 +1134,7 @@ public class CodeGenerator extends DepthFirstAdapter {
             node.getLhs().apply(this);
         }
 
-        buffer.append(" -= ");
+        this.context.out.append(" -= ");
 
         if (node.getRhs() != null) {
             node.getRhs().apply(this);
@@ -896,7 +1156,7 @@ public class CodeGenerator extends DepthFirstAdapter {
             node.getLhs().apply(this);
         }
 
-        buffer.append(" *= ");
+        this.context.out.append(" *= ");
 
         if (node.getRhs() != null) {
             node.getRhs().apply(this);
@@ -918,7 +1178,7 @@ public class CodeGenerator extends DepthFirstAdapter {
             node.getLhs().apply(this);
         }
 
-        buffer.append(" /= ");
+        this.context.out.append(" /= ");
 
         if (node.getRhs() != null) {
             node.getRhs().apply(this);
@@ -1037,20 +1297,20 @@ public class CodeGenerator extends DepthFirstAdapter {
 
     private void normalizeOpAssign(PExpr lhs, String operator, PExpr rhs) {
         lhs.apply(this);
-        buffer.append(" = ");
+        this.context.out.append(" = ");
 
         if (this.norm) {
-            buffer.append("normalize");
+            this.context.out.append("normalize");
             addLeftParen();
         }
 
         lhs.apply(this);
-        buffer.append(operator);
+        this.context.out.append(operator);
 
         if (rhs != null) {
             normalizeExpr(rhs);
         } else {
-            buffer.append('1');
+            this.context.out.append('1');
         }
 
         if (this.norm) {
@@ -1077,32 +1337,31 @@ public class CodeGenerator extends DepthFirstAdapter {
     public void caseAPrintStmt(APrintStmt node) {
         this.inAPrintStmt(node);
 
-        buffer.append("print");
+        this.context.out.append("print");
         addLeftParen();
 
         {
-            List<PExpr> copy = new ArrayList<PExpr>(node.getExpr());
-
-            for (int i = 0; i < copy.size(); i++) {
-                if (i > 0) {
-                    buffer.append(" + ");
+            int i = 0;
+            for (PExpr e : node.getExpr()) {
+                if (i++ > 0) {
+                    this.context.out.append(" + ");
                 }
 
-                buffer.append("str");
+                this.context.out.append("str");
                 addLeftParen();
 
-                normalizeExpr(copy.get(i));
+                normalizeExpr(e);
 
                 addRightParen();
             }
 
-            if (!copy.isEmpty()) {
+            if (i > 0) {
                 addComma();
                 addSpace();
             }
         }
 
-        buffer.append("end = ''");
+        this.context.out.append("end = ''");
         addRightParen();
 
         this.outAPrintStmt(node);
@@ -1112,19 +1371,18 @@ public class CodeGenerator extends DepthFirstAdapter {
     public void caseAPrintlnStmt(APrintlnStmt node) {
         this.inAPrintlnStmt(node);
 
-        buffer.append("print");
+        this.context.out.append("print");
         addLeftParen();
 
         {
-            List<PExpr> copy = new ArrayList<PExpr>(node.getExpr());
-
-            for (int i = 0; i < copy.size(); i++) {
-                if (i > 0) {
+            int i = 0;
+            for (PExpr e : node.getExpr()) {
+                if (i++ > 0) {
                     addComma();
                     addSpace();
                 }
 
-                normalizeExpr(copy.get(i));
+                normalizeExpr(e);
             }
         }
 
@@ -1141,12 +1399,12 @@ public class CodeGenerator extends DepthFirstAdapter {
     public void caseAContinueStmt(AContinueStmt node) {
         this.inAContinueStmt(node);
 
-        if (forEndStmts.peek() != null) {
-            forEndStmts.peek().apply(this);
+        if (this.context.forEndStmts.peek() != null) {
+            this.context.forEndStmts.peek().apply(this);
             addLines(1);
             addTabs();
         }
-        buffer.append("continue");
+        this.context.out.append("continue");
 
         this.outAContinueStmt(node);
     }
@@ -1155,7 +1413,7 @@ public class CodeGenerator extends DepthFirstAdapter {
     public void caseABreakStmt(ABreakStmt node) {
         this.inABreakStmt(node);
 
-        buffer.append("break");
+        this.context.out.append("break");
 
         this.outABreakStmt(node);
     }
@@ -1164,7 +1422,7 @@ public class CodeGenerator extends DepthFirstAdapter {
     public void caseAReturnStmt(AReturnStmt node) {
         this.inAReturnStmt(node);
 
-        buffer.append("return");
+        this.context.out.append("return");
         addSpace();
 
         if (node.getExpr() != null) {
@@ -1183,7 +1441,7 @@ public class CodeGenerator extends DepthFirstAdapter {
         this.inAIfElseStmt(node);
 
         // Create a new scope for the if-else initializer and blocks.
-        this.symbolTable.scope();
+        this.context.symbolTable.scope();
 
         if (node.getCondition() != null) {
             node.getCondition().apply(this);
@@ -1193,47 +1451,44 @@ public class CodeGenerator extends DepthFirstAdapter {
             enterCodeBlock();
 
             // Create a new scope for the if-block.
-            this.symbolTable.scope();
+            this.context.symbolTable.scope();
 
-            List<PStmt> copy = new ArrayList<PStmt>(node.getIfBlock());
+            List<PStmt> stmts = node.getIfBlock();
 
-            for (PStmt e : copy) {
+            for (PStmt e : stmts) {
                 generateStatement(e);
             }
 
             // Exit the scope for the if-block.
-            this.symbolTable.unscope();
+            this.context.symbolTable.unscope();
 
-            exitCodeBlock(isBlockEmpty(copy));
+            exitCodeBlock(isBlockEmpty(stmts));
         }
 
+        // Python has no use for an empty else.
         if (!isBlockEmpty(node.getElseBlock())) {
             addTabs();
-            buffer.append("else");
+            this.context.out.append("else");
             addColon();
-        } else {
-            deleteLastCharacter();
-        }
 
-        {
             enterCodeBlock();
 
             // Create a new scope for the else-block.
-            this.symbolTable.scope();
+            this.context.symbolTable.scope();
 
-            List<PStmt> copy = new ArrayList<PStmt>(node.getElseBlock());
-            for (PStmt e : copy) {
+            List<PStmt> stmts = node.getElseBlock();
+            for (PStmt e : stmts) {
                 generateStatement(e);
             }
 
             // Exit the scope for the else-block.
-            this.symbolTable.unscope();
+            this.context.symbolTable.unscope();
 
             exitCodeBlock(false);
         }
 
         // Exit the scope for the if-else initializer and blocks.
-        this.symbolTable.unscope();
+        this.context.symbolTable.unscope();
 
         this.outAIfElseStmt(node);
     }
@@ -1248,7 +1503,7 @@ public class CodeGenerator extends DepthFirstAdapter {
             addTabs();
         }
 
-        buffer.append("if");
+        this.context.out.append("if");
         addSpace();
 
         if (node.getExpr() != null) {
@@ -1269,7 +1524,7 @@ public class CodeGenerator extends DepthFirstAdapter {
         this.inASwitchStmt(node);
 
         // Create a new scope for the switch initializer and blocks.
-        this.symbolTable.scope();
+        this.context.symbolTable.scope();
 
         if (node.getStmt() != null) {
             node.getStmt().apply(this);
@@ -1279,7 +1534,7 @@ public class CodeGenerator extends DepthFirstAdapter {
 
         PExpr switchExpr = node.getExpr();
 
-        List<PCaseBlock> caseBlocks = new ArrayList<PCaseBlock>(node.getCaseBlock());
+        List<PCaseBlock> caseBlocks = node.getCaseBlock();
 
         PCaseBlock defaultBlock = null;
         for (PCaseBlock block : caseBlocks) {
@@ -1290,50 +1545,52 @@ public class CodeGenerator extends DepthFirstAdapter {
             }
         }
 
-        for (int i = 0; i < caseBlocks.size(); i++) {
-            PCaseCondition condition = ((ABlockCaseBlock) caseBlocks.get(i)).getCaseCondition();
+        int i = 0;
+        for (PCaseBlock block : caseBlocks) {
+            PCaseCondition condition = ((ABlockCaseBlock) block).getCaseCondition();
             if (condition instanceof ADefaultCaseCondition) {
+                i++;
                 continue;
             }
 
-            if (i == 0) {
-                buffer.append("if");
+            if (i++ == 0) {
+                this.context.out.append("if");
             } else {
                 addTabs();
-                buffer.append("elif");
+                this.context.out.append("elif");
             }
             addSpace();
 
-            List<PExpr> caseExprs = new ArrayList<PExpr>(((AExprsCaseCondition) condition).getExpr());
-            for (int j = 0; j < caseExprs.size(); j++) {
-                if (j > 0) {
-                    buffer.append(" or ");
+            int j = 0;
+            for (PExpr caseExpr : ((AExprsCaseCondition) condition).getExpr()) {
+                if (j++ > 0) {
+                    this.context.out.append(" or ");
                 }
 
                 if (switchExpr != null) {
                     addLeftParen();
                     switchExpr.apply(this);
-                    buffer.append(" == ");
-                    caseExprs.get(j).apply(this);
+                    this.context.out.append(" == ");
+                    caseExpr.apply(this);
                     addRightParen();
                 } else {
-                    caseExprs.get(j).apply(this);
+                    caseExpr.apply(this);
                 }
             }
 
             addColon();
 
-            caseBlocks.get(i).apply(this);
+            block.apply(this);
         }
 
         if (defaultBlock != null) {
             if (caseBlocks.size() == 1) {
-                buffer.append("if");
+                this.context.out.append("if");
                 addSpace();
-                buffer.append("True");
+                this.context.out.append("True");
             } else {
                 addTabs();
-                buffer.append("else");
+                this.context.out.append("else");
             }
 
             addColon();
@@ -1342,7 +1599,7 @@ public class CodeGenerator extends DepthFirstAdapter {
         }
 
         // Exit the scope for the switch initializer and blocks.
-        this.symbolTable.unscope();
+        this.context.symbolTable.unscope();
 
         this.outASwitchStmt(node);
     }
@@ -1350,7 +1607,7 @@ public class CodeGenerator extends DepthFirstAdapter {
     // Create a new scope for the case block.
     @Override
     public void inABlockCaseBlock(ABlockCaseBlock node) {
-        this.symbolTable.scope();
+        this.context.symbolTable.scope();
     }
 
     @Override
@@ -1364,12 +1621,12 @@ public class CodeGenerator extends DepthFirstAdapter {
         {
             enterCodeBlock();
 
-            List<PStmt> copy = new ArrayList<PStmt>(node.getStmt());
-            for (PStmt e : copy) {
+            List<PStmt> stmts = node.getStmt();
+            for (PStmt e : stmts) {
                 generateStatement(e);
             }
 
-            exitCodeBlock(isBlockEmpty(copy));
+            exitCodeBlock(isBlockEmpty(stmts));
         }
 
         this.outABlockCaseBlock(node);
@@ -1378,7 +1635,7 @@ public class CodeGenerator extends DepthFirstAdapter {
     // Exit the scope for the case block.
     @Override
     public void outABlockCaseBlock(ABlockCaseBlock node) {
-        this.symbolTable.unscope();
+        this.context.symbolTable.unscope();
     }
 
 
@@ -1401,7 +1658,7 @@ public class CodeGenerator extends DepthFirstAdapter {
         this.inALoopStmt(node);
 
         // Create a new scope for the loop initializer and body.
-        this.symbolTable.scope();
+        this.context.symbolTable.scope();
 
         /**
          * Only used when generating for Loops
@@ -1412,13 +1669,13 @@ public class CodeGenerator extends DepthFirstAdapter {
             addTabs();
         }
 
-        buffer.append("while");
+        this.context.out.append("while");
         addSpace();
 
         if (node.getExpr() != null) {
             node.getExpr().apply(this);
         } else {
-            buffer.append("True");
+            this.context.out.append("True");
         }
 
         addColon();
@@ -1429,13 +1686,13 @@ public class CodeGenerator extends DepthFirstAdapter {
         /**
          * Only used when generating for Loops
          */
-        forEndStmts.push(node.getEnd());
+        this.context.forEndStmts.push(node.getEnd());
         if (node.getEnd() != null) {
             copy.add(node.getEnd());
         }
 
         // Create a new scope for the loop body.
-        this.symbolTable.scope();
+        this.context.symbolTable.scope();
 
         for (PStmt e : copy) {
             generateStatement(e);
@@ -1443,12 +1700,12 @@ public class CodeGenerator extends DepthFirstAdapter {
 
         exitCodeBlock(isBlockEmpty(copy));
 
-        forEndStmts.pop();
+        this.context.forEndStmts.pop();
 
         // Exit the scope for the loop body.
-        this.symbolTable.unscope();
+        this.context.symbolTable.unscope();
         // Exit the scope for the loop initializer and body.
-        this.symbolTable.unscope();
+        this.context.symbolTable.unscope();
 
         this.outALoopStmt(node);
     }
@@ -1456,7 +1713,7 @@ public class CodeGenerator extends DepthFirstAdapter {
     // Create a new scope.
     @Override
     public void inABlockStmt(ABlockStmt node) {
-        this.symbolTable.scope();
+        this.context.symbolTable.scope();
     }
 
     /**
@@ -1468,8 +1725,7 @@ public class CodeGenerator extends DepthFirstAdapter {
         this.inABlockStmt(node);
 
         {
-            List<PStmt> copy = new ArrayList<PStmt>(node.getStmt());
-            for (PStmt e : copy) {
+            for (PStmt e : node.getStmt()) {
                 generateStatement(e);
             }
         }
@@ -1480,19 +1736,19 @@ public class CodeGenerator extends DepthFirstAdapter {
     // Drop the block scope.
     @Override
     public void outABlockStmt(ABlockStmt node) {
-        this.symbolTable.unscope();
+        this.context.symbolTable.unscope();
     }
 
     @Override
     public void inAStructTypeExpr(AStructTypeExpr node) {
         // Set flag to true.
-        this.inStructTypeExpr = true;
+        this.context.inStructTypeExpr = true;
     }
 
     @Override
     public void outAStructTypeExpr(AStructTypeExpr node) {
         // Set flag to false.
-        this.inStructTypeExpr = false;
+        this.context.inStructTypeExpr = false;
     }
 
     /**
@@ -1520,7 +1776,7 @@ public class CodeGenerator extends DepthFirstAdapter {
             normalizeExpr(node.getLeft());
         }
 
-        buffer.append(" + ");
+        this.context.out.append(" + ");
 
         if (node.getRight() != null) {
             normalizeExpr(node.getRight());
@@ -1541,7 +1797,7 @@ public class CodeGenerator extends DepthFirstAdapter {
             normalizeExpr(node.getLeft());
         }
 
-        buffer.append(" - ");
+        this.context.out.append(" - ");
 
         if (node.getRight() != null) {
             normalizeExpr(node.getRight());
@@ -1562,7 +1818,7 @@ public class CodeGenerator extends DepthFirstAdapter {
             normalizeExpr(node.getLeft());
         }
 
-        buffer.append(" * ");
+        this.context.out.append(" * ");
 
         if (node.getRight() != null) {
             normalizeExpr(node.getRight());
@@ -1583,7 +1839,7 @@ public class CodeGenerator extends DepthFirstAdapter {
             normalizeExpr(node.getLeft());
         }
 
-        buffer.append(" / ");
+        this.context.out.append(" / ");
 
         if (node.getRight() != null) {
             normalizeExpr(node.getRight());
@@ -1604,7 +1860,7 @@ public class CodeGenerator extends DepthFirstAdapter {
             normalizeExpr(node.getLeft());
         }
 
-        buffer.append(" % ");
+        this.context.out.append(" % ");
 
         if (node.getRight() != null) {
             normalizeExpr(node.getRight());
@@ -1630,7 +1886,7 @@ public class CodeGenerator extends DepthFirstAdapter {
             normalizeExpr(node.getLeft());
         }
 
-        buffer.append(" & ");
+        this.context.out.append(" & ");
 
         if (node.getRight() != null) {
             normalizeExpr(node.getRight());
@@ -1651,7 +1907,7 @@ public class CodeGenerator extends DepthFirstAdapter {
             normalizeExpr(node.getLeft());
         }
 
-        buffer.append(" | ");
+        this.context.out.append(" | ");
 
         if (node.getRight() != null) {
             normalizeExpr(node.getRight());
@@ -1672,7 +1928,7 @@ public class CodeGenerator extends DepthFirstAdapter {
             normalizeExpr(node.getLeft());
         }
 
-        buffer.append(" ^ ");
+        this.context.out.append(" ^ ");
 
         if (node.getRight() != null) {
             normalizeExpr(node.getRight());
@@ -1693,7 +1949,7 @@ public class CodeGenerator extends DepthFirstAdapter {
             normalizeExpr(node.getLeft());
         }
 
-        buffer.append(" &~ ");
+        this.context.out.append(" &~ ");
 
         if (node.getRight() != null) {
             normalizeExpr(node.getRight());
@@ -1714,7 +1970,7 @@ public class CodeGenerator extends DepthFirstAdapter {
             normalizeExpr(node.getLeft());
         }
 
-        buffer.append(" << ");
+        this.context.out.append(" << ");
 
         if (node.getRight() != null) {
             normalizeExpr(node.getRight());
@@ -1735,7 +1991,7 @@ public class CodeGenerator extends DepthFirstAdapter {
             node.getLeft().apply(this);
         }
 
-        buffer.append(" >> ");
+        this.context.out.append(" >> ");
 
         if (node.getRight() != null) {
             normalizeExpr(node.getRight());
@@ -1757,7 +2013,7 @@ public class CodeGenerator extends DepthFirstAdapter {
 
         addLeftParen();
 
-        buffer.append('+');
+        this.context.out.append('+');
         addSpace();
 
         if (node.getExpr() != null) {
@@ -1775,7 +2031,7 @@ public class CodeGenerator extends DepthFirstAdapter {
 
         addLeftParen();
 
-        buffer.append('-');
+        this.context.out.append('-');
         addSpace();
 
         if (node.getExpr() != null) {
@@ -1793,7 +2049,7 @@ public class CodeGenerator extends DepthFirstAdapter {
 
         addLeftParen();
 
-        buffer.append('~');
+        this.context.out.append('~');
         addSpace();
 
         if (node.getExpr() != null) {
@@ -1811,7 +2067,7 @@ public class CodeGenerator extends DepthFirstAdapter {
 
         addLeftParen();
 
-        buffer.append("not");
+        this.context.out.append("not");
         addSpace();
 
         if (node.getExpr() != null) {
@@ -1838,7 +2094,7 @@ public class CodeGenerator extends DepthFirstAdapter {
             normalizeExpr(node.getLeft());
         }
 
-        buffer.append(" == ");
+        this.context.out.append(" == ");
 
         if (node.getRight() != null) {
             normalizeExpr(node.getRight());
@@ -1859,7 +2115,7 @@ public class CodeGenerator extends DepthFirstAdapter {
             normalizeExpr(node.getLeft());
         }
 
-        buffer.append(" != ");
+        this.context.out.append(" != ");
 
         if (node.getRight() != null) {
             normalizeExpr(node.getRight());
@@ -1880,7 +2136,7 @@ public class CodeGenerator extends DepthFirstAdapter {
             normalizeExpr(node.getLeft());
         }
 
-        buffer.append(" < ");
+        this.context.out.append(" < ");
 
         if (node.getRight() != null) {
             normalizeExpr(node.getRight());
@@ -1901,7 +2157,7 @@ public class CodeGenerator extends DepthFirstAdapter {
             normalizeExpr(node.getLeft());
         }
 
-        buffer.append(" <= ");
+        this.context.out.append(" <= ");
 
         if (node.getRight() != null) {
             normalizeExpr(node.getRight());
@@ -1922,7 +2178,7 @@ public class CodeGenerator extends DepthFirstAdapter {
             normalizeExpr(node.getLeft());
         }
 
-        buffer.append(" > ");
+        this.context.out.append(" > ");
 
         if (node.getRight() != null) {
             normalizeExpr(node.getRight());
@@ -1943,7 +2199,7 @@ public class CodeGenerator extends DepthFirstAdapter {
             normalizeExpr(node.getLeft());
         }
 
-        buffer.append(" >= ");
+        this.context.out.append(" >= ");
 
         if (node.getRight() != null) {
             normalizeExpr(node.getRight());
@@ -1968,7 +2224,7 @@ public class CodeGenerator extends DepthFirstAdapter {
             normalizeExpr(node.getLeft());
         }
 
-        buffer.append(" and ");
+        this.context.out.append(" and ");
 
         if (node.getRight() != null) {
             normalizeExpr(node.getRight());
@@ -1989,7 +2245,7 @@ public class CodeGenerator extends DepthFirstAdapter {
             normalizeExpr(node.getLeft());
         }
 
-        buffer.append(" or ");
+        this.context.out.append(" or ");
 
         if (node.getRight() != null) {
             normalizeExpr(node.getRight());
@@ -2012,37 +2268,36 @@ public class CodeGenerator extends DepthFirstAdapter {
         TId id = node.getId();
         String name = id.getText();
         // Corresponding symbol.
-        Symbol symbol = this.symbolTable.getSymbol(name);
+        Symbol symbol = this.context.symbolTable.getSymbol(name);
 
         // Function call.
         if (symbol instanceof FunctionSymbol)
-            buffer.append(this.rename(id.getText()));
+            this.context.out.append(this.rename(id.getText()));
         // Type cast with an alias.
         else if (symbol instanceof TypeAliasSymbol) {
             TypeAliasSymbol typeAliasSymbol = ((TypeAliasSymbol) symbol);
             GoLiteType underlyingType = typeAliasSymbol.getUnderlyingType();
 
             if (underlyingType instanceof IntType)
-                buffer.append("int");
+                this.context.out.append("int");
             else if (underlyingType instanceof FloatType)
-                buffer.append("float");
+                this.context.out.append("float");
             else if (underlyingType instanceof BoolType)
-                buffer.append("bool");
+                this.context.out.append("bool");
             else if (underlyingType instanceof RuneType)
-                buffer.append("int");
+                this.context.out.append("int");
         }
 
         addLeftParen();
 
-        List<PExpr> copy = new ArrayList<PExpr>(node.getExpr());
-
-        for (int i = 0; i < copy.size(); i++) {
-            if (i > 0) {
+        int i = 0;
+        for (PExpr e : node.getExpr()) {
+            if (i++ > 0) {
                 addComma();
                 addSpace();
             }
 
-            copy.get(i).apply(this);
+            e.apply(this);
         }
 
         addRightParen();
@@ -2057,10 +2312,10 @@ public class CodeGenerator extends DepthFirstAdapter {
         addLeftParen();
 
         if (node.getId() != null) {
-            buffer.append(this.rename(node.getId().getText()));
+            this.context.out.append(this.rename(node.getId().getText()));
         }
 
-        buffer.append(" + ");
+        this.context.out.append(" + ");
 
         addLeftBracket();
 
@@ -2089,13 +2344,14 @@ public class CodeGenerator extends DepthFirstAdapter {
         }
         else if (expr instanceof ABoolTypeExpr || expr instanceof AIntTypeExpr)
         {
-            buffer.append(expr.toString());
-            buffer.setLength(buffer.length() - 1);
+            // Drop the trailing space of the token text.
+            String text = expr.toString();
+            this.context.out.append(text.substring(0, text.length() - 1));
         }
-        buffer.append(type);
-        buffer.append("(");
+        this.context.out.append(type);
+        this.context.out.append("(");
         node.getExpr().apply(this);
-        buffer.append(")");
+        this.context.out.append(")");
     }
 
     /**
@@ -2128,7 +2384,7 @@ public class CodeGenerator extends DepthFirstAdapter {
         if (node.getExpr() != null)
             node.getExpr().apply(this);
 
-        buffer.append("['" + node.getId().getText() + "']");
+        this.context.out.append("['" + node.getId().getText() + "']");
 
         this.outAFieldExpr(node);
     }
@@ -2141,7 +2397,7 @@ public class CodeGenerator extends DepthFirstAdapter {
     public void caseABlankExpr(ABlankExpr node) {
         this.inABlankExpr(node);
 
-        buffer.append('_');
+        this.context.out.append('_');
 
         this.outABlankExpr(node);
     }
@@ -2151,7 +2407,7 @@ public class CodeGenerator extends DepthFirstAdapter {
         this.inAVariableExpr(node);
 
         if (node.getId() != null) {
-            buffer.append(this.rename(node.getId().getText()));
+            this.context.out.append(this.rename(node.getId().getText()));
         }
 
         this.outAVariableExpr(node);
@@ -2166,7 +2422,7 @@ public class CodeGenerator extends DepthFirstAdapter {
         this.inAIntLitExpr(node);
 
         if (node.getIntLit() != null) {
-            buffer.append(node.getIntLit().getText());
+            this.context.out.append(node.getIntLit().getText());
         }
 
         this.outAIntLitExpr(node);
@@ -2177,7 +2433,7 @@ public class CodeGenerator extends DepthFirstAdapter {
         this.inAOctLitExpr(node);
 
         if (node.getOctLit() != null) {
-            buffer.append(node.getOctLit().getText());
+            this.context.out.append(node.getOctLit().getText());
         }
 
         this.outAOctLitExpr(node);
@@ -2188,7 +2444,7 @@ public class CodeGenerator extends DepthFirstAdapter {
         this.inAHexLitExpr(node);
 
         if (node.getHexLit() != null) {
-            buffer.append(node.getHexLit().getText());
+            this.context.out.append(node.getHexLit().getText());
         }
 
         this.outAHexLitExpr(node);
@@ -2199,7 +2455,7 @@ public class CodeGenerator extends DepthFirstAdapter {
         this.inAFloatLitExpr(node);
 
         if (node.getFloatLit() != null) {
-            buffer.append(node.getFloatLit().getText());
+            this.context.out.append(node.getFloatLit().getText());
         }
 
         this.outAFloatLitExpr(node);
@@ -2213,43 +2469,43 @@ public class CodeGenerator extends DepthFirstAdapter {
             String s = node.getRuneLit().getText();
             if (s.equals("'\\t'"))
             {
-                buffer.append(9);
+                this.context.out.append(9);
             }
             else if (s.equals("'\\b'"))
             {
-                buffer.append(8);
+                this.context.out.append(8);
             }
             else if (s.equals("'\\f'"))
             {
-                buffer.append(12);
+                this.context.out.append(12);
             }
             else if (s.equals("'\\a'"))
             {
-                buffer.append(7);
+                this.context.out.append(7);
             }
             else if (s.equals("'\\n'"))
             {
-                buffer.append(10);
+                this.context.out.append(10);
             }
             else if (s.equals("'\\r'"))
             {
-                buffer.append(13);
+                this.context.out.append(13);
             }
             else if (s.equals("'\\v'"))
             {
-                buffer.append(11);
+                this.context.out.append(11);
             }
             else if (s.equals("'\\\\'"))
             {
-                buffer.append(92);
+                this.context.out.append(92);
             }
             else if (s.equals("'\\''"))
             {
-                buffer.append(39);
+                this.context.out.append(39);
             }
             else
             {
-                buffer.append((int) s.substring(1, s.length() - 1).charAt(0));
+                this.context.out.append((int) s.substring(1, s.length() - 1).charAt(0));
             }
         }
 
@@ -2260,7 +2516,7 @@ public class CodeGenerator extends DepthFirstAdapter {
     public void caseAInterpretedStringLitExpr(AInterpretedStringLitExpr node) {
         this.inAInterpretedStringLitExpr(node);
 
-        buffer.append(node.getInterpretedStringLit().getText());
+        this.context.out.append(node.getInterpretedStringLit().getText());
 
         this.outAInterpretedStringLitExpr(node);
     }
@@ -2277,7 +2533,7 @@ public class CodeGenerator extends DepthFirstAdapter {
         pythonString.append(rawString.substring(1, rawString.length() - 1));
         pythonString.append('"');
 
-        buffer.append(pythonString.toString());
+        this.context.out.append(pythonString.toString());
 
         this.outARawStringLitExpr(node);
     }
@@ -2287,51 +2543,47 @@ public class CodeGenerator extends DepthFirstAdapter {
      *
      */
     private void addSpace() {
-        buffer.append(' ');
+        this.context.out.append(' ');
     }
 
     private void addTabs() {
-        for (int i = 0; i < tabDepth; i++) {
-            buffer.append('\t');
+        for (int i = 0; i < this.context.tabDepth; i++) {
+            this.context.out.append('\t');
         }
     }
 
     private void addLines(int n) {
         for (int i = 0; i < n; i++) {
-            buffer.append('\n');
+            this.context.out.append('\n');
         }
     }
 
     private void addComma() {
-        buffer.append(',');
+        this.context.out.append(',');
     }
 
     private void addColon() {
-        buffer.append(':');
+        this.context.out.append(':');
     }
 
     private void addDot() {
-        buffer.append('.');
+        this.context.out.append('.');
     }
 
     private void addLeftParen() {
-        buffer.append('(');
+        this.context.out.append('(');
     }
 
     private void addRightParen() {
-        buffer.append(')');
+        this.context.out.append(')');
     }
 
     private void addLeftBracket() {
-        buffer.append('[');
+        this.context.out.append('[');
     }
 
     private void addRightBracket() {
-        buffer.append(']');
-    }
-
-    private void deleteLastCharacter() {
-        buffer.deleteCharAt(buffer.length() - 1);
+        this.context.out.append(']');
     }
 
     private void generateStatement(PStmt e) {
@@ -2352,7 +2604,7 @@ public class CodeGenerator extends DepthFirstAdapter {
 
     private void enterCodeBlock() {
         addLines(1);
-        tabDepth++;
+        this.context.tabDepth++;
     }
 
     private void exitCodeBlock(boolean addPass) {
@@ -2361,11 +2613,11 @@ public class CodeGenerator extends DepthFirstAdapter {
          */
         if (addPass) {
             addTabs();
-            buffer.append("pass");
+            this.context.out.append("pass");
             addLines(1);
         }
 
-        tabDepth--;
+        this.context.tabDepth--;
     }
 
     private boolean isBlockEmpty(List<PStmt> copy) {
@@ -0,0 +1,219 @@
+package golite.generator;
+
+import java.io.Closeable;
+import java.io.File;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.io.Writer;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.charset.Charset;
+import java.nio.charset.CharsetEncoder;
+import java.nio.charset.CodingErrorAction;
+import java.nio.file.StandardOpenOption;
+import java.util.Arrays;
+
+/**
+ * Code Writer
+ *
+ * Unsynchronized sink for generated code. Characters are gathered in a fixed-size buffer that is
+ * handed to the underlying writer whenever it fills up, so memory use doesn't grow with the size
+ * of the generated program. Without an underlying writer, the code is kept in memory instead.
+ *
+ * Failures of the underlying writer are rethrown as UncheckedIOException, since the generator's
+ * visitor methods can't throw checked exceptions.
+ */
+public class CodeWriter implements Closeable {
+
+    /** Number of characters gathered before they're handed to the underlying writer. */
+    private static final int BUFFER_SIZE = 8192;
+
+    /** Underlying writer (null if the code is kept in memory). */
+    private final Writer out;
+    /** Characters not yet handed to the underlying writer (or all of them if kept in memory). */
+    private char[] buffer;
+    /** Number of characters in the buffer. */
+    private int length;
+
+    /**
+     * Constructor (Code kept in memory)
+     */
+    public CodeWriter() {
+        this.out = null;
+        this.buffer = new char[BUFFER_SIZE];
+        this.length = 0;
+    }
+
+    /**
+     * Constructor
+     *
+     * @param out - Writer to hand the code to
+     */
+    public CodeWriter(Writer out) {
+        this.out = out;
+        this.buffer = new char[BUFFER_SIZE];
+        this.length = 0;
+    }
+
+    /**
+     * Opens a code writer on a file, which is created or truncated.
+     *
+     * @param file - Output file
+     * @return Code writer writing to the file through its channel
+     * @throws IOException if the file can't be opened
+     */
+    public static CodeWriter open(File file) throws IOException {
+        FileChannel channel = FileChannel.open(file.toPath(), StandardOpenOption.CREATE,
+            StandardOpenOption.WRITE, StandardOpenOption.TRUNCATE_EXISTING);
+
+        // Same encoding as a FileWriter.
+        CharsetEncoder encoder = Charset.defaultCharset().newEncoder()
+            .onMalformedInput(CodingErrorAction.REPLACE)
+            .onUnmappableCharacter(CodingErrorAction.REPLACE);
+
+        return new CodeWriter(Channels.newWriter(channel, encoder, -1));
+    }
+
+    /**
+     * Appends a character.
+     *
+     * @param c - Character
+     * @return This writer
+     */
+    public CodeWriter append(char c) {
+        if (this.length == this.buffer.length)
+            makeRoom();
+
+        this.buffer[this.length++] = c;
+        return this;
+    }
+
+    /**
+     * Appends a string.
+     *
+     * @param s - String
+     * @return This writer
+     */
+    public CodeWriter append(String s) {
+        int offset = 0;
+        int remaining = s.length();
+
+        while (remaining > 0) {
+            if (this.length == this.buffer.length)
+                makeRoom();
+
+            int n = Math.min(remaining, this.buffer.length - this.length);
+            s.getChars(offset, offset + n, this.buffer, this.length);
+            this.length += n;
+            offset += n;
+            remaining -= n;
+        }
+
+        return this;
+    }
+
+    /**
+     * Appends the code kept in memory by another writer.
+     *
+     * @param code - Code writer
+     * @return This writer
+     * @throws IllegalStateException if the other writer handed its code to an underlying writer
+     */
+    public CodeWriter append(CodeWriter code) {
+        if (code.out != null)
+            throw new IllegalStateException("Generated code was written out, not kept in memory");
+
+        int offset = 0;
+        int remaining = code.length;
+
+        while (remaining > 0) {
+            if (this.length == this.buffer.length)
+                makeRoom();
+
+            int n = Math.min(remaining, this.buffer.length - this.length);
+            System.arraycopy(code.buffer, offset, this.buffer, this.length, n);
+            this.length += n;
+            offset += n;
+            remaining -= n;
+        }
+
+        return this;
+    }
+
+    /**
+     * Appends the decimal representation of an integer.
+     *
+     * @param i - Integer
+     * @return This writer
+     */
+    public CodeWriter append(int i) {
+        return append(Integer.toString(i));
+    }
+
+    /**
+     * Hands the buffered characters to the underlying writer and flushes it.
+     */
+    public void flush() {
+        if (this.out == null)
+            return;
+
+        try {
+            this.out.write(this.buffer, 0, this.length);
+            this.length = 0;
+            this.out.flush();
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    /**
+     * Flushes and closes the underlying writer.
+     *
+     * @throws IOException if the underlying writer fails
+     */
+    @Override
+    public void close() throws IOException {
+        if (this.out == null)
+            return;
+
+        try {
+            flush();
+        } catch (UncheckedIOException e) {
+            throw e.getCause();
+        } finally {
+            this.out.close();
+        }
+    }
+
+    /**
+     * Return the code kept in memory.
+     *
+     * @throws IllegalStateException if the code was handed to an underlying writer
+     */
+    @Override
+    public String toString() {
+        if (this.out != null)
+            throw new IllegalStateException("Generated code was written out, not kept in memory");
+
+        return new String(this.buffer, 0, this.length);
+    }
+
+    /**
+     * Frees up the buffer, by handing its characters to the underlying writer, or by growing it if
+     * the code is kept in memory.
+     */
+    private void makeRoom() {
+        if (this.out == null) {
+            this.buffer = Arrays.copyOf(this.buffer, 2 * this.buffer.length);
+            return;
+        }
+
+        try {
+            this.out.write(this.buffer, 0, this.length);
+            this.length = 0;
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+}
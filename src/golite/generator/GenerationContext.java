@@ -0,0 +1,53 @@
+package golite.generator;
+
+import golite.node.*;
+import golite.symbol.*;
+import java.util.*;
+
+/**
+ * Per-compilation state of the code generator.
+ *
+ * Everything that changes while a program is being generated lives here rather than in the
+ * generator itself, so that a fresh context per run is all that's needed for generators to be
+ * used concurrently, each on its own program.
+ */
+class GenerationContext {
+
+    /** Sink for the generated python code. */
+    final CodeWriter out;
+    /** Keep track of how many tabs need to be added. */
+    int tabDepth = 0;
+    /** Keep track of the end statement of for loop. */
+    final Stack<PStmt> forEndStmts = new Stack<PStmt>();
+    /** Tracks whether the traversal is inside a type specification. */
+    boolean inTypeSpec = false;
+    /** Tracks whether the traversal is inside a struct type expression. */
+    boolean inStructTypeExpr = false;
+    /** Tracks whether main function has been generated */
+    boolean generatedMain = false;
+    /** Symbol table. */
+    final SymbolTable symbolTable;
+    /** History of the 0th and global scopes (null unless generating function bodies in parallel). */
+    SymbolTableHistory history = null;
+
+    /**
+     * Constructor
+     *
+     * @param out - Sink for the generated python code
+     */
+    GenerationContext(CodeWriter out) {
+        this(out, new SymbolTable());
+    }
+
+    /**
+     * Constructor
+     *
+     * @param out - Sink for the generated python code
+     * @param symbolTable - Symbol table (e.g. shared with another context, or forked off one)
+     */
+    GenerationContext(CodeWriter out, SymbolTable symbolTable) {
+        this.out = out;
+        this.symbolTable = symbolTable;
+    }
+
+}
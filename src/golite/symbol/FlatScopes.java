@@ -0,0 +1,110 @@
+package golite.symbol;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+
+/**
+ * Scopes stored as a single map from each name to the stack of its bindings, innermost on top.
+ *
+ * The innermost binding of a name, and so its symbol and scope depth, is found with a single hash
+ * lookup however deeply the scopes are nested. Exiting a scope pops the bindings it made, and the
+ * scopes themselves are kept in a list indexed by depth.
+ */
+class FlatScopes implements Scopes {
+
+	/**
+	 * Binding of a name in a scope, linked to the binding it shadows.
+	 */
+	private static class Binding {
+
+		/** Symbol. */
+		Symbol symbol;
+		/** Depth of the scope. */
+		final int depth;
+		/** Shadowed binding (null if none). */
+		final Binding shadowed;
+
+		/**
+		 * Constructor.
+		 *
+		 * @param symbol - Symbol
+		 * @param depth - Depth of the scope
+		 * @param shadowed - Shadowed binding
+		 */
+		Binding(Symbol symbol, int depth, Binding shadowed) {
+			this.symbol = symbol;
+			this.depth = depth;
+			this.shadowed = shadowed;
+		}
+
+	}
+
+	/** Innermost binding of each name. */
+	private final HashMap<String, Binding> bindings = new HashMap<String, Binding>();
+	/** Bindings of each scope in declaration order, outermost first. */
+	private final ArrayList<LinkedHashMap<String, Symbol>> scopes =
+		new ArrayList<LinkedHashMap<String, Symbol>>();
+
+	@Override
+	public void push() {
+		this.scopes.add(new LinkedHashMap<String, Symbol>());
+	}
+
+	@Override
+	public void pop() {
+		LinkedHashMap<String, Symbol> scope = this.scopes.remove(this.scopes.size() - 1);
+
+		// Unshadow the bindings the scope made.
+		for (String name : scope.keySet()) {
+			Binding shadowed = this.bindings.get(name).shadowed;
+			if (shadowed == null)
+				this.bindings.remove(name);
+			else
+				this.bindings.put(name, shadowed);
+		}
+	}
+
+	@Override
+	public int size() {
+		return this.scopes.size();
+	}
+
+	@Override
+	public void put(String name, Symbol symbol) {
+		int depth = this.scopes.size() - 1;
+		this.scopes.get(depth).put(name, symbol);
+
+		Binding binding = this.bindings.get(name);
+		// Redefinition in the same scope replaces the binding.
+		if (binding != null && binding.depth == depth)
+			binding.symbol = symbol;
+		else
+			this.bindings.put(name, new Binding(symbol, depth, binding));
+	}
+
+	@Override
+	public Symbol get(String name) {
+		Binding binding = this.bindings.get(name);
+		return (binding == null) ? null : binding.symbol;
+	}
+
+	@Override
+	public int depthOf(String name) {
+		Binding binding = this.bindings.get(name);
+		return (binding == null) ? -1 : binding.depth;
+	}
+
+	@Override
+	public Map<String, Symbol> current() {
+		return this.scopes.get(this.scopes.size() - 1);
+	}
+
+	@Override
+	public Map<String, Symbol> at(int depth) {
+		return (depth < 0 || depth >= this.scopes.size()) ? null : this.scopes.get(depth);
+	}
+
+}
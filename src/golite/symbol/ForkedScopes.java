@@ -0,0 +1,131 @@
+package golite.symbol;
+
+import java.util.List;
+import java.util.Map;
+
+
+/**
+ * Scopes stacked on a frozen copy of the outermost scopes of another table.
+ *
+ * The frozen scopes are never changed, so any number of forks can share them, from any thread.
+ * Each fork enters and exits scopes of its own on top of them, kept as flat scopes whose depths
+ * are offset by the number of frozen scopes.
+ */
+class ForkedScopes implements Scopes {
+
+	/** Frozen scopes, outermost first. */
+	private final List<Map<String, Symbol>> frozen;
+	/** Scopes entered on top of the frozen ones (null for the frozen scopes on their own). */
+	private final FlatScopes local;
+
+	/**
+	 * Constructor.
+	 *
+	 * @param frozen - Frozen scopes, outermost first
+	 * @param local - Scopes to enter on top of the frozen ones (null to allow none)
+	 */
+	ForkedScopes(List<Map<String, Symbol>> frozen, FlatScopes local) {
+		this.frozen = frozen;
+		this.local = local;
+	}
+
+	/**
+	 * @return True if these are the frozen scopes on their own (i.e. they can be forked)
+	 */
+	boolean isFrozen() {
+		return this.local == null;
+	}
+
+	/**
+	 * @return New scopes stacked on the same frozen scopes
+	 */
+	ForkedScopes fork() {
+		return new ForkedScopes(this.frozen, new FlatScopes());
+	}
+
+	/**
+	 * @return Number of scopes entered on top of the frozen ones
+	 */
+	private int localSize() {
+		return (this.local == null) ? 0 : this.local.size();
+	}
+
+	@Override
+	public void push() {
+		if (this.local == null)
+			throw new UnsupportedOperationException("Frozen scopes");
+
+		this.local.push();
+	}
+
+	@Override
+	public void pop() {
+		if (this.localSize() == 0)
+			throw new UnsupportedOperationException("Frozen scope");
+
+		this.local.pop();
+	}
+
+	@Override
+	public int size() {
+		return this.frozen.size() + this.localSize();
+	}
+
+	@Override
+	public void put(String name, Symbol symbol) {
+		if (this.localSize() == 0)
+			throw new UnsupportedOperationException("Frozen scope");
+
+		this.local.put(name, symbol);
+	}
+
+	@Override
+	public Symbol get(String name) {
+		if (this.localSize() > 0) {
+			Symbol symbol = this.local.get(name);
+			if (symbol != null)
+				return symbol;
+		}
+
+		for (int i = this.frozen.size() - 1; i >= 0; i--) {
+			Symbol symbol = this.frozen.get(i).get(name);
+			if (symbol != null)
+				return symbol;
+		}
+
+		return null;
+	}
+
+	@Override
+	public int depthOf(String name) {
+		if (this.localSize() > 0) {
+			int depth = this.local.depthOf(name);
+			if (depth != -1)
+				return this.frozen.size() + depth;
+		}
+
+		for (int i = this.frozen.size() - 1; i >= 0; i--) {
+			if (this.frozen.get(i).get(name) != null)
+				return i;
+		}
+
+		return -1;
+	}
+
+	@Override
+	public Map<String, Symbol> current() {
+		return (this.localSize() > 0) ? this.local.current()
+			: this.frozen.get(this.frozen.size() - 1);
+	}
+
+	@Override
+	public Map<String, Symbol> at(int depth) {
+		if (depth < 0)
+			return null;
+		else if (depth < this.frozen.size())
+			return this.frozen.get(depth);
+		else
+			return (this.local == null) ? null : this.local.at(depth - this.frozen.size());
+	}
+
+}
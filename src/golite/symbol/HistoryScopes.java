@@ -0,0 +1,104 @@
+package golite.symbol;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+
+/**
+ * Scopes stacked on the outermost scopes of another table, as they stood at a point of their
+ * {@link SymbolTableHistory}.
+ *
+ * Symbols of the outermost scopes are looked up in the history (which only changes before the
+ * scopes are used), and the scopes entered on top of them are kept as flat scopes of their own,
+ * whose depths are offset by the number of outermost scopes.
+ */
+class HistoryScopes implements Scopes {
+
+	/** History of the outermost scopes. */
+	private final SymbolTableHistory history;
+	/** Number of puts of the history the outermost scopes stand after. */
+	private final int size;
+	/** Scopes entered on top of the outermost ones. */
+	private final FlatScopes local = new FlatScopes();
+
+	/**
+	 * Constructor.
+	 *
+	 * @param history - History of the outermost scopes
+	 * @param size - Number of puts the outermost scopes stand after
+	 */
+	HistoryScopes(SymbolTableHistory history, int size) {
+		this.history = history;
+		this.size = size;
+	}
+
+	@Override
+	public void push() {
+		this.local.push();
+	}
+
+	@Override
+	public void pop() {
+		if (this.local.size() == 0)
+			throw new UnsupportedOperationException("Recorded scope");
+
+		this.local.pop();
+	}
+
+	@Override
+	public int size() {
+		return this.history.getDepth() + this.local.size();
+	}
+
+	@Override
+	public void put(String name, Symbol symbol) {
+		if (this.local.size() == 0)
+			throw new UnsupportedOperationException("Recorded scope");
+
+		this.local.put(name, symbol);
+	}
+
+	@Override
+	public Symbol get(String name) {
+		Symbol symbol = this.local.get(name);
+		if (symbol != null)
+			return symbol;
+
+		int i = this.history.lastPut(name, this.size);
+		return (i == -1) ? null : this.history.symbolAt(i);
+	}
+
+	@Override
+	public int depthOf(String name) {
+		int depth = this.local.depthOf(name);
+		if (depth != -1)
+			return this.history.getDepth() + depth;
+
+		int i = this.history.lastPut(name, this.size);
+		return (i == -1) ? -1 : this.history.depthAt(i);
+	}
+
+	@Override
+	public Map<String, Symbol> current() {
+		return (this.local.size() > 0) ? this.local.current()
+			: this.at(this.history.getDepth() - 1);
+	}
+
+	@Override
+	public Map<String, Symbol> at(int depth) {
+		if (depth < 0)
+			return null;
+		else if (depth >= this.history.getDepth())
+			return this.local.at(depth - this.history.getDepth());
+
+		// Replay the puts into the scope.
+		LinkedHashMap<String, Symbol> scope = new LinkedHashMap<String, Symbol>();
+		for (int i = 0; i < this.size; i++) {
+			if (this.history.depthAt(i) == depth)
+				scope.put(this.history.symbolAt(i).getName(), this.history.symbolAt(i));
+		}
+
+		return scope;
+	}
+
+}
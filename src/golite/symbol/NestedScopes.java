@@ -0,0 +1,82 @@
+package golite.symbol;
+
+import java.util.ArrayDeque;
+import java.util.Deque;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+
+/**
+ * Scopes stored as a stack of hash maps, one per scope.
+ *
+ * Lookups walk the scopes from innermost to outermost, so their cost grows with the nesting depth.
+ */
+class NestedScopes implements Scopes {
+
+	/** Scopes, innermost first. */
+	private final Deque<LinkedHashMap<String, Symbol>> scopes =
+		new ArrayDeque<LinkedHashMap<String, Symbol>>();
+
+	@Override
+	public void push() {
+		this.scopes.push(new LinkedHashMap<String, Symbol>());
+	}
+
+	@Override
+	public void pop() {
+		this.scopes.pop();
+	}
+
+	@Override
+	public int size() {
+		return this.scopes.size();
+	}
+
+	@Override
+	public void put(String name, Symbol symbol) {
+		this.scopes.peek().put(name, symbol);
+	}
+
+	@Override
+	public Symbol get(String name) {
+		for (LinkedHashMap<String, Symbol> scope : this.scopes) {
+			Symbol symbol = scope.get(name);
+			if (symbol != null)
+				return symbol;
+		}
+
+		return null;
+	}
+
+	@Override
+	public int depthOf(String name) {
+		int i = this.scopes.size() - 1;
+		for (LinkedHashMap<String, Symbol> scope : this.scopes) {
+			if (scope.get(name) != null)
+				return i;
+
+			i--;
+		}
+
+		return -1;
+	}
+
+	@Override
+	public Map<String, Symbol> current() {
+		return this.scopes.peek();
+	}
+
+	@Override
+	public Map<String, Symbol> at(int depth) {
+		int i = this.scopes.size() - 1;
+		for (LinkedHashMap<String, Symbol> scope : this.scopes) {
+			if (depth == i)
+				return scope;
+
+			i--;
+		}
+
+		return null;
+	}
+
+}
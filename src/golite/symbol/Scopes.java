@@ -0,0 +1,60 @@
+package golite.symbol;
+
+import java.util.Map;
+
+
+/**
+ * Storage of the scopes of a {@link SymbolTable}.
+ *
+ * Scope depths count from the outermost scope, which is at depth 0.
+ */
+interface Scopes {
+
+	/**
+	 * Enters a new innermost scope.
+	 */
+	void push();
+
+	/**
+	 * Exits the innermost scope.
+	 */
+	void pop();
+
+	/**
+	 * @return Number of scopes
+	 */
+	int size();
+
+	/**
+	 * Binds a name to a symbol in the innermost scope.
+	 *
+	 * @param name - Name
+	 * @param symbol - Symbol
+	 */
+	void put(String name, Symbol symbol);
+
+	/**
+	 * @param name - Name
+	 * @return Innermost symbol bound to the name, or null if there's none
+	 */
+	Symbol get(String name);
+
+	/**
+	 * @param name - Name
+	 * @return Depth of the innermost scope binding the name, or -1 if there's none
+	 */
+	int depthOf(String name);
+
+	/**
+	 * @return Bindings of the innermost scope, in declaration order
+	 */
+	Map<String, Symbol> current();
+
+	/**
+	 * @param depth - Scope depth
+	 * @return Bindings of the scope at the given depth, in declaration order, or null if there's
+	 *  no such scope
+	 */
+	Map<String, Symbol> at(int depth);
+
+}
@@ -46,6 +46,14 @@ public abstract class Symbol {
 		return this.node;
 	}
 
+	/**
+	 * Drops the AST node of the declaration, so that a symbol kept after its declaration is
+	 * compiled doesn't keep the declaration's AST alive.
+	 */
+	public void clearNode() {
+		this.node = null;
+	}
+
 	// Equality performed on the symbol name.
 	@Override
     public boolean equals(Object o) {
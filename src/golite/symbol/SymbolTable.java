@@ -3,13 +3,11 @@ package golite.symbol;
 import golite.exception.SymbolTableException;
 import golite.type.GoLiteType;
 
-import java.lang.StringBuilder;
-import java.util.ArrayDeque;
+import java.util.ArrayList;
 import java.util.Collection;
-import java.util.Deque;
-import java.util.Iterator;
+import java.util.Collections;
 import java.util.LinkedHashMap;
-import java.util.LinkedList;
+import java.util.List;
 import java.util.Map;
 
 
@@ -18,35 +16,91 @@ import java.util.Map;
  */
 public class SymbolTable {
 
-	/** Scopes are stored in a deque, with each scope represented as a hash map from identifier to
-	  * symbol. */
-	private Deque<LinkedHashMap<String, Symbol>> scopes;
-	/** Logs the actions performed on the symbol table. */
-	private StringBuilder logger;
+	/** Scopes, with each scope mapping identifiers to symbols. */
+	private Scopes scopes;
+	/** Listener to the actions performed on the symbol table. */
+	private SymbolTableListener listener;
 
 	/**
-	 * Constructor.
+	 * Constructor (Flat scopes).
 	 */
 	public SymbolTable() {
-		this.scopes = new ArrayDeque<LinkedHashMap<String, Symbol>>();
-		this.logger = new StringBuilder();
+		this(true);
+	}
+
+	/**
+	 * Constructor.
+	 *
+	 * @param flat - Flag indicating whether to look symbols up in a single map of bindings, in
+	 *  constant time, rather than by walking the scopes from innermost to outermost
+	 */
+	public SymbolTable(boolean flat) {
+		this(flat ? new FlatScopes() : new NestedScopes());
+	}
+
+	/**
+	 * Constructor.
+	 *
+	 * @param scopes - Scopes
+	 */
+	SymbolTable(Scopes scopes) {
+		this.scopes = scopes;
+		this.listener = SymbolTableListener.NONE;
+	}
+
+	/**
+	 * Returns a frozen copy of the scopes entered so far, which later changes to this table don't
+	 * affect. Symbols can be looked up in it, but no scope entered, exited or changed; for that,
+	 * fork it (See {@link #fork()}).
+	 *
+	 * @return Frozen symbol table
+	 */
+	public SymbolTable freeze() {
+		List<Map<String, Symbol>> frozen = new ArrayList<Map<String, Symbol>>();
+		for (int i = 0; i < this.scopes.size(); i++)
+			frozen.add(Collections.unmodifiableMap(
+				new LinkedHashMap<String, Symbol>(this.scopes.at(i))));
+
+		return new SymbolTable(new ForkedScopes(frozen, null));
+	}
+
+	/**
+	 * Returns a new table stacked on the scopes of this frozen table, which enters and exits
+	 * scopes of its own on top of them. Forks of the same frozen table share its scopes, but not
+	 * their own, so each can be used by a different thread.
+	 *
+	 * @return Forked symbol table (with no listener)
+	 * @throws SymbolTableException if the table isn't frozen
+	 */
+	public SymbolTable fork() {
+		if (!(this.scopes instanceof ForkedScopes) || !((ForkedScopes) this.scopes).isFrozen())
+			throw new SymbolTableException("Only a frozen symbol table can be forked");
 
-		this.log("(KIND\tNAME\tTYPE)");
-		this.log("");
+		return new SymbolTable(((ForkedScopes) this.scopes).fork());
 	}
 
-	// Adds the given string to the internal logger.
-	private void log(String s) {
-        this.logger.append(s);
-        this.logger.append(System.getProperty("line.separator"));
-    }
+	/**
+	 * Getter.
+	 */
+	public SymbolTableListener getListener() {
+		return this.listener;
+	}
+
+	/**
+	 * Setter.
+	 *
+	 * @param listener - Listener to the actions performed on the table from now on
+	 */
+	public void setListener(SymbolTableListener listener) {
+		this.listener = listener;
+	}
 
     /**
      * Enter a scope, pushing it onto the stack.
      */
 	public void scope() {
-		this.scopes.push(new LinkedHashMap<String, Symbol>());
-		this.log("ENTER SCOPE");
+		this.scopes.push();
+		this.listener.scoped();
 	}
 
 	/**
@@ -54,7 +108,16 @@ public class SymbolTable {
      */
 	public void unscope() {
 		this.scopes.pop();
-		this.log("EXIT SCOPE");
+		this.listener.unscoped();
+	}
+
+	/**
+	 * Returns the number of scopes entered and not exited yet.
+	 *
+	 * @return Number of scopes
+	 */
+	public int getScopeCount() {
+		return this.scopes.size();
 	}
 
 	/**
@@ -74,15 +137,11 @@ public class SymbolTable {
 	 * @throws SymbolTableException if no symbol with the given name exists.
 	 */
 	public int getScopeDepth(String name) {
-		int i = this.scopes.size() - 1;
-		for (LinkedHashMap<String, Symbol> scope : this.scopes) {
-			if (scope.get(name) != null)
-				return i;
-
-			i--;
-		}
+		int depth = this.scopes.depthOf(name);
+		if (depth == -1)
+			throw new SymbolTableException(name + " not in Symbol table");
 
-		throw new SymbolTableException(name + " not in Symbol table");
+		return depth;
 	}
 
 	/**
@@ -92,14 +151,7 @@ public class SymbolTable {
      * @return The symbol if it exists, null otherwise
      */
 	public Symbol getSymbol(String name) {
-		Symbol symbol = null;
-		for (LinkedHashMap<String, Symbol> scope : this.scopes) {
-			symbol = scope.get(name);
-			if (symbol != null)
-				break;
-		}
-
-		return symbol;
+		return this.scopes.get(name);
 	}
 
 	/**
@@ -121,7 +173,7 @@ public class SymbolTable {
 	 * @return Corresponding symbol if it exists, null otherwise
 	 */
 	public Symbol getSymbolFromCurrentScope(String name) {
-		return this.scopes.peek().get(name);
+		return this.scopes.current().get(name);
 	}
 
 	/**
@@ -130,7 +182,7 @@ public class SymbolTable {
 	 * @return Collection of symbols in the current scope
 	 */
 	public Collection<Symbol> getSymbolsFromCurrentScope() {
-		return this.scopes.peek().values();
+		return this.scopes.current().values();
 	}
 
 	/**
@@ -141,15 +193,11 @@ public class SymbolTable {
 	 * @throws SymbolTableException if the scope depth is invalid
 	 */
 	public Collection<Symbol> getSymbolsFromScope(int scopeDepth) {
-		int i = this.scopes.size() - 1;
-		for (LinkedHashMap<String, Symbol> scope : this.scopes) {
-			if (scopeDepth == i)
-				return scope.values();
-
-			i--;
-		}
+		Map<String, Symbol> scope = this.scopes.at(scopeDepth);
+		if (scope == null)
+			throw new SymbolTableException("Invalid scope depth " + scopeDepth);
 
-		throw new SymbolTableException("Invalid scope depth " + scopeDepth);
+		return scope.values();
 	}
 
 	/**
@@ -159,9 +207,9 @@ public class SymbolTable {
 	 */
 	public void putSymbol(Symbol symbol) {
 		String name = symbol.getName();
-		this.scopes.peek().put(name, symbol);
+		this.scopes.put(name, symbol);
 
-		this.log(symbol.getClass().getSimpleName() + "\t" + name + "\t" + symbol.getTypeString());
+		this.listener.symbolPut(symbol);
 	}
 
 	/**
@@ -184,15 +232,6 @@ public class SymbolTable {
 		return (this.getSymbol(name) != null);
 	}
 
-	/**
-	 * Get the symbol table activity log.
-	 *
-	 * @return Activity log as a string
-	 */
-	public String getLog() {
-		return this.logger.toString();
-	}
-
 	@Override
 	public String toString() {
 		StringBuilder s = new StringBuilder();
@@ -200,12 +239,10 @@ public class SymbolTable {
 		s.append("(KIND\tNAME\tTYPE\tUNDERLYING TYPE)\n\n");
 
 		// Iterate over the scopes from outermost to innermost.
-		Iterator<LinkedHashMap<String, Symbol>> scopeIter = this.scopes.descendingIterator();
-		int i = 0;
-		while (scopeIter.hasNext()) {
+		for (int i = 0; i < this.scopes.size(); i++) {
 			s.append("SCOPE #" + i + "\n");
 
-			LinkedHashMap<String, Symbol> scope = scopeIter.next();
+			Map<String, Symbol> scope = this.scopes.at(i);
 			for (Map.Entry<String, Symbol> entry : scope.entrySet()) {
 			    String name = entry.getKey();
 			    Symbol symbol = entry.getValue();
@@ -215,7 +252,6 @@ public class SymbolTable {
 			}
 
 			s.append("\n");
-			i++;
 		}
 
 		s.setLength(s.length() - 1);
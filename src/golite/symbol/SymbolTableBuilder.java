@@ -4,14 +4,10 @@ import golite.exception.SymbolTableException;
 import golite.exception.TypeException;
 import golite.type.AliasType;
 import golite.type.ArrayType;
-import golite.type.BoolType;
-import golite.type.FloatType;
 import golite.type.GoLiteType;
-import golite.type.IntType;
-import golite.type.RuneType;
 import golite.type.SliceType;
-import golite.type.StringType;
 import golite.type.StructType;
+import golite.type.TypeFactory;
 import golite.util.LineAndPosTracker;
 import golite.analysis.*;
 import golite.node.*;
@@ -30,9 +26,8 @@ public class SymbolTableBuilder extends DepthFirstAdapter {
 
 	/** Symbol table. */
 	private SymbolTable table;
-    
-    /** Line and position tracker for AST nodes. */
-    private LineAndPosTracker lineAndPosTracker = new LineAndPosTracker();
+	/** Listener to the activity of the symbol table. */
+	private SymbolTableListener listener = SymbolTableListener.NONE;
 
     /** Makes the first pass over the program to initialize the table with top-level declarations. */
     private static class FirstPasser extends DepthFirstAdapter {
@@ -40,18 +35,13 @@ public class SymbolTableBuilder extends DepthFirstAdapter {
         /** Symbol table. */
         private SymbolTable table;
 
-        /** Line and position tracker for AST nodes. */
-        private LineAndPosTracker lineAndPosTracker;
-
         /**
          * Constructor.
          *
          * @param table - Symbol table
-         * @param lineAndPosTracker - Initialized line and position tracker
          */
-        public FirstPasser(SymbolTable table, LineAndPosTracker lineAndPosTracker) {
+        public FirstPasser(SymbolTable table) {
             this.table = table;
-            this.lineAndPosTracker = lineAndPosTracker;
         }
 
         /**
@@ -73,15 +63,15 @@ public class SymbolTableBuilder extends DepthFirstAdapter {
                 return null;
 
             if (node instanceof ABoolTypeExpr)
-                return new BoolType();
+                return TypeFactory.BOOL;
             else if (node instanceof AIntTypeExpr)
-                return new IntType();
+                return TypeFactory.INT;
             else if (node instanceof AFloatTypeExpr)
-                return new FloatType();
+                return TypeFactory.FLOAT;
             else if (node instanceof ARuneTypeExpr)
-                return new RuneType();
+                return TypeFactory.RUNE;
             else if (node instanceof AStringTypeExpr)
-                return new StringType();
+                return TypeFactory.STRING;
             else if (node instanceof AAliasTypeExpr)
                 return new UnTypedAliasType(((AAliasTypeExpr) node).getId().getText());
             else if (node instanceof AArrayTypeExpr) {
@@ -97,12 +87,13 @@ public class SymbolTableBuilder extends DepthFirstAdapter {
                 else 
                     this.throwSymbolTableException(pExpr, "Non-integer array bound");
 
-                return new ArrayType(getType(((AArrayTypeExpr) node).getTypeExpr()),
+                return TypeFactory.arrayOf(getType(((AArrayTypeExpr) node).getTypeExpr()),
                     bound);
             } else if (node instanceof ASliceTypeExpr)
-                return new SliceType(getType(((ASliceTypeExpr) node).getTypeExpr()));
+                return TypeFactory.sliceOf(getType(((ASliceTypeExpr) node).getTypeExpr()));
             else if (node instanceof AStructTypeExpr) {
-                StructType structType = new StructType();
+                ArrayList<String> structIds = new ArrayList<String>();
+                ArrayList<GoLiteType> structTypes = new ArrayList<GoLiteType>();
 
                 // Keep track of the field Id's to ensure there are no duplicates.
                 HashSet<String> fieldIds = new HashSet<String>();
@@ -123,14 +114,14 @@ public class SymbolTableBuilder extends DepthFirstAdapter {
                                 this.throwSymbolTableException(id,
                                     "Duplicate field " + id.getText());
 
-                            structType.addField(id.getText(),
-                                getType(((ASpecFieldSpec) pFieldSpec).getTypeExpr()));
+                            structIds.add(id.getText());
+                            structTypes.add(getType(((ASpecFieldSpec) pFieldSpec).getTypeExpr()));
                             fieldIds.add(id.getText());
                         }
                     }
                 }
 
-                return structType;
+                return TypeFactory.structOf(structIds, structTypes);
             }
 
             return null;
@@ -145,8 +136,8 @@ public class SymbolTableBuilder extends DepthFirstAdapter {
          * @throws SymbolTableException
          */
         private void throwSymbolTableException(Node node, String msg) {
-            Integer line = this.lineAndPosTracker.getLine(node);
-            Integer pos = this.lineAndPosTracker.getPos(node);
+            int line = LineAndPosTracker.getLine(node);
+            int pos = LineAndPosTracker.getPos(node);
 
             throw new SymbolTableException("[" + line + "," + pos + "] " + msg);
         }
@@ -260,8 +251,8 @@ public class SymbolTableBuilder extends DepthFirstAdapter {
      * @throws SymbolTableException
      */
     private void throwSymbolTableException(Node node, String msg) {
-        Integer line = this.lineAndPosTracker.getLine(node);
-        Integer pos = this.lineAndPosTracker.getPos(node);
+        int line = LineAndPosTracker.getLine(node);
+        int pos = LineAndPosTracker.getPos(node);
 
         throw new SymbolTableException("[" + line + "," + pos + "] " + msg);
     }
@@ -272,20 +263,27 @@ public class SymbolTableBuilder extends DepthFirstAdapter {
     public SymbolTable getTable() {
         return this.table;
     }
+
+    /**
+     * Setter.
+     *
+     * @param listener - Listener to the activity of the symbol table built
+     */
+    public void setSymbolTableListener(SymbolTableListener listener) {
+        this.listener = listener;
+    }
 	
     // Intialize the 0th scope.
 	@Override
     public void inStart(Start node) {
-    	// Gather all line and position information.
-        node.apply(this.lineAndPosTracker);
-
          // Enter the 0th scope.
         this.table = new SymbolTable();
+        this.table.setListener(this.listener);
         this.table.scope();
 
         // Initialize boolean literals.
-        Symbol trueSymbol = new VariableSymbol("true", new BoolType(), node);
-        Symbol falseSymbol = new VariableSymbol("false", new BoolType(), node);
+        Symbol trueSymbol = new VariableSymbol("true", TypeFactory.BOOL, node);
+        Symbol falseSymbol = new VariableSymbol("false", TypeFactory.BOOL, node);
         this.table.putSymbol(trueSymbol);
         this.table.putSymbol(falseSymbol);
     }
@@ -297,7 +295,7 @@ public class SymbolTableBuilder extends DepthFirstAdapter {
         this.table.scope();
 
         // Make the first pass.
-        FirstPasser firstPasser = new FirstPasser(this.table, this.lineAndPosTracker);
+        FirstPasser firstPasser = new FirstPasser(this.table);
         node.apply(firstPasser);
     }
 
@@ -351,7 +349,7 @@ public class SymbolTableBuilder extends DepthFirstAdapter {
 
             // Get the resolved type for the aliased type, which could be a type alias.
             aliases.push(alias);
-            AliasType aliasType = new AliasType(alias,
+            AliasType aliasType = TypeFactory.aliasOf(alias,
                 this.getResolvedType(aliasedType, aliases));
             aliases.pop();
 
@@ -362,26 +360,27 @@ public class SymbolTableBuilder extends DepthFirstAdapter {
             GoLiteType arrayType = ((ArrayType) type).getType();
 
             // Get the resolved type for the element type, which could include a type alias.
-            return new ArrayType(this.getResolvedType(arrayType, aliases), bound);
+            return TypeFactory.arrayOf(this.getResolvedType(arrayType, aliases), bound);
         // Slice.
         } else if (type instanceof SliceType) {
             GoLiteType sliceType = ((SliceType) type).getType();
 
             // Get the resolved type for the element type, which could include a type alias.
-            return new SliceType(this.getResolvedType(sliceType, aliases));
+            return TypeFactory.sliceOf(this.getResolvedType(sliceType, aliases));
         // Struct.
         } else if (type instanceof StructType) {
-            StructType resolvedStructType = new StructType();
+            ArrayList<String> resolvedStructIds = new ArrayList<String>();
+            ArrayList<GoLiteType> resolvedStructTypes = new ArrayList<GoLiteType>();
 
             // Get the resolved type for each field type.
             Iterator<StructType.Field> fieldIter = ((StructType) type).getFieldIterator();
             while (fieldIter.hasNext()) {
                 StructType.Field field = fieldIter.next();
-                resolvedStructType.addField(field.getId(),
-                    this.getResolvedType(field.getType(), aliases));
+                resolvedStructIds.add(field.getId());
+                resolvedStructTypes.add(this.getResolvedType(field.getType(), aliases));
             }
 
-            return resolvedStructType;   
+            return TypeFactory.structOf(resolvedStructIds, resolvedStructTypes);   
         // Untyped alias.             
         } else if (type instanceof UnTypedAliasType) {
             String alias = ((UnTypedAliasType) type).getAlias();
@@ -399,7 +398,7 @@ public class SymbolTableBuilder extends DepthFirstAdapter {
 
             // Return a typed alias type with the aliased type fully resolved.
             aliases.push(alias);
-            AliasType aliasType = new AliasType(alias,
+            AliasType aliasType = TypeFactory.aliasOf(alias,
                 this.getResolvedType(typeAliasSymbol.getType(), aliases));
             aliases.pop();
 
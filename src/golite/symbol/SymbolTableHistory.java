@@ -0,0 +1,126 @@
+package golite.symbol;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+
+
+/**
+ * Listener keeping the history of the symbols put into the outermost scopes of a table, so that
+ * the table can be forked as it stood at any point of it (See {@link #fork(int)}) without copying
+ * it each time (e.g. once per function of a program, to generate the bodies on).
+ *
+ * The history must no longer change once forks of it are used from other threads.
+ */
+public class SymbolTableHistory implements SymbolTableListener {
+
+	/** Number of outermost scopes recorded. */
+	private final int depth;
+	/** Number of scopes the table has entered and not exited. */
+	private int scopes = 0;
+
+	/** Symbols put, in order. */
+	private final ArrayList<Symbol> symbols = new ArrayList<Symbol>();
+	/** Depth of the scope each symbol was put into, in order. */
+	private final ArrayList<Integer> depths = new ArrayList<Integer>();
+	/** Positions in the history of the puts of each name, in order. */
+	private final HashMap<String, ArrayList<Integer>> puts = new HashMap<String, ArrayList<Integer>>();
+
+	/**
+	 * Constructor.
+	 *
+	 * @param depth - Number of outermost scopes to record (e.g. 2 for the 0th and global scopes)
+	 */
+	public SymbolTableHistory(int depth) {
+		this.depth = depth;
+	}
+
+	@Override
+	public void scoped() {
+		this.scopes++;
+	}
+
+	@Override
+	public void unscoped() {
+		this.scopes--;
+	}
+
+	@Override
+	public void symbolPut(Symbol symbol) {
+		if (this.scopes > this.depth)
+			return;
+
+		ArrayList<Integer> puts = this.puts.get(symbol.getName());
+		if (puts == null) {
+			puts = new ArrayList<Integer>(1);
+			this.puts.put(symbol.getName(), puts);
+		}
+
+		puts.add(this.symbols.size());
+		this.symbols.add(symbol);
+		this.depths.add(this.scopes - 1);
+	}
+
+	/**
+	 * Returns the number of symbols put into the outermost scopes so far.
+	 *
+	 * @return Size of the history
+	 */
+	public int size() {
+		return this.symbols.size();
+	}
+
+	/**
+	 * Returns a new table with the outermost scopes as they stood after a number of the puts
+	 * recorded, which enters and exits scopes of its own on top of them.
+	 *
+	 * @param size - Number of puts
+	 * @return Forked symbol table (with no listener)
+	 */
+	public SymbolTable fork(int size) {
+		return new SymbolTable(new HistoryScopes(this, size));
+	}
+
+	/**
+	 * @return Number of outermost scopes recorded
+	 */
+	int getDepth() {
+		return this.depth;
+	}
+
+	/**
+	 * Returns the last put of a name among a number of the first puts.
+	 *
+	 * @param name - Name
+	 * @param size - Number of puts
+	 * @return Position of the put in the history, or -1 if there's none
+	 */
+	int lastPut(String name, int size) {
+		ArrayList<Integer> puts = this.puts.get(name);
+		if (puts == null)
+			return -1;
+
+		for (int i = puts.size() - 1; i >= 0; i--) {
+			if (puts.get(i) < size)
+				return puts.get(i);
+		}
+
+		return -1;
+	}
+
+	/**
+	 * @param i - Position in the history
+	 * @return Symbol put
+	 */
+	Symbol symbolAt(int i) {
+		return this.symbols.get(i);
+	}
+
+	/**
+	 * @param i - Position in the history
+	 * @return Depth of the scope the symbol was put into
+	 */
+	int depthAt(int i) {
+		return this.depths.get(i);
+	}
+
+}
@@ -0,0 +1,32 @@
+package golite.symbol;
+
+
+/**
+ * Listener to the activity of a {@link SymbolTable}.
+ *
+ * Tables have no listener by default ({@link #NONE}), so that only the phases asking for their
+ * activity (e.g. dumping the symbol table) pay for rendering it.
+ */
+public interface SymbolTableListener {
+
+	/** Listener ignoring all activity. */
+	SymbolTableListener NONE = new SymbolTableListener() {};
+
+	/**
+	 * Called after a scope is entered.
+	 */
+	default void scoped() {}
+
+	/**
+	 * Called after a scope is exited.
+	 */
+	default void unscoped() {}
+
+	/**
+	 * Called after a symbol is put into the current scope.
+	 *
+	 * @param symbol - Symbol
+	 */
+	default void symbolPut(Symbol symbol) {}
+
+}
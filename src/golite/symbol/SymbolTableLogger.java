@@ -0,0 +1,61 @@
+package golite.symbol;
+
+import java.io.Closeable;
+import java.io.PrintWriter;
+import java.io.Writer;
+
+
+/**
+ * Symbol table listener writing out the activity of the table as it happens, one action per line.
+ */
+public class SymbolTableLogger implements SymbolTableListener, Closeable {
+
+	/** Writer the log is written to. */
+	private final PrintWriter out;
+
+	/**
+	 * Constructor.
+	 *
+	 * @param out - Writer to write the log to
+	 */
+	public SymbolTableLogger(Writer out) {
+		this.out = new PrintWriter(out);
+
+		this.out.println("(KIND\tNAME\tTYPE)");
+		this.out.println();
+	}
+
+	@Override
+	public void scoped() {
+		this.out.println("ENTER SCOPE");
+	}
+
+	@Override
+	public void unscoped() {
+		this.out.println("EXIT SCOPE");
+	}
+
+	@Override
+	public void symbolPut(Symbol symbol) {
+		this.out.println(symbol.getClass().getSimpleName() + "\t" + symbol.getName() + "\t"
+			+ symbol.getTypeString());
+	}
+
+	/**
+	 * Closes the log, and the underlying writer along with it.
+	 */
+	@Override
+	public void close() {
+		this.out.close();
+	}
+
+	/**
+	 * Checks whether writing the log failed.
+	 *
+	 * @return True if writing any of the log to the underlying writer failed, false otherwise
+	 */
+	public boolean checkError() {
+		return this.out.checkError();
+	}
+
+}
@@ -0,0 +1,51 @@
+package golite.symbol;
+
+import java.util.ArrayList;
+
+
+/**
+ * Listener recording the activity of a {@link SymbolTable}, to replay it to another listener
+ * later (e.g. in program order, for tables that were used in parallel).
+ */
+public class SymbolTableRecorder implements SymbolTableListener {
+
+	/** Marks a scope being entered. */
+	private static final Object SCOPED = new Object();
+	/** Marks a scope being exited. */
+	private static final Object UNSCOPED = new Object();
+
+	/** Activity, in order, as scope marks and the symbols put. */
+	private final ArrayList<Object> events = new ArrayList<Object>();
+
+	@Override
+	public void scoped() {
+		this.events.add(SCOPED);
+	}
+
+	@Override
+	public void unscoped() {
+		this.events.add(UNSCOPED);
+	}
+
+	@Override
+	public void symbolPut(Symbol symbol) {
+		this.events.add(symbol);
+	}
+
+	/**
+	 * Replays the activity recorded so far.
+	 *
+	 * @param listener - Listener to replay it to
+	 */
+	public void replay(SymbolTableListener listener) {
+		for (Object event : this.events) {
+			if (event == SCOPED)
+				listener.scoped();
+			else if (event == UNSCOPED)
+				listener.unscoped();
+			else
+				listener.symbolPut((Symbol) event);
+		}
+	}
+
+}
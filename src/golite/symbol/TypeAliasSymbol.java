@@ -2,6 +2,7 @@ package golite.symbol;
 
 import golite.type.AliasType;
 import golite.type.GoLiteType;
+import golite.type.TypeFactory;
 import golite.node.Node;
 
 
@@ -29,7 +30,7 @@ public class TypeAliasSymbol extends Symbol {
 	 * @return Alias type
 	 */
 	public AliasType getAliasType() {
-		return new AliasType(this.name, this.type);
+		return TypeFactory.aliasOf(this.name, this.type);
 	}
 
 }
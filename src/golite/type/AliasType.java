@@ -7,17 +7,19 @@ package golite.type;
 public class AliasType extends GoLiteType {
 
 	/** Alias. */
-	private String alias;
-	/** Underlying type. */
-	private GoLiteType type;
+	private final String alias;
+	/** Aliased type. */
+	private final GoLiteType type;
+	/** Underlying type (null until first asked for). */
+	private GoLiteType underlyingType;
 
 	/**
-	 * Constructor.
+	 * Constructor (Use {@link TypeFactory#aliasOf}).
 	 *
 	 * @param alias - Alias
-	 * @param type - Underlying type
+	 * @param type - Aliased type
 	 */
-	public AliasType(String alias, GoLiteType type) {
+	AliasType(String alias, GoLiteType type) {
 		this.alias = alias;
 		this.type = type;
 	}
@@ -38,7 +40,11 @@ public class AliasType extends GoLiteType {
 
 	@Override
 	public GoLiteType getUnderlyingType() {
-		return this.type.getUnderlyingType();
+		// The type is immutable, so the chain of aliases is only walked once.
+		if (this.underlyingType == null)
+			this.underlyingType = this.type.getUnderlyingType();
+
+		return this.underlyingType;
 	}
 
 	@Override
@@ -47,7 +53,7 @@ public class AliasType extends GoLiteType {
 		// this alias type.
 		GoLiteType t = this;
 		do {
-            if (t.equals(type))
+            if (t == type || t.equals(type))
                 return true;
 
             if (t instanceof AliasType)
@@ -7,14 +7,16 @@ package golite.type;
 public class ArrayType extends GoLiteType {
 
 	/** Type of each element in the array. */
-	private GoLiteType type;
+	private final GoLiteType type;
 	/** Array bound. */
-	private int bound;
+	private final int bound;
+	/** Underlying type (null until first asked for). */
+	private GoLiteType underlyingType;
 
 	/**
-	 * Constructor.
+	 * Constructor (Use {@link TypeFactory#arrayOf}).
 	 */
-	public ArrayType(GoLiteType type, int bound) {
+	ArrayType(GoLiteType type, int bound) {
 		this.type = type;
 		this.bound = bound;
 	}
@@ -44,13 +46,19 @@ public class ArrayType extends GoLiteType {
 
 	@Override
 	public GoLiteType getUnderlyingType() {
-		return new ArrayType(this.type.getUnderlyingType(), this.bound);
+		// Interned, so it's this type itself if the element type has no aliases.
+		if (this.underlyingType == null)
+			this.underlyingType = TypeFactory.arrayOf(this.type.getUnderlyingType(), this.bound);
+
+		return this.underlyingType;
 	}
 
 	@Override
 	public boolean isCompatible(GoLiteType type) {
-		// Other type must be an array.
-		return type instanceof ArrayType
+		// Identical types are compatible.
+		return type == this
+			// Other type must be an array.
+			|| type instanceof ArrayType
 			// The bounds of the arrays must match.
 			&& this.bound == ((ArrayType) type).getBound()
 			// The element types must be compatible.
@@ -6,9 +6,15 @@ package golite.type;
  */
 public class BoolType extends PrimitiveGoLiteType {
 
+	/**
+	 * Constructor (Use {@link TypeFactory#BOOL}).
+	 */
+	BoolType() {}
+
 	@Override
     public boolean isCompatible(GoLiteType type) {
-        return type.getUnderlyingType() instanceof BoolType;
+        // The type is a singleton.
+        return type.getUnderlyingType() == this;
     }
 
 	@Override
@@ -0,0 +1,38 @@
+package golite.type;
+
+
+/**
+ * Error type (for names whose declaration failed to type check, when type checking carries on
+ * after an error).
+ */
+public class ErrorType extends GoLiteType {
+
+	/**
+	 * Constructor (Use {@link TypeFactory#ERROR}).
+	 */
+	ErrorType() {}
+
+    @Override
+    public boolean isCompatible(GoLiteType type) {
+        // The type is a singleton.
+        return type.getUnderlyingType() == this;
+    }
+
+	// Equality is performed on the class.
+	@Override
+    public boolean equals(Object o) {
+    	return o instanceof ErrorType;
+    }
+
+    // Hash code is derived from the class.
+    @Override
+    public int hashCode() {
+        return this.getClass().hashCode();
+    }
+
+	@Override
+	public String toString() {
+		return "<error>";
+	}
+
+}
@@ -6,9 +6,15 @@ package golite.type;
  */
 public class FloatType extends PrimitiveGoLiteType {
 
+	/**
+	 * Constructor (Use {@link TypeFactory#FLOAT}).
+	 */
+	FloatType() {}
+
 	@Override
     public boolean isCompatible(GoLiteType type) {
-        return type.getUnderlyingType() instanceof FloatType;
+        // The type is a singleton.
+        return type.getUnderlyingType() == this;
     }
 
 	@Override
@@ -6,9 +6,15 @@ package golite.type;
  */
 public class IntType extends PrimitiveGoLiteType {
 
+	/**
+	 * Constructor (Use {@link TypeFactory#INT}).
+	 */
+	IntType() {}
+
 	@Override
     public boolean isCompatible(GoLiteType type) {
-        return type.getUnderlyingType() instanceof IntType;
+        // The type is a singleton.
+        return type.getUnderlyingType() == this;
     }
 
 	@Override
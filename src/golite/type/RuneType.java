@@ -6,9 +6,15 @@ package golite.type;
  */
 public class RuneType extends PrimitiveGoLiteType {
 
+	/**
+	 * Constructor (Use {@link TypeFactory#RUNE}).
+	 */
+	RuneType() {}
+
 	@Override
     public boolean isCompatible(GoLiteType type) {
-        return type.getUnderlyingType() instanceof RuneType;
+        // The type is a singleton.
+        return type.getUnderlyingType() == this;
     }
 
 	@Override
@@ -7,12 +7,14 @@ package golite.type;
 public class SliceType extends GoLiteType {
 
 	/** Type of each element in the slice. */
-	private GoLiteType type;
+	private final GoLiteType type;
+	/** Underlying type (null until first asked for). */
+	private GoLiteType underlyingType;
 
 	/**
-	 * Constructor.
+	 * Constructor (Use {@link TypeFactory#sliceOf}).
 	 */
-	public SliceType(GoLiteType type) {
+	SliceType(GoLiteType type) {
 		this.type = type;
 	}
 
@@ -34,13 +36,19 @@ public class SliceType extends GoLiteType {
 
 	@Override
 	public GoLiteType getUnderlyingType() {
-		return new SliceType(this.type.getUnderlyingType());
+		// Interned, so it's this type itself if the element type has no aliases.
+		if (this.underlyingType == null)
+			this.underlyingType = TypeFactory.sliceOf(this.type.getUnderlyingType());
+
+		return this.underlyingType;
 	}
 
 	@Override
 	public boolean isCompatible(GoLiteType type) {
-		// Other type must be a slice.
-		return type instanceof SliceType
+		// Identical types are compatible.
+		return type == this
+			// Other type must be a slice.
+			|| type instanceof SliceType
 			// The element types must be compatible.
 			&& this.type.isCompatible(((SliceType) type).getType());
 	}
@@ -6,9 +6,15 @@ package golite.type;
  */
 public class StringType extends PrimitiveGoLiteType {
 
+	/**
+	 * Constructor (Use {@link TypeFactory#STRING}).
+	 */
+	StringType() {}
+
 	@Override
     public boolean isCompatible(GoLiteType type) {
-        return type.getUnderlyingType() instanceof StringType;
+        // The type is a singleton.
+        return type.getUnderlyingType() == this;
     }
 
 	@Override
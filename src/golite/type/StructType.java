@@ -2,7 +2,10 @@ package golite.type;
 
 import java.lang.StringBuilder;
 import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
 import java.util.Iterator;
+import java.util.List;
 
 
 /**
@@ -16,19 +19,23 @@ public class StructType extends GoLiteType {
 	public static class Field {
 
 		/** Field Id. */
-		private String id;
+		private final String id;
 		/** Field type. */
-		private GoLiteType type;
+		private final GoLiteType type;
+		/** Position of the field in declaration order. */
+		private final int offset;
 
 		/**
 		 * Constructor/
 		 *
 		 * @param id - Id
 		 * @param type - Type
+		 * @param offset - Position of the field in declaration order
 		 */
-		private Field(String id, GoLiteType type) {
+		private Field(String id, GoLiteType type, int offset) {
 			this.id = id;
 			this.type = type;
+			this.offset = offset;
 		}
 
 		/**
@@ -45,6 +52,13 @@ public class StructType extends GoLiteType {
 			return this.type;
 		}
 
+		/**
+		 * Getter.
+		 */
+		public int getOffset() {
+			return this.offset;
+		}
+
 		// Equality is performed on the Id and type.
 		@Override
 	    public boolean equals(Object o) {
@@ -71,15 +85,36 @@ public class StructType extends GoLiteType {
 
 	}
 
-	/** Fields. */
-	private ArrayList<Field> fields;
+	/** Fields, in declaration order. */
+	private final ArrayList<Field> fields;
+	/** Index of the fields by Id. */
+	private final HashMap<String, Field> fieldIndex;
+	/** Hash code (The type is immutable). */
+	private final int hashCode;
+	/** Underlying type (null until first asked for). */
+	private GoLiteType underlyingType;
 
 	/**
-	 * Constructor.
+	 * Constructor (Use {@link TypeFactory#structOf}).
+	 *
+	 * @param ids - Field Id's
+	 * @param types - Field types, with the same length as the Id's
 	 */
-	public StructType() {
+	StructType(List<String> ids, List<GoLiteType> types) {
 		super();
-		this.fields = new ArrayList<Field>();
+		this.fields = new ArrayList<Field>(ids.size());
+		this.fieldIndex = new HashMap<String, Field>();
+
+		int code = 1;
+		for (int i = 0; i < ids.size(); i++) {
+			Field f = new Field(ids.get(i), types.get(i), i);
+			this.fields.add(f);
+			// In case of duplicates, lookups find the first field.
+			this.fieldIndex.putIfAbsent(f.getId(), f);
+			code = 31 * code + f.hashCode();
+		}
+
+		this.hashCode = code;
 	}
 
 	/**
@@ -97,7 +132,8 @@ public class StructType extends GoLiteType {
 	 * @return Iterator over fields
 	 */
 	public Iterator<Field> getFieldIterator() {
-		return this.fields.iterator();
+		// The type is shared, so its fields can't be removed through the iterator.
+		return Collections.unmodifiableList(this.fields).iterator();
 	}
 
 	/**
@@ -107,12 +143,7 @@ public class StructType extends GoLiteType {
 	 * @return True if the field exists, false otherwise
 	 */
 	public boolean hasField(String id) {
-		for (Field f : this.fields) {
-			if (f.getId().equals(id))
-				return true;
-		}
-
-		return false;
+		return this.fieldIndex.containsKey(id);
 	}
 
 	/**
@@ -123,47 +154,56 @@ public class StructType extends GoLiteType {
 	 * @throws IllegalArgumentException if no such field exists.
 	 */
 	public Field getField(String id) {
-		for (Field f : this.fields) {
-			if (f.getId().equals(id))
-				return f;
-		}
+		Field f = this.fieldIndex.get(id);
+		if (f == null)
+			throw new IllegalArgumentException("No such field " + id);
 
-		throw new IllegalArgumentException("No such field " + id);
+		return f;
 	}
 
 	/**
-	 * Returns the type of the field with the given Id.
+	 * Returns the position of the field with the given Id, in declaration order.
 	 *
 	 * @param id - Field Id
-	 * @return Type of the field
+	 * @return Offset of the field
+	 * @throws IllegalArgumentException if no such field exists.
 	 */
-	public GoLiteType getFieldType(String id) {
-		return this.getField(id).getType();
+	public int getFieldOffset(String id) {
+		return this.getField(id).getOffset();
 	}
 
 	/**
-	 * Adds a field to the struct type.
+	 * Returns the type of the field with the given Id.
 	 *
 	 * @param id - Field Id
-	 * @param type - Field type
+	 * @return Type of the field
 	 */
-	public void addField(String id, GoLiteType type) {
-		this.fields.add(new Field(id, type));
+	public GoLiteType getFieldType(String id) {
+		return this.getField(id).getType();
 	}
 
 	@Override
 	public boolean isCompatible(GoLiteType type) {
-		return this.equals(type.getUnderlyingType());
+		GoLiteType underlyingType = type.getUnderlyingType();
+		return underlyingType == this || this.equals(underlyingType);
 	}
 
 	@Override
 	public GoLiteType getUnderlyingType() {
-		StructType underlyingStructType = new StructType();
+		// Interned, so it's this type itself if none of the field types have aliases.
+		if (this.underlyingType == null) {
+			ArrayList<String> ids = new ArrayList<String>();
+			ArrayList<GoLiteType> types = new ArrayList<GoLiteType>();
+
+			for (Field f : this.fields) {
+				ids.add(f.getId());
+				types.add(f.getType().getUnderlyingType());
+			}
 
-		for (Field f : this.fields)
-			underlyingStructType.addField(f.getId(), f.getType().getUnderlyingType());
+			this.underlyingType = TypeFactory.structOf(ids, types);
+		}
 
-		return underlyingStructType;
+		return this.underlyingType;
 	}
 
 	// Equality is performed on fields.
@@ -177,11 +217,10 @@ public class StructType extends GoLiteType {
 
         StructType other = (StructType) o;
 
-        if (this.fields.size() != other.size())
+        if (this.hashCode != other.hashCode() || this.fields.size() != other.size())
         	return false;
 
         Iterator<Field> iter = other.getFieldIterator();
-        Field otherField = null;
         for (int i = 0; iter.hasNext(); i++) {
         	if (!this.fields.get(i).equals(iter.next()))
         		return false;
@@ -192,10 +231,7 @@ public class StructType extends GoLiteType {
 
     @Override
     public int hashCode() {
-    	int code = 1;
-		for (Field f : this.fields)
-			code = 31 * code + (f == null ? 0 : f.hashCode());
-		return code;
+    	return this.hashCode;
     }
 
 	@Override
@@ -1,21 +1,29 @@
 package golite.type;
 
+import golite.Diagnostics;
+import golite.Weeder;
+import golite.exception.SymbolTableException;
 import golite.exception.TypeCheckException;
 import golite.symbol.FunctionSymbol;
 import golite.symbol.Symbol;
 import golite.symbol.SymbolTable;
+import golite.symbol.SymbolTableListener;
+import golite.symbol.SymbolTableRecorder;
 import golite.symbol.TypeAliasSymbol;
 import golite.symbol.VariableSymbol;
 import golite.util.LineAndPosTracker;
+import golite.util.NodeTable;
 import golite.analysis.*;
 import golite.node.*;
 
 import java.util.ArrayList;
 import java.util.Collections;
-import java.util.HashMap;
 import java.util.HashSet;
 import java.util.Iterator;
 import java.util.LinkedList;
+import java.util.Map;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
 
 
 /**
@@ -23,6 +31,72 @@ import java.util.LinkedList;
  */
 public class TypeChecker extends DepthFirstAdapter {
 
+    /**
+     * Thrown on using a name whose declaration failed to type check, to skip the rest of the
+     * statement (or top-level declaration) using it without an error.
+     */
+    @SuppressWarnings("serial")
+    private static class CascadeException extends RuntimeException {
+
+        CascadeException() {
+            super(null, null, false, false);
+        }
+
+    }
+
+    /** Type check of a run of function bodies, in order, on a fork of the frozen global scopes. */
+    @SuppressWarnings("serial")
+    private static class FunctionCheck extends RecursiveAction {
+
+        /** Function declarations. */
+        private final ArrayList<AFuncTopDec> nodes = new ArrayList<AFuncTopDec>();
+        /** Listeners to the activity of the symbol table, by function. */
+        private final ArrayList<SymbolTableListener> listeners =
+            new ArrayList<SymbolTableListener>();
+        /** Type checker of the bodies, with a type table of its own. */
+        private final TypeChecker typeChecker;
+        /** Error the first body to fail type checking failed with (null if none). */
+        private RuntimeException error;
+
+        /**
+         * @param globals - Frozen 0th and global scopes
+         */
+        FunctionCheck(SymbolTable globals) {
+            this.typeChecker = new TypeChecker(globals.fork());
+        }
+
+        /**
+         * Adds a function to the run.
+         *
+         * @param node - Function declaration
+         * @param listener - Listener to the activity of the symbol table on its body
+         */
+        void add(AFuncTopDec node, SymbolTableListener listener) {
+            this.nodes.add(node);
+            this.listeners.add(listener);
+        }
+
+        /**
+         * @return Number of functions in the run
+         */
+        int size() {
+            return this.nodes.size();
+        }
+
+        @Override
+        protected void compute() {
+            try {
+                for (int i = 0; i < this.nodes.size(); i++) {
+                    this.typeChecker.symbolTable.setListener(this.listeners.get(i));
+                    this.nodes.get(i).apply(this.typeChecker);
+                }
+            } catch (RuntimeException e) {
+                this.error = e;
+            }
+        }
+
+    }
+
 	/** Symbol table. */
 	private SymbolTable symbolTable;
     /** Flag for whether a symbol table is passed (from {@link golite.symbol.SymbolTableBuilder}) or
@@ -30,16 +104,23 @@ public class TypeChecker extends DepthFirstAdapter {
       * declarations using other declarations must occur before). */
     private boolean passedSymbolTable;
 
-	/** Type table. */
-	private HashMap<Node, GoLiteType> typeTable;
-	/** Line and position tracker for AST nodes. */
-    private LineAndPosTracker lineAndPosTracker;
+	/** Type table (Types of the expressions, by node ID). */
+	private NodeTable<GoLiteType> typeTable;
 
     // Keeps track of the function symbol when entering the body of a function.
     private FunctionSymbol currentFunctionSymbol;
     // Keeps track of the switch condition type when entering the body of a switch.
     private GoLiteType currentSwitchCondType;
 
+    /** Weeder running its checks in this traversal (null if the AST is weeded on its own). */
+    private Weeder weeder;
+    /** Listener to the activity of the symbol table. */
+    private SymbolTableListener symbolTableListener = SymbolTableListener.NONE;
+    /** Diagnostics the errors are reported to (null to throw the first error instead). */
+    private Diagnostics diagnostics;
+    /** Flag for whether the function bodies are type checked in parallel. */
+    private boolean parallel;
+
 	/**
 	 * Constructor.
 	 *
@@ -51,8 +132,7 @@ public class TypeChecker extends DepthFirstAdapter {
 		this.symbolTable = table;
         this.passedSymbolTable = true;
 
-		this.typeTable = new HashMap<Node, GoLiteType>();
-		this.lineAndPosTracker = new LineAndPosTracker();
+		this.typeTable = new NodeTable<GoLiteType>();
 	}
 	
     /**
@@ -63,8 +143,7 @@ public class TypeChecker extends DepthFirstAdapter {
         this.symbolTable = new SymbolTable();
         this.passedSymbolTable = false;
 
-        this.typeTable = new HashMap<Node, GoLiteType>();
-        this.lineAndPosTracker = new LineAndPosTracker();
+        this.typeTable = new NodeTable<GoLiteType>();
     }
 
     /**
@@ -76,11 +155,106 @@ public class TypeChecker extends DepthFirstAdapter {
 
     /**
      * Getter.
+     *
+     * @return Types of the expressions (A map view of the array-backed type table)
      */
-    public HashMap<Node, GoLiteType> getTypeTable() {
+    public Map<Node, GoLiteType> getTypeTable() {
         return this.typeTable;
     }
 
+    /**
+     * Setter.
+     *
+     * Weeds the AST in the type checking traversal, rather than in a traversal of its own. A type
+     * error may then be found before a weeder error further in the program, so the caller has to
+     * weed the AST on its own on a type error, to report weeder errors first.
+     *
+     * @param weeder - Weeder to run the checks of, on every node as it's visited
+     */
+    public void setWeeder(Weeder weeder) {
+        this.weeder = weeder;
+    }
+
+    /**
+     * Setter.
+     *
+     * @param listener - Listener to the activity of the symbol table (A passed symbol table keeps
+     *  its own listener)
+     */
+    public void setSymbolTableListener(SymbolTableListener listener) {
+        this.symbolTableListener = listener;
+    }
+
+    /**
+     * Setter.
+     *
+     * Reports an error in a statement or top-level declaration to the diagnostics and carries on
+     * with the next one, rather than throwing the first error. The names the failed statement or
+     * declaration declares are given the error type, and statements using them are skipped
+     * without an error, as any error there would only follow from the reported one.
+     *
+     * @param diagnostics - Diagnostics to report the errors to
+     */
+    public void setDiagnostics(Diagnostics diagnostics) {
+        this.diagnostics = diagnostics;
+    }
+
+    /**
+     * Setter.
+     *
+     * Type checks the function bodies in parallel, on the common fork/join pool. The bodies are
+     * checked in runs of consecutive functions (a few runs per thread), each with scopes of its
+     * own, on top of a frozen copy of the global scope as it stands at the run (i.e. once the
+     * declarations before it are checked), and a type table of its own, which are merged back in
+     * program order. The first error in program order is thrown,
+     * as it would be otherwise.
+     *
+     * Only applies with a passed symbol table, where every function is declared before the bodies
+     * are checked, and neither when weeding in this traversal nor when reporting to diagnostics.
+     *
+     * @param parallel - Flag for whether to type check the function bodies in parallel
+     */
+    public void setParallel(boolean parallel) {
+        this.parallel = parallel;
+    }
+
+    /**
+     * Weeds a node on entering it, if weeding in this traversal. (This is done for every node:
+     * here for those without an in-method of their own, and by the case-methods below. The weeder
+     * has no checks on the other nodes with an in-method, and only checks loops on exiting.)
+     *
+     * @param node - AST node
+     */
+    @Override
+    public void defaultIn(Node node) {
+        if (this.weeder != null)
+            this.weeder.enter(node);
+    }
+
+    /**
+     * Weeds a node on exiting it, if weeding in this traversal (See {@link #defaultIn(Node)}).
+     *
+     * @param node - AST node
+     */
+    @Override
+    public void defaultOut(Node node) {
+        if (this.weeder != null)
+            this.weeder.exit(node);
+    }
+
+    /**
+     * Weeds a subtree in a traversal of the weeder's own, if weeding in this traversal, for the
+     * subtrees that aren't visited here once in order (e.g. type expressions that are only looked
+     * at, or visited once per variable declared). (Their nodes are weeded again if visited here,
+     * which they pass.)
+     *
+     * @param node - Root of subtree
+     */
+    private void weedSubtree(Node node) {
+        if (this.weeder != null)
+            node.apply(this.weeder);
+    }
+
 	/**
      * Returns the GoLite type for the given type expression.
      *
@@ -93,26 +267,27 @@ public class TypeChecker extends DepthFirstAdapter {
             return null;
 
         if (node instanceof ABoolTypeExpr)
-            return new BoolType();
+            return TypeFactory.BOOL;
         else if (node instanceof AIntTypeExpr)
-            return new IntType();
+            return TypeFactory.INT;
         else if (node instanceof AFloatTypeExpr)
-            return new FloatType();
+            return TypeFactory.FLOAT;
         else if (node instanceof ARuneTypeExpr)
-            return new RuneType();
+            return TypeFactory.RUNE;
         else if (node instanceof AStringTypeExpr)
-            return new StringType();
+            return TypeFactory.STRING;
         else if (node instanceof AAliasTypeExpr) {
         	TId id = ((AAliasTypeExpr) node).getId();
             String name = id.getText();
             
             Symbol symbol = this.symbolTable.getSymbol(name);
+            this.skipIfErroneous(symbol);
             if (symbol == null)
                 this.throwTypeCheckException(id, "Undefined: " + name);
             if (!(symbol instanceof TypeAliasSymbol))
                 this.throwTypeCheckException(id, name + " is not a type");
             
-            return new AliasType(id.getText(), symbol.getType());
+            return TypeFactory.aliasOf(id.getText(), symbol.getType());
         } else if (node instanceof AArrayTypeExpr) {
             PExpr pExpr = ((AArrayTypeExpr) node).getExpr();
 
@@ -126,11 +301,12 @@ public class TypeChecker extends DepthFirstAdapter {
             else 
                 this.throwTypeCheckException(pExpr, "Non-integer array bound");
 
-            return new ArrayType(getType(((AArrayTypeExpr) node).getTypeExpr()), bound);
+            return TypeFactory.arrayOf(getType(((AArrayTypeExpr) node).getTypeExpr()), bound);
         } else if (node instanceof ASliceTypeExpr)
-            return new SliceType(getType(((ASliceTypeExpr) node).getTypeExpr()));
+            return TypeFactory.sliceOf(getType(((ASliceTypeExpr) node).getTypeExpr()));
         else if (node instanceof AStructTypeExpr) {
-            StructType structType = new StructType();
+            ArrayList<String> structIds = new ArrayList<String>();
+            ArrayList<GoLiteType> structTypes = new ArrayList<GoLiteType>();
 
             // Keep track of the field Id's to ensure there are no duplicates.
             HashSet<String> fieldIds = new HashSet<String>();
@@ -150,14 +326,14 @@ public class TypeChecker extends DepthFirstAdapter {
                         if (fieldIds.contains(id.getText()))
                             this.throwTypeCheckException(id, "Duplicate field " + id.getText());
 
-                        structType.addField(id.getText(),
-                            getType(((ASpecFieldSpec) pFieldSpec).getTypeExpr()));
+                        structIds.add(id.getText());
+                        structTypes.add(getType(((ASpecFieldSpec) pFieldSpec).getTypeExpr()));
                         fieldIds.add(id.getText());
                     }
                 }
             }
 
-            return structType;
+            return TypeFactory.structOf(structIds, structTypes);
         }
 
         return null;
@@ -173,12 +349,116 @@ public class TypeChecker extends DepthFirstAdapter {
      * @throws TypeCheckException
      */
     private void throwTypeCheckException(Node node, String msg) {
-        Integer line = this.lineAndPosTracker.getLine(node);
-        Integer pos = this.lineAndPosTracker.getPos(node);
+        int line = LineAndPosTracker.getLine(node);
+        int pos = LineAndPosTracker.getPos(node);
 
         throw new TypeCheckException("[" + line + "," + pos + "] " + msg);
     }
 
+    /**
+     * Type checks a statement or top-level declaration, reporting its error (if any) and carrying
+     * on after it if errors are collected.
+     *
+     * @param node - Statement or top-level declaration
+     * @throws TypeCheckException if errors aren't collected
+     * @throws golite.exception.SymbolTableException if errors aren't collected
+     */
+    private void checkRecovering(Node node) {
+        this.checkRecovering(node, () -> node.apply(this));
+    }
+
+    /**
+     * Runs a check of a statement, top-level declaration, or part of a statement's header, reporting
+     * its error (if any) and carrying on after it if errors are collected.
+     *
+     * @param node - Statement, top-level declaration, or part of a statement's header
+     * @param check - Check of the node
+     * @throws TypeCheckException if errors aren't collected
+     * @throws golite.exception.SymbolTableException if errors aren't collected
+     */
+    private void checkRecovering(Node node, Runnable check) {
+        if (this.diagnostics == null) {
+            check.run();
+            return;
+        }
+
+        int scopeCount = this.symbolTable.getScopeCount();
+        FunctionSymbol functionSymbol = this.currentFunctionSymbol;
+        GoLiteType switchCondType = this.currentSwitchCondType;
+
+        try {
+            check.run();
+            return;
+        } catch (TypeCheckException|SymbolTableException e) {
+            this.diagnostics.report(e);
+        } catch (CascadeException e) {
+            // Already reported.
+        }
+
+        // Leave the scopes entered in the statement, and declare what it failed to.
+        while (this.symbolTable.getScopeCount() > scopeCount)
+            this.symbolTable.unscope();
+        this.currentFunctionSymbol = functionSymbol;
+        this.currentSwitchCondType = switchCondType;
+
+        this.declareErroneous(node);
+    }
+
+    /**
+     * Declares the names a statement or top-level declaration that failed to type check declares
+     * (and that aren't declared yet in the current scope), with the error type.
+     *
+     * @param node - Statement or top-level declaration
+     */
+    private void declareErroneous(Node node) {
+        ArrayList<TId> ids = new ArrayList<TId>();
+        boolean types = false;
+
+        if (node instanceof AVarsTopDec || node instanceof AVarDecStmt) {
+            LinkedList<PVarSpec> pVarSpecs = (node instanceof AVarsTopDec)
+                ? ((AVarsTopDec) node).getVarSpec() : ((AVarDecStmt) node).getVarSpec();
+            for (PVarSpec pVarSpec : pVarSpecs)
+                ids.addAll(this.getIds(pVarSpec));
+        } else if (node instanceof ATypesTopDec || node instanceof ATypeDecStmt) {
+            LinkedList<PTypeSpec> pTypeSpecs = (node instanceof ATypesTopDec)
+                ? ((ATypesTopDec) node).getTypeSpec() : ((ATypeDecStmt) node).getTypeSpec();
+            for (PTypeSpec pTypeSpec : pTypeSpecs)
+                ids.addAll(this.getIds(pTypeSpec));
+            types = true;
+        } else if (node instanceof AShortAssignStmt)
+            ids.addAll(this.getIds(node));
+        else if (node instanceof AFuncTopDec)
+            ids.add(((AFuncTopDec) node).getId());
+        else if (node instanceof AConditionCondition) {
+            // The names of the initial statement, if any.
+            if (((AConditionCondition) node).getStmt() != null)
+                this.declareErroneous(((AConditionCondition) node).getStmt());
+        }
+
+        for (TId id : ids) {
+            if (this.symbolTable.defSymbolInCurrentScope(id.getText()))
+                continue;
+
+            if (types)
+                this.symbolTable.putSymbol(new TypeAliasSymbol(id.getText(), TypeFactory.ERROR,
+                    node));
+            else
+                this.symbolTable.putSymbol(new VariableSymbol(id.getText(), TypeFactory.ERROR,
+                    node));
+        }
+    }
+
+    /**
+     * Skips the rest of the statement (or top-level declaration) at hand if the given symbol has the
+     * error type, i.e. its declaration failed to type check.
+     *
+     * @param symbol - Symbol (possibly null)
+     */
+    private void skipIfErroneous(Symbol symbol) {
+        if (symbol != null && symbol.getType() == TypeFactory.ERROR)
+            throw new CascadeException();
+    }
+
     /**
      * Checks if the given Id has already been defined in the current scope.
      *
@@ -330,6 +610,7 @@ public class TypeChecker extends DepthFirstAdapter {
     private VariableSymbol getVariableSymbol(TId id) {
     	// Get the corresponding symbol.
         Symbol symbol = this.symbolTable.getSymbol(id.getText());
+        this.skipIfErroneous(symbol);
 
         // Symbol was never declared, so throw an error.
         if (symbol == null)
@@ -344,17 +625,15 @@ public class TypeChecker extends DepthFirstAdapter {
 
 	@Override
     public void inStart(Start node) {
-    	// Gather all line and position information.
-        node.apply(this.lineAndPosTracker);
-
         if (!this.passedSymbolTable) {
              // Enter the 0th scope.
             this.symbolTable = new SymbolTable();
+            this.symbolTable.setListener(this.symbolTableListener);
             this.symbolTable.scope();
 
             // Initialize boolean literals.
-            this.symbolTable.putSymbol(new VariableSymbol("true", new BoolType(), node));
-            this.symbolTable.putSymbol(new VariableSymbol("false", new BoolType(), node));
+            this.symbolTable.putSymbol(new VariableSymbol("true", TypeFactory.BOOL, node));
+            this.symbolTable.putSymbol(new VariableSymbol("false", TypeFactory.BOOL, node));
         }
     }
 
@@ -364,6 +643,158 @@ public class TypeChecker extends DepthFirstAdapter {
         this.symbolTable.unscope();
     }
 
+    @Override
+    public void caseAProgProg(AProgProg node) {
+        this.inAProgProg(node);
+
+        if (this.parallel && this.passedSymbolTable && this.weeder == null
+            && this.diagnostics == null)
+            this.checkTopDecsInParallel(node.getTopDec());
+        else {
+            // Type check each top-level declaration.
+            for (PTopDec d : node.getTopDec())
+                this.checkRecovering(d);
+        }
+
+        this.outAProgProg(node);
+    }
+
+    /**
+     * Type checks the top-level declarations, with the function bodies checked in parallel (See
+     * {@link #setParallel(boolean)}). The other declarations are checked in order as the bodies
+     * are forked off, and the activity of the symbol table is replayed to its listener in program
+     * order once all are checked.
+     *
+     * @param topDecs - Top-level declarations
+     * @throws TypeCheckException of the first declaration in program order to fail
+     * @throws golite.exception.SymbolTableException of the first declaration in program order to
+     *  fail
+     */
+    private void checkTopDecsInParallel(LinkedList<PTopDec> topDecs) {
+        SymbolTableListener listener = this.symbolTable.getListener();
+        boolean logged = (listener != SymbolTableListener.NONE);
+
+        int functions = 0;
+        for (PTopDec d : topDecs) {
+            if (d instanceof AFuncTopDec)
+                functions++;
+        }
+
+        // Number of functions per run, for a few runs per thread.
+        int runSize = Math.max(1, functions / (4 * ForkJoinPool.getCommonPoolParallelism()));
+
+        ArrayList<FunctionCheck> checks = new ArrayList<FunctionCheck>();
+        ArrayList<SymbolTableRecorder> recorders = new ArrayList<SymbolTableRecorder>();
+        // Frozen global scope, as it stands (null once a declaration may have changed it).
+        SymbolTable globals = null;
+        // Run of functions being gathered (null if none).
+        FunctionCheck check = null;
+        // Error of the first other declaration to fail (which ends the pass).
+        RuntimeException error = null;
+
+        for (PTopDec d : topDecs) {
+            SymbolTableRecorder recorder = logged ? new SymbolTableRecorder() : null;
+            if (logged)
+                recorders.add(recorder);
+
+            if (d instanceof AFuncTopDec) {
+                if (globals == null)
+                    globals = this.symbolTable.freeze();
+                if (check == null)
+                    check = new FunctionCheck(globals);
+
+                check.add((AFuncTopDec) d, logged ? recorder : SymbolTableListener.NONE);
+
+                if (check.size() == runSize) {
+                    check.fork();
+                    checks.add(check);
+                    check = null;
+                }
+            } else {
+                // The run ends before the global scope changes.
+                if (check != null) {
+                    check.fork();
+                    checks.add(check);
+                    check = null;
+                }
+
+                if (logged)
+                    this.symbolTable.setListener(recorder);
+
+                try {
+                    d.apply(this);
+                } catch (RuntimeException e) {
+                    error = e;
+                    break;
+                } finally {
+                    this.symbolTable.setListener(listener);
+                }
+
+                // Global variables may have been declared.
+                globals = null;
+            }
+        }
+
+        if (check != null) {
+            check.fork();
+            checks.add(check);
+        }
+
+        // Functions before the failed declaration (if any) come first.
+        for (FunctionCheck c : checks) {
+            c.join();
+            if (c.error != null) {
+                // The bodies after it don't matter anymore.
+                for (FunctionCheck other : checks)
+                    other.cancel(false);
+
+                throw c.error;
+            }
+        }
+
+        if (error != null)
+            throw error;
+
+        // Merge the type tables and the symbol table activity in program order.
+        for (FunctionCheck c : checks)
+            this.typeTable.putAll(c.typeChecker.typeTable);
+
+        for (SymbolTableRecorder recorder : recorders)
+            recorder.replay(listener);
+    }
+
+    /**
+     * Starts type checking a program streamed in one top-level declaration at a time (See
+     * {@link #checkTopDec(PTopDec)}), rather than applying the type checker to its whole AST, by
+     * entering the 0th and global scopes. Only without a passed symbol table.
+     */
+    public void begin() {
+        this.inStart(null);
+        this.inAProgProg(null);
+    }
+
+    /**
+     * Type checks the next top-level declaration of a streamed program (See {@link #begin()}).
+     * The types of the previous declaration are dropped from the type table first, so that the
+     * table only ever holds the types of one declaration.
+     *
+     * @param node - Top-level declaration
+     * @throws TypeCheckException if the declaration doesn't type check
+     */
+    public void checkTopDec(PTopDec node) {
+        this.typeTable.clear();
+        this.checkRecovering(node);
+    }
+
+    /**
+     * Ends type checking a streamed program (See {@link #begin()}), by exiting the global and 0th
+     * scopes.
+     */
+    public void end() {
+        this.outAProgProg(null);
+        this.outStart(null);
+    }
+
     @Override
     public void inAProgProg(AProgProg node) {
         if (!this.passedSymbolTable) {
@@ -383,6 +814,8 @@ public class TypeChecker extends DepthFirstAdapter {
     // consistent with their initializing expressions (if any).
     @Override
     public void caseAVarsTopDec(AVarsTopDec node) {
+        this.weedSubtree(node);
+
         // Loop over the variable specifications.
         for(PVarSpec pVarSpec : node.getVarSpec()) {
             // Get the expressions on the R.H.S.
@@ -457,6 +890,8 @@ public class TypeChecker extends DepthFirstAdapter {
     // Add top-level type variables into the symbol table if it hasn't been passed.
     @Override
     public void caseATypesTopDec(ATypesTopDec node) {
+        this.weedSubtree(node);
+
         if (!this.passedSymbolTable) {
             // Loop over the type specifications.
             for(PTypeSpec pTypeSpec : node.getTypeSpec()) {
@@ -485,6 +920,8 @@ public class TypeChecker extends DepthFirstAdapter {
     // then just enter the body).
     @Override
     public void caseAFuncTopDec(AFuncTopDec node) {
+        this.defaultIn(node);
+
         // Function Id token and name.
         TId id = node.getId();
         String name =id.getText();
@@ -529,9 +966,13 @@ public class TypeChecker extends DepthFirstAdapter {
      	for (PArgGroup p : node.getArgGroup())
      		p.apply(this);
 
+        // The return type is only looked at.
+        if (node.getTypeExpr() != null)
+            this.weedSubtree(node.getTypeExpr());
+
      	// Recurse on each statement.
      	for (PStmt s: node.getStmt())
-     		s.apply(this);
+     		this.checkRecovering(s);
 
      	// Exit the fucntion body.
      	this.symbolTable.unscope();
@@ -557,6 +998,8 @@ public class TypeChecker extends DepthFirstAdapter {
     // and type inference, if necessary.
     @Override
     public void caseASpecVarSpec(ASpecVarSpec node) {
+        this.weedSubtree(node);
+
         // Get the expressions on the R.H.S.
         LinkedList<PExpr> pExprs = node.getExpr();
 
@@ -1044,13 +1487,15 @@ public class TypeChecker extends DepthFirstAdapter {
     // If-else statement.
     @Override
     public void caseAIfElseStmt(AIfElseStmt node) {
+        this.defaultIn(node);
+
         // Create a new scope for the if-else initializer and blocks.
         this.symbolTable.scope();
 
         // Type check the condition, if it exists.
         PCondition cond = node.getCondition();
         if (cond != null)
-            cond.apply(this);
+            this.checkRecovering(cond);
 
         // Enter the if-block if it exists.
         LinkedList<PStmt> pStmts = node.getIfBlock();
@@ -1059,7 +1504,7 @@ public class TypeChecker extends DepthFirstAdapter {
 	        this.symbolTable.scope();
 	        // Type check the if-block statements.
 	        for (PStmt s : pStmts)
-	            s.apply(this);
+	            this.checkRecovering(s);
 	        // Exit the scope for the if-block.
 	        this.symbolTable.unscope();
         }
@@ -1071,7 +1516,7 @@ public class TypeChecker extends DepthFirstAdapter {
 		    this.symbolTable.scope();
 		    // Type check the else-block statements.
 		    for (PStmt s : pStmts)
-		        s.apply(this);
+		        this.checkRecovering(s);
 		    // Exit the scope for the else-block.
 		    this.symbolTable.unscope();
 		}
@@ -1097,13 +1542,15 @@ public class TypeChecker extends DepthFirstAdapter {
     // Switch statement.
     @Override
     public void caseASwitchStmt(ASwitchStmt node) {
+        this.defaultIn(node);
+
         // Create a new scope for the switch initializer and blocks.
         this.symbolTable.scope();
         
         // Type check the initial statement, if it exists.
         PStmt pStmt = node.getStmt();
         if (pStmt != null)
-            pStmt.apply(this);
+            this.checkRecovering(pStmt);
 
         // Store the previous switch condition type and restore it at the end (for handling nested
         // switches).
@@ -1113,14 +1560,21 @@ public class TypeChecker extends DepthFirstAdapter {
         PExpr pExpr = node.getExpr();
         if (pExpr == null)
         	// Set the condition type to boolean if no condition is provided.
-        	this.currentSwitchCondType = new BoolType();
+        	this.currentSwitchCondType = TypeFactory.BOOL;
         else {
-        	pExpr.apply(this);
-        	this.currentSwitchCondType = this.getType(pExpr);
+            // The condition type is left as the error type if the condition doesn't type check.
+            this.currentSwitchCondType = TypeFactory.ERROR;
+
+            this.checkRecovering(pExpr, () -> {
+            	pExpr.apply(this);
+            	GoLiteType condType = this.getType(pExpr);
+
+            	// Make sure the condition type is not void, otherwise throw an error.
+            	if (condType instanceof VoidType)
+            		this.throwTypeCheckException(pExpr, "Void used as value");
 
-        	// Make sure the condition type is not void, otherwise throw an error.
-        	if (this.currentSwitchCondType instanceof VoidType)
-        		this.throwTypeCheckException(pExpr, "Void used as value");
+            	this.currentSwitchCondType = condType;
+            });
         }
             
         // Type check each case block.
@@ -1141,6 +1595,18 @@ public class TypeChecker extends DepthFirstAdapter {
         this.symbolTable.scope();
     }
 
+    @Override
+    public void caseABlockCaseBlock(ABlockCaseBlock node) {
+        this.inABlockCaseBlock(node);
+
+        node.getCaseCondition().apply(this);
+        // Type check the case block statements.
+        for (PStmt s : node.getStmt())
+            this.checkRecovering(s);
+
+        this.outABlockCaseBlock(node);
+    }
+
     @Override
     public void outABlockCaseBlock(ABlockCaseBlock node) {
         // Exit the scope for the case block.
@@ -1150,6 +1616,10 @@ public class TypeChecker extends DepthFirstAdapter {
     // Non-default case block contiion.
     @Override
     public void outAExprsCaseCondition(AExprsCaseCondition node) {
+        // The switch condition doesn't type check, so there's nothing to compare with.
+        if (this.currentSwitchCondType == TypeFactory.ERROR)
+            return;
+
         // Make sure each expression in the case condition is equal in surface type with the switch
         // condition.
         for (PExpr pExpr : node.getExpr()) {
@@ -1169,41 +1639,47 @@ public class TypeChecker extends DepthFirstAdapter {
     // Loop statement.
     @Override
     public void caseALoopStmt(ALoopStmt node) {
+        this.defaultIn(node);
+
     	// Create a new scope for the loop initializer and body.
         this.symbolTable.scope();
 
         // Type check the initial statement, if it exists.
         PStmt pStmt = node.getInit();
         if (pStmt != null)
-            pStmt.apply(this);
+            this.checkRecovering(pStmt);
 
         // Loop condition.
     	PExpr pExpr = node.getExpr();
     	// If the condition is not empty, make sure it evaluates to a boolean.
     	if (pExpr != null) {
-            pExpr.apply(this);
-            GoLiteType condType = this.typeTable.get(pExpr);
-            if (condType != null && !(condType.getUnderlyingType() instanceof BoolType))
-                this.throwTypeCheckException(pExpr,
-                	"Non-bool (type " + condType + ") used as for condition");
+            this.checkRecovering(pExpr, () -> {
+                pExpr.apply(this);
+                GoLiteType condType = this.typeTable.get(pExpr);
+                if (condType != null && !(condType.getUnderlyingType() instanceof BoolType))
+                    this.throwTypeCheckException(pExpr,
+                    	"Non-bool (type " + condType + ") used as for condition");
+            });
         }
 
         // Type check the end statement, if it exists.
         pStmt = node.getEnd();
         if (pStmt != null)
-            pStmt.apply(this);
+            this.checkRecovering(pStmt);
 
         // Create a new scope for the loop body.
         this.symbolTable.scope();
 
         // Type check the body statements.
         for (PStmt s : node.getBlock())
-            s.apply(this);
+            this.checkRecovering(s);
 
         // Exit the scope for the loop body.
         this.symbolTable.unscope();
         // Exit the scope for the loop initializer and body.
     	this.symbolTable.unscope();
+
+        this.defaultOut(node);
     }
 
     // Block statement.
@@ -1213,6 +1689,17 @@ public class TypeChecker extends DepthFirstAdapter {
 		this.symbolTable.scope();
 	}
 
+    @Override
+    public void caseABlockStmt(ABlockStmt node) {
+        this.inABlockStmt(node);
+
+        // Type check the block statements.
+        for (PStmt s : node.getStmt())
+            this.checkRecovering(s);
+
+        this.outABlockStmt(node);
+    }
+
 	@Override
 	public void outABlockStmt(ABlockStmt node) {
 		// Drop the block scope.
@@ -1540,7 +2027,7 @@ public class TypeChecker extends DepthFirstAdapter {
             this.throwTypeCheckException(pExpr,
             	"Invalid oepration '!': undefined for type " + type);
 
-        this.typeTable.put(node, new BoolType());
+        this.typeTable.put(node, TypeFactory.BOOL);
     }
 
     /* Type check comparison expressions. */
@@ -1563,7 +2050,7 @@ public class TypeChecker extends DepthFirstAdapter {
             this.throwTypeCheckException(node,
             	"Invalid operation '==': undefined for type " + leftExprType);
 
-        this.typeTable.put(node, new BoolType());
+        this.typeTable.put(node, TypeFactory.BOOL);
     }
 
     // '!=' expression.
@@ -1584,7 +2071,7 @@ public class TypeChecker extends DepthFirstAdapter {
             this.throwTypeCheckException(node,
             	"Invalid operation '!=': undefined for type " + leftExprType);
 
-        this.typeTable.put(node, new BoolType());
+        this.typeTable.put(node, TypeFactory.BOOL);
     }
 
     // "<" expression.
@@ -1605,7 +2092,7 @@ public class TypeChecker extends DepthFirstAdapter {
             this.throwTypeCheckException(node,
             	"Invalid operation '<': undefined for type " + leftExprType);
  
-        this.typeTable.put(node, new BoolType());
+        this.typeTable.put(node, TypeFactory.BOOL);
     }
 
     // "<=" expression.
@@ -1626,7 +2113,7 @@ public class TypeChecker extends DepthFirstAdapter {
             this.throwTypeCheckException(node,
             	"Invalid operation '<=': undefined for type " + leftExprType);
  
-        this.typeTable.put(node, new BoolType());
+        this.typeTable.put(node, TypeFactory.BOOL);
     }
 
     // ">" expression.
@@ -1647,7 +2134,7 @@ public class TypeChecker extends DepthFirstAdapter {
             this.throwTypeCheckException(node,
             	"Invalid operation '>': undefined for type " + leftExprType);
  
-        this.typeTable.put(node, new BoolType());
+        this.typeTable.put(node, TypeFactory.BOOL);
     }
 
     // ">=" expression.
@@ -1668,7 +2155,7 @@ public class TypeChecker extends DepthFirstAdapter {
             this.throwTypeCheckException(node,
             	"Invalid operation '>=': undefined for type " + leftExprType);
  
-        this.typeTable.put(node, new BoolType());
+        this.typeTable.put(node, TypeFactory.BOOL);
     }
 
     /* Logical expressions. */
@@ -1693,7 +2180,7 @@ public class TypeChecker extends DepthFirstAdapter {
         	this.throwTypeCheckException(node,
         		"Invalid operation '&&': undefined for type "+ leftExprType);
 
-        this.typeTable.put(node, new BoolType());
+        this.typeTable.put(node, TypeFactory.BOOL);
     }
 
     // Or expression.
@@ -1716,7 +2203,7 @@ public class TypeChecker extends DepthFirstAdapter {
         	this.throwTypeCheckException(node,
         		"Invalid operation '||': undefined for type "+ leftExprType);
 
-        this.typeTable.put(node, new BoolType());
+        this.typeTable.put(node, TypeFactory.BOOL);
     }
 
     /* Function call expressions. */
@@ -1728,6 +2215,7 @@ public class TypeChecker extends DepthFirstAdapter {
         String name = id.getText();
 
         Symbol symbol = this.symbolTable.getSymbol(name);
+        this.skipIfErroneous(symbol);
 
         // If no corresponding symbol exists, throw an error.
         if (symbol == null)
@@ -1917,43 +2405,43 @@ public class TypeChecker extends DepthFirstAdapter {
     // Decimal integer.
     @Override
     public void outAIntLitExpr(AIntLitExpr node) {
-        this.typeTable.put(node, new IntType());
+        this.typeTable.put(node, TypeFactory.INT);
     }
 
     // Octal integer.
     @Override
     public void outAOctLitExpr(AOctLitExpr node) {
-        this.typeTable.put(node, new IntType());
+        this.typeTable.put(node, TypeFactory.INT);
     }
 
     // Hexidecimal integer.
     @Override
     public void outAHexLitExpr(AHexLitExpr node) {
-        this.typeTable.put(node, new IntType());
+        this.typeTable.put(node, TypeFactory.INT);
     }
 
     // Float.
     @Override
     public void outAFloatLitExpr(AFloatLitExpr node) {
-        this.typeTable.put(node, new FloatType());
+        this.typeTable.put(node, TypeFactory.FLOAT);
     }
 
     // Rune.
     @Override
     public void outARuneLitExpr(ARuneLitExpr node) {
-        this.typeTable.put(node, new RuneType());
+        this.typeTable.put(node, TypeFactory.RUNE);
     }
 
     // Interpreted string.
     @Override
     public void outAInterpretedStringLitExpr(AInterpretedStringLitExpr node) {
-        typeTable.put(node, new StringType());
+        typeTable.put(node, TypeFactory.STRING);
     }
 
     // Raw string.
     @Override
     public void outARawStringLitExpr(ARawStringLitExpr node) {
-        typeTable.put(node, new StringType());
+        typeTable.put(node, TypeFactory.STRING);
     }
 
 }
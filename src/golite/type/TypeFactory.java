@@ -0,0 +1,219 @@
+package golite.type;
+
+import java.lang.ref.Reference;
+import java.lang.ref.ReferenceQueue;
+import java.lang.ref.WeakReference;
+import java.util.List;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Supplier;
+
+
+/**
+ * Type Factory.
+ *
+ * Source of all GoLite types. Primitive types are singletons, and array, slice, struct and alias
+ * types are hash-consed: asking twice for a type built from the same components returns the same
+ * instance. Since the components are themselves canonical, two such types are structurally
+ * identical exactly when they're the same object, so most compatibility checks come down to a
+ * reference comparison, and the type checker no longer allocates a type per expression.
+ *
+ * Type components are matched by identity rather than by equals(), which compares aliases by name
+ * only, so that composite types over two aliases of the same name but of different types stay
+ * apart. Names are matched by equals(): two declarations of the same alias for the same type, even
+ * in different scopes, get the same alias type (which equals() already made them equal to).
+ * Canonical types are only weakly held, so that a long-running compiler doesn't accumulate the
+ * types of every program it has seen.
+ *
+ * Thread-safe.
+ */
+public final class TypeFactory {
+
+    /** bool type. */
+    public static final BoolType BOOL = new BoolType();
+    /** int type. */
+    public static final IntType INT = new IntType();
+    /** float64 type. */
+    public static final FloatType FLOAT = new FloatType();
+    /** rune type. */
+    public static final RuneType RUNE = new RuneType();
+    /** string type. */
+    public static final StringType STRING = new StringType();
+    /** Void type. */
+    public static final VoidType VOID = new VoidType();
+    /** Error type. */
+    public static final ErrorType ERROR = new ErrorType();
+
+    /**
+     * Components a composite type is built from. Types (possibly null) are compared by identity,
+     * anything else (kinds, Id's, bounds) by equality.
+     */
+    private static final class Key {
+
+        /** Components. */
+        private final Object[] parts;
+        /** Hash code. */
+        private final int hash;
+
+        /**
+         * Constructor.
+         *
+         * @param parts - Components
+         */
+        Key(Object... parts) {
+            this.parts = parts;
+
+            int code = 1;
+            for (Object part : parts)
+                code = 31 * code + (part == null || part instanceof GoLiteType
+                    ? System.identityHashCode(part) : part.hashCode());
+            this.hash = code;
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            if (!(o instanceof Key))
+                return false;
+
+            Key other = (Key) o;
+            if (this.hash != other.hash || this.parts.length != other.parts.length)
+                return false;
+
+            for (int i = 0; i < this.parts.length; i++) {
+                Object part = this.parts[i];
+                Object otherPart = other.parts[i];
+
+                if (part == null || part instanceof GoLiteType ? part != otherPart
+                    : !part.equals(otherPart))
+                    return false;
+            }
+
+            return true;
+        }
+
+        @Override
+        public int hashCode() {
+            return this.hash;
+        }
+
+    }
+
+    /** Weak reference to a canonical type, which remembers its key for expunging. */
+    private static final class Entry extends WeakReference<GoLiteType> {
+
+        /** Key of the canonical type. */
+        final Key key;
+
+        /**
+         * Constructor.
+         *
+         * @param type - Canonical type
+         * @param key - Key of the canonical type
+         */
+        Entry(GoLiteType type, Key key) {
+            super(type, collected);
+            this.key = key;
+        }
+
+    }
+
+    /** Canonical composite types, by the components they're built from. */
+    private static final ConcurrentHashMap<Key, Entry> canonical =
+        new ConcurrentHashMap<Key, Entry>();
+    /** Entries whose canonical type was garbage collected. */
+    private static final ReferenceQueue<GoLiteType> collected = new ReferenceQueue<GoLiteType>();
+
+    private TypeFactory() {}
+
+    /**
+     * Returns the array type with the given element type and bound.
+     *
+     * @param type - Element type
+     * @param bound - Array bound
+     * @return Canonical array type
+     */
+    public static ArrayType arrayOf(GoLiteType type, int bound) {
+        return intern(new Key("array", type, bound), () -> new ArrayType(type, bound));
+    }
+
+    /**
+     * Returns the slice type with the given element type.
+     *
+     * @param type - Element type
+     * @return Canonical slice type
+     */
+    public static SliceType sliceOf(GoLiteType type) {
+        return intern(new Key("slice", type), () -> new SliceType(type));
+    }
+
+    /**
+     * Returns the struct type with the given fields, in order.
+     *
+     * @param ids - Field Id's
+     * @param types - Field types, with the same length as the Id's
+     * @return Canonical struct type
+     */
+    public static StructType structOf(List<String> ids, List<GoLiteType> types) {
+        Object[] parts = new Object[2 * ids.size() + 1];
+        parts[0] = "struct";
+        for (int i = 0; i < ids.size(); i++) {
+            parts[2 * i + 1] = ids.get(i);
+            parts[2 * i + 2] = types.get(i);
+        }
+
+        return intern(new Key(parts), () -> new StructType(ids, types));
+    }
+
+    /**
+     * Returns the alias type with the given alias for the given type. Declarations of the same
+     * alias for the same type share it, whatever their scope.
+     *
+     * @param alias - Alias
+     * @param type - Aliased type
+     * @return Canonical alias type
+     */
+    public static AliasType aliasOf(String alias, GoLiteType type) {
+        return intern(new Key("alias", alias, type), () -> new AliasType(alias, type));
+    }
+
+    /**
+     * Returns the canonical type for a key, creating it if there isn't one.
+     *
+     * @param key - Components of the type
+     * @param create - Creates the type from its components
+     * @return Canonical type
+     */
+    @SuppressWarnings("unchecked")
+    private static <T extends GoLiteType> T intern(Key key, Supplier<T> create) {
+        expunge();
+
+        while (true) {
+            Entry entry = canonical.get(key);
+            if (entry != null) {
+                GoLiteType type = entry.get();
+                if (type != null)
+                    return (T) type;
+
+                // Collected but not expunged yet.
+                canonical.remove(key, entry);
+            }
+
+            T type = create.get();
+            if (canonical.putIfAbsent(key, new Entry(type, key)) == null)
+                return type;
+
+            // Another thread interned the same type first, use theirs.
+        }
+    }
+
+    /**
+     * Drops the entries of canonical types that were garbage collected.
+     */
+    private static void expunge() {
+        Reference<? extends GoLiteType> ref;
+        while ((ref = collected.poll()) != null) {
+            Entry entry = (Entry) ref;
+            canonical.remove(entry.key, entry);
+        }
+    }
+
+}
@@ -6,9 +6,15 @@ package golite.type;
  */
 public class VoidType extends GoLiteType {
 
+	/**
+	 * Constructor (Use {@link TypeFactory#VOID}).
+	 */
+	VoidType() {}
+
     @Override
     public boolean isCompatible(GoLiteType type) {
-        return type.getUnderlyingType() instanceof VoidType;
+        // The type is a singleton.
+        return type.getUnderlyingType() == this;
     }
 
 	// Equality is performed on the class.
@@ -1,6 +1,5 @@
 package golite.util;
 
-import java.util.*;
 import golite.node.*;
 import golite.analysis.*;
 
@@ -8,63 +7,118 @@ import golite.analysis.*;
 /**
  * Program line and position tracker.
  *
- * Basically copied verbatim from:
+ * Resolves the line and position of an AST node on demand, as those of its first token, or if it
+ * has none (e.g. an empty statement), of the first token following it. Only error messages need
+ * positions, so rather than record them for every node of the tree ahead of time, they're looked
+ * up by walking the tree around the node the error is reported on, which leaves nothing to build
+ * or keep per phase.
+ *
+ * Gives the same positions as the tracker of:
  * <a href="http://lists.sablecc.org/pipermail/sablecc-discussion/msg00144.html">http://lists.sablecc.org/pipermail/sablecc-discussion/msg00144.html</a>
  */
-public class LineAndPosTracker extends ReversedDepthFirstAdapter {
-    
-    /** Tracks the line number for every AST token node. */
-    private Map<Node, Integer> lines = new HashMap<Node, Integer>();
-    /** Tracks the starting position number for every AST token node. */
-    private Map<Node, Integer> positions = new HashMap<Node, Integer>();
+public final class LineAndPosTracker {
+
+    /** Finds the first token (in program order) in a subtree, after a given node if any. */
+    private static class TokenFinder extends DepthFirstAdapter {
+
+        /** Node the token has to follow (null for none). */
+        private final Node after;
+        /** Flag indicating whether the node the token has to follow was passed. */
+        private boolean passed;
+        /** First token found (null until found). */
+        private Token token;
+
+        /**
+         * @param after - Node the token has to follow (null for none)
+         */
+        TokenFinder(Node after) {
+            this.after = after;
+            this.passed = after == null;
+        }
+
+        /**
+         * Called on every token.
+         *
+         * @param node - Token
+         */
+        @Override
+        public void defaultCase(Node node) {
+            if (this.passed && this.token == null)
+                this.token = (Token) node;
+        }
+
+        /**
+         * Called on exiting every other node.
+         *
+         * @param node - AST node
+         */
+        @Override
+        public void defaultOut(Node node) {
+            if (node == this.after)
+                this.passed = true;
+        }
+
+    }
 
-    /** Tracks current line and position number. */
-    private int line, pos;
+    private LineAndPosTracker() {}
 
     /**
-     * Returns the line number for a given token node.
+     * Returns the token whose line and position a node has.
      *
-     * @param node - AST node token
-     * @return Line number
+     * @param node - AST node
+     * @return Token, or null if neither the node nor anything after it has a token
      */
-    public int getLine(Node node) {
-        return this.lines.get(node);
+    private static Token locate(Node node) {
+        if (node instanceof Token)
+            return (Token) node;
+
+        TokenFinder finder = new TokenFinder(null);
+        node.apply(finder);
+
+        // Widen the search to the tokens following the node, one ancestor at a time.
+        for (Node child = node, parent = node.parent(); finder.token == null && parent != null;
+            child = parent, parent = parent.parent()) {
+
+            finder = new TokenFinder(child);
+            parent.apply(finder);
+        }
+
+        return finder.token;
     }
 
     /**
-     * Returns the start position number for a given node token.
+     * Returns whether a node has a position of its own, whatever follows it.
      *
-     * @param node - AST node token
-     * @return Start position number
+     * @param node - AST node
+     * @return True if the subtree of the node has a token
      */
-    public int getPos(Node node) {
-        return this.positions.get(node);
+    public static boolean hasToken(Node node) {
+        TokenFinder finder = new TokenFinder(null);
+        node.apply(finder);
+
+        return finder.token != null;
     }
 
     /**
-     * Wrapper called on every AST token node to track line and position information.
+     * Returns the line number for a given node.
      *
      * @param node - AST node
+     * @return Line number (0 if it has none)
      */
-    @Override
-    public void defaultCase(Node node) {
-      Token token = (Token) node;
-      this.line = token.getLine();
-      this.pos = token.getPos();
-      lines.put(node, this.line);
-      positions.put(node, this.pos);
+    public static int getLine(Node node) {
+        Token token = locate(node);
+        return (token != null) ? token.getLine() : 0;
     }
 
     /**
-     * Wrapper called on exiting every AST token node to update line and position information.
+     * Returns the start position number for a given node.
      *
      * @param node - AST node
+     * @return Start position number (0 if it has none)
      */
-    @Override
-    public void defaultOut(Node node) {
-      // use the line/pos of the last seen token
-      lines.put(node, this.line);
-      positions.put(node, this.pos);
+    public static int getPos(Node node) {
+        Token token = locate(node);
+        return (token != null) ? token.getPos() : 0;
     }
 
-}
\ No newline at end of file
+}
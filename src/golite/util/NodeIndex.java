@@ -0,0 +1,141 @@
+package golite.util;
+
+import golite.node.Node;
+
+import java.util.Arrays;
+
+
+/**
+ * Index of AST nodes.
+ *
+ * Hands out dense integer IDs (0, 1, 2, ...) to AST nodes in the order they're added, so that
+ * analysis results can be kept in arrays indexed by ID ({@link NodeTable}) rather than in hash maps
+ * of their own. Several tables can share an index, in which case a node has the same ID in all of
+ * them. Nodes are told apart by identity.
+ *
+ * Only nodes that something is recorded for are added, the first time something is, so that the
+ * index stays as small as the tables using it. The generated node classes can't carry their ID, so
+ * looking a node up ({@link #id(Node)}) is still a probe of an identity hash table, if an open
+ * addressed one over an int array rather than a chain of map entries: it's only once a node's ID
+ * is known that its values are a plain array access away ({@link NodeTable#get(int)}).
+ */
+public final class NodeIndex {
+
+    /** Initial number of hash slots (a power of 2). */
+    private static final int INITIAL_CAPACITY = 64;
+
+    /** Open-addressed hash slots, each holding the ID of a node plus 1 (0 if free). */
+    private int[] slots;
+    /** Nodes, by ID. */
+    private Node[] nodes;
+    /** Number of nodes. */
+    private int size;
+
+    /**
+     * Constructor.
+     */
+    public NodeIndex() {
+        this.slots = new int[INITIAL_CAPACITY];
+        this.nodes = new Node[INITIAL_CAPACITY / 2];
+        this.size = 0;
+    }
+
+    /**
+     * Returns the ID of a node.
+     *
+     * @param node - AST node
+     * @return ID, or -1 if the node isn't in the index
+     */
+    public int id(Node node) {
+        int mask = this.slots.length - 1;
+        for (int i = hash(node) & mask; this.slots[i] != 0; i = (i + 1) & mask) {
+            int id = this.slots[i] - 1;
+            if (this.nodes[id] == node)
+                return id;
+        }
+
+        return -1;
+    }
+
+    /**
+     * Returns the ID of a node, adding it to the index if it isn't already.
+     *
+     * @param node - AST node
+     * @return ID
+     */
+    public int add(Node node) {
+        int mask = this.slots.length - 1;
+        int i = hash(node) & mask;
+        for (; this.slots[i] != 0; i = (i + 1) & mask) {
+            int id = this.slots[i] - 1;
+            if (this.nodes[id] == node)
+                return id;
+        }
+
+        int id = this.size++;
+        if (id == this.nodes.length)
+            this.nodes = Arrays.copyOf(this.nodes, 2 * id);
+        this.nodes[id] = node;
+        this.slots[i] = id + 1;
+
+        // Keep at least a third of the slots free, so that probes stay short.
+        if (3 * this.size > 2 * this.slots.length)
+            this.rehash();
+
+        return id;
+    }
+
+    /**
+     * Returns the node with a given ID.
+     *
+     * @param id - ID
+     * @return AST node
+     */
+    public Node node(int id) {
+        return this.nodes[id];
+    }
+
+    /**
+     * @return Number of nodes in the index
+     */
+    public int size() {
+        return this.size;
+    }
+
+    /**
+     * Removes all the nodes, shrinking the index back to its initial capacity (e.g. to reuse it
+     * for the next of a series of ASTs, without keeping the previous ones alive).
+     */
+    public void clear() {
+        this.slots = new int[INITIAL_CAPACITY];
+        this.nodes = new Node[INITIAL_CAPACITY / 2];
+        this.size = 0;
+    }
+
+    /**
+     * Doubles the number of hash slots.
+     */
+    private void rehash() {
+        this.slots = new int[2 * this.slots.length];
+
+        int mask = this.slots.length - 1;
+        for (int id = 0; id < this.size; id++) {
+            int i = hash(this.nodes[id]) & mask;
+            while (this.slots[i] != 0)
+                i = (i + 1) & mask;
+
+            this.slots[i] = id + 1;
+        }
+    }
+
+    /**
+     * @param node - AST node
+     * @return Hash of the node's identity
+     */
+    private static int hash(Node node) {
+        int h = System.identityHashCode(node);
+        // Spread the high bits down, as only the low ones pick the slot.
+        return h ^ (h >>> 16);
+    }
+
+}
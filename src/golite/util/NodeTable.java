@@ -0,0 +1,183 @@
+package golite.util;
+
+import golite.node.Node;
+
+import java.util.AbstractMap;
+import java.util.AbstractSet;
+import java.util.Arrays;
+import java.util.Iterator;
+import java.util.Map;
+import java.util.NoSuchElementException;
+import java.util.Set;
+
+
+/**
+ * Side table recording a value for AST nodes, in an array indexed by their IDs in a
+ * {@link NodeIndex}. Only the type checker's types are kept in one so far.
+ *
+ * Also a (read-only, but for {@link #put(Node, Object)} and {@link #clear()}) map view of the
+ * recorded values, for code written against maps. Null values aren't recorded, so a node mapped to
+ * null has no entry.
+ *
+ * @param <V> - Type of the values
+ */
+public final class NodeTable<V> extends AbstractMap<Node, V> {
+
+    /** Index giving the nodes their IDs. */
+    private final NodeIndex index;
+    /** Values, by node ID (null if none). */
+    private Object[] values;
+    /** Number of values. */
+    private int size;
+
+    /**
+     * Constructor (Index of its own).
+     */
+    public NodeTable() {
+        this(new NodeIndex());
+    }
+
+    /**
+     * Constructor.
+     *
+     * @param index - Index giving the nodes their IDs (possibly shared with other tables)
+     */
+    public NodeTable(NodeIndex index) {
+        this.index = index;
+        this.values = new Object[Math.max(index.size(), 16)];
+        this.size = 0;
+    }
+
+    /**
+     * Getter.
+     */
+    public NodeIndex getIndex() {
+        return this.index;
+    }
+
+    /**
+     * Returns the value recorded for the node with a given ID.
+     *
+     * @param id - Node ID
+     * @return Value, or null if none was recorded
+     */
+    @SuppressWarnings("unchecked")
+    public V get(int id) {
+        return (id >= 0 && id < this.values.length) ? (V) this.values[id] : null;
+    }
+
+    @Override
+    public V get(Object key) {
+        return (key instanceof Node) ? this.get(this.index.id((Node) key)) : null;
+    }
+
+    @Override
+    public boolean containsKey(Object key) {
+        return this.get(key) != null;
+    }
+
+    /**
+     * Records a value for a node.
+     *
+     * @param node - AST node
+     * @param value - Value (null to drop the node's value, if any)
+     * @return Value previously recorded for the node, or null if none was
+     */
+    @Override
+    public V put(Node node, V value) {
+        if (value == null) {
+            int id = this.index.id(node);
+            V old = this.get(id);
+            if (old != null) {
+                this.values[id] = null;
+                this.size--;
+            }
+
+            return old;
+        }
+
+        int id = this.index.add(node);
+        if (id >= this.values.length)
+            this.values = Arrays.copyOf(this.values, Math.max(2 * this.values.length, id + 1));
+
+        V old = this.get(id);
+        this.values[id] = value;
+        if (old == null)
+            this.size++;
+
+        return old;
+    }
+
+    /**
+     * Records the values of another table, in the order of their node IDs there (e.g. to merge
+     * tables filled in separately).
+     *
+     * @param table - Table
+     */
+    @SuppressWarnings("unchecked")
+    public void putAll(NodeTable<? extends V> table) {
+        for (int id = 0; id < table.values.length; id++) {
+            if (table.values[id] != null)
+                this.put(table.index.node(id), (V) table.values[id]);
+        }
+    }
+
+    /**
+     * Drops all the values, along with the nodes of the index (which mustn't be shared with other
+     * tables then), shrinking both back to their initial capacity.
+     */
+    @Override
+    public void clear() {
+        this.index.clear();
+        this.values = new Object[16];
+        this.size = 0;
+    }
+
+    @Override
+    public int size() {
+        return this.size;
+    }
+
+    @Override
+    public Set<Map.Entry<Node, V>> entrySet() {
+        return new AbstractSet<Map.Entry<Node, V>>() {
+            @Override
+            public Iterator<Map.Entry<Node, V>> iterator() {
+                return new Iterator<Map.Entry<Node, V>>() {
+                    /** ID of the next node with a value (or past the last ID). */
+                    private int next = this.skip(0);
+
+                    private int skip(int id) {
+                        while (id < NodeTable.this.values.length && NodeTable.this.get(id) == null)
+                            id++;
+
+                        return id;
+                    }
+
+                    @Override
+                    public boolean hasNext() {
+                        return this.next < NodeTable.this.values.length;
+                    }
+
+                    @Override
+                    public Map.Entry<Node, V> next() {
+                        if (!this.hasNext())
+                            throw new NoSuchElementException();
+
+                        int id = this.next;
+                        this.next = this.skip(id + 1);
+
+                        return new AbstractMap.SimpleImmutableEntry<Node, V>(
+                            NodeTable.this.index.node(id), NodeTable.this.get(id));
+                    }
+                };
+            }
+
+            @Override
+            public int size() {
+                return NodeTable.this.size;
+            }
+        };
+    }
+
+}
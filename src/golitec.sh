@@ -7,11 +7,53 @@
 
 usage() {
 	echo -e "Usage: $0 <scan | tokens | parse | pretty | ast | type | dumpsymtab | pptype | gen | help> [-safe] filepath"
+	echo -e "       $0 server [port]"
+}
+
+# Port of the compile server.
+PORT=${GOLITEC_PORT:-5205}
+
+# File holding the secret of the compile server, readable by the user who started it only.
+SECRET_FILE=$HOME/.golitec-$PORT
+
+# Runs the compiler with the given arguments, on the compile server if one is listening (see
+# `golitec.sh server`) and we can read its secret, and in a fresh JVM otherwise.
+# The server replays stdout and stderr line by line in the order the lines were printed, so the
+# streams interleave as in a local run, at line granularity.
+compile() {
+	if [[ -r $SECRET_FILE ]] && { exec 3<>/dev/tcp/127.0.0.1/$PORT; } 2>/dev/null
+	then
+		printf '%s\n%s\n%d\n' "$(<"$SECRET_FILE")" "$PWD" $# >&3
+		printf '%s\n' "$@" >&3
+
+		STATUS=-1
+		while IFS= read -r LINE <&3
+		do
+			# printf rather than echo, which would take lines such as "-n" for options.
+			case $LINE in
+				"1 "*) printf '%s\n' "${LINE:2}" ;;
+				"2 "*) printf '%s\n' "${LINE:2}" >&2 ;;
+				"exit "*) STATUS=${LINE:5} ;;
+			esac
+		done
+		exec 3<&-
+
+		exit $STATUS
+	fi
+
+	java -cp jars/commons-cli-1.3.1.jar: golite.Main "$@"
 }
 
 # Compiler option.
 OPT=$1
 
+# Start a compile server in the foreground.
+if [[ $OPT == "server" ]]
+then
+	java -Duser.home="$HOME" -cp jars/commons-cli-1.3.1.jar: golite.Main -server -port ${2:-$PORT}
+	exit $?
+fi
+
 # No safe flag.
 if [[ -z $3 ]]
 then
@@ -47,4 +89,4 @@ then
 	exit -1
 fi
 
-java -cp jars/commons-cli-1.3.1.jar: golite.Main -$OPT $SAFE_FLAG $PROG_PATH
+compile -$OPT $SAFE_FLAG $PROG_PATH